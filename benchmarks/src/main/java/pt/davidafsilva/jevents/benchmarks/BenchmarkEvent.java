@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+/**
+ * The event used throughout the benchmarks.
+ *
+ * Listeners record each delivery in the event itself, so that the
+ * handling cannot be optimized away.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class BenchmarkEvent implements Event {
+
+	// number of deliveries
+	long handled;
+
+	/**
+	 * Returns the number of deliveries of this event
+	 *
+	 * @return the number of deliveries
+	 */
+	public long getHandled() {
+		return handled;
+	}
+
+	/**
+	 * The listener used throughout the benchmarks.
+	 */
+	public static final class Listener implements EventListener<BenchmarkEvent> {
+
+		@Override
+		public void handle(final BenchmarkEvent event) {
+			event.handled++;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.bridge.BridgeTransport;
+import pt.davidafsilva.jevents.bridge.SharedMemoryTransport;
+import pt.davidafsilva.jevents.bridge.SocketTransport;
+import pt.davidafsilva.jevents.codec.CodecRegistry;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the round trip latency of an event through the bridge transports: the event is sent to
+ * a peer, within the same process, which echoes it back.
+ *
+ * The rings are waited on by yielding rather than busy spinning, so that the results remain meaningful
+ * on machines with fewer cores than the spinning threads.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BridgeBenchmark {
+
+	@Param({"shm", "socket"})
+	String transport;
+
+	// the sent event
+	private final PingEvent ping = new PingEvent();
+
+	// the ring files directory
+	private Path directory;
+
+	// the local transport
+	private BridgeTransport local;
+
+	// the echoing peer transport
+	private BridgeTransport peer;
+
+	// the number of echoed events
+	private volatile long echoed;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if ("shm".equals(transport)) {
+			directory = Files.createTempDirectory("jevents-bridge");
+			local = SharedMemoryTransport.open(directory.resolve("out"), directory.resolve("in"),
+					SharedMemoryTransport.DEFAULT_CAPACITY, WaitStrategy.YIELD);
+			peer = SharedMemoryTransport.open(directory.resolve("in"), directory.resolve("out"),
+					SharedMemoryTransport.DEFAULT_CAPACITY, WaitStrategy.YIELD);
+		} else {
+			final SocketTransport server = SocketTransport.listen(0);
+			local = server;
+			peer = SocketTransport.connect(server.getLocalPort());
+		}
+		local.open(CodecRegistry.INSTANCE, event -> echoed++);
+		peer.open(CodecRegistry.INSTANCE, event -> peer.send(event));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		peer.close();
+		local.close();
+		if (directory != null) {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	@Benchmark
+	public long roundTrip() {
+		final long expected = echoed + 1;
+		local.send(ping);
+		long current;
+		while ((current = echoed) < expected) {
+			Thread.yield();
+		}
+		return current;
+	}
+
+	/**
+	 * The sent event
+	 */
+	public static final class PingEvent implements Event {
+
+		private long sequence;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.channel.ChannelRegistry;
+import pt.davidafsilva.jevents.channel.LongChannel;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of a <code>long</code> value through a primitive channel against the dispatch
+ * of the same value wrapped in a freshly allocated event, either synchronously or asynchronously.
+ *
+ * Run with <code>-prof gc</code> to compare the allocation rates.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ChannelBenchmark {
+
+	// the bus of the benchmark
+	private EventBus bus;
+
+	// the channel of the values
+	private LongChannel channel;
+
+	// the dispatched value
+	private long value;
+
+	@Setup(Level.Trial)
+	public void setUp(final Blackhole blackhole) {
+		bus = EventBus.create();
+		channel = bus.getChannels().longChannel("ticks", ChannelRegistry.DEFAULT_BUFFER_SIZE, WaitStrategy.YIELD);
+		channel.register(blackhole::consume);
+		bus.register(TickEvent.class, event -> blackhole.consume(event.value));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		bus.shutdown();
+		bus.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	@Benchmark
+	public void channel() {
+		channel.dispatch(value++);
+	}
+
+	@Benchmark
+	public void event() {
+		bus.dispatch(new TickEvent(value++));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DispatchBenchmark.ASYNC_BATCH)
+	public void channelAsync() throws InterruptedException {
+		for (int i = 0; i < DispatchBenchmark.ASYNC_BATCH; i++) {
+			channel.dispatchAsync(value++);
+		}
+		bus.getDispatcher().drain(1, TimeUnit.MINUTES);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DispatchBenchmark.ASYNC_BATCH)
+	public void eventAsync() throws InterruptedException {
+		for (int i = 0; i < DispatchBenchmark.ASYNC_BATCH; i++) {
+			bus.dispatchAsync(new TickEvent(value++));
+		}
+		bus.getDispatcher().drain(1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * The event which wraps the dispatched value
+	 */
+	public static final class TickEvent implements Event {
+
+		private final long value;
+
+		private TickEvent(final long value) {
+			this.value = value;
+		}
+	}
+}
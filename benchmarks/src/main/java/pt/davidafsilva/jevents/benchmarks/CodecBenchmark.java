@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.CodecRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of an event through the codec registry, backed by the binary codec,
+ * against the one through <code>java.io</code> serialization.
+ *
+ * Run with <code>-prof gc</code> to compare the allocation rates.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class CodecBenchmark {
+
+	// the encoded event
+	private final TradeEvent event = new TradeEvent(42L, "EURUSD", 1.0842, 1_000_000);
+
+	// the buffer where the event is encoded
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+	@Benchmark
+	public long encode() {
+		buffer.clear();
+		CodecRegistry.INSTANCE.encode(event, buffer);
+		return buffer.position();
+	}
+
+	@Benchmark
+	public Event binary() {
+		buffer.clear();
+		CodecRegistry.INSTANCE.encode(event, buffer);
+		buffer.flip();
+		return CodecRegistry.INSTANCE.decode(buffer);
+	}
+
+	@Benchmark
+	public Object serialization() throws IOException, ClassNotFoundException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(event);
+		}
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return input.readObject();
+		}
+	}
+
+	/**
+	 * The encoded event
+	 */
+	public static final class TradeEvent implements Event, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private long id;
+		private String symbol;
+		private double price;
+		private int quantity;
+
+		private TradeEvent() {
+		}
+
+		private TradeEvent(final long id, final String symbol, final double price, final int quantity) {
+			this.id = id;
+			this.symbol = symbol;
+			this.price = price;
+			this.quantity = quantity;
+		}
+	}
+}
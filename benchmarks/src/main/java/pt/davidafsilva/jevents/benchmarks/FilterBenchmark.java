@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.registry.EventKey;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the synchronous dispatch of an event to one out of <code>tenants</code> listeners, either
+ * registered with a key filter or checking the key themselves.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class FilterBenchmark {
+
+	// the tenant key
+	private static final EventKey<TenantEvent, Integer> TENANT = EventKey.of(event -> event.tenant);
+
+	@Param({"10", "1000"})
+	private int tenants;
+
+	// the bus with the filtered listeners
+	private EventBus indexed;
+
+	// the bus with the checking listeners
+	private EventBus checked;
+
+	// the dispatched events, one per tenant
+	private TenantEvent[] events;
+
+	// the next event
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp(final Blackhole blackhole) {
+		indexed = EventBus.create();
+		checked = EventBus.create();
+		events = new TenantEvent[tenants];
+		for (int i = 0; i < tenants; i++) {
+			final Integer tenant = i;
+			events[i] = new TenantEvent(tenant);
+			indexed.register(TenantEvent.class, TENANT, tenant, blackhole::consume);
+			checked.register(TenantEvent.class, event -> {
+				if (!tenant.equals(event.tenant)) {
+					return;
+				}
+				blackhole.consume(event);
+			});
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		indexed.shutdown();
+		checked.shutdown();
+		indexed.awaitTermination(1, TimeUnit.MINUTES);
+		checked.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	@Benchmark
+	public void indexed() {
+		indexed.dispatch(nextEvent());
+	}
+
+	@Benchmark
+	public void checked() {
+		checked.dispatch(nextEvent());
+	}
+
+	private TenantEvent nextEvent() {
+		final TenantEvent event = events[next];
+		next = next + 1 == tenants ? 0 : next + 1;
+		return event;
+	}
+
+	/**
+	 * The event of a single tenant
+	 */
+	public static final class TenantEvent implements Event {
+
+		private final Integer tenant;
+
+		private TenantEvent(final Integer tenant) {
+			this.tenant = tenant;
+		}
+	}
+}
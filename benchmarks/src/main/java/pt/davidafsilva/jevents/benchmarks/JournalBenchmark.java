@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.EventCodec;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.journal.EventJournal;
+import pt.davidafsilva.jevents.journal.JournalPolicy;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the cost of journaling: plain appends, for a varying sync batch, and asynchronous
+ * dispatches with the journal installed, comparable to {@link DispatchBenchmark#dispatchAsync()}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JournalBenchmark {
+
+	@Param({"0", "1024"})
+	int syncBatch;
+
+	// the dispatched event
+	private final BenchmarkEvent event = new BenchmarkEvent();
+
+	// the journal directory
+	private Path directory;
+
+	// the journal
+	private EventJournal journal;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("jevents-journal");
+		journal = EventJournal.open(directory, new Codec(),
+				JournalPolicy.of(64 * 1024 * 1024, 4).withSync(syncBatch, 0, TimeUnit.SECONDS));
+		EventRegistry.INSTANCE.register(new BenchmarkEvent.Listener());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		EventDispatcher.INSTANCE.setJournal(null);
+		EventRegistry.INSTANCE.unregisterAll(BenchmarkEvent.class);
+		journal.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Benchmark
+	public long append() {
+		return journal.append(event);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DispatchBenchmark.ASYNC_BATCH)
+	public BenchmarkEvent dispatchAsync() throws InterruptedException {
+		EventDispatcher.INSTANCE.setJournal(journal);
+		for (int i = 0; i < DispatchBenchmark.ASYNC_BATCH; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(event);
+		}
+		EventDispatcher.INSTANCE.drain(1, TimeUnit.MINUTES);
+		return event;
+	}
+
+	/**
+	 * The codec of the benchmark event, which writes the number of deliveries
+	 */
+	private static final class Codec implements EventCodec<Event> {
+
+		@Override
+		public void encode(final Event event, final ByteBuffer target) {
+			target.putLong(((BenchmarkEvent) event).handled);
+		}
+
+		@Override
+		public Event decode(final ByteBuffer source) {
+			source.getLong();
+			return new BenchmarkEvent();
+		}
+	}
+}
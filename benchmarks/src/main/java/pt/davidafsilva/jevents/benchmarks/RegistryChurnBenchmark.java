@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the registry lookup performed by every dispatch while other threads
+ * keep registering and unregistering listeners of the same event type.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RegistryChurnBenchmark {
+
+	@Param({"1", "10", "100"})
+	int listeners;
+
+	// the listener being registered and unregistered
+	private final BenchmarkEvent.Listener churn = new BenchmarkEvent.Listener();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		for (int i = 0; i < listeners; i++) {
+			EventRegistry.INSTANCE.register(new BenchmarkEvent.Listener());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		EventRegistry.INSTANCE.unregisterAll(BenchmarkEvent.class);
+	}
+
+	@Benchmark
+	@Group("churn")
+	@GroupThreads(3)
+	public EventListener<BenchmarkEvent>[] lookup() {
+		return EventRegistry.INSTANCE.resolveListeners(BenchmarkEvent.class);
+	}
+
+	@Benchmark
+	@Group("churn")
+	@GroupThreads(1)
+	public boolean registerUnregister() {
+		EventRegistry.INSTANCE.register(BenchmarkEvent.class, churn);
+		return EventRegistry.INSTANCE.unregister(BenchmarkEvent.class, churn);
+	}
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The annotation processor which generates a {@link pt.davidafsilva.jevents.ListenerIndex} for the
+ * compiled sources, registering it as a service.
+ *
+ * The generated index holds:
+ * <ul>
+ * <li>the event type of every accessible {@link pt.davidafsilva.jevents.EventListener} implementation</li>
+ * <li>typed stubs for the {@link pt.davidafsilva.jevents.Subscribe subscriber methods} of every accessible class</li>
+ * <li>the registration of every {@link pt.davidafsilva.jevents.IndexedListener indexed listener}</li>
+ * </ul>
+ *
+ * Only the public classes and methods are indexed, the remaining ones are still resolved through
+ * reflection at runtime. The name of the generated class is defined by the <code>jevents.index</code>
+ * option, defaulting to <code>JEventsListenerIndex</code> in the package of the first processed class.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class ListenerIndexProcessor extends AbstractProcessor {
+
+	/**
+	 * The option which defines the fully qualified name of the generated index
+	 */
+	public static final String INDEX_OPTION = "jevents.index";
+
+	// the default simple name of the generated index
+	private static final String DEFAULT_INDEX_NAME = "JEventsListenerIndex";
+
+	// the qualified names of the framework types
+	private static final String EVENT = "pt.davidafsilva.jevents.Event";
+	private static final String EVENT_LISTENER = "pt.davidafsilva.jevents.EventListener";
+	private static final String SUBSCRIBE = "pt.davidafsilva.jevents.Subscribe";
+	private static final String INDEXED_LISTENER = "pt.davidafsilva.jevents.IndexedListener";
+
+	// the processing utilities
+	private Elements elements;
+	private Types types;
+	private Filer filer;
+	private Messager messager;
+
+	// whether or not the index was already generated
+	private boolean generated;
+
+	@Override
+	public synchronized void init(final ProcessingEnvironment environment) {
+		super.init(environment);
+		this.elements = environment.getElementUtils();
+		this.types = environment.getTypeUtils();
+		this.filer = environment.getFiler();
+		this.messager = environment.getMessager();
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		// every class is inspected, as listeners are not necessarily annotated
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(INDEX_OPTION);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment round) {
+		if (generated || round.processingOver() || round.getRootElements().isEmpty() ||
+				elements.getTypeElement(EVENT_LISTENER) == null) {
+			return false;
+		}
+		final Map<String, String> eventTypes = new LinkedHashMap<>();
+		final Map<String, List<ExecutableElement>> subscribers = new LinkedHashMap<>();
+		final Map<String, String> indexed = new LinkedHashMap<>();
+		TypeElement first = null;
+
+		for (TypeElement type : typesOf(round.getRootElements())) {
+			if (first == null) {
+				first = type;
+			}
+			if (type.getKind() != ElementKind.CLASS || !isAccessible(type)) {
+				continue;
+			}
+			final TypeElement eventType = eventTypeOf(type.asType());
+			if (eventType != null && isAccessible(eventType)) {
+				eventTypes.put(type.getQualifiedName().toString(), eventType.getQualifiedName().toString());
+			}
+			final List<ExecutableElement> methods = subscriberMethodsOf(type);
+			if (methods != null && !methods.isEmpty()) {
+				subscribers.put(type.getQualifiedName().toString(), methods);
+			}
+			if (hasAnnotation(type, INDEXED_LISTENER) && validateIndexed(type, eventType)) {
+				indexed.put(type.getQualifiedName().toString(), eventType.getQualifiedName().toString());
+			}
+		}
+
+		// validate the annotations of the inaccessible classes as well
+		for (TypeElement type : typesOf(round.getRootElements())) {
+			if (hasAnnotation(type, INDEXED_LISTENER) && !isAccessible(type)) {
+				messager.printMessage(Diagnostic.Kind.ERROR, "Indexed listeners must be public classes.", type);
+			}
+		}
+
+		if (first != null && !(eventTypes.isEmpty() && subscribers.isEmpty() && indexed.isEmpty())) {
+			generated = true;
+			write(indexName(first), eventTypes, subscribers, indexed);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the given root elements along with all of their nested types
+	 *
+	 * @param roots
+	 * 		the root elements
+	 * @return the types
+	 */
+	private static List<TypeElement> typesOf(final Set<? extends Element> roots) {
+		final List<TypeElement> found = new ArrayList<>();
+		final Deque<TypeElement> pending = new ArrayDeque<>(ElementFilter.typesIn(roots));
+		while (!pending.isEmpty()) {
+			final TypeElement type = pending.poll();
+			found.add(type);
+			pending.addAll(ElementFilter.typesIn(type.getEnclosedElements()));
+		}
+		return found;
+	}
+
+	/**
+	 * Resolves the event type bound to {@link pt.davidafsilva.jevents.EventListener} by the given type
+	 *
+	 * @param type
+	 * 		the type
+	 * @return the event type or <code>null</code> if the type is not a listener or the event type is not bound
+	 */
+	private TypeElement eventTypeOf(final TypeMirror type) {
+		final Deque<TypeMirror> pending = new ArrayDeque<>();
+		final Set<String> seen = new HashSet<>();
+		pending.add(type);
+		while (!pending.isEmpty()) {
+			final TypeMirror current = pending.poll();
+			if (current.getKind() != TypeKind.DECLARED || !seen.add(current.toString())) {
+				continue;
+			}
+			final DeclaredType declared = (DeclaredType) current;
+			final TypeElement element = (TypeElement) declared.asElement();
+			if (element.getQualifiedName().contentEquals(EVENT_LISTENER)) {
+				final List<? extends TypeMirror> arguments = declared.getTypeArguments();
+				return arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED ?
+						(TypeElement) ((DeclaredType) arguments.get(0)).asElement() : null;
+			}
+			pending.addAll(types.directSupertypes(current));
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the subscriber methods of the given class, including the inherited ones
+	 *
+	 * @param type
+	 * 		the class
+	 * @return the subscriber methods, or <code>null</code> if any of them cannot be indexed
+	 */
+	private List<ExecutableElement> subscriberMethodsOf(final TypeElement type) {
+		final boolean declares = ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+				.anyMatch(method -> hasAnnotation(method, SUBSCRIBE));
+		if (!declares) {
+			return null;
+		}
+		final TypeMirror event = elements.getTypeElement(EVENT).asType();
+		final TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+		final TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+		final List<ExecutableElement> methods = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+			if (!hasAnnotation(method, SUBSCRIBE)) {
+				continue;
+			}
+			final Set<Modifier> modifiers = method.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) ||
+					method.getParameters().size() != 1 || !isAccessible((TypeElement) method.getEnclosingElement())) {
+				return null;
+			}
+			final TypeMirror parameter = method.getParameters().get(0).asType();
+			if (parameter.getKind() != TypeKind.DECLARED || !types.isAssignable(parameter, event) ||
+					!isAccessible((TypeElement) types.asElement(parameter))) {
+				return null;
+			}
+			for (TypeMirror thrown : method.getThrownTypes()) {
+				if (!types.isSubtype(thrown, runtimeException) && !types.isSubtype(thrown, error)) {
+					return null;
+				}
+			}
+			methods.add(method);
+		}
+		return methods;
+	}
+
+	/**
+	 * Validates the given indexed listener, reporting the errors
+	 *
+	 * @param type
+	 * 		the indexed listener
+	 * @param eventType
+	 * 		the resolved event type, if any
+	 * @return <code>true</code> if valid, <code>false</code> otherwise
+	 */
+	private boolean validateIndexed(final TypeElement type, final TypeElement eventType) {
+		if (eventType == null || !isAccessible(eventType)) {
+			messager.printMessage(Diagnostic.Kind.ERROR,
+					"Indexed listeners must implement EventListener with a public event type.", type);
+			return false;
+		}
+		if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+			messager.printMessage(Diagnostic.Kind.ERROR, "Indexed listeners must be concrete, non-generic classes.",
+					type);
+			return false;
+		}
+		final boolean constructible = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+				.anyMatch(constructor -> constructor.getParameters().isEmpty() &&
+						constructor.getModifiers().contains(Modifier.PUBLIC));
+		if (!constructible) {
+			messager.printMessage(Diagnostic.Kind.ERROR,
+					"Indexed listeners must have a public no-arguments constructor.", type);
+		}
+		return constructible;
+	}
+
+	/**
+	 * Checks whether or not the given type, and all of its enclosing types, are public
+	 * and static, when nested
+	 *
+	 * @param type
+	 * 		the type
+	 * @return <code>true</code> if accessible from any package, <code>false</code> otherwise
+	 */
+	private static boolean isAccessible(final TypeElement type) {
+		Element current = type;
+		while (current instanceof TypeElement) {
+			final Set<Modifier> modifiers = current.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC)) {
+				return false;
+			}
+			final Element enclosing = current.getEnclosingElement();
+			if (enclosing instanceof TypeElement && !modifiers.contains(Modifier.STATIC) &&
+					current.getKind() == ElementKind.CLASS) {
+				return false;
+			}
+			current = enclosing;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether or not the given element is annotated with the given annotation
+	 *
+	 * @param element
+	 * 		the element
+	 * @param annotation
+	 * 		the qualified name of the annotation
+	 * @return <code>true</code> if annotated, <code>false</code> otherwise
+	 */
+	private static boolean hasAnnotation(final Element element, final String annotation) {
+		return element.getAnnotationMirrors().stream().anyMatch(mirror ->
+				((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation));
+	}
+
+	/**
+	 * Returns the qualified name of the generated index
+	 *
+	 * @param first
+	 * 		the first processed class
+	 * @return the index name
+	 */
+	private String indexName(final TypeElement first) {
+		final String configured = processingEnv.getOptions().get(INDEX_OPTION);
+		if (configured != null && !configured.isEmpty()) {
+			return configured;
+		}
+		final PackageElement pkg = elements.getPackageOf(first);
+		return pkg.isUnnamed() ? DEFAULT_INDEX_NAME : pkg.getQualifiedName() + "." + DEFAULT_INDEX_NAME;
+	}
+
+	/**
+	 * Writes the index source and its service registration
+	 *
+	 * @param name
+	 * 		the qualified name of the index
+	 * @param eventTypes
+	 * 		the event types per listener class
+	 * @param subscribers
+	 * 		the subscriber methods per class
+	 * @param indexed
+	 * 		the event types per indexed listener
+	 */
+	private void write(final String name, final Map<String, String> eventTypes,
+			final Map<String, List<ExecutableElement>> subscribers, final Map<String, String> indexed) {
+		final int separator = name.lastIndexOf('.');
+		final StringBuilder source = new StringBuilder();
+		if (separator > 0) {
+			source.append("package ").append(name, 0, separator).append(";\n\n");
+		}
+		source.append("/**\n * The listener index generated by ").append(getClass().getName()).append(".\n */\n")
+				.append("public final class ").append(name.substring(separator + 1))
+				.append(" implements pt.davidafsilva.jevents.ListenerIndex {\n\n")
+				.append("\tprivate static final java.util.Map<Class<?>, Class<? extends pt.davidafsilva.jevents.Event>>")
+				.append(" EVENT_TYPES = new java.util.HashMap<>();\n")
+				.append("\tprivate static final java.util.Map<Class<?>, pt.davidafsilva.jevents.SubscriberStub[]>")
+				.append(" SUBSCRIBERS = new java.util.HashMap<>();\n\n")
+				.append("\tstatic {\n");
+		for (Map.Entry<String, String> entry : eventTypes.entrySet()) {
+			source.append("\t\tEVENT_TYPES.put(").append(entry.getKey()).append(".class, ")
+					.append(entry.getValue()).append(".class);\n");
+		}
+		for (Map.Entry<String, List<ExecutableElement>> entry : subscribers.entrySet()) {
+			source.append("\t\tSUBSCRIBERS.put(").append(entry.getKey())
+					.append(".class, new pt.davidafsilva.jevents.SubscriberStub[] {\n");
+			for (ExecutableElement method : entry.getValue()) {
+				final String eventType = types.erasure(method.getParameters().get(0).asType()).toString();
+				source.append("\t\t\t\tpt.davidafsilva.jevents.SubscriberStub.of(").append(entry.getKey())
+						.append(".class, ").append(eventType).append(".class, \"").append(method.getSimpleName())
+						.append("\", (target, event) -> target.").append(method.getSimpleName()).append("(event)),\n");
+			}
+			source.append("\t\t});\n");
+		}
+		source.append("\t}\n\n")
+				.append("\t@Override\n")
+				.append("\tpublic Class<? extends pt.davidafsilva.jevents.Event> getEventClass(final Class<?> listenerClass) {\n")
+				.append("\t\treturn EVENT_TYPES.get(listenerClass);\n")
+				.append("\t}\n\n")
+				.append("\t@Override\n")
+				.append("\tpublic pt.davidafsilva.jevents.SubscriberStub[] getSubscribers(final Class<?> subscriberClass) {\n")
+				.append("\t\treturn SUBSCRIBERS.get(subscriberClass);\n")
+				.append("\t}\n\n")
+				.append("\t@Override\n")
+				.append("\tpublic int registerListeners(final pt.davidafsilva.jevents.registry.ListenerRegistry registry) {\n");
+		for (Map.Entry<String, String> entry : indexed.entrySet()) {
+			source.append("\t\tregistry.register(").append(entry.getValue()).append(".class, new ")
+					.append(entry.getKey()).append("());\n");
+		}
+		source.append("\t\treturn ").append(indexed.size()).append(";\n")
+				.append("\t}\n")
+				.append("}\n");
+
+		try {
+			final JavaFileObject file = filer.createSourceFile(name);
+			try (Writer writer = file.openWriter()) {
+				writer.write(source.toString());
+			}
+			final FileObject service = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+					"META-INF/services/pt.davidafsilva.jevents.ListenerIndex");
+			try (Writer writer = service.openWriter()) {
+				writer.write(name);
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write the listener index: " + e.getMessage());
+		}
+	}
+}
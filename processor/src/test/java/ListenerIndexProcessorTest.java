@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.ListenerIndex;
+import pt.davidafsilva.jevents.SubscriberStub;
+import pt.davidafsilva.jevents.processor.ListenerIndexProcessor;
+import pt.davidafsilva.jevents.registry.ListenerRegistry;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the listener index processor
+ *
+ * @author David Silva
+ */
+public class ListenerIndexProcessorTest {
+
+	// the compilation directory
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("jevents-processor");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Test
+	public void generated_index_test() throws Exception {
+		final DiagnosticCollector<JavaFileObject> diagnostics = compile(
+				"sample/PingEvent.java",
+				"package sample; public class PingEvent implements pt.davidafsilva.jevents.Event {}",
+				"sample/PingListener.java",
+				"package sample; public class PingListener implements pt.davidafsilva.jevents.EventListener<PingEvent> {" +
+						"public static int handled; public void handle(PingEvent event) { handled++; } }",
+				"sample/AutoListener.java",
+				"package sample; @pt.davidafsilva.jevents.IndexedListener public class AutoListener extends PingListener {}",
+				"sample/PingSubscriber.java",
+				"package sample; public class PingSubscriber { public int pings;" +
+						"@pt.davidafsilva.jevents.Subscribe public void onPing(PingEvent event) { pings++; } }",
+				"sample/HiddenListener.java",
+				"package sample; class HiddenListener implements pt.davidafsilva.jevents.EventListener<PingEvent> {" +
+						"public void handle(PingEvent event) {} }");
+		assertThat(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().isEmpty(), is(true));
+
+		// the service registration
+		final Path service = directory.resolve("META-INF/services/pt.davidafsilva.jevents.ListenerIndex");
+		assertThat(new String(Files.readAllBytes(service), StandardCharsets.UTF_8).trim(),
+				is("sample.JEventsListenerIndex"));
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+				getClass().getClassLoader())) {
+			final ListenerIndex index = (ListenerIndex) loader.loadClass("sample.JEventsListenerIndex").newInstance();
+			final Class<?> event = loader.loadClass("sample.PingEvent");
+
+			// event types
+			assertThat(index.getEventClass(loader.loadClass("sample.PingListener")) == event, is(true));
+			assertThat(index.getEventClass(loader.loadClass("sample.AutoListener")) == event, is(true));
+			assertThat(index.getEventClass(loader.loadClass("sample.HiddenListener")), is(nullValue()));
+
+			// subscriber stubs
+			final Class<?> subscriberClass = loader.loadClass("sample.PingSubscriber");
+			final SubscriberStub[] stubs = index.getSubscribers(subscriberClass);
+			assertThat(stubs, is(notNullValue()));
+			assertThat(stubs.length, is(1));
+			assertThat(stubs[0].getMethodName(), is("onPing"));
+			assertThat(stubs[0].getEventType() == event, is(true));
+			final Object subscriber = subscriberClass.newInstance();
+			stubs[0].invoke(subscriber, (Event) event.newInstance());
+			assertThat(subscriberClass.getField("pings").getInt(subscriber), is(1));
+
+			// indexed listeners
+			@SuppressWarnings("unchecked")
+			final Class<? extends Event> eventType = (Class<? extends Event>) event;
+			final ListenerRegistry registry = ListenerRegistry.create();
+			assertThat(index.registerListeners(registry), is(1));
+			assertThat(registry.getListenerSnapshot(eventType).length, is(1));
+		}
+	}
+
+	@Test
+	public void invalid_indexed_listener_test() throws Exception {
+		final DiagnosticCollector<JavaFileObject> diagnostics = compile(
+				"sample/PingEvent.java",
+				"package sample; public class PingEvent implements pt.davidafsilva.jevents.Event {}",
+				"sample/BrokenListener.java",
+				"package sample; @pt.davidafsilva.jevents.IndexedListener public class BrokenListener " +
+						"implements pt.davidafsilva.jevents.EventListener<PingEvent> {" +
+						"public BrokenListener(int unused) {} public void handle(PingEvent event) {} }");
+		assertThat(diagnostics.getDiagnostics().size(), is(1));
+		assertThat(diagnostics.getDiagnostics().get(0).getKind(), is(javax.tools.Diagnostic.Kind.ERROR));
+	}
+
+	/**
+	 * Compiles the given sources, with the processor, into the temporary directory
+	 *
+	 * @param sources
+	 * 		the pairs of relative file names and contents
+	 * @return the compilation diagnostics
+	 */
+	private DiagnosticCollector<JavaFileObject> compile(final String... sources) throws IOException {
+		final Path sourceDirectory = Files.createDirectories(directory.resolve("sources"));
+		final File[] files = new File[sources.length / 2];
+		for (int i = 0; i < sources.length; i += 2) {
+			final Path file = sourceDirectory.resolve(sources[i]);
+			Files.createDirectories(file.getParent());
+			Files.write(file, sources[i + 1].getBytes(StandardCharsets.UTF_8));
+			files[i / 2] = file.toFile();
+		}
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager manager = compiler.getStandardFileManager(diagnostics, null,
+				StandardCharsets.UTF_8)) {
+			final List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"),
+					"-d", directory.toString());
+			final JavaCompiler.CompilationTask task = compiler.getTask(null, manager, diagnostics, options, null,
+					manager.getJavaFileObjects(files));
+			task.setProcessors(Arrays.asList(new ListenerIndexProcessor()));
+			task.call();
+		}
+		return diagnostics;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents;
+
+import java.util.List;
+
+/**
+ * Defines the listener interface for handling events in batches.
+ *
+ * Batch listeners are registered alongside with the regular
+ * {@link pt.davidafsilva.jevents.EventListener event listeners}, through
+ * {@link pt.davidafsilva.jevents.registry.EventRegistry#registerBatch(Class, BatchEventListener)}.
+ * Asynchronously dispatched events are accumulated per event class and delivered in groups,
+ * according to the configured {@link pt.davidafsilva.jevents.dispatcher.BatchPolicy}, whereas
+ * synchronously dispatched events are delivered right away, in a single element batch.
+ *
+ * Batch listeners are meant for handlers with a high fixed cost per call, such as database writes.
+ *
+ * @param <T>
+ * 		the type of the event which the listener is bound to
+ * @author David Silva
+ * @since 1.0
+ */
+public interface BatchEventListener<T extends Event> {
+
+	/**
+	 * Handles a batch of previously dispatched events, in their dispatch order
+	 *
+	 * @param events
+	 * 		the unmodifiable list of events
+	 */
+	void handle(List<T> events);
+}
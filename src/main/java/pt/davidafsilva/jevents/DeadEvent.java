@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents;
+
+/**
+ * The event dispatched in place of the events which have no listeners.
+ *
+ * Events dispatched without any listener, either regular or batch ones, are wrapped and dispatched again,
+ * as a dead event, to the listeners registered for this class on the same bus. Dead events are only
+ * created when there are listeners for them, hence unheard events cost nothing otherwise.
+ * Dead events are never wrapped again.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class DeadEvent implements Event {
+
+	// the unheard event
+	private final Event event;
+
+	/**
+	 * Creates a new dead event
+	 *
+	 * @param event
+	 * 		the unheard event
+	 */
+	private DeadEvent(final Event event) {
+		this.event = event;
+	}
+
+	/**
+	 * Wraps the given unheard event
+	 *
+	 * @param event
+	 * 		the unheard event
+	 * @return the dead event
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 */
+	public static DeadEvent of(final Event event) {
+		if (event == null) {
+			throw new NullPointerException("Invalid event.");
+		}
+		return new DeadEvent(event);
+	}
+
+	/**
+	 * Returns the event which had no listeners
+	 *
+	 * @return the unheard event
+	 */
+	public Event getEvent() {
+		return event;
+	}
+
+	@Override
+	public Priority getPriority() {
+		return event.getPriority();
+	}
+}
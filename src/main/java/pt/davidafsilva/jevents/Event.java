@@ -41,9 +41,13 @@ import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
 public interface Event {
 
 	/**
-	 * Dispatches this event synchronously
+	 * Dispatches this event, either synchronously or asynchronously according
+	 * to {@link #isAsync()}.
+	 *
+	 * Asynchronous events are executed by the configured async engine.
 	 *
 	 * @see pt.davidafsilva.jevents.dispatcher.EventDispatcher#dispatch(Event)
+	 * @see pt.davidafsilva.jevents.dispatcher.EventDispatcher#dispatchAsync(Event)
 	 */
 	default void dispatch() {
 		if (isAsync()) {
@@ -64,4 +68,44 @@ public interface Event {
 		return false;
 	}
 
+	/**
+	 * Returns the partition key of this event, which is used by the
+	 * {@link pt.davidafsilva.jevents.dispatcher.PartitionedDispatcher} for keeping the
+	 * ordering of the events that share the same key, such as the events of a given entity.
+	 *
+	 * By default, events have no partition key.
+	 *
+	 * @return the partition key or <code>null</code> if the event is not bound to any partition
+	 */
+	default Object getPartitionKey() {
+		return null;
+	}
+
+	/**
+	 * Returns the conflation key of this event, which is used by the
+	 * {@link pt.davidafsilva.jevents.dispatcher.ConflatingDispatcher} for replacing a pending event
+	 * with the same key by this one, such as the previous price of a given instrument.
+	 *
+	 * By default, events have no conflation key.
+	 *
+	 * @return the conflation key or <code>null</code> if the event must never be conflated
+	 */
+	default Object getConflationKey() {
+		return null;
+	}
+
+	/**
+	 * Returns the priority of the asynchronous dispatches of this event, which is honored by the
+	 * {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#prioritized(int, int,
+	 * pt.davidafsilva.jevents.dispatcher.OverflowPolicy) prioritized engines}.
+	 *
+	 * By default, the priority is the one declared by the event class through the
+	 * {@link pt.davidafsilva.jevents.Prioritized} annotation, if any.
+	 *
+	 * @return the priority
+	 */
+	default Priority getPriority() {
+		return Priority.of(getClass());
+	}
+
 }
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents;
+
+import pt.davidafsilva.jevents.channel.ChannelRegistry;
+import pt.davidafsilva.jevents.dispatcher.AsyncEngine;
+import pt.davidafsilva.jevents.dispatcher.BusDispatcher;
+import pt.davidafsilva.jevents.registry.EventKey;
+import pt.davidafsilva.jevents.registry.ListenerRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event bus, made of its own {@link pt.davidafsilva.jevents.registry.ListenerRegistry listener registry}
+ * and {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher dispatcher}.
+ *
+ * Buses are isolated from each other: the listeners registered in a bus only receive the events dispatched
+ * through it, while the async engine, the routes, the batches, the primitive channels, the journal, the bridge,
+ * the {@link pt.davidafsilva.jevents.metrics.EventMetrics metrics}, the
+ * {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy slow listener policy} and the
+ * {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler error handler} of a bus are configured and shut down
+ * independently.
+ *
+ * The {@link pt.davidafsilva.jevents.registry.EventRegistry} and {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher}
+ * singletons operate on the {@link #getDefault() default bus}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class EventBus {
+
+	// the default bus
+	private static final EventBus DEFAULT = create();
+
+	// the registry of the listeners
+	private final ListenerRegistry registry;
+
+	// the dispatcher of the events
+	private final BusDispatcher dispatcher;
+
+	/**
+	 * Creates a new bus
+	 *
+	 * @param registry
+	 * 		the registry of the listeners
+	 */
+	private EventBus(final ListenerRegistry registry) {
+		this.registry = registry;
+		this.dispatcher = BusDispatcher.create(registry);
+	}
+
+	/**
+	 * Returns the default bus, which backs the {@link pt.davidafsilva.jevents.registry.EventRegistry} and
+	 * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher} singletons
+	 *
+	 * @return the default bus
+	 */
+	public static EventBus getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Creates a new bus, with an empty registry and a pooled async engine sized according to the
+	 * available processors
+	 *
+	 * @return the bus
+	 */
+	public static EventBus create() {
+		return new EventBus(ListenerRegistry.create());
+	}
+
+	/**
+	 * Creates a new bus, with an empty registry, whose asynchronous dispatches are executed by the given engine.
+	 *
+	 * The engine is owned by the bus, being shut down along with it.
+	 *
+	 * @param engine
+	 * 		the async engine
+	 * @return the bus
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>engine</code> is <code>null</code>
+	 */
+	public static EventBus create(final AsyncEngine engine) {
+		if (engine == null) {
+			throw new NullPointerException("Invalid async engine.");
+		}
+		final EventBus bus = create();
+		bus.dispatcher.setAsyncEngine(engine);
+		return bus;
+	}
+
+	/**
+	 * Returns the registry of the listeners of this bus
+	 *
+	 * @return the listener registry
+	 */
+	public ListenerRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Returns the registry of the primitive channels of this bus
+	 *
+	 * @return the channel registry
+	 */
+	public ChannelRegistry getChannels() {
+		return dispatcher.getChannels();
+	}
+
+	/**
+	 * Returns the dispatcher of the events of this bus, through which it is configured
+	 *
+	 * @return the bus dispatcher
+	 */
+	public BusDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * Registers a given event listener for the given event type in this bus
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#register(Class, EventListener)
+	 */
+	public <E extends Event> boolean register(final Class<E> clazz, final EventListener<E> listener) {
+		return registry.register(clazz, listener);
+	}
+
+	/**
+	 * Removes the given event listener from the given event type of this bus, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event> boolean unregister(final Class<E> clazz, final EventListener<E> listener) {
+		return registry.unregister(clazz, listener);
+	}
+
+	/**
+	 * Registers a given event listener for the given event type in this bus, which shall only be triggered
+	 * by the events whose key equals the given value
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @param value
+	 * 		the key value which the events must match
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <K>
+	 * 		the key type
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#register(Class, EventKey, Object, EventListener)
+	 */
+	public <E extends Event, K> boolean register(final Class<E> clazz, final EventKey<? super E, K> key,
+			final K value, final EventListener<E> listener) {
+		return registry.register(clazz, key, value, listener);
+	}
+
+	/**
+	 * Removes the given filtered event listener from the given event type of this bus, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @param value
+	 * 		the key value
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <K>
+	 * 		the key type
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event, K> boolean unregister(final Class<E> clazz, final EventKey<? super E, K> key,
+			final K value, final EventListener<E> listener) {
+		return registry.unregister(clazz, key, value, listener);
+	}
+
+	/**
+	 * Registers every {@link pt.davidafsilva.jevents.Subscribe subscriber method} of the given object in this bus
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of registered methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#registerAll(Object)
+	 */
+	public int registerAll(final Object subscriber) {
+		return registry.registerAll(subscriber);
+	}
+
+	/**
+	 * Registers a given event listener for the given event type in this bus, without keeping it reachable
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#registerWeak(Class, EventListener)
+	 */
+	public <E extends Event> boolean registerWeak(final Class<E> clazz, final EventListener<E> listener) {
+		return registry.registerWeak(clazz, listener);
+	}
+
+	/**
+	 * Registers every {@link pt.davidafsilva.jevents.Subscribe subscriber method} of the given object in this bus,
+	 * without keeping the subscriber reachable
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of registered methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#registerAllWeak(Object)
+	 */
+	public int registerAllWeak(final Object subscriber) {
+		return registry.registerAllWeak(subscriber);
+	}
+
+	/**
+	 * Removes every subscriber method of the given object from this bus
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of removed methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 */
+	public int unregisterAll(final Object subscriber) {
+		return registry.unregisterAll(subscriber);
+	}
+
+	/**
+	 * Dispatches the given event synchronously to the listeners of this bus
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 */
+	public <E extends Event> void dispatch(final E event) {
+		dispatcher.dispatch(event);
+	}
+
+	/**
+	 * Dispatches the given event asynchronously to the listeners of this bus
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the bus was shut down
+	 */
+	public <E extends Event> void dispatchAsync(final E event) {
+		dispatcher.dispatchAsync(event);
+	}
+
+	/**
+	 * Shuts down this bus: pending asynchronous dispatches are still executed, but new ones are rejected.
+	 *
+	 * The other buses are not affected.
+	 *
+	 * @see pt.davidafsilva.jevents.dispatcher.BusDispatcher#shutdown()
+	 */
+	public void shutdown() {
+		dispatcher.shutdown();
+	}
+
+	/**
+	 * Waits until all of the pending asynchronous dispatches of this bus are completed after a shutdown
+	 * request, or the timeout elapses.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the bus terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return dispatcher.awaitTermination(timeout, unit);
+	}
+}
@@ -27,8 +27,6 @@
 
 package pt.davidafsilva.jevents;
 
-import java.lang.reflect.ParameterizedType;
-
 /**
  * Defines the listener interface which should be implemented
  * by a specific {@link pt.davidafsilva.jevents.Event event} listener or
@@ -48,15 +46,20 @@ public interface EventListener<T extends Event> {
 	 * Returns the event class associated with the listener.
 	 *
 	 * By default with i'll extract the generic class denoted by <code>T</code>,
-	 * associated with the EventListener interface.
+	 * associated with the EventListener interface, searching through the listener
+	 * class hierarchy. The result is resolved once per listener class.
 	 *
-	 * It does not support listeners inheritance.
+	 * Lambdas and method references do not carry that information, hence those must be registered
+	 * with an explicit event class, through
+	 * {@link pt.davidafsilva.jevents.registry.EventRegistry#register(Class, EventListener)}.
 	 *
 	 * @return the event class
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the event class cannot be resolved
 	 */
 	@SuppressWarnings("unchecked")
 	default Class<T> getEventClass() {
-		return (Class<T>) ((ParameterizedType) this.getClass().getGenericInterfaces()[0]).getActualTypeArguments()[0];
+		return (Class<T>) ListenerTypeResolver.resolve(getClass());
 	}
 
 	/**
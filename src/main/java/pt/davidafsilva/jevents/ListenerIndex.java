@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents;
+
+import pt.davidafsilva.jevents.registry.ListenerRegistry;
+
+/**
+ * A compile-time index of the listeners, which spares the reflection otherwise required
+ * to resolve the event type of the listeners and to scan the subscriber methods.
+ *
+ * Indexes are generated by the <code>jevents-processor</code> annotation processor and discovered
+ * at runtime through the {@link java.util.ServiceLoader}. The classes which are not indexed
+ * are still resolved through reflection.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public interface ListenerIndex {
+
+	/**
+	 * Returns the index which aggregates every index found in the class path.
+	 *
+	 * The indexes are discovered once, through the class loader of this interface.
+	 *
+	 * @return the installed index
+	 */
+	static ListenerIndex installed() {
+		return ListenerIndexes.INSTALLED;
+	}
+
+	/**
+	 * Returns the event type bound to the given listener class
+	 *
+	 * @param listenerClass
+	 * 		the listener class
+	 * @return the event type or <code>null</code> if the class is not indexed
+	 */
+	default Class<? extends Event> getEventClass(final Class<?> listenerClass) {
+		return null;
+	}
+
+	/**
+	 * Returns the stubs of all of the subscriber methods of the given class, including the inherited ones
+	 *
+	 * @param subscriberClass
+	 * 		the subscriber class
+	 * @return the subscriber stubs or <code>null</code> if the class is not indexed
+	 */
+	default SubscriberStub[] getSubscribers(final Class<?> subscriberClass) {
+		return null;
+	}
+
+	/**
+	 * Instantiates and registers all of the {@link pt.davidafsilva.jevents.IndexedListener indexed listeners}
+	 * in the given registry
+	 *
+	 * @param registry
+	 * 		the registry
+	 * @return the number of registered listeners
+	 */
+	default int registerListeners(final ListenerRegistry registry) {
+		return 0;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents;
+
+import pt.davidafsilva.jevents.registry.ListenerRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The aggregation of the {@link pt.davidafsilva.jevents.ListenerIndex listener indexes} found in the class path.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerIndexes implements ListenerIndex {
+
+	// the installed indexes, loaded once
+	static final ListenerIndex INSTALLED = load();
+
+	// the aggregated indexes
+	private final ListenerIndex[] indexes;
+
+	/**
+	 * Creates a new aggregation of the given indexes
+	 *
+	 * @param indexes
+	 * 		the indexes
+	 */
+	private ListenerIndexes(final ListenerIndex[] indexes) {
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Loads the indexes through the service loader
+	 *
+	 * @return the aggregated index
+	 */
+	private static ListenerIndex load() {
+		final List<ListenerIndex> found = new ArrayList<>();
+		for (ListenerIndex index : ServiceLoader.load(ListenerIndex.class, ListenerIndex.class.getClassLoader())) {
+			found.add(index);
+		}
+		return new ListenerIndexes(found.toArray(new ListenerIndex[found.size()]));
+	}
+
+	@Override
+	public Class<? extends Event> getEventClass(final Class<?> listenerClass) {
+		for (ListenerIndex index : indexes) {
+			final Class<? extends Event> eventClass = index.getEventClass(listenerClass);
+			if (eventClass != null) {
+				return eventClass;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public SubscriberStub[] getSubscribers(final Class<?> subscriberClass) {
+		for (ListenerIndex index : indexes) {
+			final SubscriberStub[] stubs = index.getSubscribers(subscriberClass);
+			if (stubs != null) {
+				return stubs;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int registerListeners(final ListenerRegistry registry) {
+		int registered = 0;
+		for (ListenerIndex index : indexes) {
+			registered += index.registerListeners(registry);
+		}
+		return registered;
+	}
+}
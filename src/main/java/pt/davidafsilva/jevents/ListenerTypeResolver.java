@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the event type bound to a listener implementation class.
+ *
+ * The type argument of {@link pt.davidafsilva.jevents.EventListener} is searched
+ * through the whole class hierarchy, following the type variables declared by
+ * intermediate classes and interfaces.
+ * The result is resolved once per listener class and then cached. Classes found in the installed
+ * {@link pt.davidafsilva.jevents.ListenerIndex} are resolved without reflection.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerTypeResolver {
+
+	// the resolved event type per listener class, null if it's not resolvable
+	private static final ClassValue<Class<?>> EVENT_TYPES = new ClassValue<Class<?>>() {
+		@Override
+		protected Class<?> computeValue(final Class<?> type) {
+			final Class<?> indexed = ListenerIndex.installed().getEventClass(type);
+			return indexed != null ? indexed : search(type, new HashMap<>());
+		}
+	};
+
+	// private constructor
+	private ListenerTypeResolver() {
+	}
+
+	/**
+	 * Returns the event type associated with the given listener class.
+	 *
+	 * @param listenerClass
+	 * 		the listener class
+	 * @return the event type
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the event type cannot be resolved, such as for lambdas
+	 */
+	static Class<?> resolve(final Class<?> listenerClass) {
+		final Class<?> eventType = EVENT_TYPES.get(listenerClass);
+		if (eventType == null) {
+			throw new IllegalArgumentException("Unable to resolve the event type of " + listenerClass.getName() +
+					", the listener must be registered with an explicit event class.");
+		}
+		return eventType;
+	}
+
+	/**
+	 * Searches the event type bound to {@link pt.davidafsilva.jevents.EventListener} within the
+	 * hierarchy of the given class.
+	 *
+	 * @param type
+	 * 		the class being searched
+	 * @param bindings
+	 * 		the known type variable bindings of the class
+	 * @return the event type or <code>null</code> if it's not resolvable
+	 */
+	private static Class<?> search(final Class<?> type, final Map<TypeVariable<?>, Type> bindings) {
+		for (Type supertype : type.getGenericInterfaces()) {
+			final Class<?> found = searchType(supertype, bindings);
+			if (found != null) {
+				return found;
+			}
+		}
+		final Type superclass = type.getGenericSuperclass();
+		return superclass == null ? null : searchType(superclass, bindings);
+	}
+
+	/**
+	 * Searches the event type bound to {@link pt.davidafsilva.jevents.EventListener} within the
+	 * given super type, binding its type arguments for the remaining search.
+	 *
+	 * @param supertype
+	 * 		the super type
+	 * @param bindings
+	 * 		the known type variable bindings of the sub type
+	 * @return the event type or <code>null</code> if it's not resolvable
+	 */
+	private static Class<?> searchType(final Type supertype, final Map<TypeVariable<?>, Type> bindings) {
+		if (supertype instanceof Class) {
+			// raw type, the type arguments are lost
+			final Class<?> raw = (Class<?>) supertype;
+			return raw == EventListener.class ? null : search(raw, new HashMap<>());
+		}
+		if (!(supertype instanceof ParameterizedType)) {
+			return null;
+		}
+
+		final ParameterizedType parameterized = (ParameterizedType) supertype;
+		final Class<?> raw = (Class<?>) parameterized.getRawType();
+		final Type[] arguments = parameterized.getActualTypeArguments();
+		if (raw == EventListener.class) {
+			return toClass(arguments[0], bindings);
+		}
+
+		final TypeVariable<?>[] variables = raw.getTypeParameters();
+		final Map<TypeVariable<?>, Type> rawBindings = new HashMap<>();
+		for (int i = 0; i < variables.length; i++) {
+			Type argument = arguments[i];
+			while (argument instanceof TypeVariable && bindings.containsKey(argument)) {
+				argument = bindings.get(argument);
+			}
+			rawBindings.put(variables[i], argument);
+		}
+		return search(raw, rawBindings);
+	}
+
+	/**
+	 * Converts the given type argument into a class, if it's bound.
+	 *
+	 * @param type
+	 * 		the type argument
+	 * @param bindings
+	 * 		the known type variable bindings
+	 * @return the class or <code>null</code> if the type is not bound
+	 */
+	private static Class<?> toClass(final Type type, final Map<TypeVariable<?>, Type> bindings) {
+		Type resolved = type;
+		while (resolved instanceof TypeVariable && bindings.containsKey(resolved)) {
+			resolved = bindings.get(resolved);
+		}
+		if (resolved instanceof Class) {
+			return (Class<?>) resolved;
+		}
+		if (resolved instanceof ParameterizedType) {
+			return (Class<?>) ((ParameterizedType) resolved).getRawType();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@link pt.davidafsilva.jevents.Priority priority} of the asynchronous dispatches of an
+ * {@link pt.davidafsilva.jevents.Event event} type, which is inherited by its sub classes.
+ *
+ * Event instances may still override it through {@link pt.davidafsilva.jevents.Event#getPriority()}.
+ *
+ * The priority only applies to the dispatches executed by a
+ * {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#prioritized() prioritized} engine. The default engine of a
+ * bus is a plain {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#pooled() pooled} one, which ignores it, hence
+ * a prioritized engine must be installed through
+ * {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher#setAsyncEngine(pt.davidafsilva.jevents.dispatcher.AsyncEngine)}
+ * or {@link pt.davidafsilva.jevents.EventBus#create(pt.davidafsilva.jevents.dispatcher.AsyncEngine)}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Prioritized {
+
+	/**
+	 * The priority of the events
+	 *
+	 * @return the priority
+	 */
+	Priority value();
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents;
+
+/**
+ * The priority classes of the asynchronous dispatches.
+ *
+ * Engines created through {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#prioritized(int, int,
+ * pt.davidafsilva.jevents.dispatcher.OverflowPolicy) prioritized} share their workers between the classes
+ * according to their weights: while every class has pending dispatches, each round executes up to
+ * <code>weight</code> dispatches of each class, the higher ones first. Higher classes are served first
+ * and lower classes never starve.
+ *
+ * Every other engine, including the {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#pooled() pooled} one used
+ * by default by the buses, ignores the priorities and serves the dispatches in their submission order.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public enum Priority {
+
+	/**
+	 * Control plane events, such as shutdown requests or configuration reloads
+	 */
+	CRITICAL(8),
+
+	/**
+	 * Events which are more important than the regular ones
+	 */
+	HIGH(4),
+
+	/**
+	 * The regular events, the default priority
+	 */
+	NORMAL(2),
+
+	/**
+	 * Low value events, such as telemetry
+	 */
+	LOW(1);
+
+	// the priority declared by each event class
+	private static final ClassValue<Priority> DECLARED = new ClassValue<Priority>() {
+		@Override
+		protected Priority computeValue(final Class<?> type) {
+			final Prioritized prioritized = type.getAnnotation(Prioritized.class);
+			return prioritized == null ? NORMAL : prioritized.value();
+		}
+	};
+
+	// the share of the workers per round
+	private final int weight;
+
+	/**
+	 * Creates a new priority class
+	 *
+	 * @param weight
+	 * 		the share of the workers per round
+	 */
+	Priority(final int weight) {
+		this.weight = weight;
+	}
+
+	/**
+	 * Returns the number of dispatches of this class executed per round, when every class has pending dispatches
+	 *
+	 * @return the weight
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Returns the priority declared by the given event class, through the {@link pt.davidafsilva.jevents.Prioritized}
+	 * annotation. The result is resolved once per class.
+	 *
+	 * @param eventClass
+	 * 		the event class
+	 * @return the declared priority or {@link #NORMAL} if none is declared
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>eventClass</code> is <code>null</code>
+	 */
+	public static Priority of(final Class<?> eventClass) {
+		if (eventClass == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		return DECLARED.get(eventClass);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents;
+
+/**
+ * Defines the listener interface for the request/response style of dispatching,
+ * where listeners reply to the handled event with a value.
+ *
+ * Replying listeners are registered as regular {@link pt.davidafsilva.jevents.EventListener event listeners},
+ * their replies being collected through
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#request(Event, java.util.stream.Collector)}.
+ * On any other dispatch, the reply is discarded.
+ *
+ * @param <T>
+ * 		the type of the event which the listener is bound to
+ * @param <R>
+ * 		the type of the reply
+ * @author David Silva
+ * @since 1.0
+ */
+public interface ReplyingEventListener<T extends Event, R> extends EventListener<T> {
+
+	/**
+	 * Handles a previously dispatched event, replying to it
+	 *
+	 * @param event
+	 * 		the event object
+	 * @return the reply
+	 */
+	R reply(T event);
+
+	/**
+	 * Handles a previously dispatched event, discarding the reply
+	 *
+	 * @param event
+	 * 		the event object
+	 */
+	@Override
+	default void handle(final T event) {
+		reply(event);
+	}
+}
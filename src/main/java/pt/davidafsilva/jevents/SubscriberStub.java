@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A typed dispatch stub of a {@link pt.davidafsilva.jevents.Subscribe subscriber method}, which calls
+ * the method directly, as generated at compile time into a {@link pt.davidafsilva.jevents.ListenerIndex}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class SubscriberStub {
+
+	// the handled event type
+	private final Class<? extends Event> eventType;
+
+	// the method name
+	private final String methodName;
+
+	// the invoker
+	private final BiConsumer<Object, Event> invoker;
+
+	/**
+	 * Creates a new subscriber stub
+	 *
+	 * @param eventType
+	 * 		the handled event type
+	 * @param methodName
+	 * 		the method name
+	 * @param invoker
+	 * 		the invoker
+	 */
+	private SubscriberStub(final Class<? extends Event> eventType, final String methodName,
+			final BiConsumer<Object, Event> invoker) {
+		this.eventType = eventType;
+		this.methodName = methodName;
+		this.invoker = invoker;
+	}
+
+	/**
+	 * Creates a new subscriber stub
+	 *
+	 * @param subscriberType
+	 * 		the subscriber class
+	 * @param eventType
+	 * 		the handled event type
+	 * @param methodName
+	 * 		the name of the subscriber method
+	 * @param invoker
+	 * 		the invoker, which calls the method of the given subscriber with the given event
+	 * @param <T>
+	 * 		the subscriber type
+	 * @param <E>
+	 * 		the event type
+	 * @return the subscriber stub
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T, E extends Event> SubscriberStub of(final Class<T> subscriberType, final Class<E> eventType,
+			final String methodName, final BiConsumer<? super T, ? super E> invoker) {
+		Objects.requireNonNull(subscriberType, "Invalid subscriber type.");
+		Objects.requireNonNull(eventType, "Invalid event type.");
+		Objects.requireNonNull(methodName, "Invalid method name.");
+		Objects.requireNonNull(invoker, "Invalid invoker.");
+		return new SubscriberStub(eventType, methodName, (BiConsumer<Object, Event>) invoker);
+	}
+
+	/**
+	 * Returns the handled event type
+	 *
+	 * @return the event type
+	 */
+	public Class<? extends Event> getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Returns the name of the subscriber method
+	 *
+	 * @return the method name
+	 */
+	public String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * Invokes the subscriber method
+	 *
+	 * @param target
+	 * 		the subscriber instance
+	 * @param event
+	 * 		the event being dispatched
+	 */
+	public void invoke(final Object target, final Event event) {
+		invoker.accept(target, event);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.bridge;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.EventCodec;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * Defines a link of an {@link pt.davidafsilva.jevents.bridge.EventBridge} to a single peer process.
+ *
+ * Transports are opened once, by the bridge, after which events may be sent in both directions:
+ * the received events are handed to the given receiver, by a thread owned by the transport,
+ * in the order they were sent by the peer. Failures raised by the codec or the receiver are reported to the
+ * uncaught exception handler of that thread, which keeps delivering the following events.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public interface BridgeTransport extends Closeable {
+
+	/**
+	 * Starts the transport
+	 *
+	 * @param codec
+	 * 		the codec of the events, which must be compatible with the one of the peer
+	 * @param receiver
+	 * 		the receiver of the events sent by the peer
+	 * @throws java.lang.IllegalStateException
+	 * 		if the transport was already opened
+	 */
+	void open(EventCodec<Event> codec, Consumer<? super Event> receiver);
+
+	/**
+	 * Sends the given event to the peer, waiting for room in the transport if needed
+	 *
+	 * @param event
+	 * 		the event to send
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the encoded event is larger than the transport allows
+	 * @throws java.lang.IllegalStateException
+	 * 		if the transport is not opened, or was closed
+	 */
+	void send(Event event);
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.bridge;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.codec.CodecRegistry;
+import pt.davidafsilva.jevents.codec.EventCodec;
+import pt.davidafsilva.jevents.dispatcher.BusDispatcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Forwards chosen event types to other processes of the same host and delivers the events
+ * received from them to the local listeners.
+ *
+ * The bridge is installed in the {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#setBridge(EventBridge)
+ * event dispatcher}, which hands it every dispatched event before reaching the local listeners. Events of
+ * the {@link #forward(Class) forwarded types}, or any of their sub types, are sent through every connected
+ * {@link pt.davidafsilva.jevents.bridge.BridgeTransport}. The events received from the peers are
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#deliver(Event) delivered} to the local
+ * listeners, without being forwarded again. The classes of the received events must be registered in the
+ * {@link pt.davidafsilva.jevents.codec.CodecRegistry codec registry} of the receiving process, unless it
+ * encoded events of the same classes before.
+ *
+ * The failures to decode or deliver a received event, such as an unknown event class or a rejected dispatch,
+ * are handed to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler error handler} of the bus, without
+ * event when it could not be decoded. Failures escaping the error handler are reported by the transport, to the
+ * uncaught exception handler of its reader thread, which keeps delivering the following events.
+ *
+ * Peers exchange events through a {@link pt.davidafsilva.jevents.bridge.SharedMemoryTransport}, the lowest
+ * latency option, or through a {@link pt.davidafsilva.jevents.bridge.SocketTransport} over the loopback
+ * interface otherwise.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class EventBridge implements Closeable {
+
+	// the codec of the events
+	private final EventCodec<Event> codec;
+
+	// the dispatcher to which the received events are delivered
+	private final BusDispatcher target;
+
+	// the forwarded event types
+	private volatile Class<?>[] forwarded = new Class<?>[0];
+
+	// map for the concrete event class -> whether or not it is forwarded, replaced whenever the types change
+	private volatile ConcurrentMap<Class<?>, Boolean> decisions = new ConcurrentHashMap<>();
+
+	// the connected transports
+	private volatile BridgeTransport[] transports = new BridgeTransport[0];
+
+	// the codec handed to the transports, which reports the decoding failures to the error handler
+	private final EventCodec<Event> decoder = new EventCodec<Event>() {
+
+		@Override
+		public void encode(final Event event, final ByteBuffer target) {
+			codec.encode(event, target);
+		}
+
+		@Override
+		public Event decode(final ByteBuffer source) {
+			try {
+				return codec.decode(source);
+			} catch (RuntimeException e) {
+				target.getErrorHandler().handle(null, null, e);
+				return null;
+			}
+		}
+	};
+
+	/**
+	 * Creates a new bridge
+	 *
+	 * @param codec
+	 * 		the codec of the events
+	 * @param target
+	 * 		the dispatcher to which the received events are delivered
+	 */
+	private EventBridge(final EventCodec<Event> codec, final BusDispatcher target) {
+		this.codec = codec;
+		this.target = target;
+	}
+
+	/**
+	 * Creates a new bridge, whose events are encoded by the
+	 * {@link pt.davidafsilva.jevents.codec.CodecRegistry codec registry}
+	 *
+	 * @return the bridge
+	 */
+	public static EventBridge create() {
+		return create(CodecRegistry.INSTANCE);
+	}
+
+	/**
+	 * Creates a new bridge, which delivers the received events to the {@link pt.davidafsilva.jevents.EventBus#getDefault()
+	 * default bus}
+	 *
+	 * @param codec
+	 * 		the codec of the events, which must be compatible with the one of the peers
+	 * @return the bridge
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>codec</code> is <code>null</code>
+	 */
+	public static EventBridge create(final EventCodec<Event> codec) {
+		return create(codec, EventBus.getDefault());
+	}
+
+	/**
+	 * Creates a new bridge, which delivers the received events to the given bus
+	 *
+	 * @param codec
+	 * 		the codec of the events, which must be compatible with the one of the peers
+	 * @param bus
+	 * 		the bus where the bridge is installed
+	 * @return the bridge
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>codec</code> or <code>bus</code> is <code>null</code>
+	 */
+	public static EventBridge create(final EventCodec<Event> codec, final EventBus bus) {
+		if (codec == null || bus == null) {
+			throw new NullPointerException("Invalid codec or bus.");
+		}
+		return new EventBridge(codec, bus.getDispatcher());
+	}
+
+	/**
+	 * Forwards the events of the given type, and of its sub types, to the peers
+	 *
+	 * @param clazz
+	 * 		the event type
+	 * @param <E>
+	 * 		the event type
+	 * @return <code>true</code> if the type was not forwarded yet, <code>false</code> otherwise
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>
+	 */
+	public synchronized <E extends Event> boolean forward(final Class<E> clazz) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		final Set<Class<?>> types = new LinkedHashSet<>(Arrays.asList(forwarded));
+		if (!types.add(clazz)) {
+			return false;
+		}
+		update(types);
+		return true;
+	}
+
+	/**
+	 * Stops forwarding the events of the given type
+	 *
+	 * @param clazz
+	 * 		the event type
+	 * @param <E>
+	 * 		the event type
+	 * @return <code>true</code> if the type was forwarded, <code>false</code> otherwise
+	 */
+	public synchronized <E extends Event> boolean stopForwarding(final Class<E> clazz) {
+		final Set<Class<?>> types = new LinkedHashSet<>(Arrays.asList(forwarded));
+		if (!types.remove(clazz)) {
+			return false;
+		}
+		update(types);
+		return true;
+	}
+
+	/**
+	 * Replaces the forwarded types, discarding the cached decisions
+	 *
+	 * @param types
+	 * 		the new forwarded types
+	 */
+	private void update(final Set<Class<?>> types) {
+		// the decisions are replaced last, so that the ones cached from now on are based on the new types
+		forwarded = types.toArray(new Class<?>[types.size()]);
+		decisions = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Checks whether or not the events of the given concrete class are forwarded
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @return <code>true</code> if forwarded, <code>false</code> otherwise
+	 */
+	public boolean isForwarded(final Class<?> clazz) {
+		final ConcurrentMap<Class<?>, Boolean> cache = decisions;
+		final Boolean decision = cache.get(clazz);
+		if (decision != null) {
+			return decision;
+		}
+		boolean forward = false;
+		for (Class<?> type : forwarded) {
+			if (type.isAssignableFrom(clazz)) {
+				forward = true;
+				break;
+			}
+		}
+		cache.put(clazz, forward);
+		return forward;
+	}
+
+	/**
+	 * Opens the given transport and starts forwarding events through it
+	 *
+	 * @param transport
+	 * 		the transport to the peer
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>transport</code> is <code>null</code>
+	 * @throws java.lang.IllegalStateException
+	 * 		if the transport was already opened
+	 */
+	public synchronized void connect(final BridgeTransport transport) {
+		if (transport == null) {
+			throw new NullPointerException("Invalid transport.");
+		}
+		transport.open(decoder, this::receive);
+		final BridgeTransport[] current = transports;
+		final BridgeTransport[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = transport;
+		transports = updated;
+	}
+
+	/**
+	 * Stops forwarding events through the given transport and closes it
+	 *
+	 * @param transport
+	 * 		the transport to the peer
+	 * @return <code>true</code> if the transport was connected, <code>false</code> otherwise
+	 * @throws java.io.IOException
+	 * 		if the transport could not be closed
+	 */
+	public synchronized boolean disconnect(final BridgeTransport transport) throws IOException {
+		final BridgeTransport[] current = transports;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == transport) {
+				final BridgeTransport[] updated = new BridgeTransport[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, i);
+				System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+				transports = updated;
+				transport.close();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sends the given event to every peer, if its type is forwarded
+	 *
+	 * @param event
+	 * 		the dispatched event
+	 * @throws java.lang.IllegalStateException
+	 * 		if any of the transports was closed
+	 */
+	public void publish(final Event event) {
+		final BridgeTransport[] current = transports;
+		if (current.length == 0 || !isForwarded(event.getClass())) {
+			return;
+		}
+		for (int i = 0; i < current.length; i++) {
+			current[i].send(event);
+		}
+	}
+
+	/**
+	 * Delivers an event received from a peer to the local listeners, handing the delivery failures to the
+	 * error handler of the bus
+	 *
+	 * @param event
+	 * 		the received event or <code>null</code> if it could not be decoded, as already handled
+	 */
+	private void receive(final Event event) {
+		if (event == null) {
+			return;
+		}
+		try {
+			target.deliver(event);
+		} catch (RuntimeException e) {
+			target.getErrorHandler().handle(event, null, e);
+		}
+	}
+
+	/**
+	 * Disconnects and closes every transport
+	 *
+	 * @throws java.io.IOException
+	 * 		if any of the transports could not be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		IOException failure = null;
+		for (BridgeTransport transport : transports) {
+			try {
+				transport.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		transports = new BridgeTransport[0];
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.bridge;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.EventCodec;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A transport over two memory-mapped ring files, one per direction, shared with a peer process of the same host.
+ *
+ * Each ring has a single writer, this transport for the outbound ring and the peer for the inbound one,
+ * and a single reader. The writer encodes the events straight into the ring and publishes its write sequence,
+ * while the reader thread delivers every published event in a batch before publishing its read sequence.
+ * The peer opens the same files, with the directions swapped:
+ * <pre>
+ * SharedMemoryTransport.open(Paths.get("/dev/shm/a-to-b"), Paths.get("/dev/shm/b-to-a")); // process A
+ * SharedMemoryTransport.open(Paths.get("/dev/shm/b-to-a"), Paths.get("/dev/shm/a-to-b")); // process B
+ * </pre>
+ *
+ * The senders wait, according to the wait strategy, while the outbound ring is full, hence a stalled peer
+ * eventually blocks the dispatches of the forwarded events. Decoded events must not retain the ring contents,
+ * which are overwritten once delivered.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class SharedMemoryTransport implements BridgeTransport {
+
+	/**
+	 * The default capacity of each ring: 1MB
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	// the marker of an initialized ring file
+	private static final int MAGIC = 0x6A457631;
+
+	// the layout of the ring header: the sequences are kept in distinct cache lines
+	private static final int MAGIC_OFFSET = 0;
+	private static final int CAPACITY_OFFSET = 4;
+	private static final int WRITE_SEQUENCE = 64;
+	private static final int READ_SEQUENCE = 128;
+	private static final int DATA = 192;
+
+	// the record header size and alignment
+	private static final int HEADER = 4;
+	private static final int ALIGNMENT = 8;
+
+	// the length of the record which pads the end of the ring
+	private static final int PADDING = -1;
+
+	// the ring written by this transport
+	private final Ring outbound;
+
+	// the ring written by the peer
+	private final Ring inbound;
+
+	// the wait strategy of the writer and reader
+	private final WaitStrategy waitStrategy;
+
+	// the codec of the events
+	private volatile EventCodec<Event> codec;
+
+	// the reader thread
+	private volatile Thread reader;
+
+	// whether or not the transport was closed
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new shared memory transport
+	 *
+	 * @param outbound
+	 * 		the outbound ring
+	 * @param inbound
+	 * 		the inbound ring
+	 * @param waitStrategy
+	 * 		the wait strategy
+	 */
+	private SharedMemoryTransport(final Ring outbound, final Ring inbound, final WaitStrategy waitStrategy) {
+		this.outbound = outbound;
+		this.inbound = inbound;
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Maps the given ring files, creating them with the {@link #DEFAULT_CAPACITY default capacity}
+	 * if needed, waiting with the {@link WaitStrategy#PARK park strategy}
+	 *
+	 * @param outbound
+	 * 		the ring file written by this process
+	 * @param inbound
+	 * 		the ring file written by the peer
+	 * @return the transport
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>
+	 * @throws java.io.IOException
+	 * 		if the files could not be mapped or are not ring files
+	 */
+	public static SharedMemoryTransport open(final Path outbound, final Path inbound) throws IOException {
+		return open(outbound, inbound, DEFAULT_CAPACITY, WaitStrategy.PARK);
+	}
+
+	/**
+	 * Maps the given ring files, creating them with the given capacity if needed.
+	 *
+	 * Existing ring files keep the capacity they were created with.
+	 *
+	 * @param outbound
+	 * 		the ring file written by this process
+	 * @param inbound
+	 * 		the ring file written by the peer
+	 * @param capacity
+	 * 		the capacity of the created rings, in bytes, which must be a power of two
+	 * @param waitStrategy
+	 * 		the strategy used while the outbound ring is full or the inbound one is empty
+	 * @return the transport
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>capacity</code> is not a power of two of at least 1KB
+	 * @throws java.io.IOException
+	 * 		if the files could not be mapped or are not ring files
+	 */
+	public static SharedMemoryTransport open(final Path outbound, final Path inbound, final int capacity,
+			final WaitStrategy waitStrategy) throws IOException {
+		if (outbound == null || inbound == null) {
+			throw new NullPointerException("Invalid ring file.");
+		}
+		if (waitStrategy == null) {
+			throw new NullPointerException("Invalid wait strategy.");
+		}
+		if (capacity < 1024 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		final Ring out = Ring.map(outbound, capacity);
+		try {
+			return new SharedMemoryTransport(out, Ring.map(inbound, capacity), waitStrategy);
+		} catch (IOException | RuntimeException e) {
+			out.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public synchronized void open(final EventCodec<Event> codec, final Consumer<? super Event> receiver) {
+		if (codec == null) {
+			throw new NullPointerException("Invalid codec.");
+		}
+		if (receiver == null) {
+			throw new NullPointerException("Invalid receiver.");
+		}
+		if (reader != null || closed) {
+			throw new IllegalStateException("The transport was already opened.");
+		}
+		this.codec = codec;
+		this.reader = new Thread(() -> read(codec, receiver), "jevents-bridge-shm");
+		this.reader.setDaemon(true);
+		this.reader.start();
+	}
+
+	@Override
+	public synchronized void send(final Event event) {
+		final EventCodec<Event> current = codec;
+		if (current == null || closed) {
+			throw new IllegalStateException("The transport is not open.");
+		}
+		final MappedByteBuffer buffer = outbound.buffer;
+		final int capacity = outbound.capacity;
+		long write = buffer.getLong(WRITE_SEQUENCE);
+		int attempt = 0;
+		while (true) {
+			outbound.fence();
+			final long free = capacity - (write - buffer.getLong(READ_SEQUENCE));
+			final int index = (int) (write & (capacity - 1));
+			final int contiguous = (int) Math.min(free, capacity - index);
+			if (contiguous > HEADER) {
+				final int start = DATA + index;
+				buffer.limit(start + contiguous).position(start + HEADER);
+				try {
+					current.encode(event, buffer);
+					final int length = buffer.position() - start - HEADER;
+					buffer.limit(buffer.capacity());
+					buffer.putInt(start, length);
+					outbound.publish(WRITE_SEQUENCE, write + align(HEADER + length));
+					return;
+				} catch (BufferOverflowException e) {
+					buffer.limit(buffer.capacity());
+				}
+			}
+			if (capacity - index <= free) {
+				// limited by the end of the ring rather than by the reader
+				if (index == 0) {
+					throw new IllegalArgumentException("The event does not fit in the ring: " + event);
+				}
+				buffer.putInt(DATA + index, PADDING);
+				write += capacity - index;
+				outbound.publish(WRITE_SEQUENCE, write);
+				continue;
+			}
+			if (closed) {
+				throw new IllegalStateException("The transport was closed.");
+			}
+			waitStrategy.idle(++attempt);
+		}
+	}
+
+	/**
+	 * Delivers the events published in the inbound ring, until the transport is closed
+	 *
+	 * @param codec
+	 * 		the codec of the events
+	 * @param receiver
+	 * 		the receiver of the events
+	 */
+	private void read(final EventCodec<Event> codec, final Consumer<? super Event> receiver) {
+		final MappedByteBuffer buffer = inbound.buffer;
+		final int capacity = inbound.capacity;
+		long read = buffer.getLong(READ_SEQUENCE);
+		int attempt = 0;
+		while (!closed) {
+			final long write = buffer.getLong(WRITE_SEQUENCE);
+			inbound.fence();
+			if (write == read) {
+				waitStrategy.idle(++attempt);
+				continue;
+			}
+			attempt = 0;
+
+			// deliver the whole batch, releasing its room at once
+			while (read < write) {
+				final int index = (int) (read & (capacity - 1));
+				final int length = buffer.getInt(DATA + index);
+				if (length == PADDING) {
+					read += capacity - index;
+					continue;
+				}
+				buffer.limit(DATA + index + HEADER + length).position(DATA + index + HEADER);
+				try {
+					receiver.accept(codec.decode(buffer));
+				} catch (RuntimeException e) {
+					final Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+				buffer.limit(buffer.capacity());
+				read += align(HEADER + length);
+			}
+			inbound.publish(READ_SEQUENCE, read);
+		}
+	}
+
+	/**
+	 * Aligns the given record size
+	 *
+	 * @param size
+	 * 		the record size
+	 * @return the aligned size
+	 */
+	private static int align(final int size) {
+		return (size + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	/**
+	 * Stops the reader thread and unmaps the rings: the events still in the outbound ring are
+	 * read by the peer, while the inbound ones are kept for the next transport opened on the same files.
+	 *
+	 * @throws java.io.IOException
+	 * 		if the ring files could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		// not synchronized, as a sender may be holding the lock while waiting for room
+		if (closed) {
+			return;
+		}
+		closed = true;
+		final Thread current = reader;
+		if (current != null && current != Thread.currentThread()) {
+			try {
+				current.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			outbound.close();
+		} finally {
+			inbound.close();
+		}
+	}
+
+	/**
+	 * A ring file mapped in memory
+	 */
+	private static final class Ring {
+
+		// the file channel
+		private final FileChannel channel;
+
+		// the mapped contents
+		private final MappedByteBuffer buffer;
+
+		// the data capacity
+		private final int capacity;
+
+		// the target of the fences
+		private volatile int barrier;
+
+		/**
+		 * Creates a new ring
+		 *
+		 * @param channel
+		 * 		the file channel
+		 * @param buffer
+		 * 		the mapped contents
+		 * @param capacity
+		 * 		the data capacity
+		 */
+		private Ring(final FileChannel channel, final MappedByteBuffer buffer, final int capacity) {
+			this.channel = channel;
+			this.buffer = buffer;
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Maps the given ring file, initializing it if needed
+		 *
+		 * @param path
+		 * 		the ring file
+		 * @param capacity
+		 * 		the capacity of a new ring
+		 * @return the ring
+		 * @throws java.io.IOException
+		 * 		if the file could not be mapped or is not a ring file
+		 */
+		static Ring map(final Path path, final int capacity) throws IOException {
+			final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			try {
+				final FileLock lock = channel.lock();
+				try {
+					MappedByteBuffer buffer;
+					int actual = capacity;
+					if (channel.size() >= DATA) {
+						buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA);
+						if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+							throw new IOException("Not a ring file: " + path);
+						}
+						actual = buffer.getInt(CAPACITY_OFFSET);
+						buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA + (long) actual);
+					} else {
+						// a new ring: the capacity is written last, as the magic marks the file as initialized
+						buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA + (long) actual);
+						buffer.putLong(WRITE_SEQUENCE, 0L);
+						buffer.putLong(READ_SEQUENCE, 0L);
+						buffer.putInt(CAPACITY_OFFSET, actual);
+						buffer.putInt(MAGIC_OFFSET, MAGIC);
+						buffer.force();
+					}
+					return new Ring(channel, buffer, actual);
+				} finally {
+					lock.release();
+				}
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Orders the memory accesses preceding the call before the ones following it: a volatile
+		 * write followed by a volatile read, which neither the compiler nor the processor reorder.
+		 *
+		 * @return the barrier value
+		 */
+		int fence() {
+			barrier = 0;
+			return barrier;
+		}
+
+		/**
+		 * Publishes the given sequence, after every preceding write
+		 *
+		 * @param offset
+		 * 		the offset of the sequence
+		 * @param sequence
+		 * 		the new sequence
+		 */
+		void publish(final int offset, final long sequence) {
+			fence();
+			buffer.putLong(offset, sequence);
+		}
+
+		/**
+		 * Closes the ring file
+		 *
+		 * @throws java.io.IOException
+		 * 		if the file could not be closed
+		 */
+		void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.bridge;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.EventCodec;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+
+/**
+ * A transport over a TCP connection through the loopback interface, the fallback for when the peers
+ * cannot share memory-mapped files.
+ *
+ * Events are framed by their length and written in batches: the senders encode the events into a
+ * pending batch, which is written by the writer thread as a whole as soon as the previous batch is written.
+ * The batches grow while the connection is busy, up to 64KB, after which the senders wait.
+ * One of the peers {@link #listen(int) listens} on a port, to which the other one {@link #connect(int) connects};
+ * the events sent before the connection is established are kept in the pending batch.
+ *
+ * A connection failure closes the transport and is reported to the uncaught exception handler of the thread
+ * which detected it.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class SocketTransport implements BridgeTransport {
+
+	// the size of the batches and of the read buffer
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// the frame header size
+	private static final int HEADER = 4;
+
+	// the server channel, if listening
+	private final ServerSocketChannel server;
+
+	// the address of the listening peer, if connecting
+	private final InetSocketAddress address;
+
+	// the batch being filled by the senders
+	private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	// the batch being written
+	private ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	// the connection, once established
+	private volatile SocketChannel channel;
+
+	// the codec of the events
+	private EventCodec<Event> codec;
+
+	// the writer thread
+	private Thread writer;
+
+	// whether or not the transport was closed
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new socket transport
+	 *
+	 * @param server
+	 * 		the server channel, if listening
+	 * @param address
+	 * 		the address of the listening peer, if connecting
+	 */
+	private SocketTransport(final ServerSocketChannel server, final InetSocketAddress address) {
+		this.server = server;
+		this.address = address;
+	}
+
+	/**
+	 * Listens on the given loopback port, accepting a single peer once opened
+	 *
+	 * @param port
+	 * 		the port or 0 for any free port
+	 * @return the transport
+	 * @throws java.io.IOException
+	 * 		if the port could not be bound
+	 * @see #getLocalPort()
+	 */
+	public static SocketTransport listen(final int port) throws IOException {
+		final ServerSocketChannel server = ServerSocketChannel.open();
+		try {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1);
+		} catch (IOException e) {
+			server.close();
+			throw e;
+		}
+		return new SocketTransport(server, null);
+	}
+
+	/**
+	 * Connects, once opened, to the peer listening on the given loopback port
+	 *
+	 * @param port
+	 * 		the port of the peer
+	 * @return the transport
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the port is out of range
+	 */
+	public static SocketTransport connect(final int port) {
+		return new SocketTransport(null, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+
+	/**
+	 * Returns the local port of the connection, or the one listened on
+	 *
+	 * @return the local port or <code>-1</code> if not yet connected
+	 */
+	public int getLocalPort() {
+		final SocketChannel current = channel;
+		return current != null ? current.socket().getLocalPort() :
+				server != null ? server.socket().getLocalPort() : -1;
+	}
+
+	@Override
+	public synchronized void open(final EventCodec<Event> codec, final Consumer<? super Event> receiver) {
+		if (codec == null) {
+			throw new NullPointerException("Invalid codec.");
+		}
+		if (receiver == null) {
+			throw new NullPointerException("Invalid receiver.");
+		}
+		if (writer != null || closed) {
+			throw new IllegalStateException("The transport was already opened.");
+		}
+		this.codec = codec;
+		this.writer = new Thread(() -> write(receiver), "jevents-bridge-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	@Override
+	public synchronized void send(final Event event) {
+		if (codec == null) {
+			throw new IllegalStateException("The transport is not open.");
+		}
+		while (true) {
+			if (closed) {
+				throw new IllegalStateException("The transport was closed.");
+			}
+			final int start = pending.position();
+			if (pending.remaining() > HEADER) {
+				pending.position(start + HEADER);
+				try {
+					codec.encode(event, pending);
+					pending.putInt(start, pending.position() - start - HEADER);
+					if (start == 0) {
+						notifyAll();
+					}
+					return;
+				} catch (BufferOverflowException e) {
+					pending.position(start);
+				}
+			}
+			if (start == 0) {
+				throw new IllegalArgumentException("The event does not fit in a batch: " + event);
+			}
+			// wait for the writer to take the batch
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the transport.", e);
+			}
+		}
+	}
+
+	/**
+	 * Establishes the connection, starts the reader thread and writes the pending batches until
+	 * the transport is closed
+	 *
+	 * @param receiver
+	 * 		the receiver of the events
+	 */
+	private void write(final Consumer<? super Event> receiver) {
+		try {
+			final SocketChannel connection = server != null ? server.accept() : SocketChannel.open(address);
+			connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			channel = connection;
+			if (closed) {
+				connection.close();
+				return;
+			}
+			final Thread reader = new Thread(() -> read(connection, receiver), "jevents-bridge-reader");
+			reader.setDaemon(true);
+			reader.start();
+
+			while (true) {
+				final ByteBuffer batch;
+				synchronized (this) {
+					while (pending.position() == 0 && !closed) {
+						wait();
+					}
+					if (pending.position() == 0) {
+						return;
+					}
+					batch = pending;
+					pending = writing;
+					writing = batch;
+					notifyAll();
+				}
+				batch.flip();
+				while (batch.hasRemaining()) {
+					connection.write(batch);
+				}
+				batch.clear();
+			}
+		} catch (ClosedChannelException e) {
+			// closed meanwhile
+		} catch (IOException e) {
+			fail(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Delivers the events read from the given connection until it is closed
+	 *
+	 * @param connection
+	 * 		the connection
+	 * @param receiver
+	 * 		the receiver of the events
+	 */
+	private void read(final SocketChannel connection, final Consumer<? super Event> receiver) {
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		try {
+			while (true) {
+				if (connection.read(buffer) < 0) {
+					// the peer is gone
+					close();
+					return;
+				}
+				buffer.flip();
+				while (buffer.remaining() >= HEADER) {
+					final int start = buffer.position();
+					final int length = buffer.getInt(start);
+					if (length < 0 || length > BUFFER_SIZE - HEADER) {
+						throw new IOException("Invalid frame length: " + length);
+					}
+					if (buffer.remaining() < HEADER + length) {
+						break;
+					}
+					final int limit = buffer.limit();
+					buffer.limit(start + HEADER + length).position(start + HEADER);
+					try {
+						receiver.accept(codec.decode(buffer));
+					} catch (RuntimeException e) {
+						final Thread thread = Thread.currentThread();
+						thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+					}
+					buffer.limit(limit).position(start + HEADER + length);
+				}
+				buffer.compact();
+			}
+		} catch (ClosedChannelException e) {
+			// closed meanwhile
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Closes the transport due to the given connection failure, unless it was closed meanwhile
+	 *
+	 * @param failure
+	 * 		the failure
+	 */
+	private void fail(final IOException failure) {
+		if (closed) {
+			return;
+		}
+		try {
+			close();
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+		final Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+	}
+
+	/**
+	 * Closes the connection, once the pending batch is written
+	 *
+	 * @throws java.io.IOException
+	 * 		if the connection could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		final Thread current;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			current = writer;
+			notifyAll();
+		}
+		if (current != null && current != Thread.currentThread() && channel != null) {
+			try {
+				current.join(1000L);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			final SocketChannel connection = channel;
+			if (connection != null) {
+				connection.close();
+			}
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+}
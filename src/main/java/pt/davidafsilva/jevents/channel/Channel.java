@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.channel;
+
+import pt.davidafsilva.jevents.dispatcher.ErrorHandler;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The base of the primitive channels, which keeps their listeners and their asynchronous ring.
+ *
+ * The listeners are kept in a copy-on-write array: modifications are serialized by the channel
+ * monitor, while dispatches read an immutable snapshot without locking. The ring, along with its
+ * consumer thread, is only created upon the first asynchronous dispatch.
+ *
+ * @param <L>
+ * 		the listener type
+ * @author David Silva
+ * @since 1.0
+ */
+abstract class Channel<L> {
+
+	// the channel name
+	private final String name;
+
+	// the empty snapshot
+	private final L[] empty;
+
+	// the current snapshot, which must never be modified after being published
+	private volatile L[] listeners;
+
+	// the number of slots of the ring
+	private final int bufferSize;
+
+	// the wait strategy of the ring
+	private final WaitStrategy waitStrategy;
+
+	// the provider of the handler of the listeners failures
+	private final Supplier<ErrorHandler> errorHandler;
+
+	// the ring of the asynchronous dispatches, created on demand
+	private volatile PrimitiveRing ring;
+
+	// the shutdown flag, guarded by the channel monitor
+	private boolean shutdown;
+
+	/**
+	 * Creates a new channel without listeners
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param empty
+	 * 		the empty snapshot
+	 * @param bufferSize
+	 * 		the number of slots of the ring
+	 * @param waitStrategy
+	 * 		the wait strategy of the ring
+	 * @param errorHandler
+	 * 		the provider of the handler of the listeners failures
+	 */
+	Channel(final String name, final L[] empty, final int bufferSize, final WaitStrategy waitStrategy,
+			final Supplier<ErrorHandler> errorHandler) {
+		this.name = name;
+		this.empty = empty;
+		this.listeners = empty;
+		this.bufferSize = bufferSize;
+		this.waitStrategy = waitStrategy;
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Returns the name of the channel
+	 *
+	 * @return the channel name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of slots of the ring used for the asynchronous dispatches
+	 *
+	 * @return the buffer size
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Appends the given listener to the channel
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> as the listener is always added
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>listener</code> is <code>null</code>
+	 */
+	public synchronized boolean register(final L listener) {
+		if (listener == null) {
+			throw new NullPointerException("Invalid listener.");
+		}
+		final L[] current = listeners;
+		final L[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = listener;
+		listeners = updated;
+		return true;
+	}
+
+	/**
+	 * Removes the first occurrence of the given listener from the channel
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> if the listener was removed, <code>false</code> if it's not registered
+	 */
+	public synchronized boolean unregister(final L listener) {
+		final L[] current = listeners;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].equals(listener)) {
+				final L[] updated = Arrays.copyOf(empty, current.length - 1);
+				System.arraycopy(current, 0, updated, 0, i);
+				System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+				listeners = updated;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of listeners registered in the channel
+	 *
+	 * @return the listener count
+	 */
+	public int getListenerCount() {
+		return listeners.length;
+	}
+
+	/**
+	 * Returns the current snapshot of the listeners, which must not be modified
+	 *
+	 * @return the listeners snapshot
+	 */
+	final L[] listeners() {
+		return listeners;
+	}
+
+	/**
+	 * Hands the given failure of a listener to the error handler
+	 *
+	 * @param listener
+	 * 		the failing listener
+	 * @param failure
+	 * 		the failure
+	 */
+	final void failed(final L listener, final RuntimeException failure) {
+		errorHandler.get().handleChannel(name, listener, failure);
+	}
+
+	/**
+	 * Publishes the given value bits in the ring, creating it if needed
+	 *
+	 * @param bits
+	 * 		the value bits
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the channel was shut down
+	 */
+	final void publish(final long bits) {
+		PrimitiveRing current = ring;
+		if (current == null) {
+			current = start();
+		}
+		current.publish(bits);
+	}
+
+	/**
+	 * Creates the ring, unless it was created meanwhile
+	 *
+	 * @return the ring
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the channel was shut down
+	 */
+	private synchronized PrimitiveRing start() {
+		if (shutdown) {
+			throw new RejectedExecutionException("The channel was shut down.");
+		}
+		if (ring == null) {
+			ring = new PrimitiveRing("jevents-channel-" + name, bufferSize, waitStrategy, this::deliver);
+		}
+		return ring;
+	}
+
+	/**
+	 * Delivers the given value bits, consumed from the ring, to the listeners
+	 *
+	 * @param bits
+	 * 		the value bits
+	 */
+	abstract void deliver(long bits);
+
+	/**
+	 * Waits until the values dispatched asynchronously so far are handled, or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the values were handled, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final PrimitiveRing current = ring;
+		return current == null || current.drain(timeout, unit);
+	}
+
+	/**
+	 * Rejects the asynchronous dispatches from now on, while the pending ones are still handled
+	 */
+	synchronized void shutdown() {
+		shutdown = true;
+		if (ring != null) {
+			ring.shutdown();
+		}
+	}
+
+	/**
+	 * Waits until the pending asynchronous dispatches are handled after a shutdown request, or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the channel terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final PrimitiveRing current = ring;
+		return current == null || current.awaitTermination(timeout, unit);
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.channel;
+
+import pt.davidafsilva.jevents.DoubleEventListener;
+import pt.davidafsilva.jevents.LongEventListener;
+import pt.davidafsilva.jevents.dispatcher.ErrorHandler;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The registry of the primitive channels of an {@link pt.davidafsilva.jevents.EventBus event bus}, the counterpart
+ * of the {@link pt.davidafsilva.jevents.registry.ListenerRegistry} for the values which are dispatched without
+ * being wrapped in {@link pt.davidafsilva.jevents.Event events}.
+ *
+ * Channels are identified by name, the <code>long</code> and <code>double</code> ones being kept apart, and
+ * created upon their first lookup. Looking a channel up once and dispatching through it afterwards spares the
+ * name lookup on every dispatch. The failures of the listeners are handed to the
+ * {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler error handler} of the registry.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class ChannelRegistry {
+
+	/**
+	 * The default number of slots of the rings of the channels
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+	/**
+	 * The default wait strategy of the rings of the channels
+	 */
+	public static final WaitStrategy DEFAULT_WAIT_STRATEGY = WaitStrategy.PARK;
+
+	// map for the channel name -> long channel
+	private final ConcurrentMap<String, LongChannel> longChannels = new ConcurrentHashMap<>();
+
+	// map for the channel name -> double channel
+	private final ConcurrentMap<String, DoubleChannel> doubleChannels = new ConcurrentHashMap<>();
+
+	// the provider of the handler of the listeners failures
+	private final Supplier<ErrorHandler> errorHandler;
+
+	// the shutdown flag
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a new empty registry
+	 *
+	 * @param errorHandler
+	 * 		the provider of the handler of the listeners failures
+	 */
+	private ChannelRegistry(final Supplier<ErrorHandler> errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Creates a new empty registry, isolated from every other one, which reports the failures of the listeners
+	 * through {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler#REPORT}
+	 *
+	 * @return the registry
+	 */
+	public static ChannelRegistry create() {
+		return create(() -> ErrorHandler.REPORT);
+	}
+
+	/**
+	 * Creates a new empty registry, isolated from every other one, which hands the failures of the listeners to
+	 * the error handler given by the provider, such as the one of a bus
+	 *
+	 * @param errorHandler
+	 * 		the provider of the handler of the listeners failures
+	 * @return the registry
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>errorHandler</code> is <code>null</code>
+	 */
+	public static ChannelRegistry create(final Supplier<ErrorHandler> errorHandler) {
+		if (errorHandler == null) {
+			throw new NullPointerException("Invalid error handler.");
+		}
+		return new ChannelRegistry(errorHandler);
+	}
+
+	/**
+	 * Returns the <code>long</code> channel with the given name, creating it with the default ring settings
+	 * if it doesn't exist yet
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @return the channel
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> is <code>null</code>
+	 */
+	public LongChannel longChannel(final String name) {
+		return longChannel(name, DEFAULT_BUFFER_SIZE, DEFAULT_WAIT_STRATEGY);
+	}
+
+	/**
+	 * Returns the <code>long</code> channel with the given name, creating it with the given ring settings
+	 * if it doesn't exist yet, otherwise the settings are ignored
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param bufferSize
+	 * 		the number of slots of the ring, which must be a power of two greater than 1
+	 * @param waitStrategy
+	 * 		the wait strategy of the ring
+	 * @return the channel
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> or <code>waitStrategy</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>bufferSize</code> is not a power of two greater than 1
+	 */
+	public LongChannel longChannel(final String name, final int bufferSize, final WaitStrategy waitStrategy) {
+		validate(name, bufferSize, waitStrategy);
+		LongChannel channel = longChannels.get(name);
+		if (channel == null) {
+			final LongChannel newChannel = new LongChannel(name, bufferSize, waitStrategy, errorHandler);
+			channel = longChannels.putIfAbsent(name, newChannel);
+			if (channel == null) {
+				channel = newChannel;
+				if (shutdown) {
+					channel.shutdown();
+				}
+			}
+		}
+		return channel;
+	}
+
+	/**
+	 * Returns the <code>double</code> channel with the given name, creating it with the default ring settings
+	 * if it doesn't exist yet
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @return the channel
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> is <code>null</code>
+	 */
+	public DoubleChannel doubleChannel(final String name) {
+		return doubleChannel(name, DEFAULT_BUFFER_SIZE, DEFAULT_WAIT_STRATEGY);
+	}
+
+	/**
+	 * Returns the <code>double</code> channel with the given name, creating it with the given ring settings
+	 * if it doesn't exist yet, otherwise the settings are ignored
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param bufferSize
+	 * 		the number of slots of the ring, which must be a power of two greater than 1
+	 * @param waitStrategy
+	 * 		the wait strategy of the ring
+	 * @return the channel
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> or <code>waitStrategy</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>bufferSize</code> is not a power of two greater than 1
+	 */
+	public DoubleChannel doubleChannel(final String name, final int bufferSize, final WaitStrategy waitStrategy) {
+		validate(name, bufferSize, waitStrategy);
+		DoubleChannel channel = doubleChannels.get(name);
+		if (channel == null) {
+			final DoubleChannel newChannel = new DoubleChannel(name, bufferSize, waitStrategy, errorHandler);
+			channel = doubleChannels.putIfAbsent(name, newChannel);
+			if (channel == null) {
+				channel = newChannel;
+				if (shutdown) {
+					channel.shutdown();
+				}
+			}
+		}
+		return channel;
+	}
+
+	/**
+	 * Registers the given listener in the <code>long</code> channel with the given name
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> or <code>listener</code> is <code>null</code>
+	 */
+	public boolean registerLong(final String name, final LongEventListener listener) {
+		return longChannel(name).register(listener);
+	}
+
+	/**
+	 * Removes the given listener from the <code>long</code> channel with the given name, if it's registered.
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public boolean unregisterLong(final String name, final LongEventListener listener) {
+		final LongChannel channel = name == null ? null : longChannels.get(name);
+		return channel != null && channel.unregister(listener);
+	}
+
+	/**
+	 * Registers the given listener in the <code>double</code> channel with the given name
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> or <code>listener</code> is <code>null</code>
+	 */
+	public boolean registerDouble(final String name, final DoubleEventListener listener) {
+		return doubleChannel(name).register(listener);
+	}
+
+	/**
+	 * Removes the given listener from the <code>double</code> channel with the given name, if it's registered.
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public boolean unregisterDouble(final String name, final DoubleEventListener listener) {
+		final DoubleChannel channel = name == null ? null : doubleChannels.get(name);
+		return channel != null && channel.unregister(listener);
+	}
+
+	/**
+	 * Waits until the values dispatched asynchronously so far, through every channel, are handled or the
+	 * timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the values were handled, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Channel<?> channel : channels()) {
+			if (!channel.drain(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Shuts down every channel: the pending asynchronous dispatches are still handled, but new ones are rejected.
+	 * The synchronous dispatches are still allowed.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (Channel<?> channel : channels()) {
+			channel.shutdown();
+		}
+	}
+
+	/**
+	 * Waits until the pending asynchronous dispatches of every channel are handled after a shutdown request,
+	 * or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if every channel terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Channel<?> channel : channels()) {
+			if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns all of the channels
+	 *
+	 * @return the channels
+	 */
+	private List<Channel<?>> channels() {
+		final List<Channel<?>> channels = new ArrayList<>(longChannels.size() + doubleChannels.size());
+		channels.addAll(longChannels.values());
+		channels.addAll(doubleChannels.values());
+		return channels;
+	}
+
+	/**
+	 * Validates the arguments of a channel lookup
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param bufferSize
+	 * 		the number of slots of the ring
+	 * @param waitStrategy
+	 * 		the wait strategy of the ring
+	 */
+	private static void validate(final String name, final int bufferSize, final WaitStrategy waitStrategy) {
+		if (name == null || waitStrategy == null) {
+			throw new NullPointerException("Invalid channel name or wait strategy.");
+		}
+		if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+			throw new IllegalArgumentException("The buffer size must be a power of two, greater than 1: " + bufferSize);
+		}
+	}
+}
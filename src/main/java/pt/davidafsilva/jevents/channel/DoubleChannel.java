@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.channel;
+
+import pt.davidafsilva.jevents.DoubleEventListener;
+import pt.davidafsilva.jevents.dispatcher.ErrorHandler;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.util.function.Supplier;
+
+/**
+ * A channel which carries <code>double</code> values straight to its
+ * {@link pt.davidafsilva.jevents.DoubleEventListener listeners}, without boxing them nor allocating any
+ * {@link pt.davidafsilva.jevents.Event event}.
+ *
+ * Synchronous dispatches run the listeners in the calling thread, while asynchronous ones are published
+ * in a preallocated ring, consumed by a single thread which keeps the dispatch order. The values travel through the ring as their raw <code>long</code> bits.
+ *
+ * Channels are created and looked up by name through the {@link pt.davidafsilva.jevents.channel.ChannelRegistry}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class DoubleChannel extends Channel<DoubleEventListener> {
+
+	// the empty listeners snapshot
+	private static final DoubleEventListener[] NO_LISTENERS = new DoubleEventListener[0];
+
+	/**
+	 * Creates a new channel without listeners
+	 *
+	 * @param name
+	 * 		the channel name
+	 * @param bufferSize
+	 * 		the number of slots of the ring
+	 * @param waitStrategy
+	 * 		the wait strategy of the ring
+	 * @param errorHandler
+	 * 		the provider of the handler of the listeners failures
+	 */
+	DoubleChannel(final String name, final int bufferSize, final WaitStrategy waitStrategy,
+			final Supplier<ErrorHandler> errorHandler) {
+		super(name, NO_LISTENERS, bufferSize, waitStrategy, errorHandler);
+	}
+
+	/**
+	 * Dispatches the given value synchronously, to every listener in their registration order.
+	 *
+	 * The failures of the listeners are handed to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler}
+	 * of the bus, without skipping the remaining listeners.
+	 *
+	 * @param value
+	 * 		the dispatched value
+	 */
+	public void dispatch(final double value) {
+		final DoubleEventListener[] current = listeners();
+		for (int i = 0; i < current.length; i++) {
+			try {
+				current[i].handle(value);
+			} catch (RuntimeException e) {
+				failed(current[i], e);
+			}
+		}
+	}
+
+	/**
+	 * Dispatches the given value asynchronously, waiting for a free slot of the ring if it's full.
+	 *
+	 * The failures of the listeners are handed to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler}
+	 * of the bus, from the consumer thread. As there's no caller left to propagate to, a failure rethrown by the
+	 * handler is reported to the uncaught exception handler of that thread.
+	 *
+	 * @param value
+	 * 		the dispatched value
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the channel was shut down
+	 */
+	public void dispatchAsync(final double value) {
+		publish(Double.doubleToRawLongBits(value));
+	}
+
+	@Override
+	void deliver(final long bits) {
+		dispatch(Double.longBitsToDouble(bits));
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.channel;
+
+import pt.davidafsilva.jevents.dispatcher.RingSequencer;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * A preallocated ring buffer of primitive values, consumed by a single thread.
+ *
+ * The values are kept as raw <code>long</code> bits, hence neither boxing nor allocation takes place per dispatched
+ * value, while the slots are sequenced by a {@link pt.davidafsilva.jevents.dispatcher.RingSequencer}, as in the
+ * {@link pt.davidafsilva.jevents.dispatcher.RingBufferDispatcher}. The single consumer keeps the dispatch order.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class PrimitiveRing {
+
+	// the preallocated slots
+	private final long[] values;
+
+	// the sequencer of the slots
+	private final RingSequencer sequencer;
+
+	/**
+	 * Creates a new ring and starts its consumer
+	 *
+	 * @param name
+	 * 		the name of the consumer thread
+	 * @param bufferSize
+	 * 		the number of slots, which must be a power of two
+	 * @param waitStrategy
+	 * 		the wait strategy
+	 * @param sink
+	 * 		the receiver of the values, executed by the consumer thread
+	 */
+	PrimitiveRing(final String name, final int bufferSize, final WaitStrategy waitStrategy, final LongConsumer sink) {
+		this.values = new long[bufferSize];
+		this.sequencer = RingSequencer.create(bufferSize, 1, waitStrategy);
+		sequencer.start(name, index -> sink.accept(values[index]));
+	}
+
+	/**
+	 * Publishes the given value, waiting for a free slot if the ring is full
+	 *
+	 * @param value
+	 * 		the value bits
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the ring was shut down
+	 */
+	void publish(final long value) {
+		final long sequence = sequencer.claim();
+		values[sequencer.indexOf(sequence)] = value;
+		sequencer.publish(sequence);
+	}
+
+	/**
+	 * Waits until all of the values published so far are consumed, or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the values were consumed, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return sequencer.drain(timeout, unit);
+	}
+
+	/**
+	 * Rejects the values published from now on, while the pending ones are still consumed
+	 */
+	void shutdown() {
+		sequencer.shutdown();
+	}
+
+	/**
+	 * Waits until the consumer terminates after a shutdown request, or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the consumer terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return sequencer.awaitTermination(timeout, unit);
+	}
+}
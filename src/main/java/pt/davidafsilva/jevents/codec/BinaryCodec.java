@@ -0,0 +1,507 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.codec;
+
+import pt.davidafsilva.jevents.Event;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The default codec, which writes the fields of the events in a compact binary form.
+ *
+ * The instance fields of the event class and of its super classes, except the transient ones,
+ * are written in a fixed order: the fields of the super classes first, then each class fields by name.
+ * The supported field types are the primitives and their wrappers, {@link String}, enumerations and
+ * <code>byte[]</code>. Integral fields are written as variable-length integers, while nullable fields are
+ * preceded by a presence marker.
+ *
+ * Encoding allocates nothing, while decoding instantiates the event through its no-arguments
+ * constructor, which may be private.
+ *
+ * @param <E>
+ * 		the event type
+ * @author David Silva
+ * @since 1.0
+ */
+public final class BinaryCodec<E extends Event> implements EventCodec<E> {
+
+	// the field kinds
+	private static final int BOOLEAN = 0;
+	private static final int BYTE = 1;
+	private static final int SHORT = 2;
+	private static final int CHAR = 3;
+	private static final int INT = 4;
+	private static final int LONG = 5;
+	private static final int FLOAT = 6;
+	private static final int DOUBLE = 7;
+	private static final int STRING = 8;
+	private static final int ENUM = 9;
+	private static final int BYTES = 10;
+
+	// the constructor of the events
+	private final Constructor<E> constructor;
+
+	// the encoded fields
+	private final Field[] fields;
+
+	// the kind of each field
+	private final int[] kinds;
+
+	// whether or not each primitive field is wrapped
+	private final boolean[] wrapped;
+
+	// the constants of each enumeration field
+	private final Object[][] constants;
+
+	/**
+	 * Creates a new binary codec
+	 *
+	 * @param constructor
+	 * 		the constructor of the events
+	 * @param fields
+	 * 		the encoded fields
+	 */
+	private BinaryCodec(final Constructor<E> constructor, final Field[] fields) {
+		this.constructor = constructor;
+		this.fields = fields;
+		this.kinds = new int[fields.length];
+		this.wrapped = new boolean[fields.length];
+		this.constants = new Object[fields.length][];
+		for (int i = 0; i < fields.length; i++) {
+			final Class<?> type = fields[i].getType();
+			kinds[i] = kindOf(type);
+			wrapped[i] = kinds[i] <= DOUBLE && !type.isPrimitive();
+			constants[i] = type.isEnum() ? type.getEnumConstants() : null;
+		}
+	}
+
+	/**
+	 * Creates the binary codec of the given event class
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the codec
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the class is abstract, has no no-arguments constructor, has fields of unsupported
+	 * 		types or its members are not accessible
+	 */
+	public static <E extends Event> BinaryCodec<E> of(final Class<E> clazz) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+			throw new IllegalArgumentException("Not a concrete event class: " + clazz.getName());
+		}
+		final Constructor<E> constructor;
+		try {
+			constructor = clazz.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("No no-arguments constructor in " + clazz.getName(), e);
+		}
+
+		final List<Field> fields = new ArrayList<>();
+		for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+			final Field[] declared = type.getDeclaredFields();
+			Arrays.sort(declared, Comparator.comparing(Field::getName));
+			final List<Field> encoded = new ArrayList<>(declared.length);
+			for (Field field : declared) {
+				final int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+					continue;
+				}
+				if (kindOf(field.getType()) < 0) {
+					throw new IllegalArgumentException("Unsupported field type: " + field);
+				}
+				encoded.add(field);
+			}
+			fields.addAll(0, encoded);
+		}
+
+		try {
+			constructor.setAccessible(true);
+			for (Field field : fields) {
+				field.setAccessible(true);
+			}
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Inaccessible event class: " + clazz.getName(), e);
+		}
+		return new BinaryCodec<>(constructor, fields.toArray(new Field[fields.size()]));
+	}
+
+	/**
+	 * Returns the kind of the given field type
+	 *
+	 * @param type
+	 * 		the field type
+	 * @return the field kind or <code>-1</code> if not supported
+	 */
+	private static int kindOf(final Class<?> type) {
+		if (type == boolean.class || type == Boolean.class) {
+			return BOOLEAN;
+		} else if (type == byte.class || type == Byte.class) {
+			return BYTE;
+		} else if (type == short.class || type == Short.class) {
+			return SHORT;
+		} else if (type == char.class || type == Character.class) {
+			return CHAR;
+		} else if (type == int.class || type == Integer.class) {
+			return INT;
+		} else if (type == long.class || type == Long.class) {
+			return LONG;
+		} else if (type == float.class || type == Float.class) {
+			return FLOAT;
+		} else if (type == double.class || type == Double.class) {
+			return DOUBLE;
+		} else if (type == String.class) {
+			return STRING;
+		} else if (type.isEnum()) {
+			return ENUM;
+		} else if (type == byte[].class) {
+			return BYTES;
+		}
+		return -1;
+	}
+
+	@Override
+	public void encode(final E event, final ByteBuffer target) {
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				final Field field = fields[i];
+				if (wrapped[i]) {
+					final Object value = field.get(event);
+					target.put(value == null ? (byte) 0 : (byte) 1);
+					if (value != null) {
+						putWrapped(kinds[i], value, target);
+					}
+					continue;
+				}
+				switch (kinds[i]) {
+					case BOOLEAN:
+						target.put(field.getBoolean(event) ? (byte) 1 : (byte) 0);
+						break;
+					case BYTE:
+						target.put(field.getByte(event));
+						break;
+					case SHORT:
+						target.putShort(field.getShort(event));
+						break;
+					case CHAR:
+						target.putChar(field.getChar(event));
+						break;
+					case INT:
+						putVarLong(target, zigZag(field.getInt(event)));
+						break;
+					case LONG:
+						putVarLong(target, zigZag(field.getLong(event)));
+						break;
+					case FLOAT:
+						target.putFloat(field.getFloat(event));
+						break;
+					case DOUBLE:
+						target.putDouble(field.getDouble(event));
+						break;
+					case STRING:
+						putString(target, (String) field.get(event));
+						break;
+					case ENUM:
+						final Enum<?> constant = (Enum<?>) field.get(event);
+						putVarLong(target, constant == null ? 0L : constant.ordinal() + 1L);
+						break;
+					default:
+						final byte[] bytes = (byte[]) field.get(event);
+						putVarLong(target, bytes == null ? 0L : bytes.length + 1L);
+						if (bytes != null) {
+							target.put(bytes);
+						}
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public E decode(final ByteBuffer source) {
+		final E event;
+		try {
+			event = constructor.newInstance();
+		} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Unable to instantiate " + constructor.getDeclaringClass().getName(), e);
+		}
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				final Field field = fields[i];
+				if (wrapped[i]) {
+					field.set(event, source.get() == 0 ? null : getWrapped(kinds[i], source));
+					continue;
+				}
+				switch (kinds[i]) {
+					case BOOLEAN:
+						field.setBoolean(event, source.get() != 0);
+						break;
+					case BYTE:
+						field.setByte(event, source.get());
+						break;
+					case SHORT:
+						field.setShort(event, source.getShort());
+						break;
+					case CHAR:
+						field.setChar(event, source.getChar());
+						break;
+					case INT:
+						field.setInt(event, (int) unZigZag(getVarLong(source)));
+						break;
+					case LONG:
+						field.setLong(event, unZigZag(getVarLong(source)));
+						break;
+					case FLOAT:
+						field.setFloat(event, source.getFloat());
+						break;
+					case DOUBLE:
+						field.setDouble(event, source.getDouble());
+						break;
+					case STRING:
+						field.set(event, getString(source));
+						break;
+					case ENUM:
+						final int ordinal = (int) getVarLong(source);
+						field.set(event, ordinal == 0 ? null : constants[i][ordinal - 1]);
+						break;
+					default:
+						final int length = (int) getVarLong(source);
+						if (length == 0) {
+							field.set(event, null);
+						} else {
+							final byte[] bytes = new byte[length - 1];
+							source.get(bytes);
+							field.set(event, bytes);
+						}
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		return event;
+	}
+
+	/**
+	 * Writes the given wrapped primitive value
+	 *
+	 * @param kind
+	 * 		the field kind
+	 * @param value
+	 * 		the wrapped value
+	 * @param target
+	 * 		the target buffer
+	 */
+	private static void putWrapped(final int kind, final Object value, final ByteBuffer target) {
+		switch (kind) {
+			case BOOLEAN:
+				target.put((Boolean) value ? (byte) 1 : (byte) 0);
+				break;
+			case BYTE:
+				target.put((Byte) value);
+				break;
+			case SHORT:
+				target.putShort((Short) value);
+				break;
+			case CHAR:
+				target.putChar((Character) value);
+				break;
+			case INT:
+				putVarLong(target, zigZag((Integer) value));
+				break;
+			case LONG:
+				putVarLong(target, zigZag((Long) value));
+				break;
+			case FLOAT:
+				target.putFloat((Float) value);
+				break;
+			default:
+				target.putDouble((Double) value);
+		}
+	}
+
+	/**
+	 * Reads a wrapped primitive value
+	 *
+	 * @param kind
+	 * 		the field kind
+	 * @param source
+	 * 		the source buffer
+	 * @return the wrapped value
+	 */
+	private static Object getWrapped(final int kind, final ByteBuffer source) {
+		switch (kind) {
+			case BOOLEAN:
+				return source.get() != 0;
+			case BYTE:
+				return source.get();
+			case SHORT:
+				return source.getShort();
+			case CHAR:
+				return source.getChar();
+			case INT:
+				return (int) unZigZag(getVarLong(source));
+			case LONG:
+				return unZigZag(getVarLong(source));
+			case FLOAT:
+				return source.getFloat();
+			default:
+				return source.getDouble();
+		}
+	}
+
+	/**
+	 * Writes the given string as its length, plus one, followed by its UTF-8 encoded characters
+	 *
+	 * @param target
+	 * 		the target buffer
+	 * @param value
+	 * 		the string, which may be <code>null</code>
+	 */
+	private static void putString(final ByteBuffer target, final String value) {
+		if (value == null) {
+			target.put((byte) 0);
+			return;
+		}
+		final int length = value.length();
+		putVarLong(target, length + 1L);
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c < 0x80) {
+				target.put((byte) c);
+			} else if (c < 0x800) {
+				target.put((byte) (0xC0 | c >> 6));
+				target.put((byte) (0x80 | c & 0x3F));
+			} else {
+				target.put((byte) (0xE0 | c >> 12));
+				target.put((byte) (0x80 | c >> 6 & 0x3F));
+				target.put((byte) (0x80 | c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Reads a string written by {@link #putString(java.nio.ByteBuffer, String)}
+	 *
+	 * @param source
+	 * 		the source buffer
+	 * @return the string, which may be <code>null</code>
+	 */
+	private static String getString(final ByteBuffer source) {
+		final int length = (int) getVarLong(source);
+		if (length == 0) {
+			return null;
+		}
+		final char[] chars = new char[length - 1];
+		for (int i = 0; i < chars.length; i++) {
+			final int b = source.get() & 0xFF;
+			if (b < 0x80) {
+				chars[i] = (char) b;
+			} else if ((b & 0xE0) == 0xC0) {
+				chars[i] = (char) ((b & 0x1F) << 6 | source.get() & 0x3F);
+			} else {
+				chars[i] = (char) ((b & 0x0F) << 12 | (source.get() & 0x3F) << 6 | source.get() & 0x3F);
+			}
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Writes the given value as an unsigned variable-length integer, 7 bits per byte
+	 *
+	 * @param target
+	 * 		the target buffer
+	 * @param value
+	 * 		the value
+	 */
+	private static void putVarLong(final ByteBuffer target, final long value) {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			target.put((byte) (remaining & 0x7F | 0x80));
+			remaining >>>= 7;
+		}
+		target.put((byte) remaining);
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer
+	 *
+	 * @param source
+	 * 		the source buffer
+	 * @return the value
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the integer is malformed
+	 */
+	private static long getVarLong(final ByteBuffer source) {
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte b = source.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable-length integer.");
+	}
+
+	/**
+	 * Maps signed values to unsigned ones, so that small negative values are written in few bytes
+	 *
+	 * @param value
+	 * 		the signed value
+	 * @return the unsigned value
+	 */
+	private static long zigZag(final long value) {
+		return value << 1 ^ value >> 63;
+	}
+
+	/**
+	 * Reverts {@link #zigZag(long)}
+	 *
+	 * @param value
+	 * 		the unsigned value
+	 * @return the signed value
+	 */
+	private static long unZigZag(final long value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.codec;
+
+import pt.davidafsilva.jevents.Event;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The registry of the codecs of each event class, which is itself a codec of any event.
+ *
+ * Each event class is bound to a type identifier, by default the hash code of its name, which is written
+ * before the encoded event so that its codec can be found when decoding. Event classes without a registered
+ * codec are bound to their {@link pt.davidafsilva.jevents.codec.BinaryCodec binary codec} when first encoded.
+ *
+ * Type identifiers cannot be resolved back to their classes, hence a process decoding events it didn't encode,
+ * such as when replaying a journal or receiving bridged events, must register the decoded event classes
+ * beforehand, either with their own codec or through {@link #register(Class)}.
+ *
+ * Lookups are lock-free and allocation free, while registrations are serialized.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public enum CodecRegistry implements EventCodec<Event> {
+	INSTANCE;
+
+	// map for the event class -> binding
+	private final ConcurrentMap<Class<?>, Binding> bindings = new ConcurrentHashMap<>();
+
+	// the bindings sorted by type identifier
+	private volatile Binding[] byTypeId = new Binding[0];
+
+	/**
+	 * Returns the default type identifier of the given event class
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @return the hash code of the class name
+	 */
+	public static int typeIdOf(final Class<?> clazz) {
+		return clazz.getName().hashCode();
+	}
+
+	/**
+	 * Binds the {@link pt.davidafsilva.jevents.codec.BinaryCodec binary codec} to the given event class, with the
+	 * default type identifier, unless a codec is already registered for it.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the binary codec is not applicable to the class or the type identifier is already bound to another class
+	 */
+	public <E extends Event> void register(final Class<E> clazz) {
+		getCodec(clazz);
+	}
+
+	/**
+	 * Registers the codec of the given event class, with the default type identifier
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param codec
+	 * 		the codec
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the type identifier is already bound to another class
+	 */
+	public <E extends Event> void register(final Class<E> clazz, final EventCodec<? super E> codec) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		register(clazz, typeIdOf(clazz), codec);
+	}
+
+	/**
+	 * Registers the codec of the given event class, replacing the previous one, if any
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param typeId
+	 * 		the type identifier, which must be the same wherever the events are decoded
+	 * @param codec
+	 * 		the codec
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>codec</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the type identifier is already bound to another class
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <E extends Event> void register(final Class<E> clazz, final int typeId,
+			final EventCodec<? super E> codec) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		if (codec == null) {
+			throw new NullPointerException("Invalid codec.");
+		}
+		final Binding existing = find(typeId);
+		if (existing != null && existing.clazz != clazz) {
+			throw new IllegalArgumentException("The type identifier " + typeId + " is already bound to " +
+					existing.clazz.getName());
+		}
+		unregister(clazz);
+		final Binding binding = new Binding(clazz, typeId, (EventCodec<Event>) codec);
+		final Binding[] current = byTypeId;
+		final Binding[] updated = Arrays.copyOf(current, current.length + 1);
+		int i = current.length;
+		for (; i > 0 && updated[i - 1].typeId > typeId; i--) {
+			updated[i] = updated[i - 1];
+		}
+		updated[i] = binding;
+		byTypeId = updated;
+		bindings.put(clazz, binding);
+	}
+
+	/**
+	 * Removes the codec of the given event class
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @return <code>true</code> if a codec was registered, <code>false</code> otherwise
+	 */
+	public synchronized boolean unregister(final Class<?> clazz) {
+		final Binding binding = bindings.remove(clazz);
+		if (binding == null) {
+			return false;
+		}
+		final Binding[] current = byTypeId;
+		final Binding[] updated = new Binding[current.length - 1];
+		for (int i = 0, j = 0; i < current.length; i++) {
+			if (current[i] != binding) {
+				updated[j++] = current[i];
+			}
+		}
+		byTypeId = updated;
+		return true;
+	}
+
+	/**
+	 * Returns the codec of the given event class, binding the binary codec to it if none is registered
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the codec
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the binary codec is not applicable to the class
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event> EventCodec<? super E> getCodec(final Class<E> clazz) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		return (EventCodec<? super E>) bindingOf(clazz).codec;
+	}
+
+	@Override
+	public void encode(final Event event, final ByteBuffer target) {
+		final Binding binding = bindingOf(event.getClass());
+		target.putInt(binding.typeId);
+		binding.codec.encode(event, target);
+	}
+
+	@Override
+	public Event decode(final ByteBuffer source) {
+		final int typeId = source.getInt();
+		final Binding binding = find(typeId);
+		if (binding == null) {
+			throw new IllegalStateException("Unknown event type identifier: " + typeId +
+					", the event class must be registered beforehand.");
+		}
+		return binding.codec.decode(source);
+	}
+
+	/**
+	 * Returns the binding of the given event class, binding the binary codec to it if needed
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @return the binding
+	 */
+	@SuppressWarnings("unchecked")
+	private Binding bindingOf(final Class<?> clazz) {
+		final Binding binding = bindings.get(clazz);
+		if (binding != null) {
+			return binding;
+		}
+		synchronized (this) {
+			if (!bindings.containsKey(clazz)) {
+				final Class<Event> eventClass = (Class<Event>) clazz;
+				register(eventClass, BinaryCodec.of(eventClass));
+			}
+			return bindings.get(clazz);
+		}
+	}
+
+	/**
+	 * Finds the binding of the given type identifier
+	 *
+	 * @param typeId
+	 * 		the type identifier
+	 * @return the binding or <code>null</code> if none
+	 */
+	private Binding find(final int typeId) {
+		final Binding[] current = byTypeId;
+		int low = 0;
+		int high = current.length - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final int found = current[middle].typeId;
+			if (found < typeId) {
+				low = middle + 1;
+			} else if (found > typeId) {
+				high = middle - 1;
+			} else {
+				return current[middle];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The binding of an event class to its type identifier and codec
+	 */
+	private static final class Binding {
+
+		// the event class
+		private final Class<?> clazz;
+
+		// the type identifier
+		private final int typeId;
+
+		// the codec
+		private final EventCodec<Event> codec;
+
+		/**
+		 * Creates a new binding
+		 *
+		 * @param clazz
+		 * 		the event class
+		 * @param typeId
+		 * 		the type identifier
+		 * @param codec
+		 * 		the codec
+		 */
+		private Binding(final Class<?> clazz, final int typeId, final EventCodec<Event> codec) {
+			this.clazz = clazz;
+			this.typeId = typeId;
+			this.codec = codec;
+		}
+	}
+}
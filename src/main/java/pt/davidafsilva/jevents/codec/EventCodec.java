@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.codec;
+
+import pt.davidafsilva.jevents.Event;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Defines the binary representation of the events, either written to the
+ * {@link pt.davidafsilva.jevents.journal.EventJournal} or forwarded elsewhere.
+ *
+ * Codecs write straight into, and read straight from, the given buffers: implementations
+ * should neither allocate intermediate buffers nor retain the given ones. Codecs of specific
+ * event classes are registered in the {@link pt.davidafsilva.jevents.codec.CodecRegistry}.
+ *
+ * @param <E>
+ * 		the type of the events supported by the codec
+ * @author David Silva
+ * @since 1.0
+ */
+public interface EventCodec<E extends Event> {
+
+	/**
+	 * Writes the given event at the current position of the target buffer, advancing it
+	 *
+	 * @param event
+	 * 		the event to encode
+	 * @param target
+	 * 		the target buffer
+	 * @throws java.nio.BufferOverflowException
+	 * 		if the remaining bytes of the target are not enough for the event
+	 */
+	void encode(E event, ByteBuffer target);
+
+	/**
+	 * Reads an event from the given buffer, whose remaining bytes are the ones previously
+	 * written by {@link #encode(Event, java.nio.ByteBuffer)}.
+	 *
+	 * @param source
+	 * 		the source buffer
+	 * @return the decoded event
+	 */
+	E decode(ByteBuffer source);
+}
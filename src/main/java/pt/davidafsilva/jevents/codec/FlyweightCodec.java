@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * The codec of the {@link pt.davidafsilva.jevents.codec.FlyweightEvent flyweight events}.
+ *
+ * Encoding copies the wrapped region of the event into the target, while decoding wraps the remaining
+ * bytes of the source, without copying them, in an event provided by the given factory. A factory which
+ * always returns the same instance makes decoding allocation free, at the cost of every decoded event
+ * being overwritten by the next one.
+ *
+ * @param <E>
+ * 		the event type
+ * @author David Silva
+ * @since 1.0
+ */
+public final class FlyweightCodec<E extends FlyweightEvent> implements EventCodec<E> {
+
+	// the factory of the decoded events
+	private final Supplier<? extends E> factory;
+
+	/**
+	 * Creates a new flyweight codec
+	 *
+	 * @param factory
+	 * 		the factory of the decoded events
+	 */
+	private FlyweightCodec(final Supplier<? extends E> factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Creates a new flyweight codec
+	 *
+	 * @param factory
+	 * 		the factory of the decoded events
+	 * @param <E>
+	 * 		the event type
+	 * @return the codec
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>factory</code> is <code>null</code>
+	 */
+	public static <E extends FlyweightEvent> FlyweightCodec<E> of(final Supplier<? extends E> factory) {
+		if (factory == null) {
+			throw new NullPointerException("Invalid factory.");
+		}
+		return new FlyweightCodec<>(factory);
+	}
+
+	@Override
+	public void encode(final E event, final ByteBuffer target) {
+		final ByteBuffer source = event.buffer();
+		final int offset = event.offset();
+		final int length = event.length();
+		if (target.remaining() < length) {
+			throw new BufferOverflowException();
+		}
+		// absolute reads, so that neither buffer is duplicated
+		int i = 0;
+		for (; source.order() == target.order() && i + 8 <= length; i += 8) {
+			target.putLong(source.getLong(offset + i));
+		}
+		for (; i < length; i++) {
+			target.put(source.get(offset + i));
+		}
+	}
+
+	@Override
+	public E decode(final ByteBuffer source) {
+		final E event = factory.get();
+		event.wrap(source, source.position(), source.remaining());
+		source.position(source.limit());
+		return event;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.codec;
+
+import pt.davidafsilva.jevents.Event;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The base class of the events whose fields are kept in a buffer, at fixed positions, rather than
+ * in object fields.
+ *
+ * Flyweight events are encoded and decoded by the {@link pt.davidafsilva.jevents.codec.FlyweightCodec}
+ * without copying their contents: a decoded event is a view over the source buffer, which is only valid
+ * for as long as the buffer contents are, e.g. while replayed from a journal segment.
+ * Subclasses expose their fields through accessors backed by the <code>get</code> and <code>put</code>
+ * methods, whose indexes are relative to the wrapped region.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public abstract class FlyweightEvent implements Event {
+
+	// the wrapped buffer
+	private ByteBuffer buffer;
+
+	// the offset of the wrapped region
+	private int offset;
+
+	// the length of the wrapped region
+	private int length;
+
+	/**
+	 * Wraps the given region of the buffer, which holds the fields of this event
+	 *
+	 * @param buffer
+	 * 		the buffer
+	 * @param offset
+	 * 		the offset of the region
+	 * @param length
+	 * 		the length of the region
+	 * @return this event
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>buffer</code> is <code>null</code>
+	 * @throws java.lang.IndexOutOfBoundsException
+	 * 		if the region is not within the buffer capacity
+	 */
+	public final FlyweightEvent wrap(final ByteBuffer buffer, final int offset, final int length) {
+		if (buffer == null) {
+			throw new NullPointerException("Invalid buffer.");
+		}
+		if (offset < 0 || length < 0 || offset > buffer.capacity() - length) {
+			throw new IndexOutOfBoundsException("Invalid region: " + offset + "+" + length);
+		}
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+		return this;
+	}
+
+	/**
+	 * Returns the wrapped buffer
+	 *
+	 * @return the buffer or <code>null</code> if nothing is wrapped yet
+	 */
+	public final ByteBuffer buffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns the offset of the wrapped region in the buffer
+	 *
+	 * @return the offset
+	 */
+	public final int offset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the length of the wrapped region
+	 *
+	 * @return the length
+	 */
+	public final int length() {
+		return length;
+	}
+
+	/**
+	 * Reads the byte at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final byte getByte(final int index) {
+		return buffer.get(offset + index);
+	}
+
+	/**
+	 * Reads the short at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final short getShort(final int index) {
+		return buffer.getShort(offset + index);
+	}
+
+	/**
+	 * Reads the char at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final char getChar(final int index) {
+		return buffer.getChar(offset + index);
+	}
+
+	/**
+	 * Reads the int at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final int getInt(final int index) {
+		return buffer.getInt(offset + index);
+	}
+
+	/**
+	 * Reads the long at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final long getLong(final int index) {
+		return buffer.getLong(offset + index);
+	}
+
+	/**
+	 * Reads the float at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final float getFloat(final int index) {
+		return buffer.getFloat(offset + index);
+	}
+
+	/**
+	 * Reads the double at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @return the value
+	 */
+	protected final double getDouble(final int index) {
+		return buffer.getDouble(offset + index);
+	}
+
+	/**
+	 * Writes the byte at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putByte(final int index, final byte value) {
+		buffer.put(offset + index, value);
+	}
+
+	/**
+	 * Writes the short at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putShort(final int index, final short value) {
+		buffer.putShort(offset + index, value);
+	}
+
+	/**
+	 * Writes the char at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putChar(final int index, final char value) {
+		buffer.putChar(offset + index, value);
+	}
+
+	/**
+	 * Writes the int at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putInt(final int index, final int value) {
+		buffer.putInt(offset + index, value);
+	}
+
+	/**
+	 * Writes the long at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putLong(final int index, final long value) {
+		buffer.putLong(offset + index, value);
+	}
+
+	/**
+	 * Writes the float at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putFloat(final int index, final float value) {
+		buffer.putFloat(offset + index, value);
+	}
+
+	/**
+	 * Writes the double at the given index of the wrapped region
+	 *
+	 * @param index
+	 * 		the index, relative to the region offset
+	 * @param value
+	 * 		the value
+	 */
+	protected final void putDouble(final int index, final double value) {
+		buffer.putDouble(offset + index, value);
+	}
+}
@@ -29,23 +29,73 @@ package pt.davidafsilva.jevents.dispatcher;
 
 import pt.davidafsilva.jevents.Event;
 import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
 
-import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The asynchronous dispatcher implementation.
  *
+ * The listeners are executed by the configured {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine}.
+ * Each engine owns a single dispatcher instance.
+ *
  * @author David Silva
  * @since 1.0
  */
-class AsyncDispatcher<E extends Event> implements Dispatcher<E> {
+final class AsyncDispatcher extends InvokingDispatcher {
+
+	// the engine where the listeners are executed
+	private final AsyncEngine engine;
+
+	/**
+	 * Creates a new asynchronous dispatcher backed by the given engine
+	 *
+	 * @param engine
+	 * 		the execution engine
+	 */
+	AsyncDispatcher(final AsyncEngine engine) {
+		this.engine = engine;
+	}
+
+	@Override
+	<E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		final EventMetrics metrics = invoker.metrics();
+		if (metrics == null) {
+			engine.execute(() -> invoker.invokeAll(event, listeners, true), null, event.getPriority());
+			return;
+		}
+
+		// track the queue depth
+		final Class<? extends Event> eventType = event.getClass();
+		metrics.queued(eventType);
+		try {
+			engine.execute(() -> {
+				metrics.dequeued(eventType);
+				invoker.invokeAll(event, listeners, true);
+			}, () -> {
+				metrics.dequeued(eventType);
+				metrics.rejected(eventType);
+			}, event.getPriority());
+		} catch (RejectedExecutionException e) {
+			metrics.dequeued(eventType);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return engine.drain(timeout, unit);
+	}
+
+	@Override
+	public void shutdown() {
+		engine.shutdown();
+	}
 
 	@Override
-	public void dispatchTo(final E event, final Collection<? extends EventListener<E>> listeners) {
-		new Thread(() -> {
-			for (EventListener<E> listener : listeners) {
-				listener.handle(event);
-			}
-		}).start();
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return engine.awaitTermination(timeout, unit);
 	}
 }
@@ -0,0 +1,752 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Priority;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The execution engine used for running asynchronous dispatches.
+ *
+ * An engine wraps an {@link java.util.concurrent.Executor} and keeps track of the
+ * tasks that are still in-flight, which allows the callers to drain the pending work
+ * or to shut the engine down cleanly, independently of the underlying executor.
+ *
+ * The number of in-flight tasks, either queued or running, is bounded by the engine capacity.
+ * Once the capacity is reached, the configured {@link pt.davidafsilva.jevents.dispatcher.OverflowPolicy}
+ * is applied to new tasks. The rejected and dropped tasks are counted.
+ * By default, engines hold up to {@value #DEFAULT_CAPACITY} tasks and run the overflowing ones in
+ * the producer thread.
+ *
+ * Engines are created through one of the static factories:
+ * <ul>
+ * <li>{@link #pooled(int)} - a bounded pool of daemon worker threads</li>
+ * <li>{@link #prioritized(int)} - a bounded pool of daemon worker threads which serves the queued tasks
+ * according to their {@link pt.davidafsilva.jevents.Priority priority}</li>
+ * <li>{@link #of(java.util.concurrent.Executor)} - a user provided executor</li>
+ * <li>{@link #virtualThreads()} - a virtual thread per task, on runtimes that support it</li>
+ * </ul>
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class AsyncEngine {
+
+	/**
+	 * The default capacity of the engines
+	 */
+	public static final int DEFAULT_CAPACITY = 65_536;
+
+	/**
+	 * The default overflow policy of the engines
+	 */
+	public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.CALLER_RUNS;
+
+	// idle time after which the pooled workers are released
+	private static final long KEEP_ALIVE_SECONDS = 60L;
+
+	// the underlying executor
+	private final Executor executor;
+
+	// the executor owned by this engine, if any
+	private final ExecutorService owned;
+
+	// the worker pool, if this is a pooled engine
+	private final ThreadPoolExecutor pool;
+
+	// the maximum number of in-flight tasks
+	private final int capacity;
+
+	// the policy applied when the capacity is reached
+	private final OverflowPolicy overflowPolicy;
+
+	// number of tasks rejected due to the overflow policy
+	private final LongAdder rejected = new LongAdder();
+
+	// number of tasks dropped due to the overflow policy
+	private final LongAdder dropped = new LongAdder();
+
+	// number of producers blocked waiting for capacity
+	private volatile int blocked;
+
+	// the dispatcher bound to this engine
+	private final AsyncDispatcher dispatcher = new AsyncDispatcher(this);
+
+	// number of tasks submitted but not yet completed
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	// the shutdown flag
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a new engine backed by the given executor.
+	 *
+	 * @param executor
+	 * 		the executor
+	 * @param owned
+	 * 		the executor to be shut down alongside with this engine, if any
+	 * @param pool
+	 * 		the worker pool, if any
+	 * @param capacity
+	 * 		the maximum number of in-flight tasks
+	 * @param overflowPolicy
+	 * 		the overflow policy
+	 */
+	private AsyncEngine(final Executor executor, final ExecutorService owned, final ThreadPoolExecutor pool,
+			final int capacity, final OverflowPolicy overflowPolicy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		if (overflowPolicy == null) {
+			throw new NullPointerException("Invalid overflow policy.");
+		}
+		if (overflowPolicy == OverflowPolicy.DROP_OLDEST && pool == null) {
+			throw new IllegalArgumentException("The DROP_OLDEST policy is only supported by pooled engines.");
+		}
+		this.executor = executor;
+		this.owned = owned;
+		this.pool = pool;
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Creates a new engine backed by a pool of worker threads, sized
+	 * according to the number of available processors.
+	 *
+	 * @return the engine
+	 */
+	public static AsyncEngine pooled() {
+		return pooled(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new engine backed by a pool of, at most, <code>threads</code> worker threads,
+	 * with the default capacity and overflow policy.
+	 *
+	 * Workers are created on demand and released when idle.
+	 *
+	 * @param threads
+	 * 		the maximum number of worker threads
+	 * @return the engine
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threads</code> is lesser than 1
+	 */
+	public static AsyncEngine pooled(final int threads) {
+		return pooled(threads, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+	}
+
+	/**
+	 * Creates a new engine backed by a pool of, at most, <code>threads</code> worker threads.
+	 *
+	 * Workers are created on demand and released when idle.
+	 *
+	 * @param threads
+	 * 		the maximum number of worker threads
+	 * @param capacity
+	 * 		the maximum number of in-flight tasks, either queued or running
+	 * @param overflowPolicy
+	 * 		the policy applied when the capacity is reached
+	 * @return the engine
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threads</code> or <code>capacity</code> is lesser than 1
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>overflowPolicy</code> is <code>null</code>
+	 */
+	public static AsyncEngine pooled(final int threads, final int capacity, final OverflowPolicy overflowPolicy) {
+		return pooled(threads, capacity, overflowPolicy, new LinkedBlockingQueue<>());
+	}
+
+	/**
+	 * Creates a new prioritized engine backed by a pool of worker threads, sized
+	 * according to the number of available processors.
+	 *
+	 * @return the engine
+	 * @see #prioritized(int, int, OverflowPolicy)
+	 */
+	public static AsyncEngine prioritized() {
+		return prioritized(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new prioritized engine backed by a pool of, at most, <code>threads</code> worker threads,
+	 * with the default capacity and overflow policy.
+	 *
+	 * @param threads
+	 * 		the maximum number of worker threads
+	 * @return the engine
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threads</code> is lesser than 1
+	 * @see #prioritized(int, int, OverflowPolicy)
+	 */
+	public static AsyncEngine prioritized(final int threads) {
+		return prioritized(threads, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+	}
+
+	/**
+	 * Creates a new prioritized engine backed by a pool of, at most, <code>threads</code> worker threads.
+	 *
+	 * The queued tasks are kept in a FIFO lane per {@link pt.davidafsilva.jevents.Priority priority} class,
+	 * which are served through weighted round robin: while every lane is busy, each round runs up to
+	 * {@link pt.davidafsilva.jevents.Priority#getWeight() weight} tasks of each class, the higher classes
+	 * first. Hence, the higher classes overtake any backlog of the lower ones, which still get their share
+	 * of the workers and never starve.
+	 * The {@link OverflowPolicy#DROP_OLDEST} policy sheds the oldest task of the lowest queued class.
+	 * However, the capacity is shared by every class, hence once it's reached under the
+	 * {@link OverflowPolicy#BLOCK} or {@link OverflowPolicy#CALLER_RUNS} policies, the higher classes are
+	 * admitted no sooner than the lower ones.
+	 *
+	 * Workers are created on demand and released when idle.
+	 *
+	 * @param threads
+	 * 		the maximum number of worker threads
+	 * @param capacity
+	 * 		the maximum number of in-flight tasks, either queued or running
+	 * @param overflowPolicy
+	 * 		the policy applied when the capacity is reached
+	 * @return the engine
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threads</code> or <code>capacity</code> is lesser than 1
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>overflowPolicy</code> is <code>null</code>
+	 */
+	public static AsyncEngine prioritized(final int threads, final int capacity,
+			final OverflowPolicy overflowPolicy) {
+		return pooled(threads, capacity, overflowPolicy, new PriorityTaskQueue(
+				task -> task instanceof Task ? ((Task) task).priority : Priority.NORMAL));
+	}
+
+	/**
+	 * Creates a new engine backed by a pool of, at most, <code>threads</code> worker threads,
+	 * which take the tasks from the given queue.
+	 *
+	 * @param threads
+	 * 		the maximum number of worker threads
+	 * @param capacity
+	 * 		the maximum number of in-flight tasks, either queued or running
+	 * @param overflowPolicy
+	 * 		the policy applied when the capacity is reached
+	 * @param queue
+	 * 		the work queue
+	 * @return the engine
+	 */
+	private static AsyncEngine pooled(final int threads, final int capacity, final OverflowPolicy overflowPolicy,
+			final BlockingQueue<Runnable> queue) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, new WorkerFactory());
+		pool.allowCoreThreadTimeOut(true);
+		return new AsyncEngine(pool, pool, pool, capacity, overflowPolicy);
+	}
+
+	/**
+	 * Creates a new engine backed by the given executor, with the default capacity and overflow policy.
+	 *
+	 * The executor is not owned by the engine, hence it's not shut down when
+	 * the engine is.
+	 *
+	 * @param executor
+	 * 		the executor
+	 * @return the engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>executor</code> is <code>null</code>
+	 */
+	public static AsyncEngine of(final Executor executor) {
+		return of(executor, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+	}
+
+	/**
+	 * Creates a new engine backed by the given executor.
+	 *
+	 * The executor is not owned by the engine, hence it's not shut down when
+	 * the engine is.
+	 *
+	 * @param executor
+	 * 		the executor
+	 * @param capacity
+	 * 		the maximum number of in-flight tasks, either queued or running
+	 * @param overflowPolicy
+	 * 		the policy applied when the capacity is reached, other than
+	 * 		{@link pt.davidafsilva.jevents.dispatcher.OverflowPolicy#DROP_OLDEST}
+	 * @return the engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>executor</code> or <code>overflowPolicy</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>capacity</code> is lesser than 1 or the overflow policy is not supported
+	 */
+	public static AsyncEngine of(final Executor executor, final int capacity, final OverflowPolicy overflowPolicy) {
+		if (executor == null) {
+			throw new NullPointerException("Invalid executor.");
+		}
+		return new AsyncEngine(executor, null, null, capacity, overflowPolicy);
+	}
+
+	/**
+	 * Creates a new engine which runs each task in its own virtual thread, with the default capacity
+	 * and overflow policy.
+	 *
+	 * @return the engine
+	 * @throws java.lang.UnsupportedOperationException
+	 * 		if the current runtime does not support virtual threads
+	 * @see #isVirtualThreadSupported()
+	 */
+	public static AsyncEngine virtualThreads() {
+		return virtualThreads(DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+	}
+
+	/**
+	 * Creates a new engine which runs each task in its own virtual thread.
+	 *
+	 * @param capacity
+	 * 		the maximum number of in-flight tasks
+	 * @param overflowPolicy
+	 * 		the policy applied when the capacity is reached, other than
+	 * 		{@link pt.davidafsilva.jevents.dispatcher.OverflowPolicy#DROP_OLDEST}
+	 * @return the engine
+	 * @throws java.lang.UnsupportedOperationException
+	 * 		if the current runtime does not support virtual threads
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>overflowPolicy</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>capacity</code> is lesser than 1 or the overflow policy is not supported
+	 * @see #isVirtualThreadSupported()
+	 */
+	public static AsyncEngine virtualThreads(final int capacity, final OverflowPolicy overflowPolicy) {
+		final Method factory = virtualThreadFactory();
+		if (factory == null) {
+			throw new UnsupportedOperationException("Virtual threads are not supported by the current runtime.");
+		}
+		final ExecutorService service;
+		try {
+			service = (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Unable to create the virtual thread executor.", e);
+		}
+		return new AsyncEngine(service, service, null, capacity, overflowPolicy);
+	}
+
+	/**
+	 * Returns whether or not the current runtime supports virtual threads.
+	 *
+	 * @return <code>true</code> if virtual threads are supported, <code>false</code> otherwise.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return virtualThreadFactory() != null;
+	}
+
+	/**
+	 * Looks up the virtual thread executor factory, which is only available on newer runtimes.
+	 *
+	 * @return the factory method or <code>null</code> if it's not available
+	 */
+	private static Method virtualThreadFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the dispatcher bound to this engine.
+	 *
+	 * The dispatcher may be routed to specific event classes through
+	 * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#route(Class, Dispatcher)}, in order to
+	 * isolate them in a dedicated engine, with its own capacity.
+	 *
+	 * @return the async dispatcher
+	 */
+	public Dispatcher dispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * Executes the given task asynchronously, applying the overflow policy if the engine
+	 * is at full capacity.
+	 *
+	 * @param task
+	 * 		the task to be executed
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the engine was shut down, the task could not be accepted by the executor or
+	 * 		the engine is at full capacity with the {@link OverflowPolicy#FAIL_FAST} policy
+	 */
+	void execute(final Runnable task) {
+		execute(task, null);
+	}
+
+	/**
+	 * Executes the given task asynchronously, applying the overflow policy if the engine
+	 * is at full capacity.
+	 *
+	 * The drop handler is invoked, instead of the task, if the task ends up being dropped
+	 * by the {@link OverflowPolicy#DROP_NEWEST} or {@link OverflowPolicy#DROP_OLDEST} policies.
+	 *
+	 * @param task
+	 * 		the task to be executed
+	 * @param onDrop
+	 * 		the drop handler, if any
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the engine was shut down, the task could not be accepted by the executor or
+	 * 		the engine is at full capacity with the {@link OverflowPolicy#FAIL_FAST} policy
+	 */
+	void execute(final Runnable task, final Runnable onDrop) {
+		execute(task, onDrop, Priority.NORMAL);
+	}
+
+	/**
+	 * Executes the given task asynchronously, with the given priority, applying the overflow policy
+	 * if the engine is at full capacity.
+	 *
+	 * The priority is only honored by the {@link #prioritized(int, int, OverflowPolicy) prioritized} engines.
+	 * The drop handler is invoked, instead of the task, if the task ends up being dropped
+	 * by the {@link OverflowPolicy#DROP_NEWEST} or {@link OverflowPolicy#DROP_OLDEST} policies.
+	 *
+	 * @param task
+	 * 		the task to be executed
+	 * @param onDrop
+	 * 		the drop handler, if any
+	 * @param priority
+	 * 		the task priority
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the engine was shut down, the task could not be accepted by the executor or
+	 * 		the engine is at full capacity with the {@link OverflowPolicy#FAIL_FAST} policy
+	 */
+	void execute(final Runnable task, final Runnable onDrop, final Priority priority) {
+		while (true) {
+			if (shutdown) {
+				throw new RejectedExecutionException("The async engine was shut down.");
+			}
+			final int current = inFlight.get();
+			if (current < capacity) {
+				if (inFlight.compareAndSet(current, current + 1)) {
+					submit(new Task(task, onDrop, priority));
+					return;
+				}
+			} else if (!overflow(task, onDrop)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Submits the given task, which was already accounted as in-flight, to the executor.
+	 *
+	 * @param task
+	 * 		the task to be submitted
+	 */
+	private void submit(final Task task) {
+		try {
+			executor.execute(task);
+		} catch (RuntimeException e) {
+			complete();
+			throw e;
+		}
+	}
+
+	/**
+	 * Applies the overflow policy to the given task.
+	 *
+	 * @param task
+	 * 		the overflowing task
+	 * @param onDrop
+	 * 		the drop handler of the task, if any
+	 * @return <code>true</code> if the submission is to be retried, <code>false</code> if the task was handled
+	 */
+	private boolean overflow(final Runnable task, final Runnable onDrop) {
+		switch (overflowPolicy) {
+			case BLOCK:
+				awaitCapacity();
+				return true;
+			case DROP_NEWEST:
+				dropped.increment();
+				if (onDrop != null) {
+					onDrop.run();
+				}
+				return false;
+			case DROP_OLDEST:
+				final BlockingQueue<Runnable> queue = pool.getQueue();
+				final Runnable oldest = queue instanceof PriorityTaskQueue ?
+						((PriorityTaskQueue) queue).pollLowest() : queue.poll();
+				if (oldest != null) {
+					dropped.increment();
+					complete();
+					((Task) oldest).drop();
+				} else {
+					// every in-flight task is running, nothing to drop until one completes
+					awaitCapacity();
+				}
+				return true;
+			case CALLER_RUNS:
+				task.run();
+				return false;
+			default:
+				rejected.increment();
+				throw new RejectedExecutionException("The async engine is at full capacity: " + capacity);
+		}
+	}
+
+	/**
+	 * Blocks the current thread until there's capacity for a new task or the engine is shut down.
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if interrupted while waiting
+	 */
+	private void awaitCapacity() {
+		synchronized (inFlight) {
+			blocked++;
+			try {
+				while (inFlight.get() >= capacity && !shutdown) {
+					inFlight.wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				rejected.increment();
+				throw new RejectedExecutionException("Interrupted while waiting for capacity.", e);
+			} finally {
+				blocked--;
+			}
+		}
+	}
+
+	/**
+	 * Marks a task as completed, waking up any thread that's draining the engine or
+	 * waiting for capacity.
+	 */
+	private void complete() {
+		if (inFlight.decrementAndGet() == 0 || blocked > 0) {
+			synchronized (inFlight) {
+				inFlight.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Returns the maximum number of in-flight tasks, either queued or running.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the policy applied when the engine is at full capacity.
+	 *
+	 * @return the overflow policy
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Returns the number of tasks rejected so far, either by the
+	 * {@link OverflowPolicy#FAIL_FAST} policy or by a producer interrupted while waiting for capacity.
+	 *
+	 * @return the number of rejected tasks
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Returns the number of tasks dropped so far, either by the {@link OverflowPolicy#DROP_NEWEST}
+	 * or the {@link OverflowPolicy#DROP_OLDEST} policies.
+	 *
+	 * @return the number of dropped tasks
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Returns the number of tasks that were submitted but are not completed yet.
+	 *
+	 * @return the number of in-flight tasks
+	 */
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Waits until all of the in-flight tasks are completed, or the timeout elapses.
+	 *
+	 * The engine keeps accepting tasks while draining.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if all of the tasks were completed, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (inFlight) {
+			while (inFlight.get() > 0) {
+				final long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(inFlight, remaining);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Initiates an orderly shutdown: previously submitted tasks are executed,
+	 * but no new tasks are accepted.
+	 *
+	 * The underlying executor is only shut down if it's owned by this engine.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		synchronized (inFlight) {
+			// wake up the blocked producers
+			inFlight.notifyAll();
+		}
+		if (owned != null) {
+			owned.shutdown();
+		}
+	}
+
+	/**
+	 * Returns whether or not this engine was shut down.
+	 *
+	 * @return <code>true</code> if the engine was shut down, <code>false</code> otherwise.
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Waits until all of the in-flight tasks are completed after a shutdown request, or
+	 * the timeout elapses.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the engine terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if (!drain(timeout, unit)) {
+			return false;
+		}
+		return owned == null || owned.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * A task accounted as in-flight, which marks itself as completed once executed.
+	 */
+	private final class Task implements Runnable {
+
+		// the actual task
+		private final Runnable task;
+
+		// the drop handler, if any
+		private final Runnable onDrop;
+
+		// the task priority
+		private final Priority priority;
+
+		/**
+		 * Creates a new in-flight task
+		 *
+		 * @param task
+		 * 		the actual task
+		 * @param onDrop
+		 * 		the drop handler, if any
+		 * @param priority
+		 * 		the task priority
+		 */
+		private Task(final Runnable task, final Runnable onDrop, final Priority priority) {
+			this.task = task;
+			this.onDrop = onDrop;
+			this.priority = priority;
+		}
+
+		@Override
+		public void run() {
+			try {
+				task.run();
+			} finally {
+				complete();
+			}
+		}
+
+		/**
+		 * Notifies the drop handler, if any, that this task was dropped
+		 */
+		private void drop() {
+			if (onDrop != null) {
+				onDrop.run();
+			}
+		}
+	}
+
+	/**
+	 * The thread factory for the pooled workers.
+	 */
+	private static final class WorkerFactory implements ThreadFactory {
+
+		// the pool sequence
+		private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+		// the thread name prefix
+		private final String prefix = "jevents-async-" + POOL_SEQUENCE.incrementAndGet() + "-";
+
+		// the worker sequence
+		private final AtomicInteger sequence = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The policy which rules how asynchronously dispatched events are grouped into batches
+ * for the {@link pt.davidafsilva.jevents.BatchEventListener batch listeners}.
+ *
+ * Events are accumulated per event class and the batch is flushed as soon as it reaches
+ * the maximum size or the oldest event in it has waited for the linger time, whichever comes first.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class BatchPolicy {
+
+	/**
+	 * The default policy: batches of up to 100 events, lingering for up to 10 milliseconds,
+	 * which are flushed on shutdown.
+	 */
+	public static final BatchPolicy DEFAULT = new BatchPolicy(100, TimeUnit.MILLISECONDS.toNanos(10), true);
+
+	// the maximum batch size
+	private final int maxSize;
+
+	// the maximum time an event waits for the batch to be flushed
+	private final long lingerNanos;
+
+	// whether or not pending batches are flushed on shutdown
+	private final boolean flushOnShutdown;
+
+	/**
+	 * Creates a new batch policy
+	 *
+	 * @param maxSize
+	 * 		the maximum batch size
+	 * @param lingerNanos
+	 * 		the linger time, in nanoseconds
+	 * @param flushOnShutdown
+	 * 		the flush on shutdown flag
+	 */
+	private BatchPolicy(final int maxSize, final long lingerNanos, final boolean flushOnShutdown) {
+		this.maxSize = maxSize;
+		this.lingerNanos = lingerNanos;
+		this.flushOnShutdown = flushOnShutdown;
+	}
+
+	/**
+	 * Creates a new batch policy, which flushes the pending batches on shutdown.
+	 *
+	 * @param maxSize
+	 * 		the maximum batch size
+	 * @param linger
+	 * 		the maximum time an event waits for the batch to be flushed
+	 * @param unit
+	 * 		the time unit of the linger argument
+	 * @return the batch policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>maxSize</code> is lesser than 1 or <code>linger</code> is negative
+	 */
+	public static BatchPolicy of(final int maxSize, final long linger, final TimeUnit unit) {
+		return of(maxSize, linger, unit, true);
+	}
+
+	/**
+	 * Creates a new batch policy
+	 *
+	 * @param maxSize
+	 * 		the maximum batch size
+	 * @param linger
+	 * 		the maximum time an event waits for the batch to be flushed
+	 * @param unit
+	 * 		the time unit of the linger argument
+	 * @param flushOnShutdown
+	 * 		<code>true</code> if the pending batches are to be flushed on shutdown,
+	 * 		<code>false</code> if they are to be discarded
+	 * @return the batch policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>maxSize</code> is lesser than 1 or <code>linger</code> is negative
+	 */
+	public static BatchPolicy of(final int maxSize, final long linger, final TimeUnit unit,
+			final boolean flushOnShutdown) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Invalid batch size: " + maxSize);
+		}
+		if (linger < 0) {
+			throw new IllegalArgumentException("Invalid linger time: " + linger);
+		}
+		return new BatchPolicy(maxSize, unit.toNanos(linger), flushOnShutdown);
+	}
+
+	/**
+	 * Returns the maximum batch size
+	 *
+	 * @return the maximum batch size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the maximum time an event waits for the batch to be flushed
+	 *
+	 * @param unit
+	 * 		the desired time unit
+	 * @return the linger time
+	 */
+	public long getLinger(final TimeUnit unit) {
+		return unit.convert(lingerNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns whether or not pending batches are flushed on shutdown
+	 *
+	 * @return <code>true</code> if they are flushed, <code>false</code> if they are discarded
+	 */
+	public boolean isFlushOnShutdown() {
+		return flushOnShutdown;
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.Priority;
+import pt.davidafsilva.jevents.registry.ListenerRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Accumulates the asynchronously dispatched events per event class and delivers
+ * them, in batches, to the batch listeners.
+ *
+ * Batches are flushed according to the current {@link pt.davidafsilva.jevents.dispatcher.BatchPolicy}
+ * and handled by the current async engine, hence batches of the same event class may be
+ * handled concurrently. The batch listeners are resolved when the batch is flushed.
+ *
+ * Once shut down, the batcher rejects new events, while the linger flushes which cannot be handed to the
+ * async engine are reported to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class Batcher {
+
+	// map for the concrete event class -> pending batch
+	private final ConcurrentMap<Class<?>, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+	// the registry of the batch listeners
+	private final ListenerRegistry registry;
+
+	// the provider of the engine where the batches are handled
+	private final Supplier<AsyncEngine> engine;
+
+	// the invoker of the bus
+	private final ListenerInvoker invoker;
+
+	// the batch policy
+	private volatile BatchPolicy policy = BatchPolicy.DEFAULT;
+
+	// the linger timer, created on demand
+	private ScheduledThreadPoolExecutor timer;
+
+	// whether or not the batcher was shut down
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a new batcher
+	 *
+	 * @param registry
+	 * 		the registry of the batch listeners
+	 * @param engine
+	 * 		the provider of the engine where the batches are handled
+	 * @param invoker
+	 * 		the invoker of the bus
+	 */
+	Batcher(final ListenerRegistry registry, final Supplier<AsyncEngine> engine, final ListenerInvoker invoker) {
+		this.registry = registry;
+		this.engine = engine;
+		this.invoker = invoker;
+	}
+
+	/**
+	 * Returns the current batch policy
+	 *
+	 * @return the batch policy
+	 */
+	BatchPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Replaces the batch policy, which is applied to the batches started afterwards.
+	 *
+	 * @param policy
+	 * 		the new batch policy
+	 */
+	void setPolicy(final BatchPolicy policy) {
+		this.policy = policy;
+	}
+
+	/**
+	 * Appends the given event to the pending batch of its class, flushing it if it's full.
+	 *
+	 * @param event
+	 * 		the event
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the batcher was shut down or the batch is flushed and the async engine was shut down
+	 */
+	void add(final Event event) {
+		if (shutdown) {
+			throw new RejectedExecutionException("The batcher was shut down.");
+		}
+		final Class<?> clazz = event.getClass();
+		Accumulator accumulator = accumulators.get(clazz);
+		if (accumulator == null) {
+			final Accumulator newAccumulator = new Accumulator(clazz);
+			accumulator = accumulators.putIfAbsent(clazz, newAccumulator);
+			if (accumulator == null) {
+				accumulator = newAccumulator;
+			}
+		}
+		accumulator.add(event);
+	}
+
+	/**
+	 * Flushes all of the pending batches.
+	 */
+	void flushAll() {
+		for (Accumulator accumulator : accumulators.values()) {
+			accumulator.flush();
+		}
+	}
+
+	/**
+	 * Flushes or discards, according to the policy, all of the pending batches and
+	 * stops the linger timer, for good: the events added afterwards are rejected.
+	 */
+	void shutdown() {
+		synchronized (this) {
+			shutdown = true;
+		}
+		if (policy.isFlushOnShutdown()) {
+			flushAll();
+		} else {
+			for (Accumulator accumulator : accumulators.values()) {
+				accumulator.take();
+			}
+		}
+		synchronized (this) {
+			if (timer != null) {
+				timer.shutdownNow();
+				timer = null;
+			}
+		}
+	}
+
+	/**
+	 * Schedules the linger flush of the given accumulator
+	 *
+	 * @param accumulator
+	 * 		the accumulator
+	 * @param delayNanos
+	 * 		the linger time
+	 * @return the scheduled flush or <code>null</code> if the batcher was shut down
+	 */
+	private synchronized ScheduledFuture<?> schedule(final Accumulator accumulator, final long delayNanos) {
+		if (shutdown) {
+			return null;
+		}
+		if (timer == null) {
+			timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+				final Thread thread = new Thread(runnable, "jevents-batch-timer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			timer.setRemoveOnCancelPolicy(true);
+		}
+		return timer.schedule(accumulator::lingerFlush, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Delivers the given batch to the batch listeners of the event class, in the async engine.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param batch
+	 * 		the batch of events
+	 */
+	@SuppressWarnings("unchecked")
+	private void deliver(final Class<?> clazz, final List<Event> batch) {
+		engine.get().execute(() -> {
+			final BatchEventListener<Event>[] listeners = registry.resolveBatchListeners((Class<Event>) clazz);
+			invoker.invokeBatch(Collections.unmodifiableList(batch), listeners);
+		}, null, Priority.of(clazz));
+	}
+
+	/**
+	 * The pending batch of a single event class.
+	 */
+	private final class Accumulator {
+
+		// the event class
+		private final Class<?> clazz;
+
+		// the pending events
+		private List<Event> events;
+
+		// the scheduled linger flush, if any
+		private ScheduledFuture<?> linger;
+
+		/**
+		 * Creates a new accumulator
+		 *
+		 * @param clazz
+		 * 		the event class
+		 */
+		private Accumulator(final Class<?> clazz) {
+			this.clazz = clazz;
+		}
+
+		/**
+		 * Appends the given event, flushing the batch if it's full.
+		 *
+		 * @param event
+		 * 		the event
+		 */
+		private void add(final Event event) {
+			final BatchPolicy current = policy;
+			final List<Event> full;
+			synchronized (this) {
+				if (events == null) {
+					events = new ArrayList<>(Math.min(current.getMaxSize(), 1024));
+				}
+				events.add(event);
+				if (events.size() >= current.getMaxSize()) {
+					full = take();
+				} else {
+					full = null;
+					if (events.size() == 1) {
+						linger = schedule(this, current.getLinger(TimeUnit.NANOSECONDS));
+						if (linger == null) {
+							// lost the race against the shutdown
+							take();
+							throw new RejectedExecutionException("The batcher was shut down.");
+						}
+					}
+				}
+			}
+			if (full != null) {
+				deliver(clazz, full);
+			}
+		}
+
+		/**
+		 * Flushes the pending batch, if any.
+		 */
+		private void flush() {
+			final List<Event> batch = take();
+			if (batch != null) {
+				deliver(clazz, batch);
+			}
+		}
+
+		/**
+		 * Flushes the pending batch, if any, once its linger time elapses, in the timer thread. A batch which
+		 * cannot be handed to the async engine is reported to the error handler, as there's no caller to
+		 * report it to.
+		 */
+		private void lingerFlush() {
+			final List<Event> batch = take();
+			if (batch == null) {
+				return;
+			}
+			try {
+				deliver(clazz, batch);
+			} catch (RejectedExecutionException e) {
+				invoker.batchFailed(batch, null, e);
+			}
+		}
+
+		/**
+		 * Takes the pending batch, cancelling its linger flush.
+		 *
+		 * @return the pending batch or <code>null</code> if there's none
+		 */
+		private synchronized List<Event> take() {
+			final List<Event> batch = events;
+			events = null;
+			if (linger != null) {
+				linger.cancel(false);
+				linger = null;
+			}
+			return batch;
+		}
+	}
+}
@@ -0,0 +1,935 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.DeadEvent;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.ReplyingEventListener;
+import pt.davidafsilva.jevents.bridge.EventBridge;
+import pt.davidafsilva.jevents.channel.ChannelRegistry;
+import pt.davidafsilva.jevents.journal.EventJournal;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+import pt.davidafsilva.jevents.registry.ListenerRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * The dispatcher of an {@link pt.davidafsilva.jevents.EventBus event bus}, which fires the events to the
+ * listeners of the bus {@link pt.davidafsilva.jevents.registry.ListenerRegistry registry}.
+ *
+ * All the listeners registered for the event type, or any of its super types, are triggered sequentially,
+ * respecting the ordering that they were registered.
+ *
+ * Each dispatcher owns its async engine, fan-out dispatcher, routes, batches, journal, bridge,
+ * {@link pt.davidafsilva.jevents.metrics.EventMetrics metrics},
+ * {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy slow listener policy} and
+ * {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler error handler}, hence it's sized, tuned, monitored
+ * and shut down independently of the dispatchers of the other buses. The built-in dispatchers apply the hooks
+ * of the bus they're dispatching for, even when shared by several buses, while custom
+ * {@link pt.davidafsilva.jevents.dispatcher.Dispatcher dispatchers} run the listeners on their own.
+ *
+ * Asynchronous dispatches are executed by the configured {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine},
+ * which by default is a pool of worker threads sized according to the available processors. The default engine
+ * serves the dispatches in their submission order, regardless of their {@link pt.davidafsilva.jevents.Priority
+ * priority}, which only applies once a {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#prioritized() prioritized}
+ * engine is installed.
+ *
+ * Specific event classes may be routed to a custom {@link pt.davidafsilva.jevents.dispatcher.Dispatcher},
+ * in which case every dispatch of those events, either synchronous or asynchronous, is handled by that dispatcher.
+ *
+ * The events dispatched through {@link #dispatch(Event)} or {@link #dispatchAsync(Event)} which have no
+ * listeners are dispatched again, as a {@link pt.davidafsilva.jevents.DeadEvent}, to the dead event listeners
+ * of the registry, if any. The listeners failures are handed to the error handler of the bus, without skipping
+ * the remaining listeners.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class BusDispatcher {
+
+	// the registry of the listeners
+	private final ListenerRegistry registry;
+
+	// the invoker of the listeners, holding the metrics, the slow listener guard and the error handler
+	private final ListenerInvoker invoker = new ListenerInvoker();
+
+	// the engine used for asynchronous dispatches
+	private volatile AsyncEngine asyncEngine = AsyncEngine.pooled();
+
+	// map for the concrete event class -> routed dispatcher
+	private final ConcurrentMap<Class<?>, Dispatcher> routes = new ConcurrentHashMap<>();
+
+	// the dispatcher used for parallel dispatches
+	private volatile FanOutDispatcher fanOutDispatcher = FanOutDispatcher.create(FanOutMode.ISOLATED);
+
+	// the accumulator of the batches for the batch listeners
+	private final Batcher batcher;
+
+	// the journal of the dispatched events, if any
+	private volatile EventJournal journal;
+
+	// the bridge to other processes, if any
+	private volatile EventBridge bridge;
+
+	// the primitive channels
+	private final ChannelRegistry channels = ChannelRegistry.create(this::getErrorHandler);
+
+	/**
+	 * Creates a new dispatcher
+	 *
+	 * @param registry
+	 * 		the registry of the listeners
+	 */
+	private BusDispatcher(final ListenerRegistry registry) {
+		this.registry = registry;
+		this.batcher = new Batcher(registry, this::getAsyncEngine, invoker);
+		registry.onRemoval(invoker::removed);
+	}
+
+	/**
+	 * Creates a new dispatcher of the listeners of the given registry, with its own pooled async engine
+	 * and fan-out dispatcher, whose threads are started on demand.
+	 *
+	 * @param registry
+	 * 		the registry of the listeners
+	 * @return the dispatcher
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>registry</code> is <code>null</code>
+	 */
+	public static BusDispatcher create(final ListenerRegistry registry) {
+		if (registry == null) {
+			throw new NullPointerException("Invalid registry.");
+		}
+		return new BusDispatcher(registry);
+	}
+
+	/**
+	 * Returns the registry of the listeners
+	 *
+	 * @return the listener registry
+	 */
+	public ListenerRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Returns the registry of the primitive channels, whose lifecycle is bound to this dispatcher
+	 *
+	 * @return the channel registry
+	 */
+	public ChannelRegistry getChannels() {
+		return channels;
+	}
+
+	/**
+	 * Returns the engine currently used for asynchronous dispatches
+	 *
+	 * @return the async engine
+	 */
+	public AsyncEngine getAsyncEngine() {
+		return asyncEngine;
+	}
+
+	/**
+	 * Replaces the engine used for asynchronous dispatches.
+	 *
+	 * The previous engine is shut down, although the tasks already submitted
+	 * to it are still executed.
+	 *
+	 * @param engine
+	 * 		the new async engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>engine</code> is <code>null</code>
+	 */
+	public void setAsyncEngine(final AsyncEngine engine) {
+		if (engine == null) {
+			throw new NullPointerException("Invalid async engine.");
+		}
+		final AsyncEngine previous = asyncEngine;
+		asyncEngine = engine;
+		if (previous != engine) {
+			previous.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the dispatcher used for parallel dispatches
+	 *
+	 * @return the fan-out dispatcher
+	 */
+	public FanOutDispatcher getFanOutDispatcher() {
+		return fanOutDispatcher;
+	}
+
+	/**
+	 * Replaces the dispatcher used for parallel dispatches.
+	 *
+	 * The previous dispatcher is shut down, although the dispatches already forked
+	 * by it are still executed.
+	 *
+	 * @param dispatcher
+	 * 		the new fan-out dispatcher
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>dispatcher</code> is <code>null</code>
+	 */
+	public void setFanOutDispatcher(final FanOutDispatcher dispatcher) {
+		if (dispatcher == null) {
+			throw new NullPointerException("Invalid fan-out dispatcher.");
+		}
+		final FanOutDispatcher previous = fanOutDispatcher;
+		fanOutDispatcher = dispatcher;
+		if (previous != dispatcher) {
+			previous.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the installed metrics
+	 *
+	 * @return the metrics or {@link pt.davidafsilva.jevents.metrics.EventMetrics#NONE} if disabled
+	 */
+	public EventMetrics getMetrics() {
+		final EventMetrics metrics = invoker.metrics();
+		return metrics == null ? EventMetrics.NONE : metrics;
+	}
+
+	/**
+	 * Installs the given metrics, which are notified of the dispatches of this bus from then on.
+	 *
+	 * @param metrics
+	 * 		the metrics or {@link pt.davidafsilva.jevents.metrics.EventMetrics#NONE} to disable them
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>metrics</code> is <code>null</code>
+	 */
+	public void setMetrics(final EventMetrics metrics) {
+		if (metrics == null) {
+			throw new NullPointerException("Invalid metrics.");
+		}
+		invoker.setMetrics(metrics == EventMetrics.NONE ? null : metrics);
+	}
+
+	/**
+	 * Returns the handler of the listeners failures
+	 *
+	 * @return the error handler
+	 */
+	public ErrorHandler getErrorHandler() {
+		return invoker.errorHandler();
+	}
+
+	/**
+	 * Installs the given handler of the listeners failures, which is notified of the failures of the listeners
+	 * of this bus from then on.
+	 *
+	 * @param handler
+	 * 		the error handler, {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler#REPORT} by default
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>handler</code> is <code>null</code>
+	 */
+	public void setErrorHandler(final ErrorHandler handler) {
+		if (handler == null) {
+			throw new NullPointerException("Invalid error handler.");
+		}
+		invoker.setErrorHandler(handler);
+	}
+
+	/**
+	 * Returns the policy used for detecting and containing slow listeners
+	 *
+	 * @return the slow listener policy
+	 */
+	public SlowListenerPolicy getSlowListenerPolicy() {
+		final ListenerGuard guard = invoker.guard();
+		return guard == null ? SlowListenerPolicy.DISABLED : guard.policy();
+	}
+
+	/**
+	 * Replaces the policy used for detecting and containing the slow listeners of this bus.
+	 *
+	 * The health of the listeners is tracked from scratch, while the isolation executor of the
+	 * previous policy, if any, is shut down.
+	 *
+	 * @param policy
+	 * 		the new slow listener policy or {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy#DISABLED}
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>policy</code> is <code>null</code>
+	 */
+	public void setSlowListenerPolicy(final SlowListenerPolicy policy) {
+		if (policy == null) {
+			throw new NullPointerException("Invalid slow listener policy.");
+		}
+		final ListenerGuard previous = invoker.setGuard(policy.isEnabled() ? new ListenerGuard(policy, invoker) : null);
+		if (previous != null) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Returns the health state of the given listener, according to the slow listener policy
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the listener state, which is always healthy if the policy is disabled
+	 */
+	public ListenerState getListenerState(final EventListener<?> listener) {
+		final ListenerGuard guard = invoker.guard();
+		return guard == null ? ListenerState.HEALTHY : guard.stateOf(listener);
+	}
+
+	/**
+	 * Restores the given listener to the healthy state, closing its circuit or bringing it
+	 * back from isolation.
+	 *
+	 * @param listener
+	 * 		the listener
+	 */
+	public void resetListenerState(final EventListener<?> listener) {
+		final ListenerGuard guard = invoker.guard();
+		if (guard != null) {
+			guard.reset(listener);
+		}
+	}
+
+	/**
+	 * Returns the journal where the dispatched events are appended
+	 *
+	 * @return the journal or <code>null</code> if none is installed
+	 */
+	public EventJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Installs the given journal, where every event dispatched from then on is appended before
+	 * reaching its listeners.
+	 *
+	 * The journal is owned by the caller, which is responsible for closing it once uninstalled.
+	 *
+	 * @param journal
+	 * 		the journal or <code>null</code> to stop journaling
+	 */
+	public void setJournal(final EventJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Replays the events of the installed journal, from the given offset, to the currently registered listeners.
+	 *
+	 * The events are dispatched synchronously, in the calling thread, without being appended to the journal again.
+	 *
+	 * @param fromOffset
+	 * 		the offset of the first event to replay
+	 * @return the offset following the last replayed event
+	 * @throws java.lang.IllegalStateException
+	 * 		if no journal is installed, or it is closed
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>fromOffset</code> is not within the retained offsets of the journal
+	 * @throws java.io.IOException
+	 * 		if the journal could not be read
+	 * @see pt.davidafsilva.jevents.journal.EventJournal#replay(long, java.util.function.Consumer)
+	 */
+	public long replay(final long fromOffset) throws IOException {
+		final EventJournal current = journal;
+		if (current == null) {
+			throw new IllegalStateException("No journal installed.");
+		}
+		return current.replay(fromOffset, event -> internalDispatch(event, false));
+	}
+
+	/**
+	 * Returns the bridge which forwards the dispatched events to other processes
+	 *
+	 * @return the bridge or <code>null</code> if none is installed
+	 */
+	public EventBridge getBridge() {
+		return bridge;
+	}
+
+	/**
+	 * Installs the given bridge, which is handed every event dispatched from then on, after the journal
+	 * and before reaching the local listeners.
+	 *
+	 * The bridge is owned by the caller, which is responsible for closing it once uninstalled.
+	 *
+	 * @param bridge
+	 * 		the bridge or <code>null</code> to stop forwarding
+	 */
+	public void setBridge(final EventBridge bridge) {
+		this.bridge = bridge;
+	}
+
+	/**
+	 * Dispatches an event received from another process to the local listeners: synchronously, in the
+	 * calling thread, without appending it to the journal nor forwarding it again.
+	 *
+	 * @param event
+	 * 		the received event
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @see pt.davidafsilva.jevents.bridge.EventBridge
+	 */
+	public <E extends Event> void deliver(final E event) {
+		internalDispatch(event, false);
+	}
+
+	/**
+	 * Returns the policy used for grouping asynchronously dispatched events into batches
+	 *
+	 * @return the batch policy
+	 */
+	public BatchPolicy getBatchPolicy() {
+		return batcher.getPolicy();
+	}
+
+	/**
+	 * Replaces the policy used for grouping asynchronously dispatched events into batches.
+	 *
+	 * The pending batches are kept, the new policy is applied to the subsequent events.
+	 *
+	 * @param policy
+	 * 		the new batch policy
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>policy</code> is <code>null</code>
+	 */
+	public void setBatchPolicy(final BatchPolicy policy) {
+		if (policy == null) {
+			throw new NullPointerException("Invalid batch policy.");
+		}
+		batcher.setPolicy(policy);
+	}
+
+	/**
+	 * Routes all of the dispatches of the given concrete event class to the given dispatcher,
+	 * replacing any previous route of that class.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param dispatcher
+	 * 		the dispatcher
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>dispatcher</code> is <code>null</code>
+	 */
+	public <E extends Event> void route(final Class<E> clazz, final Dispatcher dispatcher) {
+		if (clazz == null || dispatcher == null) {
+			throw new NullPointerException("Invalid event class or dispatcher.");
+		}
+		routes.put(clazz, dispatcher);
+	}
+
+	/**
+	 * Removes the route of the given concrete event class, if any, restoring the default
+	 * dispatching behavior for that class.
+	 *
+	 * The dispatcher is not shut down.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the dispatcher previously routed or <code>null</code> if there was none
+	 */
+	public <E extends Event> Dispatcher unroute(final Class<E> clazz) {
+		return routes.remove(clazz);
+	}
+
+	/**
+	 * Waits until all of the pending asynchronous dispatches, including the ones handled by routed
+	 * dispatchers, the parallel ones, the channel ones and the isolated listeners, are completed or the timeout
+	 * elapses.
+	 *
+	 * The pending batches are flushed right away.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if all of the dispatches were completed, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		batcher.flushAll();
+		for (Dispatcher dispatcher : dispatchers()) {
+			if (!dispatcher.drain(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		if (!asyncEngine.drain(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) ||
+				!channels.drain(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+			return false;
+		}
+		// the listeners executed by the async engine may have been isolated meanwhile
+		final ListenerGuard guard = invoker.guard();
+		return guard == null || guard.isolation() == null ||
+				guard.isolation().drain(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Shuts down the async engine, the fan-out dispatcher, the routed dispatchers, the channels and the slow
+	 * listeners isolation: pending asynchronous dispatches are still executed, but new ones are rejected.
+	 *
+	 * The pending batches are either flushed or discarded, according to the batch policy, while the
+	 * installed journal, if any, is synced.
+	 *
+	 * @see #awaitTermination(long, java.util.concurrent.TimeUnit)
+	 */
+	public void shutdown() {
+		final EventJournal current = journal;
+		if (current != null) {
+			current.sync();
+		}
+		batcher.shutdown();
+		for (Dispatcher dispatcher : dispatchers()) {
+			dispatcher.shutdown();
+		}
+		channels.shutdown();
+		asyncEngine.shutdown();
+		final ListenerGuard guard = invoker.guard();
+		if (guard != null) {
+			guard.close();
+		}
+	}
+
+	/**
+	 * Waits until all of the pending asynchronous dispatches are completed after a shutdown request,
+	 * or the timeout elapses.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the async engine, the fan-out dispatcher, the routed dispatchers, the channels and
+	 * the slow listeners isolation terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Dispatcher dispatcher : dispatchers()) {
+			if (!dispatcher.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		if (!channels.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) ||
+				!asyncEngine.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+			return false;
+		}
+		final ListenerGuard guard = invoker.guard();
+		return guard == null || guard.isolation() == null ||
+				guard.isolation().awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the distinct dispatchers currently routed, along with the fan-out dispatcher
+	 *
+	 * @return the managed dispatchers
+	 */
+	private Set<Dispatcher> dispatchers() {
+		final Set<Dispatcher> dispatchers = Collections.newSetFromMap(new IdentityHashMap<>());
+		dispatchers.addAll(routes.values());
+		dispatchers.add(fanOutDispatcher);
+		return dispatchers;
+	}
+
+	/**
+	 * Dispatches the given event synchronously
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 */
+	public <E extends Event> void dispatch(final E event) {
+		publish(event);
+		internalDispatch(event, false);
+	}
+
+	/**
+	 * Dispatches the given event asynchronously
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine, or the routed dispatcher, was shut down
+	 */
+	public <E extends Event> void dispatchAsync(final E event) {
+		publish(event);
+		internalDispatch(event, true);
+	}
+
+	/**
+	 * Dispatches the given event asynchronously, in the configured async engine, tracking its completion.
+	 *
+	 * Unlike {@link #dispatchAsync(Event)}, the listeners failures are reported in the dispatch result,
+	 * instead of being handed to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler}. Routes of the
+	 * event class are not applied, as the listeners are always executed by the async engine.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @return the future of the dispatch result, which completes when every listener is done or
+	 * completes exceptionally if the dispatch is dropped by the async engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine rejected the dispatch
+	 */
+	public <E extends Event> CompletableFuture<DispatchResult> submit(final E event) {
+		publish(event);
+		@SuppressWarnings("unchecked")
+		final Class<E> clazz = (Class<E>) event.getClass();
+		final EventListener<E>[] listeners = registry.resolveListeners(event);
+		dispatched(clazz, listeners.length);
+		final CompletableFuture<DispatchResult> future = new CompletableFuture<>();
+		asyncEngine.execute(() -> {
+			List<ListenerFailure> failures = Collections.emptyList();
+			for (int i = 0; i < listeners.length; i++) {
+				try {
+					invoker.invoke(event, listeners[i]);
+				} catch (RuntimeException e) {
+					if (failures.isEmpty()) {
+						failures = new ArrayList<>(1);
+					}
+					failures.add(new ListenerFailure(listeners[i], e));
+				}
+			}
+			future.complete(new DispatchResult(listeners.length, failures));
+		}, () -> dropped(future), event.getPriority());
+		if (registry.hasBatchListeners()) {
+			batchDispatch(event, clazz, true);
+		}
+		return future;
+	}
+
+	/**
+	 * Dispatches the given event asynchronously, collecting the replies of the
+	 * {@link pt.davidafsilva.jevents.ReplyingEventListener replying listeners} into a list.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @param <R>
+	 * 		the type of the replies
+	 * @return the future of the replies, in the listeners order
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine rejected the dispatch
+	 * @see #request(Event, java.util.stream.Collector)
+	 */
+	public <E extends Event, R> CompletableFuture<List<R>> request(final E event) {
+		return request(event, Collectors.<R>toList());
+	}
+
+	/**
+	 * Dispatches the given event asynchronously, in the configured async engine, combining the
+	 * replies of the {@link pt.davidafsilva.jevents.ReplyingEventListener replying listeners}
+	 * with the given collector.
+	 *
+	 * Every listener of the event is executed, in the registration order, although only the replying ones
+	 * contribute to the result. The caller is responsible for requesting a reply type compatible with
+	 * the one of the registered listeners. Routes of the event class are not applied.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param collector
+	 * 		the collector of the replies
+	 * @param <E>
+	 * 		the event type
+	 * @param <R>
+	 * 		the type of the replies
+	 * @param <A>
+	 * 		the intermediate accumulation type of the collector
+	 * @param <T>
+	 * 		the result type
+	 * @return the future of the combined replies, which completes exceptionally with the first failure of the
+	 * listeners, the remaining ones being suppressed by it, or if the dispatch is dropped by the async engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> or <code>collector</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine rejected the dispatch
+	 */
+	public <E extends Event, R, A, T> CompletableFuture<T> request(final E event,
+			final Collector<? super R, A, T> collector) {
+		if (collector == null) {
+			throw new NullPointerException("Invalid collector.");
+		}
+		publish(event);
+		@SuppressWarnings("unchecked")
+		final Class<E> clazz = (Class<E>) event.getClass();
+		final EventListener<E>[] listeners = registry.resolveListeners(event);
+		dispatched(clazz, listeners.length);
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		asyncEngine.execute(() -> {
+			try {
+				future.complete(collect(invoker, event, listeners, collector));
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		}, () -> dropped(future), event.getPriority());
+		if (registry.hasBatchListeners()) {
+			batchDispatch(event, clazz, true);
+		}
+		return future;
+	}
+
+	/**
+	 * Executes the given listeners, combining the replies of the replying ones with the given collector
+	 *
+	 * @param invoker
+	 * 		the invoker of the listeners
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listeners
+	 * 		the target listeners
+	 * @param collector
+	 * 		the collector of the replies
+	 * @param <E>
+	 * 		the event type
+	 * @param <R>
+	 * 		the type of the replies
+	 * @param <A>
+	 * 		the intermediate accumulation type of the collector
+	 * @param <T>
+	 * 		the result type
+	 * @return the combined replies
+	 * @throws java.lang.RuntimeException
+	 * 		the first failure of the listeners, with the remaining ones suppressed
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E extends Event, R, A, T> T collect(final ListenerInvoker invoker, final E event,
+			final EventListener<E>[] listeners, final Collector<? super R, A, T> collector) {
+		final A container = collector.supplier().get();
+		final BiConsumer<A, ? super R> accumulator = collector.accumulator();
+		RuntimeException failure = null;
+		for (int i = 0; i < listeners.length; i++) {
+			try {
+				if (listeners[i] instanceof ReplyingEventListener) {
+					accumulator.accept(container,
+							invoker.reply(event, (ReplyingEventListener<E, R>) listeners[i]));
+				} else {
+					invoker.invoke(event, listeners[i]);
+				}
+			} catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return collector.finisher().apply(container);
+	}
+
+	/**
+	 * Notifies the installed metrics, if any, of an asynchronous dispatch tracked by a future
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listenerCount
+	 * 		the number of target listeners
+	 */
+	private void dispatched(final Class<? extends Event> clazz, final int listenerCount) {
+		final EventMetrics metrics = invoker.metrics();
+		if (metrics != null) {
+			metrics.dispatched(clazz, listenerCount, true);
+		}
+	}
+
+	/**
+	 * Completes the given future of a dispatch dropped by the async engine
+	 *
+	 * @param future
+	 * 		the future of the dispatch
+	 */
+	private static void dropped(final CompletableFuture<?> future) {
+		future.completeExceptionally(new RejectedExecutionException("The dispatch was dropped by the async engine."));
+	}
+
+	/**
+	 * Dispatches the given event in parallel: its listeners are forked across the configured
+	 * {@link pt.davidafsilva.jevents.dispatcher.FanOutDispatcher}, regardless of any route of the event class.
+	 *
+	 * The batch listeners receive the event as if it was dispatched asynchronously.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @return the future of the dispatch result, which completes when every listener is done
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the fan-out dispatcher was shut down
+	 * @see pt.davidafsilva.jevents.dispatcher.FanOutDispatcher#fanOut(Event, EventListener[])
+	 */
+	public <E extends Event> CompletableFuture<DispatchResult> dispatchParallel(final E event) {
+		publish(event);
+		@SuppressWarnings("unchecked")
+		final Class<E> clazz = (Class<E>) event.getClass();
+		final EventListener<E>[] listeners = registry.resolveListeners(event);
+		dispatched(clazz, listeners.length);
+		final CompletableFuture<DispatchResult> future = fanOutDispatcher.fanOut(event, listeners, invoker);
+		if (registry.hasBatchListeners()) {
+			batchDispatch(event, clazz, true);
+		}
+		return future;
+	}
+
+	/**
+	 * Appends the given event to the installed journal and hands it to the installed bridge, if any
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 */
+	private void publish(final Event event) {
+		final EventJournal currentJournal = journal;
+		if (currentJournal != null) {
+			currentJournal.append(event);
+		}
+		final EventBridge currentBridge = bridge;
+		if (currentBridge != null) {
+			currentBridge.publish(event);
+		}
+	}
+
+	/**
+	 * Internal procedure for dispatching events
+	 *
+	 * @param event
+	 * 		the event to be dispatched
+	 * @param async
+	 * 		the async flag
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 */
+	private <E extends Event> void internalDispatch(final E event, final boolean async) {
+		@SuppressWarnings("unchecked")
+		final Class<E> clazz = (Class<E>) event.getClass();
+		final EventListener<E>[] listeners = registry.resolveListeners(event);
+		final EventMetrics metrics = invoker.metrics();
+		if (metrics != null) {
+			metrics.dispatched(clazz, listeners.length, async);
+		}
+		if (listeners.length > 0) {
+			final Dispatcher routed = routes.isEmpty() ? null : routes.get(clazz);
+			final Dispatcher dispatcher = routed != null ? routed : DispatcherFactory.INSTANCE.get(async, asyncEngine);
+			try {
+				InvokingDispatcher.dispatch(dispatcher, event, listeners, invoker);
+			} catch (RejectedExecutionException e) {
+				if (metrics != null) {
+					metrics.rejected(clazz);
+				}
+				throw e;
+			}
+		} else if (isDead(event, clazz)) {
+			internalDispatch(DeadEvent.of(event), async);
+		}
+		if (registry.hasBatchListeners()) {
+			batchDispatch(event, clazz, async);
+		}
+	}
+
+	/**
+	 * Checks whether or not the given event, which has no regular listeners, is to be dispatched as a
+	 * {@link pt.davidafsilva.jevents.DeadEvent}: it must not be a dead event itself, it must have no batch
+	 * listeners either and there must be listeners for the dead events.
+	 *
+	 * @param event
+	 * 		the unheard event
+	 * @param clazz
+	 * 		the event class
+	 * @return <code>true</code> if the event is to be dispatched as a dead event, <code>false</code> otherwise
+	 */
+	private boolean isDead(final Event event, final Class<? extends Event> clazz) {
+		if (event instanceof DeadEvent || registry.resolveListeners(DeadEvent.class).length == 0) {
+			return false;
+		}
+		return !registry.hasBatchListeners() || registry.resolveBatchListeners(clazz).length == 0;
+	}
+
+	/**
+	 * Internal procedure for dispatching events to the batch listeners: asynchronous events are accumulated,
+	 * while synchronous ones are delivered right away, in a single element batch.
+	 *
+	 * @param event
+	 * 		the event to be dispatched
+	 * @param clazz
+	 * 		the event class
+	 * @param async
+	 * 		the async flag
+	 * @param <E>
+	 * 		the event type
+	 */
+	private <E extends Event> void batchDispatch(final E event, final Class<E> clazz, final boolean async) {
+		final BatchEventListener<E>[] listeners = registry.resolveBatchListeners(clazz);
+		if (listeners.length == 0) {
+			return;
+		}
+		if (async) {
+			batcher.add(event);
+		} else {
+			invoker.invokeBatch(Collections.singletonList(event), listeners);
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An asynchronous dispatcher which conflates the events sharing the same
+ * {@link pt.davidafsilva.jevents.Event#getConflationKey() conflation key}, meant for event types
+ * where only the latest value per key matters, such as price ticks or status changes.
+ *
+ * While an event is waiting to be executed, a newer event of the same class and key replaces it in place,
+ * hence the listeners only see the latest one and bursts of stale updates are discarded without reaching them.
+ * Events without a key are never conflated.
+ *
+ * As in the {@link pt.davidafsilva.jevents.dispatcher.PartitionedDispatcher}, the events are assigned to
+ * single threaded partitions according to the hash of their key, so the events of the same key are
+ * handled in the order that they were dispatched. The number of conflated events is reported by
+ * {@link #getConflatedCount()} and to the installed {@link pt.davidafsilva.jevents.metrics.EventMetrics metrics}.
+ *
+ * The dispatcher is meant to be bound to specific event classes through
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#route(Class, Dispatcher)}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class ConflatingDispatcher extends InvokingDispatcher {
+
+	// the partitions
+	private final Partitions partitions;
+
+	// map for the concrete event class -> conflation key -> pending dispatch
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Pending>> pending = new ConcurrentHashMap<>();
+
+	// the number of conflated events
+	private final LongAdder conflated = new LongAdder();
+
+	/**
+	 * Creates a new conflating dispatcher.
+	 *
+	 * @param partitions
+	 * 		the partitions
+	 */
+	private ConflatingDispatcher(final Partitions partitions) {
+		this.partitions = partitions;
+	}
+
+	/**
+	 * Creates a new conflating dispatcher with one partition per available processor and the
+	 * default capacity per partition.
+	 *
+	 * @return the dispatcher
+	 */
+	public static ConflatingDispatcher create() {
+		return create(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new conflating dispatcher with the default capacity per partition.
+	 *
+	 * @param partitions
+	 * 		the number of partitions
+	 * @return the dispatcher
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>partitions</code> is lesser than 1
+	 */
+	public static ConflatingDispatcher create(final int partitions) {
+		return create(partitions, AsyncEngine.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new conflating dispatcher.
+	 *
+	 * @param partitions
+	 * 		the number of partitions
+	 * @param capacity
+	 * 		the maximum number of pending events per partition, each conflation key holding at most one
+	 * @return the dispatcher
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>partitions</code> or <code>capacity</code> is lesser than 1
+	 */
+	public static ConflatingDispatcher create(final int partitions, final int capacity) {
+		return new ConflatingDispatcher(Partitions.create(partitions, capacity));
+	}
+
+	/**
+	 * Returns the number of partitions of this dispatcher.
+	 *
+	 * @return the number of partitions
+	 */
+	public int getPartitionCount() {
+		return partitions.count();
+	}
+
+	/**
+	 * Returns the number of events which were replaced by a newer one before being executed.
+	 *
+	 * @return the conflated count
+	 */
+	public long getConflatedCount() {
+		return conflated.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the dispatcher was shut down
+	 */
+	@Override
+	public <E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners) {
+		super.dispatchTo(event, listeners);
+	}
+
+	@Override
+	<E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		final Object key = event.getConflationKey();
+		final AsyncEngine partition = partitions.of(key);
+		if (key == null) {
+			dispatch(partition.dispatcher(), event, listeners, invoker);
+			return;
+		}
+
+		final Class<? extends Event> eventType = event.getClass();
+		final ConcurrentMap<Object, Pending> byKey = pendingOf(eventType);
+		final EventMetrics metrics = invoker.metrics();
+		while (true) {
+			final Pending current = byKey.get(key);
+			if (current != null && current.replace(event, listeners, invoker)) {
+				conflated.increment();
+				if (metrics != null) {
+					metrics.conflated(eventType);
+				}
+				return;
+			}
+			final Pending fresh = new Pending(byKey, key, event, listeners, invoker, metrics);
+			if (current == null ? byKey.putIfAbsent(key, fresh) == null : byKey.replace(key, current, fresh)) {
+				schedule(partition, fresh);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the pending dispatches of the given event class, by conflation key
+	 *
+	 * @param eventType
+	 * 		the concrete event class
+	 * @return the pending dispatches
+	 */
+	private ConcurrentMap<Object, Pending> pendingOf(final Class<?> eventType) {
+		ConcurrentMap<Object, Pending> byKey = pending.get(eventType);
+		if (byKey == null) {
+			final ConcurrentMap<Object, Pending> newByKey = new ConcurrentHashMap<>();
+			byKey = pending.putIfAbsent(eventType, newByKey);
+			if (byKey == null) {
+				byKey = newByKey;
+			}
+		}
+		return byKey;
+	}
+
+	/**
+	 * Schedules the execution of the given pending dispatch in the given partition
+	 *
+	 * @param partition
+	 * 		the partition
+	 * @param dispatch
+	 * 		the pending dispatch
+	 */
+	private static void schedule(final AsyncEngine partition, final Pending dispatch) {
+		if (dispatch.metrics != null) {
+			dispatch.metrics.queued(dispatch.eventType);
+		}
+		try {
+			partition.execute(dispatch, dispatch::drop);
+		} catch (RejectedExecutionException e) {
+			dispatch.drop();
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return partitions.drain(timeout, unit);
+	}
+
+	@Override
+	public void shutdown() {
+		partitions.shutdown();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return partitions.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * A dispatch waiting to be executed, whose event may be replaced until it's taken for execution.
+	 */
+	private static final class Pending implements Runnable {
+
+		// the pending dispatches of the event class
+		private final ConcurrentMap<Object, Pending> owner;
+
+		// the conflation key
+		private final Object key;
+
+		// the event class
+		private final Class<? extends Event> eventType;
+
+		// the installed metrics, if any
+		private final EventMetrics metrics;
+
+		// the latest event, its listeners and the invoker of its bus, guarded by the monitor
+		private Event event;
+		private EventListener<?>[] listeners;
+		private ListenerInvoker invoker;
+
+		// whether or not the dispatch was taken for execution or dropped, guarded by the monitor
+		private boolean taken;
+
+		/**
+		 * Creates a new pending dispatch
+		 *
+		 * @param owner
+		 * 		the pending dispatches of the event class
+		 * @param key
+		 * 		the conflation key
+		 * @param event
+		 * 		the event
+		 * @param listeners
+		 * 		the target listeners
+		 * @param invoker
+		 * 		the invoker of the bus
+		 * @param metrics
+		 * 		the installed metrics, if any
+		 */
+		private Pending(final ConcurrentMap<Object, Pending> owner, final Object key, final Event event,
+				final EventListener<?>[] listeners, final ListenerInvoker invoker, final EventMetrics metrics) {
+			this.owner = owner;
+			this.key = key;
+			this.eventType = event.getClass();
+			this.metrics = metrics;
+			this.event = event;
+			this.listeners = listeners;
+			this.invoker = invoker;
+		}
+
+		/**
+		 * Replaces the pending event, unless it was already taken for execution
+		 *
+		 * @param newEvent
+		 * 		the newer event
+		 * @param newListeners
+		 * 		the target listeners of the newer event
+		 * @param newInvoker
+		 * 		the invoker of the bus of the newer event
+		 * @return <code>true</code> if the event was replaced, <code>false</code> if it was taken
+		 */
+		private synchronized boolean replace(final Event newEvent, final EventListener<?>[] newListeners,
+				final ListenerInvoker newInvoker) {
+			if (taken) {
+				return false;
+			}
+			event = newEvent;
+			listeners = newListeners;
+			invoker = newInvoker;
+			return true;
+		}
+
+		/**
+		 * Takes the pending event for execution, releasing the conflation key
+		 *
+		 * @return the latest event
+		 */
+		private synchronized Event take() {
+			taken = true;
+			owner.remove(key, this);
+			final Event latest = event;
+			event = null;
+			return latest;
+		}
+
+		/**
+		 * Discards the pending event, as the dispatch was dropped or rejected
+		 */
+		private void drop() {
+			synchronized (this) {
+				take();
+				listeners = null;
+				invoker = null;
+			}
+			if (metrics != null) {
+				metrics.dequeued(eventType);
+				metrics.rejected(eventType);
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void run() {
+			final EventListener<Event>[] latestListeners;
+			final ListenerInvoker latestInvoker;
+			final Event latest;
+			synchronized (this) {
+				latest = take();
+				latestListeners = (EventListener<Event>[]) listeners;
+				latestInvoker = invoker;
+				listeners = null;
+				invoker = null;
+			}
+			if (metrics != null) {
+				metrics.dequeued(eventType);
+			}
+			latestInvoker.invokeAll(latest, latestListeners, true);
+		}
+	}
+}
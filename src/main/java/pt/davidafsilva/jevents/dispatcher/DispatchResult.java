@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of dispatching a single event to its listeners.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class DispatchResult {
+
+	// the number of target listeners
+	private final int listenerCount;
+
+	// the listener failures
+	private final List<ListenerFailure> failures;
+
+	/**
+	 * Creates a new dispatch result
+	 *
+	 * @param listenerCount
+	 * 		the number of target listeners
+	 * @param failures
+	 * 		the listener failures, which must not be modified afterwards
+	 */
+	DispatchResult(final int listenerCount, final List<ListenerFailure> failures) {
+		this.listenerCount = listenerCount;
+		this.failures = Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * Returns the number of listeners the event was dispatched to
+	 *
+	 * @return the number of listeners
+	 */
+	public int getListenerCount() {
+		return listenerCount;
+	}
+
+	/**
+	 * Returns the failures of the listeners, in the order that they occurred
+	 *
+	 * @return an unmodifiable list with the failures
+	 */
+	public List<ListenerFailure> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Returns whether or not every listener handled the event without failing
+	 *
+	 * @return <code>true</code> if no listener failed, <code>false</code> otherwise
+	 */
+	public boolean isSuccessful() {
+		return failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "DispatchResult{listenerCount=" + listenerCount + ", failures=" + failures + '}';
+	}
+}
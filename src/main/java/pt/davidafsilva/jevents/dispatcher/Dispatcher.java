@@ -30,16 +30,26 @@ package pt.davidafsilva.jevents.dispatcher;
 import pt.davidafsilva.jevents.Event;
 import pt.davidafsilva.jevents.EventListener;
 
-import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The dispatcher interface.
  * Both synchronous and asynchronous dispatcher implement this single interface.
  *
+ * Dispatchers are stateless with regard to the events being dispatched, hence a single
+ * instance is shared by all of the dispatches.
+ *
+ * Custom dispatchers may be bound to specific event classes through
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#route(Class, Dispatcher)}.
+ * Dispatchers which own threads should override the lifecycle methods, which are
+ * invoked alongside with the ones of the {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher}.
+ * Unlike the built-in dispatchers, custom ones run the listeners on their own, hence without the metrics,
+ * the slow listener policy and the error handler of the bus.
+ *
  * @author David Silva
  * @since 1.0
  */
-interface Dispatcher<E extends Event> {
+public interface Dispatcher {
 
 	/**
 	 * Dispatches the given event to the given listeners.
@@ -47,7 +57,52 @@ interface Dispatcher<E extends Event> {
 	 * @param event
 	 * 		the event to be dispatched
 	 * @param listeners
-	 * 		the target listeners
+	 * 		the target listeners snapshot, which must not be modified
+	 * @param <E>
+	 * 		the event type
+	 */
+	<E extends Event> void dispatchTo(E event, EventListener<E>[] listeners);
+
+	/**
+	 * Waits until all of the pending dispatches are completed, or the timeout elapses.
+	 *
+	 * By default, dispatches are completed upon return, hence there's nothing to wait for.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if all of the dispatches were completed, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	default boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return true;
+	}
+
+	/**
+	 * Initiates an orderly shutdown: pending dispatches are completed, but new ones are rejected.
+	 *
+	 * By default, there's nothing to shut down.
+	 */
+	default void shutdown() {
+	}
+
+	/**
+	 * Waits until all of the pending dispatches are completed after a shutdown request, or
+	 * the timeout elapses.
+	 *
+	 * By default, there's nothing to wait for.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the dispatcher terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
 	 */
-	void dispatchTo(E event, Collection<? extends EventListener<E>> listeners);
+	default boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return true;
+	}
 }
@@ -27,8 +27,6 @@
 
 package pt.davidafsilva.jevents.dispatcher;
 
-import pt.davidafsilva.jevents.Event;
-
 /**
  * The dispatcher factory.
  *
@@ -39,23 +37,17 @@ enum DispatcherFactory {
 	INSTANCE;
 
 	/**
-	 * Creates a new instance of the appropriate dispatcher, either
-	 * a synchronous ou asynchronous.
+	 * Returns the appropriate dispatcher, either a synchronous ou asynchronous.
+	 *
+	 * Dispatchers are shared, hence no allocation takes place.
 	 *
 	 * @param async
 	 * 		the async flag
-	 * @param <E>
-	 * 		the event type associated with the dispatcher
+	 * @param engine
+	 * 		the engine used by asynchronous dispatchers
 	 * @return the dispatcher
 	 */
-	<E extends Event> Dispatcher<E> create(boolean async) {
-		final Dispatcher<E> dispatcher;
-		if (async) {
-			dispatcher = new AsyncDispatcher<>();
-		} else {
-			dispatcher = new SyncDispatcher<>();
-		}
-
-		return dispatcher;
+	Dispatcher get(final boolean async, final AsyncEngine engine) {
+		return async ? engine.dispatcher() : SyncDispatcher.INSTANCE;
 	}
 }
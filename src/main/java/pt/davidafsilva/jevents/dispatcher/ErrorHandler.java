@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import java.util.List;
+
+/**
+ * The handler of the failures raised by the listeners.
+ *
+ * The dispatchers isolate the listeners, including the batch and the channel ones, from each other: whenever a
+ * listener fails,
+ * the failure is handed
+ * to the handler installed in its bus, through
+ * {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher#setErrorHandler(ErrorHandler)}, and the
+ * remaining listeners are still executed, either in the producer thread or in the async workers.
+ * The failure is handed as is, without wrapping it nor collecting it, hence a failing listener costs no
+ * allocation besides its own exception.
+ *
+ * Handlers are notified from the dispatching threads, hence they must be thread safe. A handler may
+ * rethrow the failure, in which case the remaining listeners are skipped and the failure reaches the
+ * dispatching thread.
+ *
+ * Dispatches which report the failures on their own, such as
+ * {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher#submit(Event)}, do not notify the handler.
+ * The failures to decode or deliver the events received by an {@link pt.davidafsilva.jevents.bridge.EventBridge}
+ * are handed to the handler of its bus as well.
+ *
+ * Failures escaping the handler, including the errors raised by the listeners, within the threads owned by the
+ * bus, such as the consumers of a {@link pt.davidafsilva.jevents.dispatcher.RingBufferDispatcher} or of a
+ * primitive channel and the readers of a bridge transport, are reported to the uncaught exception handler of
+ * that thread, which keeps running.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public interface ErrorHandler {
+
+	/**
+	 * The default handler, which reports the failures to the uncaught exception handler of the current
+	 * thread, without terminating it
+	 */
+	ErrorHandler REPORT = (event, listener, failure) -> {
+		final Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+	};
+
+	/**
+	 * The handler which rethrows the failures, skipping the remaining listeners of the dispatch
+	 */
+	ErrorHandler PROPAGATE = (event, listener, failure) -> {
+		throw failure;
+	};
+
+	/**
+	 * Handles the failure of the given listener
+	 *
+	 * @param event
+	 * 		the event being dispatched or <code>null</code> if the failure was raised by a channel listener or
+	 * 		while decoding an event received by a bridge
+	 * @param listener
+	 * 		the failing listener or <code>null</code> if the failure was not raised by a regular listener
+	 * @param failure
+	 * 		the failure
+	 */
+	void handle(Event event, EventListener<?> listener, RuntimeException failure);
+
+	/**
+	 * Handles the failure of the given batch listener or, when there's no listener, the failure to deliver
+	 * the batch, such as a linger flush rejected by the async engine.
+	 *
+	 * By default, the failure is handled as the failure of the first event of the batch, without listener.
+	 *
+	 * @param events
+	 * 		the batch of events, which is never empty
+	 * @param listener
+	 * 		the failing batch listener or <code>null</code> if the batch could not be delivered
+	 * @param failure
+	 * 		the failure
+	 */
+	default void handleBatch(List<? extends Event> events, BatchEventListener<?> listener, RuntimeException failure) {
+		handle(events.get(0), null, failure);
+	}
+
+	/**
+	 * Handles the failure of the given listener of a {@link pt.davidafsilva.jevents.channel.ChannelRegistry primitive
+	 * channel}, whose values are dispatched without being wrapped in events.
+	 *
+	 * By default, the failure is handled without event nor listener.
+	 *
+	 * @param channel
+	 * 		the channel name
+	 * @param listener
+	 * 		the failing {@link pt.davidafsilva.jevents.LongEventListener} or
+	 * 		{@link pt.davidafsilva.jevents.DoubleEventListener}
+	 * @param failure
+	 * 		the failure
+	 */
+	default void handleChannel(String channel, Object listener, RuntimeException failure) {
+		handle(null, null, failure);
+	}
+}
@@ -28,17 +28,57 @@
 package pt.davidafsilva.jevents.dispatcher;
 
 import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
 import pt.davidafsilva.jevents.EventListener;
-import pt.davidafsilva.jevents.registry.EventRegistry;
+import pt.davidafsilva.jevents.bridge.EventBridge;
+import pt.davidafsilva.jevents.channel.ChannelRegistry;
+import pt.davidafsilva.jevents.journal.EventJournal;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
 
 /**
  * The event dispatcher, which is responsible for the firing of
  * all the events.
  *
  * All the listeners previously registered in {@link pt.davidafsilva.jevents.registry.EventRegistry}
- * are triggered sequentially, respecting the ordering that they were registered.
+ * for the event type, or any of its super types, are triggered sequentially, respecting the ordering
+ * that they were registered.
+ *
+ * Asynchronous dispatches are executed by the configured {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine},
+ * which by default is a pool of worker threads sized according to the available processors.
+ *
+ * Specific event classes may be routed to a custom {@link pt.davidafsilva.jevents.dispatcher.Dispatcher},
+ * such as the {@link pt.davidafsilva.jevents.dispatcher.RingBufferDispatcher}, in which case every dispatch
+ * of those events, either synchronous or asynchronous, is handled by that dispatcher.
+ *
+ * Events may also be dispatched through {@link #dispatchParallel(Event)}, which forks the listeners
+ * across the configured {@link pt.davidafsilva.jevents.dispatcher.FanOutDispatcher}.
+ *
+ * The completion of an asynchronous dispatch may be tracked through {@link #submit(Event)}, while
+ * the replies of the {@link pt.davidafsilva.jevents.ReplyingEventListener replying listeners} are
+ * collected through {@link #request(Event, java.util.stream.Collector)}.
+ *
+ * Slow listeners may be detected and contained according to the configured
+ * {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy}, which is disabled by default.
+ *
+ * The dispatches and the listener executions are reported to the installed
+ * {@link pt.davidafsilva.jevents.metrics.EventMetrics metrics}, which are disabled by default.
+ *
+ * {@link pt.davidafsilva.jevents.BatchEventListener Batch listeners} receive the asynchronously dispatched
+ * events in batches, according to the configured {@link pt.davidafsilva.jevents.dispatcher.BatchPolicy}.
+ *
+ * Every dispatched event may be persisted, before reaching any listener, in the installed
+ * {@link pt.davidafsilva.jevents.journal.EventJournal}, from which it can later be {@link #replay(long) replayed},
+ * and forwarded to other processes through the installed {@link pt.davidafsilva.jevents.bridge.EventBridge}.
+ *
+ * This is the dispatcher of the {@link pt.davidafsilva.jevents.EventBus#getDefault() default event bus}: every
+ * dispatch and configuration, including the metrics, the slow listener policy and the error handler, is delegated
+ * to its {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher}, hence it doesn't affect the other buses.
  *
  * @author David Silva
  * @since 1.0
@@ -46,6 +86,341 @@ import java.util.Collection;
 public enum EventDispatcher {
 	INSTANCE;
 
+	// the dispatcher of the default bus
+	private final BusDispatcher bus = EventBus.getDefault().getDispatcher();
+
+	/**
+	 * Returns the registry of the primitive channels of the default bus
+	 *
+	 * @return the channel registry
+	 * @see pt.davidafsilva.jevents.channel.ChannelRegistry
+	 */
+	public ChannelRegistry getChannels() {
+		return bus.getChannels();
+	}
+
+	/**
+	 * Returns the engine currently used for asynchronous dispatches
+	 *
+	 * @return the async engine
+	 */
+	public AsyncEngine getAsyncEngine() {
+		return bus.getAsyncEngine();
+	}
+
+	/**
+	 * Replaces the engine used for asynchronous dispatches.
+	 *
+	 * The previous engine is shut down, although the tasks already submitted
+	 * to it are still executed.
+	 *
+	 * @param engine
+	 * 		the new async engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>engine</code> is <code>null</code>
+	 */
+	public void setAsyncEngine(final AsyncEngine engine) {
+		bus.setAsyncEngine(engine);
+	}
+
+	/**
+	 * Returns the dispatcher used for parallel dispatches
+	 *
+	 * @return the fan-out dispatcher
+	 */
+	public FanOutDispatcher getFanOutDispatcher() {
+		return bus.getFanOutDispatcher();
+	}
+
+	/**
+	 * Replaces the dispatcher used for parallel dispatches.
+	 *
+	 * The previous dispatcher is shut down, although the dispatches already forked
+	 * by it are still executed.
+	 *
+	 * @param dispatcher
+	 * 		the new fan-out dispatcher
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>dispatcher</code> is <code>null</code>
+	 */
+	public void setFanOutDispatcher(final FanOutDispatcher dispatcher) {
+		bus.setFanOutDispatcher(dispatcher);
+	}
+
+	/**
+	 * Returns the installed metrics
+	 *
+	 * @return the metrics or {@link pt.davidafsilva.jevents.metrics.EventMetrics#NONE} if disabled
+	 */
+	public EventMetrics getMetrics() {
+		return bus.getMetrics();
+	}
+
+	/**
+	 * Installs the given metrics, which are notified of the dispatches of the default bus from then on.
+	 *
+	 * @param metrics
+	 * 		the metrics or {@link pt.davidafsilva.jevents.metrics.EventMetrics#NONE} to disable them
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>metrics</code> is <code>null</code>
+	 */
+	public void setMetrics(final EventMetrics metrics) {
+		bus.setMetrics(metrics);
+	}
+
+	/**
+	 * Returns the handler of the listeners failures
+	 *
+	 * @return the error handler
+	 */
+	public ErrorHandler getErrorHandler() {
+		return bus.getErrorHandler();
+	}
+
+	/**
+	 * Installs the given handler of the listeners failures, which is notified of the failures of the listeners
+	 * of the default bus from then on.
+	 *
+	 * @param handler
+	 * 		the error handler, {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler#REPORT} by default
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>handler</code> is <code>null</code>
+	 */
+	public void setErrorHandler(final ErrorHandler handler) {
+		bus.setErrorHandler(handler);
+	}
+
+	/**
+	 * Returns the journal where the dispatched events are appended
+	 *
+	 * @return the journal or <code>null</code> if none is installed
+	 */
+	public EventJournal getJournal() {
+		return bus.getJournal();
+	}
+
+	/**
+	 * Installs the given journal, where every event dispatched from then on is appended before
+	 * reaching its listeners.
+	 *
+	 * The journal is owned by the caller, which is responsible for closing it once uninstalled.
+	 *
+	 * @param journal
+	 * 		the journal or <code>null</code> to stop journaling
+	 */
+	public void setJournal(final EventJournal journal) {
+		bus.setJournal(journal);
+	}
+
+	/**
+	 * Replays the events of the installed journal, from the given offset, to the currently registered listeners.
+	 *
+	 * The events are dispatched synchronously, in the calling thread, without being appended to the journal again.
+	 *
+	 * @param fromOffset
+	 * 		the offset of the first event to replay
+	 * @return the offset following the last replayed event
+	 * @throws java.lang.IllegalStateException
+	 * 		if no journal is installed, or it is closed
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>fromOffset</code> is not within the retained offsets of the journal
+	 * @throws java.io.IOException
+	 * 		if the journal could not be read
+	 * @see pt.davidafsilva.jevents.journal.EventJournal#replay(long, java.util.function.Consumer)
+	 */
+	public long replay(final long fromOffset) throws IOException {
+		return bus.replay(fromOffset);
+	}
+
+	/**
+	 * Returns the bridge which forwards the dispatched events to other processes
+	 *
+	 * @return the bridge or <code>null</code> if none is installed
+	 */
+	public EventBridge getBridge() {
+		return bus.getBridge();
+	}
+
+	/**
+	 * Installs the given bridge, which is handed every event dispatched from then on, after the journal
+	 * and before reaching the local listeners.
+	 *
+	 * The bridge is owned by the caller, which is responsible for closing it once uninstalled.
+	 *
+	 * @param bridge
+	 * 		the bridge or <code>null</code> to stop forwarding
+	 */
+	public void setBridge(final EventBridge bridge) {
+		bus.setBridge(bridge);
+	}
+
+	/**
+	 * Dispatches an event received from another process to the local listeners: synchronously, in the
+	 * calling thread, without appending it to the journal nor forwarding it again.
+	 *
+	 * @param event
+	 * 		the received event
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @see pt.davidafsilva.jevents.bridge.EventBridge
+	 */
+	public <E extends Event> void deliver(final E event) {
+		bus.deliver(event);
+	}
+
+	/**
+	 * Returns the policy used for detecting and containing slow listeners
+	 *
+	 * @return the slow listener policy
+	 */
+	public SlowListenerPolicy getSlowListenerPolicy() {
+		return bus.getSlowListenerPolicy();
+	}
+
+	/**
+	 * Replaces the policy used for detecting and containing slow listeners.
+	 *
+	 * The health of the listeners is tracked from scratch, while the isolation executor of the
+	 * previous policy, if any, is shut down.
+	 *
+	 * @param policy
+	 * 		the new slow listener policy or {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy#DISABLED}
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>policy</code> is <code>null</code>
+	 */
+	public void setSlowListenerPolicy(final SlowListenerPolicy policy) {
+		bus.setSlowListenerPolicy(policy);
+	}
+
+	/**
+	 * Returns the health state of the given listener, according to the slow listener policy
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the listener state, which is always healthy if the policy is disabled
+	 */
+	public ListenerState getListenerState(final EventListener<?> listener) {
+		return bus.getListenerState(listener);
+	}
+
+	/**
+	 * Restores the given listener to the healthy state, closing its circuit or bringing it
+	 * back from isolation.
+	 *
+	 * @param listener
+	 * 		the listener
+	 */
+	public void resetListenerState(final EventListener<?> listener) {
+		bus.resetListenerState(listener);
+	}
+
+	/**
+	 * Returns the policy used for grouping asynchronously dispatched events into batches
+	 *
+	 * @return the batch policy
+	 */
+	public BatchPolicy getBatchPolicy() {
+		return bus.getBatchPolicy();
+	}
+
+	/**
+	 * Replaces the policy used for grouping asynchronously dispatched events into batches.
+	 *
+	 * The pending batches are kept, the new policy is applied to the subsequent events.
+	 *
+	 * @param policy
+	 * 		the new batch policy
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>policy</code> is <code>null</code>
+	 */
+	public void setBatchPolicy(final BatchPolicy policy) {
+		bus.setBatchPolicy(policy);
+	}
+
+	/**
+	 * Routes all of the dispatches of the given concrete event class to the given dispatcher,
+	 * replacing any previous route of that class.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param dispatcher
+	 * 		the dispatcher
+	 * @param <E>
+	 * 		the event type
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>dispatcher</code> is <code>null</code>
+	 */
+	public <E extends Event> void route(final Class<E> clazz, final Dispatcher dispatcher) {
+		bus.route(clazz, dispatcher);
+	}
+
+	/**
+	 * Removes the route of the given concrete event class, if any, restoring the default
+	 * dispatching behavior for that class.
+	 *
+	 * The dispatcher is not shut down.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the dispatcher previously routed or <code>null</code> if there was none
+	 */
+	public <E extends Event> Dispatcher unroute(final Class<E> clazz) {
+		return bus.unroute(clazz);
+	}
+
+	/**
+	 * Waits until all of the pending asynchronous dispatches, including the ones handled by routed
+	 * dispatchers and the parallel ones, are completed or the timeout elapses.
+	 *
+	 * The pending batches are flushed right away.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if all of the dispatches were completed, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return bus.drain(timeout, unit);
+	}
+
+	/**
+	 * Shuts down the async engine, the fan-out dispatcher, the routed dispatchers, the channels and the slow
+	 * listeners isolation of the default bus: pending asynchronous dispatches are still executed, but new ones
+	 * are rejected.
+	 *
+	 * The pending batches are either flushed or discarded, according to the batch policy, while the
+	 * installed journal, if any, is synced.
+	 *
+	 * @see #awaitTermination(long, java.util.concurrent.TimeUnit)
+	 */
+	public void shutdown() {
+		bus.shutdown();
+	}
+
+	/**
+	 * Waits until all of the pending asynchronous dispatches are completed after a shutdown request,
+	 * or the timeout elapses.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the async engine, the fan-out dispatcher, the routed dispatchers and the channels
+	 * terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return bus.awaitTermination(timeout, unit);
+	}
+
 	/**
 	 * Dispatches the given event synchronously
 	 *
@@ -57,7 +432,7 @@ public enum EventDispatcher {
 	 * 		if <code>event</code> is <code>null</code>
 	 */
 	public <E extends Event> void dispatch(final E event) {
-		internalDispatch(event, false);
+		bus.dispatch(event);
 	}
 
 	/**
@@ -69,28 +444,107 @@ public enum EventDispatcher {
 	 * 		the event type
 	 * @throws java.lang.NullPointerException
 	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine, or the routed dispatcher, was shut down
 	 */
 	public <E extends Event> void dispatchAsync(final E event) {
-		internalDispatch(event, true);
+		bus.dispatchAsync(event);
+	}
+
+	/**
+	 * Dispatches the given event asynchronously, in the configured async engine, tracking its completion.
+	 *
+	 * Unlike {@link #dispatchAsync(Event)}, the listeners failures are reported in the dispatch result,
+	 * instead of being handed to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler}. Routes of the
+	 * event class are not applied, as the listeners are always executed by the async engine.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @return the future of the dispatch result, which completes when every listener is done or
+	 * completes exceptionally if the dispatch is dropped by the async engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine rejected the dispatch
+	 */
+	public <E extends Event> CompletableFuture<DispatchResult> submit(final E event) {
+		return bus.submit(event);
 	}
 
 	/**
-	 * Internal procedure for dispatching events
+	 * Dispatches the given event asynchronously, collecting the replies of the
+	 * {@link pt.davidafsilva.jevents.ReplyingEventListener replying listeners} into a list.
 	 *
 	 * @param event
-	 * 		the event to be dispatched
-	 * @param async
-	 * 		the async flag
+	 * 		the event being dispatched
 	 * @param <E>
 	 * 		the event type
+	 * @param <R>
+	 * 		the type of the replies
+	 * @return the future of the replies, in the listeners order
 	 * @throws java.lang.NullPointerException
 	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine rejected the dispatch
+	 * @see #request(Event, java.util.stream.Collector)
 	 */
-	private <E extends Event> void internalDispatch(final E event, final boolean async) {
-		Collection<EventListener<E>> listeners = EventRegistry.INSTANCE.getEventListeners(event);
-		if (!listeners.isEmpty()) {
-			DispatcherFactory.INSTANCE.<E>create(async).dispatchTo(event, listeners);
-		}
+	public <E extends Event, R> CompletableFuture<List<R>> request(final E event) {
+		return bus.request(event);
 	}
 
+	/**
+	 * Dispatches the given event asynchronously, in the configured async engine, combining the
+	 * replies of the {@link pt.davidafsilva.jevents.ReplyingEventListener replying listeners}
+	 * with the given collector.
+	 *
+	 * Every listener of the event is executed, in the registration order, although only the replying ones
+	 * contribute to the result. The caller is responsible for requesting a reply type compatible with
+	 * the one of the registered listeners. Routes of the event class are not applied.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param collector
+	 * 		the collector of the replies
+	 * @param <E>
+	 * 		the event type
+	 * @param <R>
+	 * 		the type of the replies
+	 * @param <A>
+	 * 		the intermediate accumulation type of the collector
+	 * @param <T>
+	 * 		the result type
+	 * @return the future of the combined replies, which completes exceptionally with the first failure of the
+	 * listeners, the remaining ones being suppressed by it, or if the dispatch is dropped by the async engine
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> or <code>collector</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the async engine rejected the dispatch
+	 */
+	public <E extends Event, R, A, T> CompletableFuture<T> request(final E event,
+			final Collector<? super R, A, T> collector) {
+		return bus.request(event, collector);
+	}
+
+	/**
+	 * Dispatches the given event in parallel: its listeners are forked across the configured
+	 * {@link pt.davidafsilva.jevents.dispatcher.FanOutDispatcher}, regardless of any route of the event class.
+	 *
+	 * The batch listeners receive the event as if it was dispatched asynchronously.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param <E>
+	 * 		the event type
+	 * @return the future of the dispatch result, which completes when every listener is done
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the fan-out dispatcher was shut down
+	 * @see pt.davidafsilva.jevents.dispatcher.FanOutDispatcher#fanOut(Event, EventListener[])
+	 */
+	public <E extends Event> CompletableFuture<DispatchResult> dispatchParallel(final E event) {
+		return bus.dispatchParallel(event);
+	}
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous dispatcher which forks the listeners of a single event across an executor,
+ * meant for events with several independent and CPU intensive listeners.
+ *
+ * The latency of a dispatch is bounded by the slowest listener, rather than by the sum of all of them,
+ * at the cost of losing the ordering between the listeners.
+ * The completion of each dispatch is exposed through {@link #fanOut(Event, EventListener[])}, while
+ * the failures are handled according to the configured {@link pt.davidafsilva.jevents.dispatcher.FanOutMode}.
+ *
+ * The dispatcher may be used through {@link EventDispatcher#dispatchParallel(Event)}, or bound to
+ * specific event classes through {@link EventDispatcher#route(Class, Dispatcher)}, in which case
+ * the failures are handed to the {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler} of the bus, from the
+ * thread that completed the dispatch. As there's no caller left to propagate to, a failure rethrown by the
+ * handler is reported to the uncaught exception handler of that thread.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class FanOutDispatcher extends InvokingDispatcher {
+
+	// the engine where the listeners are executed
+	private final AsyncEngine engine;
+
+	// the error handling mode
+	private final FanOutMode mode;
+
+	/**
+	 * Creates a new fan-out dispatcher
+	 *
+	 * @param engine
+	 * 		the engine where the listeners are executed
+	 * @param mode
+	 * 		the error handling mode
+	 */
+	private FanOutDispatcher(final AsyncEngine engine, final FanOutMode mode) {
+		this.engine = engine;
+		this.mode = mode;
+	}
+
+	/**
+	 * Creates a new fan-out dispatcher backed by the {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+	 *
+	 * @param mode
+	 * 		the error handling mode
+	 * @return the dispatcher
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>mode</code> is <code>null</code>
+	 */
+	public static FanOutDispatcher create(final FanOutMode mode) {
+		return create(ForkJoinPool.commonPool(), mode);
+	}
+
+	/**
+	 * Creates a new fan-out dispatcher backed by the given executor.
+	 *
+	 * The executor is not owned by the dispatcher, hence it's not shut down when the dispatcher is.
+	 *
+	 * @param executor
+	 * 		the executor where the listeners are executed
+	 * @param mode
+	 * 		the error handling mode
+	 * @return the dispatcher
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>executor</code> or <code>mode</code> is <code>null</code>
+	 */
+	public static FanOutDispatcher create(final Executor executor, final FanOutMode mode) {
+		if (mode == null) {
+			throw new NullPointerException("Invalid fan-out mode.");
+		}
+		return new FanOutDispatcher(AsyncEngine.of(executor), mode);
+	}
+
+	/**
+	 * Returns the error handling mode of this dispatcher
+	 *
+	 * @return the fan-out mode
+	 */
+	public FanOutMode getMode() {
+		return mode;
+	}
+
+	@Override
+	<E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		fanOut(event, listeners, invoker).whenComplete((result, failure) -> {
+			if (result != null) {
+				for (ListenerFailure listenerFailure : result.getFailures()) {
+					report(invoker, event, listenerFailure.getListener(), listenerFailure.getCause());
+				}
+			} else {
+				report(invoker, event, null, failure);
+			}
+		});
+	}
+
+	/**
+	 * Hands the given failure to the error handler, reporting it to the uncaught exception handler of the
+	 * current thread if it can't be handled or is rethrown
+	 *
+	 * @param invoker
+	 * 		the invoker of the bus
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the failing listener or <code>null</code> if unknown
+	 * @param failure
+	 * 		the failure
+	 */
+	private static void report(final ListenerInvoker invoker, final Event event, final EventListener<?> listener,
+			final Throwable failure) {
+		if (!(failure instanceof RuntimeException)) {
+			uncaught(failure);
+			return;
+		}
+		try {
+			invoker.failed(event, listener, (RuntimeException) failure);
+		} catch (RuntimeException e) {
+			uncaught(e);
+		}
+	}
+
+	/**
+	 * Reports the given failure to the uncaught exception handler of the current thread
+	 *
+	 * @param failure
+	 * 		the failure
+	 */
+	private static void uncaught(final Throwable failure) {
+		final Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+	}
+
+	/**
+	 * Forks the execution of the given listeners for the given event.
+	 *
+	 * The returned future completes when every listener is done, with the failures
+	 * of the listeners, if any. On {@link FanOutMode#FAIL_FAST} mode, the future completes
+	 * exceptionally with the first failure instead.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listeners
+	 * 		the target listeners
+	 * @param <E>
+	 * 		the event type
+	 * @return the future of the dispatch result
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the dispatcher was shut down
+	 */
+	public <E extends Event> CompletableFuture<DispatchResult> fanOut(final E event,
+			final EventListener<E>[] listeners) {
+		return fanOut(event, listeners, ListenerInvoker.STANDALONE);
+	}
+
+	/**
+	 * Forks the execution of the given listeners for the given event, through the given invoker.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listeners
+	 * 		the target listeners
+	 * @param invoker
+	 * 		the invoker of the bus
+	 * @param <E>
+	 * 		the event type
+	 * @return the future of the dispatch result
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the dispatcher was shut down
+	 * @see #fanOut(Event, EventListener[])
+	 */
+	<E extends Event> CompletableFuture<DispatchResult> fanOut(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		if (engine.isShutdown()) {
+			throw new RejectedExecutionException("The fan-out dispatcher was shut down.");
+		}
+		final Fork<E> fork = new Fork<>(event, listeners, invoker);
+		if (listeners.length == 0) {
+			fork.future.complete(new DispatchResult(0, new ArrayList<>(0)));
+		}
+		for (int i = 0; i < listeners.length; i++) {
+			final EventListener<E> listener = listeners[i];
+			try {
+				engine.execute(() -> fork.run(listener), () -> fork.reject(listener,
+						new RejectedExecutionException("The listener execution was dropped.")), event.getPriority());
+			} catch (RejectedExecutionException e) {
+				fork.reject(listener, e);
+			}
+		}
+		return fork.future;
+	}
+
+	@Override
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return engine.drain(timeout, unit);
+	}
+
+	@Override
+	public void shutdown() {
+		engine.shutdown();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return engine.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * The state of a single forked dispatch.
+	 *
+	 * @param <E>
+	 * 		the event type
+	 */
+	private final class Fork<E extends Event> {
+
+		// the event being dispatched
+		private final E event;
+
+		// the invoker of the bus
+		private final ListenerInvoker invoker;
+
+		// the number of target listeners
+		private final int listenerCount;
+
+		// the number of listeners yet to be completed
+		private final AtomicInteger remaining;
+
+		// the listener failures, guarded by the fork monitor
+		private final List<ListenerFailure> failures = new ArrayList<>(0);
+
+		// the completion handle
+		private final CompletableFuture<DispatchResult> future = new CompletableFuture<>();
+
+		/**
+		 * Creates a new fork
+		 *
+		 * @param event
+		 * 		the event being dispatched
+		 * @param listeners
+		 * 		the target listeners
+		 * @param invoker
+		 * 		the invoker of the bus
+		 */
+		private Fork(final E event, final EventListener<E>[] listeners, final ListenerInvoker invoker) {
+			this.event = event;
+			this.invoker = invoker;
+			this.listenerCount = listeners.length;
+			this.remaining = new AtomicInteger(listeners.length);
+		}
+
+		/**
+		 * Runs the given listener, unless the dispatch already failed on fail fast mode
+		 *
+		 * @param listener
+		 * 		the listener
+		 */
+		private void run(final EventListener<E> listener) {
+			try {
+				if (mode == FanOutMode.ISOLATED || !future.isDone()) {
+					invoker.invoke(event, listener);
+				}
+			} catch (RuntimeException e) {
+				fail(listener, e);
+			} finally {
+				done();
+			}
+		}
+
+		/**
+		 * Records the rejection of the given listener, which is then completed
+		 *
+		 * @param listener
+		 * 		the rejected listener
+		 * @param cause
+		 * 		the rejection cause
+		 */
+		private void reject(final EventListener<E> listener, final RejectedExecutionException cause) {
+			fail(listener, cause);
+			done();
+		}
+
+		/**
+		 * Records the failure of the given listener
+		 *
+		 * @param listener
+		 * 		the failed listener
+		 * @param cause
+		 * 		the failure cause
+		 */
+		private void fail(final EventListener<E> listener, final Throwable cause) {
+			synchronized (this) {
+				failures.add(new ListenerFailure(listener, cause));
+			}
+			if (mode == FanOutMode.FAIL_FAST) {
+				future.completeExceptionally(cause);
+			}
+		}
+
+		/**
+		 * Marks a listener as completed, completing the dispatch after the last one
+		 */
+		private void done() {
+			if (remaining.decrementAndGet() == 0) {
+				synchronized (this) {
+					future.complete(new DispatchResult(listenerCount, failures));
+				}
+			}
+		}
+	}
+}
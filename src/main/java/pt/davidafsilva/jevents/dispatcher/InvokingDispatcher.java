@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+/**
+ * The base of the built-in dispatchers, which execute the listeners through the
+ * {@link pt.davidafsilva.jevents.dispatcher.ListenerInvoker invoker} of the bus they're dispatching for,
+ * hence honoring its metrics, slow listener policy and error handler.
+ *
+ * When invoked directly, through {@link #dispatchTo(Event, EventListener[])}, the listeners are executed
+ * without any of those hooks and their failures are reported to the uncaught exception handler.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+abstract class InvokingDispatcher implements Dispatcher {
+
+	@Override
+	public <E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners) {
+		dispatchTo(event, listeners, ListenerInvoker.STANDALONE);
+	}
+
+	/**
+	 * Dispatches the given event to the given listeners, executing them through the given invoker.
+	 *
+	 * @param event
+	 * 		the event to be dispatched
+	 * @param listeners
+	 * 		the target listeners snapshot, which must not be modified
+	 * @param invoker
+	 * 		the invoker of the bus
+	 * @param <E>
+	 * 		the event type
+	 */
+	abstract <E extends Event> void dispatchTo(E event, EventListener<E>[] listeners, ListenerInvoker invoker);
+
+	/**
+	 * Dispatches the given event to the given listeners through the given dispatcher, handing it the given
+	 * invoker if it's a built-in dispatcher
+	 *
+	 * @param dispatcher
+	 * 		the dispatcher
+	 * @param event
+	 * 		the event to be dispatched
+	 * @param listeners
+	 * 		the target listeners snapshot
+	 * @param invoker
+	 * 		the invoker of the bus
+	 * @param <E>
+	 * 		the event type
+	 */
+	static <E extends Event> void dispatch(final Dispatcher dispatcher, final E event,
+			final EventListener<E>[] listeners, final ListenerInvoker invoker) {
+		if (dispatcher instanceof InvokingDispatcher) {
+			((InvokingDispatcher) dispatcher).dispatchTo(event, listeners, invoker);
+		} else {
+			dispatcher.dispatchTo(event, listeners);
+		}
+	}
+}
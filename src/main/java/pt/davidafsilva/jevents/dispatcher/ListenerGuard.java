@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Detects and contains the slow listeners, according to a {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy}.
+ *
+ * The health of each listener is tracked on every execution, weakly and by identity, hence a listener
+ * no longer referenced, either unregistered or weakly registered, may still be collected. Isolated listeners are executed
+ * by a dedicated async engine, which drops the executions when full rather than piling them up,
+ * while listeners with an open circuit are skipped until probed.
+ *
+ * When the policy defines a timeout, a watchdog thread periodically checks the asynchronous executions
+ * in progress and interrupts the ones that exceeded it.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerGuard {
+
+	// the capacity of the isolation engine
+	private static final int ISOLATION_CAPACITY = 1024;
+
+	// the minimum period of the watchdog checks
+	private static final long MIN_WATCHDOG_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	// the policy
+	private final SlowListenerPolicy policy;
+
+	// the invoker of the bus, which handles the failures of the isolated listeners
+	private final ListenerInvoker invoker;
+
+	// the slow threshold
+	private final long thresholdNanos;
+
+	// the health of each listener, weakly keyed by identity
+	private final ConcurrentMap<Object, Health> health = new ConcurrentHashMap<>();
+
+	// the keys of the collected listeners
+	private final ReferenceQueue<EventListener<?>> collected = new ReferenceQueue<>();
+
+	// the lookup key of the current thread, reused so that lookups don't allocate
+	private final ThreadLocal<Lookup> lookups = ThreadLocal.withInitial(Lookup::new);
+
+	// the engine of the isolated listeners, if any
+	private final AsyncEngine isolation;
+
+	// the executions in progress, per thread, tracked when there's a timeout
+	private final Set<Execution> executions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	// the execution of the current thread
+	private final ThreadLocal<Execution> current = ThreadLocal.withInitial(() -> {
+		final Execution execution = new Execution(Thread.currentThread());
+		executions.add(execution);
+		return execution;
+	});
+
+	// the watchdog thread, if any
+	private final Thread watchdog;
+
+	// the closed flag
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new guard for the given enabled policy
+	 *
+	 * @param policy
+	 * 		the policy
+	 * @param invoker
+	 * 		the invoker of the bus
+	 */
+	ListenerGuard(final SlowListenerPolicy policy, final ListenerInvoker invoker) {
+		this.policy = policy;
+		this.invoker = invoker;
+		this.thresholdNanos = policy.getThreshold(TimeUnit.NANOSECONDS);
+		this.isolation = policy.getAction() == SlowListenerAction.ISOLATE ?
+				AsyncEngine.pooled(policy.getIsolationThreads(), ISOLATION_CAPACITY, OverflowPolicy.DROP_NEWEST) : null;
+		if (policy.getTimeout(TimeUnit.NANOSECONDS) > 0) {
+			this.watchdog = new Thread(this::watch, "jevents-watchdog");
+			this.watchdog.setDaemon(true);
+			this.watchdog.start();
+		} else {
+			this.watchdog = null;
+		}
+	}
+
+	/**
+	 * Returns the policy of this guard
+	 *
+	 * @return the policy
+	 */
+	SlowListenerPolicy policy() {
+		return policy;
+	}
+
+	/**
+	 * Returns the engine of the isolated listeners
+	 *
+	 * @return the isolation engine or <code>null</code> if listeners are not isolated
+	 */
+	AsyncEngine isolation() {
+		return isolation;
+	}
+
+	/**
+	 * Returns the health state of the given listener
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the listener state
+	 */
+	ListenerState stateOf(final EventListener<?> listener) {
+		final Health tracked = lookup(listener);
+		return tracked == null ? ListenerState.HEALTHY : tracked.state;
+	}
+
+	/**
+	 * Restores the given listener to the healthy state
+	 *
+	 * @param listener
+	 * 		the listener
+	 */
+	void reset(final EventListener<?> listener) {
+		final Lookup lookup = lookups.get();
+		lookup.listener = listener;
+		try {
+			health.remove(lookup);
+		} finally {
+			lookup.listener = null;
+		}
+	}
+
+	/**
+	 * Executes the given listener, according to its health
+	 *
+	 * @param metrics
+	 * 		the installed metrics, if any
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the target listener
+	 * @param async
+	 * 		whether or not the listener is being executed asynchronously
+	 * @param <E>
+	 * 		the event type
+	 */
+	<E extends Event> void invoke(final EventMetrics metrics, final E event, final EventListener<E> listener,
+			final boolean async) {
+		final Health tracked = healthOf(listener);
+		switch (tracked.state) {
+			case ISOLATED:
+				isolate(metrics, event, listener, tracked);
+				return;
+			case OPEN:
+				if (!tracked.tryProbe()) {
+					if (metrics != null) {
+						metrics.rejected(event.getClass());
+					}
+					return;
+				}
+				break;
+			default:
+				break;
+		}
+		run(metrics, event, listener, tracked, async);
+	}
+
+	/**
+	 * Executes the given isolated listener in the isolation engine
+	 *
+	 * @param metrics
+	 * 		the installed metrics, if any
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the target listener
+	 * @param tracked
+	 * 		the listener health
+	 * @param <E>
+	 * 		the event type
+	 */
+	private <E extends Event> void isolate(final EventMetrics metrics, final E event, final EventListener<E> listener,
+			final Health tracked) {
+		isolation.execute(() -> {
+			try {
+				run(metrics, event, listener, tracked, true);
+			} catch (RuntimeException e) {
+				invoker.failed(event, listener, e);
+			}
+		}, () -> {
+			if (metrics != null) {
+				metrics.rejected(event.getClass());
+			}
+		}, event.getPriority());
+	}
+
+	/**
+	 * Executes the given listener in the current thread, tracking its health
+	 *
+	 * @param metrics
+	 * 		the installed metrics, if any
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the target listener
+	 * @param tracked
+	 * 		the listener health
+	 * @param async
+	 * 		whether or not the listener is being executed asynchronously
+	 * @param <E>
+	 * 		the event type
+	 */
+	private <E extends Event> void run(final EventMetrics metrics, final E event, final EventListener<E> listener,
+			final Health tracked, final boolean async) {
+		final Execution execution = async && watchdog != null ? current.get() : null;
+		final long start = System.nanoTime();
+		if (execution != null) {
+			execution.begin(tracked, start);
+		}
+		boolean timedOut = false;
+		try {
+			listener.handle(event);
+		} catch (RuntimeException e) {
+			if (metrics != null) {
+				metrics.failed(event.getClass(), listener, e);
+			}
+			throw e;
+		} finally {
+			if (execution != null) {
+				timedOut = execution.end();
+			}
+			final long elapsed = System.nanoTime() - start;
+			if (!timedOut) {
+				tracked.record(elapsed > thresholdNanos);
+			}
+			if (metrics != null) {
+				metrics.handled(event.getClass(), listener, elapsed);
+			}
+		}
+	}
+
+	/**
+	 * Returns the health of the given listener, tracking it if needed
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the listener health
+	 */
+	private Health healthOf(final EventListener<?> listener) {
+		final Health tracked = lookup(listener);
+		if (tracked != null) {
+			return tracked;
+		}
+		expunge();
+		final Health created = new Health();
+		final Health previous = health.putIfAbsent(new ListenerKey(listener, collected), created);
+		return previous == null ? created : previous;
+	}
+
+	/**
+	 * Returns the health of the given listener, if tracked
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the listener health or <code>null</code> if not tracked
+	 */
+	private Health lookup(final EventListener<?> listener) {
+		final Lookup lookup = lookups.get();
+		lookup.listener = listener;
+		try {
+			return health.get(lookup);
+		} finally {
+			lookup.listener = null;
+		}
+	}
+
+	/**
+	 * Drops the health of the collected listeners
+	 */
+	private void expunge() {
+		Reference<?> key;
+		while ((key = collected.poll()) != null) {
+			health.remove(key);
+		}
+	}
+
+	/**
+	 * The watchdog loop, which interrupts the executions that exceeded the timeout
+	 */
+	private void watch() {
+		final long timeoutNanos = policy.getTimeout(TimeUnit.NANOSECONDS);
+		final long period = Math.max(MIN_WATCHDOG_NANOS, timeoutNanos / 4);
+		while (!closed) {
+			LockSupport.parkNanos(period);
+			final long now = System.nanoTime();
+			for (Execution execution : executions) {
+				if (!execution.thread.isAlive()) {
+					executions.remove(execution);
+				} else {
+					execution.interruptIfOverdue(now, timeoutNanos);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the watchdog and shuts down the isolation engine
+	 */
+	void close() {
+		closed = true;
+		if (isolation != null) {
+			isolation.shutdown();
+		}
+	}
+
+	/**
+	 * The health of a single listener.
+	 */
+	private final class Health {
+
+		// the current state
+		private volatile ListenerState state = ListenerState.HEALTHY;
+
+		// the consecutive slow executions, while healthy, or fast ones, while isolated
+		private final AtomicInteger streak = new AtomicInteger();
+
+		// the instant until which the circuit is open
+		private volatile long openUntil;
+
+		// whether or not a probe execution is in progress
+		private final AtomicBoolean probing = new AtomicBoolean();
+
+		/**
+		 * Records an execution of the listener
+		 *
+		 * @param slow
+		 * 		whether or not the execution was slow
+		 */
+		private void record(final boolean slow) {
+			switch (state) {
+				case HEALTHY:
+					if (slow) {
+						if (streak.incrementAndGet() >= policy.getTripAfter()) {
+							trip();
+						}
+					} else if (streak.get() != 0) {
+						streak.set(0);
+					}
+					break;
+				case ISOLATED:
+					if (!slow) {
+						if (streak.incrementAndGet() >= policy.getTripAfter()) {
+							restore();
+						}
+					} else if (streak.get() != 0) {
+						streak.set(0);
+					}
+					break;
+				default:
+					// probe execution
+					if (slow) {
+						reopen();
+					} else {
+						restore();
+					}
+			}
+		}
+
+		/**
+		 * Records an execution of the listener which exceeded the timeout
+		 */
+		private synchronized void timedOut() {
+			switch (state) {
+				case HEALTHY:
+					trip();
+					break;
+				case ISOLATED:
+					streak.set(0);
+					break;
+				default:
+					reopen();
+			}
+		}
+
+		/**
+		 * Applies the policy action to the listener
+		 */
+		private synchronized void trip() {
+			if (state != ListenerState.HEALTHY) {
+				return;
+			}
+			streak.set(0);
+			if (policy.getAction() == SlowListenerAction.ISOLATE) {
+				state = ListenerState.ISOLATED;
+			} else {
+				reopen();
+			}
+		}
+
+		/**
+		 * Opens the circuit of the listener
+		 */
+		private synchronized void reopen() {
+			openUntil = System.nanoTime() + policy.getOpenTime(TimeUnit.NANOSECONDS);
+			state = ListenerState.OPEN;
+			probing.set(false);
+		}
+
+		/**
+		 * Restores the listener to the healthy state
+		 */
+		private synchronized void restore() {
+			streak.set(0);
+			state = ListenerState.HEALTHY;
+			probing.set(false);
+		}
+
+		/**
+		 * Attempts to probe the open circuit of the listener
+		 *
+		 * @return <code>true</code> if the current execution is the probe, <code>false</code> if the listener is to be
+		 * skipped
+		 */
+		private boolean tryProbe() {
+			return System.nanoTime() - openUntil >= 0 && probing.compareAndSet(false, true);
+		}
+	}
+
+	/**
+	 * The asynchronous execution in progress in a single thread.
+	 */
+	private static final class Execution {
+
+		// the executing thread
+		private final Thread thread;
+
+		// the health of the listener being executed, null if idle
+		private Health health;
+
+		// the start of the execution
+		private long start;
+
+		// whether or not the execution was interrupted
+		private boolean interrupted;
+
+		/**
+		 * Creates the execution tracker of the given thread
+		 *
+		 * @param thread
+		 * 		the thread
+		 */
+		private Execution(final Thread thread) {
+			this.thread = thread;
+		}
+
+		/**
+		 * Marks the beginning of an execution
+		 *
+		 * @param tracked
+		 * 		the health of the listener
+		 * @param startNanos
+		 * 		the start of the execution
+		 */
+		private synchronized void begin(final Health tracked, final long startNanos) {
+			this.health = tracked;
+			this.start = startNanos;
+			this.interrupted = false;
+		}
+
+		/**
+		 * Marks the end of the execution, clearing the interruption raised by the watchdog, if any
+		 *
+		 * @return <code>true</code> if the execution was interrupted, <code>false</code> otherwise
+		 */
+		private synchronized boolean end() {
+			health = null;
+			if (interrupted) {
+				Thread.interrupted();
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Interrupts the execution if it exceeded the timeout, tripping the listener
+		 *
+		 * @param now
+		 * 		the current instant
+		 * @param timeoutNanos
+		 * 		the timeout
+		 */
+		private synchronized void interruptIfOverdue(final long now, final long timeoutNanos) {
+			if (health != null && !interrupted && now - start > timeoutNanos) {
+				interrupted = true;
+				health.timedOut();
+				thread.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * The key of a tracked listener, which references it weakly and compares it by identity.
+	 */
+	private static final class ListenerKey extends WeakReference<EventListener<?>> {
+
+		// the identity hash code of the listener
+		private final int hash;
+
+		/**
+		 * Creates a new key for the given listener
+		 *
+		 * @param listener
+		 * 		the listener
+		 * @param queue
+		 * 		the queue where the key is enqueued once the listener is collected
+		 */
+		private ListenerKey(final EventListener<?> listener, final ReferenceQueue<EventListener<?>> queue) {
+			super(listener, queue);
+			this.hash = System.identityHashCode(listener);
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if (this == other) {
+				return true;
+			}
+			final Object listener = get();
+			return listener != null && other instanceof ListenerKey && listener == ((ListenerKey) other).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * The key used for looking up a listener, which matches its tracked key.
+	 */
+	private static final class Lookup {
+
+		// the listener being looked up
+		private EventListener<?> listener;
+
+		@Override
+		public boolean equals(final Object other) {
+			return other instanceof ListenerKey && listener == ((ListenerKey) other).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(listener);
+		}
+	}
+}
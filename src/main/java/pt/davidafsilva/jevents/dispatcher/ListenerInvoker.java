@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.ReplyingEventListener;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+
+import java.util.List;
+
+/**
+ * The single point where the dispatchers execute the listeners, which instruments
+ * the executions when metrics are enabled and guards them against slow listeners
+ * when a {@link pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy} is enabled.
+ *
+ * Each {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher} owns an invoker, holding the hooks of its bus,
+ * which is handed to the dispatchers along with every dispatch. The {@link #STANDALONE standalone} invoker,
+ * which has no hooks, is used by the dispatchers when invoked outside of a bus.
+ *
+ * When both hooks are disabled, the only overhead per dispatch is a volatile read.
+ * The listeners failures are handed to the installed {@link pt.davidafsilva.jevents.dispatcher.ErrorHandler},
+ * which is only read once a listener fails.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerInvoker {
+
+	// the invoker used outside of a bus, which has no hooks
+	static final ListenerInvoker STANDALONE = new ListenerInvoker();
+
+	// the installed hooks, null when all of them are disabled
+	private volatile Hooks hooks;
+
+	// the installed error handler
+	private volatile ErrorHandler errorHandler = ErrorHandler.REPORT;
+
+	/**
+	 * Returns the installed metrics
+	 *
+	 * @return the metrics or <code>null</code> if disabled
+	 */
+	EventMetrics metrics() {
+		final Hooks installed = hooks;
+		return installed == null ? null : installed.metrics;
+	}
+
+	/**
+	 * Installs the given metrics
+	 *
+	 * @param metrics
+	 * 		the metrics to be installed or <code>null</code> to disable them
+	 */
+	synchronized void setMetrics(final EventMetrics metrics) {
+		final Hooks installed = hooks;
+		hooks = Hooks.of(metrics, installed == null ? null : installed.guard);
+	}
+
+	/**
+	 * Returns the installed guard
+	 *
+	 * @return the guard or <code>null</code> if disabled
+	 */
+	ListenerGuard guard() {
+		final Hooks installed = hooks;
+		return installed == null ? null : installed.guard;
+	}
+
+	/**
+	 * Installs the given guard
+	 *
+	 * @param guard
+	 * 		the guard to be installed or <code>null</code> to disable it
+	 * @return the previously installed guard, if any
+	 */
+	synchronized ListenerGuard setGuard(final ListenerGuard guard) {
+		final Hooks installed = hooks;
+		hooks = Hooks.of(installed == null ? null : installed.metrics, guard);
+		return installed == null ? null : installed.guard;
+	}
+
+	/**
+	 * Returns the installed error handler
+	 *
+	 * @return the error handler
+	 */
+	ErrorHandler errorHandler() {
+		return errorHandler;
+	}
+
+	/**
+	 * Installs the given error handler
+	 *
+	 * @param handler
+	 * 		the error handler
+	 */
+	void setErrorHandler(final ErrorHandler handler) {
+		errorHandler = handler;
+	}
+
+	/**
+	 * Discards whatever the installed metrics and guard, if any, track for the given listener,
+	 * which was removed from the registry
+	 *
+	 * @param listener
+	 * 		the removed listener
+	 */
+	void removed(final EventListener<?> listener) {
+		final Hooks installed = hooks;
+		if (installed == null) {
+			return;
+		}
+		if (installed.metrics != null) {
+			installed.metrics.removed(listener);
+		}
+		if (installed.guard != null) {
+			installed.guard.reset(listener);
+		}
+	}
+
+	/**
+	 * Hands the given failure to the installed error handler
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the failing listener
+	 * @param failure
+	 * 		the failure
+	 */
+	void failed(final Event event, final EventListener<?> listener, final RuntimeException failure) {
+		errorHandler.handle(event, listener, failure);
+	}
+
+	/**
+	 * Hands the given batch failure to the installed metrics, if any, and error handler
+	 *
+	 * @param events
+	 * 		the batch of events
+	 * @param listener
+	 * 		the failing batch listener or <code>null</code> if the batch could not be delivered
+	 * @param failure
+	 * 		the failure
+	 */
+	void batchFailed(final List<? extends Event> events, final BatchEventListener<?> listener,
+			final RuntimeException failure) {
+		final EventMetrics metrics = metrics();
+		if (metrics != null && listener != null) {
+			metrics.batchFailed(events.get(0).getClass(), listener, failure);
+		}
+		errorHandler.handleBatch(events, listener, failure);
+	}
+
+	/**
+	 * Executes the given batch listeners sequentially, handing the failures to the installed error handler
+	 *
+	 * @param events
+	 * 		the batch of events
+	 * @param listeners
+	 * 		the target batch listeners
+	 * @param <E>
+	 * 		the event type
+	 */
+	<E extends Event> void invokeBatch(final List<E> events, final BatchEventListener<E>[] listeners) {
+		for (int i = 0; i < listeners.length; i++) {
+			try {
+				listeners[i].handle(events);
+			} catch (RuntimeException e) {
+				batchFailed(events, listeners[i], e);
+			}
+		}
+	}
+
+	/**
+	 * Executes the given listeners sequentially, handing the failures to the installed error handler
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listeners
+	 * 		the target listeners
+	 * @param async
+	 * 		whether or not the listeners are being executed asynchronously
+	 * @param <E>
+	 * 		the event type
+	 */
+	<E extends Event> void invokeAll(final E event, final EventListener<E>[] listeners, final boolean async) {
+		final Hooks installed = hooks;
+		if (installed == null) {
+			for (int i = 0; i < listeners.length; i++) {
+				try {
+					listeners[i].handle(event);
+				} catch (RuntimeException e) {
+					failed(event, listeners[i], e);
+				}
+			}
+		} else {
+			for (int i = 0; i < listeners.length; i++) {
+				try {
+					invoke(installed, event, listeners[i], async);
+				} catch (RuntimeException e) {
+					failed(event, listeners[i], e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes the given listener asynchronously
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the target listener
+	 * @param <E>
+	 * 		the event type
+	 */
+	<E extends Event> void invoke(final E event, final EventListener<E> listener) {
+		final Hooks installed = hooks;
+		if (installed == null) {
+			listener.handle(event);
+		} else {
+			invoke(installed, event, listener, true);
+		}
+	}
+
+	/**
+	 * Executes the given replying listener asynchronously.
+	 *
+	 * Replies are not guarded, as they cannot be skipped nor isolated.
+	 *
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the target listener
+	 * @param <E>
+	 * 		the event type
+	 * @param <R>
+	 * 		the reply type
+	 * @return the reply
+	 */
+	<E extends Event, R> R reply(final E event, final ReplyingEventListener<E, R> listener) {
+		final EventMetrics metrics = metrics();
+		if (metrics == null) {
+			return listener.reply(event);
+		}
+		final long start = System.nanoTime();
+		final R reply;
+		try {
+			reply = listener.reply(event);
+		} catch (RuntimeException e) {
+			metrics.failed(event.getClass(), listener, e);
+			throw e;
+		}
+		metrics.handled(event.getClass(), listener, System.nanoTime() - start);
+		return reply;
+	}
+
+	/**
+	 * Executes the given listener through the installed hooks
+	 *
+	 * @param installed
+	 * 		the installed hooks
+	 * @param event
+	 * 		the event being dispatched
+	 * @param listener
+	 * 		the target listener
+	 * @param async
+	 * 		whether or not the listener is being executed asynchronously
+	 * @param <E>
+	 * 		the event type
+	 */
+	private static <E extends Event> void invoke(final Hooks installed, final E event,
+			final EventListener<E> listener, final boolean async) {
+		if (installed.guard != null) {
+			installed.guard.invoke(installed.metrics, event, listener, async);
+			return;
+		}
+		final long start = System.nanoTime();
+		try {
+			listener.handle(event);
+		} catch (RuntimeException e) {
+			installed.metrics.failed(event.getClass(), listener, e);
+			throw e;
+		}
+		installed.metrics.handled(event.getClass(), listener, System.nanoTime() - start);
+	}
+
+	/**
+	 * The immutable set of installed hooks.
+	 */
+	private static final class Hooks {
+
+		// the metrics, if any
+		private final EventMetrics metrics;
+
+		// the guard, if any
+		private final ListenerGuard guard;
+
+		/**
+		 * Creates a new set of hooks
+		 *
+		 * @param metrics
+		 * 		the metrics, if any
+		 * @param guard
+		 * 		the guard, if any
+		 */
+		private Hooks(final EventMetrics metrics, final ListenerGuard guard) {
+			this.metrics = metrics;
+			this.guard = guard;
+		}
+
+		/**
+		 * Returns the hooks for the given metrics and guard
+		 *
+		 * @param metrics
+		 * 		the metrics, if any
+		 * @param guard
+		 * 		the guard, if any
+		 * @return the hooks or <code>null</code> if there are none
+		 */
+		private static Hooks of(final EventMetrics metrics, final ListenerGuard guard) {
+			return metrics == null && guard == null ? null : new Hooks(metrics, guard);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+/**
+ * The policies applied by an {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine} when
+ * a new asynchronous dispatch is submitted while the engine is at full capacity.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Blocks the producer until there's capacity for the new dispatch.
+	 */
+	BLOCK,
+
+	/**
+	 * Silently drops the new dispatch.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Drops the oldest queued dispatch in favor of the new one.
+	 * When there's none queued, as every in-flight dispatch is running, the producer is blocked until
+	 * one of them completes.
+	 *
+	 * Only supported by engines which own their queue, i.e. pooled engines.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Runs the new dispatch in the producer thread, which naturally throttles the producer.
+	 */
+	CALLER_RUNS,
+
+	/**
+	 * Rejects the new dispatch with a {@link java.util.concurrent.RejectedExecutionException}.
+	 */
+	FAIL_FAST
+}
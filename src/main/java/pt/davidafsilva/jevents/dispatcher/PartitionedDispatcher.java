@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An asynchronous dispatcher which keeps the ordering of the events sharing the
+ * same {@link pt.davidafsilva.jevents.Event#getPartitionKey() partition key}.
+ *
+ * The dispatcher is made of a fixed set of partitions, each one backed by a single worker
+ * thread with its own queue. Events are assigned to a partition according to the hash of
+ * their key, hence the events with the same key are handled sequentially, in the order that
+ * they were dispatched, while events with different keys are handled in parallel.
+ * Events without a key are spread across the partitions, without any ordering guarantee.
+ *
+ * Each partition holds a bounded number of pending events, blocking the producers when full,
+ * as dropping or running events in the producer thread would break the ordering.
+ *
+ * The dispatcher is meant to be bound to specific event classes through
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#route(Class, Dispatcher)}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class PartitionedDispatcher extends InvokingDispatcher {
+
+	// the partitions
+	private final Partitions partitions;
+
+	/**
+	 * Creates a new partitioned dispatcher.
+	 *
+	 * @param partitions
+	 * 		the partitions
+	 */
+	private PartitionedDispatcher(final Partitions partitions) {
+		this.partitions = partitions;
+	}
+
+	/**
+	 * Creates a new partitioned dispatcher with one partition per available processor and the
+	 * default capacity per partition.
+	 *
+	 * @return the dispatcher
+	 */
+	public static PartitionedDispatcher create() {
+		return create(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new partitioned dispatcher with the default capacity per partition.
+	 *
+	 * @param partitions
+	 * 		the number of partitions
+	 * @return the dispatcher
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>partitions</code> is lesser than 1
+	 */
+	public static PartitionedDispatcher create(final int partitions) {
+		return create(partitions, AsyncEngine.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new partitioned dispatcher.
+	 *
+	 * @param partitions
+	 * 		the number of partitions
+	 * @param capacity
+	 * 		the maximum number of pending events per partition
+	 * @return the dispatcher
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>partitions</code> or <code>capacity</code> is lesser than 1
+	 */
+	public static PartitionedDispatcher create(final int partitions, final int capacity) {
+		return new PartitionedDispatcher(Partitions.create(partitions, capacity));
+	}
+
+	/**
+	 * Returns the number of partitions of this dispatcher.
+	 *
+	 * @return the number of partitions
+	 */
+	public int getPartitionCount() {
+		return partitions.count();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the dispatcher was shut down
+	 */
+	@Override
+	public <E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners) {
+		super.dispatchTo(event, listeners);
+	}
+
+	@Override
+	<E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		dispatch(partitions.of(event.getPartitionKey()).dispatcher(), event, listeners, invoker);
+	}
+
+	@Override
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return partitions.drain(timeout, unit);
+	}
+
+	@Override
+	public void shutdown() {
+		partitions.shutdown();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return partitions.awaitTermination(timeout, unit);
+	}
+}
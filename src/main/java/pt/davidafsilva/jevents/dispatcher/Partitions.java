@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of single threaded partitions, each one with its own bounded queue, shared by the
+ * {@link pt.davidafsilva.jevents.dispatcher.PartitionedDispatcher} and the
+ * {@link pt.davidafsilva.jevents.dispatcher.ConflatingDispatcher}.
+ *
+ * Keys are assigned to a partition according to their hash, hence the tasks of the same key are executed
+ * sequentially, in the order that they were submitted. Tasks without a key are spread across the partitions.
+ * Each partition blocks the producers when full, as dropping or running the tasks in the producer thread
+ * would break the ordering.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class Partitions {
+
+	// the partitions
+	private final AsyncEngine[] engines;
+
+	// the next partition for the tasks without a key
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Creates a new set of partitions.
+	 *
+	 * @param partitions
+	 * 		the number of partitions
+	 * @param capacity
+	 * 		the number of pending tasks per partition
+	 */
+	private Partitions(final int partitions, final int capacity) {
+		this.engines = new AsyncEngine[partitions];
+		for (int i = 0; i < partitions; i++) {
+			this.engines[i] = AsyncEngine.pooled(1, capacity, OverflowPolicy.BLOCK);
+		}
+	}
+
+	/**
+	 * Creates a new set of partitions.
+	 *
+	 * @param partitions
+	 * 		the number of partitions
+	 * @param capacity
+	 * 		the maximum number of pending tasks per partition
+	 * @return the partitions
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>partitions</code> or <code>capacity</code> is lesser than 1
+	 */
+	static Partitions create(final int partitions, final int capacity) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("Invalid number of partitions: " + partitions);
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		return new Partitions(partitions, capacity);
+	}
+
+	/**
+	 * Returns the number of partitions.
+	 *
+	 * @return the number of partitions
+	 */
+	int count() {
+		return engines.length;
+	}
+
+	/**
+	 * Returns the partition of the given key.
+	 *
+	 * @param key
+	 * 		the key, if any
+	 * @return the partition
+	 */
+	AsyncEngine of(final Object key) {
+		if (engines.length == 1) {
+			return engines[0];
+		}
+		if (key == null) {
+			return engines[Math.floorMod(next.getAndIncrement(), engines.length)];
+		}
+		// spread the higher bits, as in hash tables
+		final int hash = key.hashCode();
+		return engines[Math.floorMod(hash ^ (hash >>> 16), engines.length)];
+	}
+
+	/**
+	 * Waits until the pending tasks of every partition are executed, or the timeout elapses.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the tasks were executed, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (AsyncEngine engine : engines) {
+			if (!engine.drain(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Shuts down every partition: the pending tasks are still executed, but new ones are rejected.
+	 */
+	void shutdown() {
+		for (AsyncEngine engine : engines) {
+			engine.shutdown();
+		}
+	}
+
+	/**
+	 * Waits until every partition terminates after a shutdown request, or the timeout elapses.
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the partitions terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (AsyncEngine engine : engines) {
+			if (!engine.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Priority;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The work queue of the {@link pt.davidafsilva.jevents.dispatcher.AsyncEngine#prioritized(int, int, OverflowPolicy)
+ * prioritized engines}, which keeps a FIFO lane per {@link pt.davidafsilva.jevents.Priority priority} class.
+ *
+ * Lanes are served through weighted round robin: each lane holds a number of credits, its weight, which are
+ * spent on every task taken from it. The highest non-empty lane with credits is always served first, and the
+ * credits of every lane are restored once no non-empty lane has credits left. Hence, when every lane is busy,
+ * each round executes up to <code>weight</code> tasks per class, the higher classes first, while an idle lane
+ * never holds back the others.
+ *
+ * The priorities only order the queued tasks: the capacity of the engine is shared by every class and
+ * admitted first come, first served, with no headroom reserved per class. Hence, once the engine is saturated
+ * under the {@link OverflowPolicy#BLOCK} or {@link OverflowPolicy#CALLER_RUNS} policies, the producers of the
+ * higher classes wait, or run their tasks, just like the ones of the lower classes, until some in-flight task
+ * completes. The engine capacity should thus be sized to absorb the bursts of the lower classes.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+	// the priority classes, by lane
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	// resolves the priority of the tasks
+	private final Function<Runnable, Priority> classifier;
+
+	// the lanes, by priority ordinal
+	private final ArrayDeque<Runnable>[] lanes;
+
+	// the credits left in the current round, by lane
+	private final int[] credits;
+
+	// the total number of queued tasks
+	private int size;
+
+	// the queue lock
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// the condition signaled whenever a task is queued
+	private final Condition notEmpty = lock.newCondition();
+
+	/**
+	 * Creates a new empty queue
+	 *
+	 * @param classifier
+	 * 		resolves the priority of the tasks
+	 */
+	PriorityTaskQueue(final Function<Runnable, Priority> classifier) {
+		@SuppressWarnings("unchecked")
+		final ArrayDeque<Runnable>[] created = (ArrayDeque<Runnable>[]) new ArrayDeque<?>[PRIORITIES.length];
+		this.classifier = classifier;
+		this.lanes = created;
+		this.credits = new int[PRIORITIES.length];
+		for (int i = 0; i < PRIORITIES.length; i++) {
+			lanes[i] = new ArrayDeque<>();
+			credits[i] = PRIORITIES[i].getWeight();
+		}
+	}
+
+	@Override
+	public boolean offer(final Runnable task) {
+		if (task == null) {
+			throw new NullPointerException("Invalid task.");
+		}
+		final ArrayDeque<Runnable> lane = lanes[classifier.apply(task).ordinal()];
+		lock.lock();
+		try {
+			lane.addLast(task);
+			size++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+		return true;
+	}
+
+	@Override
+	public void put(final Runnable task) {
+		offer(task);
+	}
+
+	@Override
+	public boolean offer(final Runnable task, final long timeout, final TimeUnit unit) {
+		return offer(task);
+	}
+
+	@Override
+	public Runnable poll() {
+		lock.lock();
+		try {
+			return size == 0 ? null : dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (size == 0) {
+				notEmpty.await();
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (size == 0) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the oldest task of the lowest non-empty priority class, the first one to be shed on overflow
+	 *
+	 * @return the removed task or <code>null</code> if the queue is empty
+	 */
+	Runnable pollLowest() {
+		lock.lock();
+		try {
+			for (int i = lanes.length - 1; i >= 0; i--) {
+				final Runnable task = lanes[i].pollFirst();
+				if (task != null) {
+					size--;
+					return task;
+				}
+			}
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable peek() {
+		lock.lock();
+		try {
+			return size == 0 ? null : lanes[select()].peekFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public boolean remove(final Object task) {
+		lock.lock();
+		try {
+			for (ArrayDeque<Runnable> lane : lanes) {
+				if (lane.removeFirstOccurrence(task)) {
+					size--;
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(final Collection<? super Runnable> collection) {
+		return drainTo(collection, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(final Collection<? super Runnable> collection, final int maxElements) {
+		if (collection == this) {
+			throw new IllegalArgumentException("Unable to drain the queue to itself.");
+		}
+		lock.lock();
+		try {
+			int drained = 0;
+			while (size > 0 && drained < maxElements) {
+				collection.add(dequeue());
+				drained++;
+			}
+			return drained;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns an iterator over a snapshot of the queued tasks, in their lanes order.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<Runnable> iterator() {
+		final List<Runnable> snapshot = new ArrayList<>();
+		lock.lock();
+		try {
+			for (ArrayDeque<Runnable> lane : lanes) {
+				snapshot.addAll(lane);
+			}
+		} finally {
+			lock.unlock();
+		}
+		final Iterator<Runnable> iterator = snapshot.iterator();
+		return new Iterator<Runnable>() {
+
+			// the last returned task
+			private Runnable last;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Runnable next() {
+				last = iterator.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				PriorityTaskQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	/**
+	 * Removes the next task to be executed, spending one credit of its lane. Must be called while holding
+	 * the lock, with a non-empty queue.
+	 *
+	 * @return the task
+	 */
+	private Runnable dequeue() {
+		final int lane = select();
+		credits[lane]--;
+		size--;
+		return lanes[lane].pollFirst();
+	}
+
+	/**
+	 * Selects the highest non-empty lane with credits, starting a new round if there's none. Must be called
+	 * while holding the lock, with a non-empty queue.
+	 *
+	 * @return the lane index
+	 */
+	private int select() {
+		while (true) {
+			for (int i = 0; i < lanes.length; i++) {
+				if (credits[i] > 0 && !lanes[i].isEmpty()) {
+					return i;
+				}
+			}
+			for (int i = 0; i < lanes.length; i++) {
+				credits[i] = PRIORITIES[i].getWeight();
+			}
+		}
+	}
+}
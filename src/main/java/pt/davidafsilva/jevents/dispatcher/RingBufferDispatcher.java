@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous dispatcher backed by a preallocated ring buffer of event slots,
+ * meant for high volume event types.
+ *
+ * Producers claim a sequence number, wait for the matching slot to be free, fill it
+ * and then publish it. A fixed set of consumer threads run the listeners of the published
+ * slots, each consumer handling every <code>n</code>-th sequence. No allocation takes place
+ * per dispatched event: neither queue nodes nor threads are created.
+ *
+ * When the buffer is full, producers wait for the consumers according to the configured
+ * {@link pt.davidafsilva.jevents.dispatcher.WaitStrategy}, the same used by the idle consumers.
+ *
+ * The sequencing, along with the shutdown, is handled by a {@link pt.davidafsilva.jevents.dispatcher.RingSequencer},
+ * hence a sequence is either claimed before the shutdown, and handled by the consumers before they terminate,
+ * or rejected.
+ *
+ * The failures of the listeners are handed to the error handler of the bus, while the failures escaping it,
+ * such as errors, are reported to the uncaught exception handler of the consumer, which keeps running.
+ *
+ * The dispatcher is meant to be bound to specific event classes through
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#route(Class, Dispatcher)}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class RingBufferDispatcher extends InvokingDispatcher {
+
+	// the dispatcher sequence, for naming purposes
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	// the preallocated slots
+	private final Slot[] slots;
+
+	// the sequencer of the slots
+	private final RingSequencer sequencer;
+
+	/**
+	 * Creates a new ring buffer dispatcher and starts its consumers.
+	 *
+	 * @param sequencer
+	 * 		the sequencer of the slots
+	 */
+	private RingBufferDispatcher(final RingSequencer sequencer) {
+		this.slots = new Slot[sequencer.getBufferSize()];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new Slot();
+		}
+		this.sequencer = sequencer;
+		sequencer.start("jevents-ring-" + SEQUENCE.incrementAndGet(), this::consume);
+	}
+
+	/**
+	 * Creates a new ring buffer dispatcher with a single consumer thread.
+	 *
+	 * @param bufferSize
+	 * 		the number of slots, which must be a power of two greater than 1
+	 * @param waitStrategy
+	 * 		the wait strategy
+	 * @return the dispatcher
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>bufferSize</code> is not a power of two greater than 1
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>waitStrategy</code> is <code>null</code>
+	 */
+	public static RingBufferDispatcher create(final int bufferSize, final WaitStrategy waitStrategy) {
+		return create(bufferSize, 1, waitStrategy);
+	}
+
+	/**
+	 * Creates a new ring buffer dispatcher.
+	 *
+	 * Events are spread evenly across the consumers, hence the ordering of the events
+	 * is only kept when there's a single consumer.
+	 *
+	 * @param bufferSize
+	 * 		the number of slots, which must be a power of two greater than 1
+	 * @param consumers
+	 * 		the number of consumer threads
+	 * @param waitStrategy
+	 * 		the wait strategy
+	 * @return the dispatcher
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>bufferSize</code> is not a power of two greater than 1 or <code>consumers</code> is lesser than 1
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>waitStrategy</code> is <code>null</code>
+	 */
+	public static RingBufferDispatcher create(final int bufferSize, final int consumers,
+			final WaitStrategy waitStrategy) {
+		return new RingBufferDispatcher(RingSequencer.create(bufferSize, consumers, waitStrategy));
+	}
+
+	/**
+	 * Returns the number of slots of the ring buffer.
+	 *
+	 * @return the buffer size
+	 */
+	public int getBufferSize() {
+		return slots.length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the dispatcher was shut down
+	 */
+	@Override
+	public <E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners) {
+		super.dispatchTo(event, listeners);
+	}
+
+	@Override
+	<E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		final long sequence = sequencer.claim();
+		final Slot slot = slots[sequencer.indexOf(sequence)];
+		slot.event = event;
+		slot.listeners = listeners;
+		slot.invoker = invoker;
+		sequencer.publish(sequence);
+	}
+
+	/**
+	 * Runs the listeners of the given published slot, in a consumer thread.
+	 *
+	 * @param index
+	 * 		the slot index
+	 */
+	@SuppressWarnings("unchecked")
+	private void consume(final int index) {
+		final Slot slot = slots[index];
+		final Event event = slot.event;
+		final EventListener<Event>[] listeners = (EventListener<Event>[]) slot.listeners;
+		final ListenerInvoker invoker = slot.invoker;
+		slot.event = null;
+		slot.listeners = null;
+		slot.invoker = null;
+		invoker.invokeAll(event, listeners, true);
+	}
+
+	@Override
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return sequencer.drain(timeout, unit);
+	}
+
+	@Override
+	public void shutdown() {
+		sequencer.shutdown();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return sequencer.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * A preallocated event slot.
+	 */
+	private static final class Slot {
+
+		// the event being dispatched
+		private Event event;
+
+		// the target listeners
+		private EventListener<?>[] listeners;
+
+		// the invoker of the bus
+		private ListenerInvoker invoker;
+	}
+}
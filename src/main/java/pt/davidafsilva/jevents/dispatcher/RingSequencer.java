@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * The sequencing of a preallocated ring buffer, shared by the
+ * {@link pt.davidafsilva.jevents.dispatcher.RingBufferDispatcher} and the
+ * {@link pt.davidafsilva.jevents.channel.ChannelRegistry primitive channels}, whose slots are kept by the owner.
+ *
+ * Producers {@link #claim() claim} a sequence number, which waits for the matching slot to be free, fill the slot
+ * at the returned index and then {@link #publish(long) publish} it. A fixed set of consumer threads hand the
+ * published slots to the handler of the owner, each consumer handling every <code>n</code>-th sequence, and free
+ * the slots once the handler returns. The ordering of the slots is only kept when there's a single consumer.
+ *
+ * The shutdown is recorded in the cursor itself, hence a sequence is either claimed before the shutdown,
+ * and handled by the consumers before they terminate, or rejected.
+ *
+ * Failures escaping the handler are reported to the uncaught exception handler of the consumer, which keeps
+ * running, as the producers would otherwise wait for its slots forever.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class RingSequencer {
+
+	// the period between progress checks while draining
+	private static final long DRAIN_PARK_NANOS = 100_000L;
+
+	// the cursor bit set once the ring is shut down
+	private static final long SHUTDOWN = Long.MIN_VALUE;
+
+	// the number of slots
+	private final int bufferSize;
+
+	// the index mask, as the number of slots is a power of two
+	private final int mask;
+
+	// the slot states: a slot is free for sequence s when it holds s,
+	// and published for sequence s when it holds s + 1
+	private final AtomicLongArray states;
+
+	// the next sequence to be claimed, along with the shutdown bit
+	private final AtomicLong cursor = new AtomicLong();
+
+	// the next sequence to be processed, per consumer
+	private final AtomicLongArray positions;
+
+	// the consumer threads
+	private final Thread[] consumers;
+
+	// the wait strategy
+	private final WaitStrategy waitStrategy;
+
+	// the handler of the published slots, set before the consumers are started
+	private IntConsumer handler;
+
+	/**
+	 * Creates a new sequencer
+	 *
+	 * @param bufferSize
+	 * 		the number of slots, which must be a power of two
+	 * @param consumers
+	 * 		the number of consumer threads
+	 * @param waitStrategy
+	 * 		the wait strategy
+	 */
+	private RingSequencer(final int bufferSize, final int consumers, final WaitStrategy waitStrategy) {
+		this.bufferSize = bufferSize;
+		this.mask = bufferSize - 1;
+		this.states = new AtomicLongArray(bufferSize);
+		for (int i = 0; i < bufferSize; i++) {
+			states.set(i, i);
+		}
+		this.positions = new AtomicLongArray(consumers);
+		this.consumers = new Thread[consumers];
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Creates a new sequencer, whose consumers are only started through {@link #start(String, IntConsumer)}.
+	 *
+	 * @param bufferSize
+	 * 		the number of slots, which must be a power of two greater than 1
+	 * @param consumers
+	 * 		the number of consumer threads
+	 * @param waitStrategy
+	 * 		the wait strategy, used both by the producers waiting for a free slot and by the idle consumers
+	 * @return the sequencer
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>bufferSize</code> is not a power of two greater than 1 or <code>consumers</code> is lesser than 1
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>waitStrategy</code> is <code>null</code>
+	 */
+	public static RingSequencer create(final int bufferSize, final int consumers, final WaitStrategy waitStrategy) {
+		if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+			throw new IllegalArgumentException("The buffer size must be a power of two, greater than 1: " + bufferSize);
+		}
+		if (consumers < 1) {
+			throw new IllegalArgumentException("Invalid number of consumers: " + consumers);
+		}
+		if (waitStrategy == null) {
+			throw new NullPointerException("Invalid wait strategy.");
+		}
+		return new RingSequencer(bufferSize, consumers, waitStrategy);
+	}
+
+	/**
+	 * Starts the consumers, which hand the index of each published slot to the given handler
+	 *
+	 * @param name
+	 * 		the name of the consumer threads, which are suffixed by their number
+	 * @param handler
+	 * 		the handler of the published slots, executed by the consumer threads
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> or <code>handler</code> is <code>null</code>
+	 * @throws java.lang.IllegalStateException
+	 * 		if the consumers were already started
+	 */
+	public synchronized void start(final String name, final IntConsumer handler) {
+		if (name == null || handler == null) {
+			throw new NullPointerException("Invalid name or handler.");
+		}
+		if (this.handler != null) {
+			throw new IllegalStateException("The consumers were already started.");
+		}
+		this.handler = handler;
+		for (int i = 0; i < consumers.length; i++) {
+			final int consumer = i;
+			positions.set(i, i);
+			consumers[i] = new Thread(() -> consume(consumer), name + "-" + (i + 1));
+			consumers[i].setDaemon(true);
+			consumers[i].start();
+		}
+	}
+
+	/**
+	 * Returns the number of slots of the ring.
+	 *
+	 * @return the buffer size
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Claims the next sequence, waiting for its slot to be freed by the consumer of the previous lap.
+	 *
+	 * @return the claimed sequence, whose slot index is given by {@link #indexOf(long)}
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 * 		if the ring was shut down
+	 */
+	public long claim() {
+		long sequence;
+		do {
+			sequence = cursor.get();
+			if ((sequence & SHUTDOWN) != 0) {
+				throw new RejectedExecutionException("The ring was shut down.");
+			}
+		} while (!cursor.compareAndSet(sequence, sequence + 1));
+		final int index = indexOf(sequence);
+
+		// wait for the consumer of the previous lap
+		int attempt = 0;
+		while (states.get(index) != sequence) {
+			waitStrategy.idle(++attempt);
+		}
+		return sequence;
+	}
+
+	/**
+	 * Returns the slot index of the given sequence
+	 *
+	 * @param sequence
+	 * 		the sequence
+	 * @return the slot index
+	 */
+	public int indexOf(final long sequence) {
+		return (int) sequence & mask;
+	}
+
+	/**
+	 * Publishes the slot of the given claimed sequence, once filled, to the consumers
+	 *
+	 * @param sequence
+	 * 		the claimed sequence
+	 */
+	public void publish(final long sequence) {
+		states.lazySet(indexOf(sequence), sequence + 1);
+	}
+
+	/**
+	 * The consumer loop, which handles the sequences <code>consumer</code>,
+	 * <code>consumer + n</code>, <code>consumer + 2n</code> and so on, until every sequence claimed
+	 * before the shutdown is handled.
+	 *
+	 * @param consumer
+	 * 		the consumer index
+	 */
+	private void consume(final int consumer) {
+		final int step = consumers.length;
+		long sequence = consumer;
+		int attempt = 0;
+		while (true) {
+			final int index = indexOf(sequence);
+			if (states.get(index) == sequence + 1) {
+				try {
+					handler.accept(index);
+				} catch (Throwable e) {
+					final Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+				states.lazySet(index, sequence + bufferSize);
+
+				sequence += step;
+				positions.lazySet(consumer, sequence);
+				attempt = 0;
+			} else {
+				final long claimed = cursor.get();
+				if ((claimed & SHUTDOWN) != 0 && sequence >= (claimed & ~SHUTDOWN)) {
+					return;
+				}
+				waitStrategy.idle(++attempt);
+			}
+		}
+	}
+
+	/**
+	 * Waits until all of the sequences claimed so far are handled, or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the sequences were handled, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		final long target = cursor.get() & ~SHUTDOWN;
+		for (int i = 0; i < consumers.length; i++) {
+			while (positions.get(i) < target) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				if (deadline - System.nanoTime() <= 0) {
+					return false;
+				}
+				LockSupport.parkNanos(DRAIN_PARK_NANOS);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Rejects the claims from now on, while the sequences claimed so far are still handled
+	 */
+	public void shutdown() {
+		long claimed;
+		do {
+			claimed = cursor.get();
+		} while ((claimed & SHUTDOWN) == 0 && !cursor.compareAndSet(claimed, claimed | SHUTDOWN));
+	}
+
+	/**
+	 * Waits until the consumers terminate after a shutdown request, or the timeout elapses
+	 *
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return <code>true</code> if the consumers terminated, <code>false</code> if the timeout elapsed
+	 * @throws java.lang.InterruptedException
+	 * 		if interrupted while waiting
+	 */
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Thread consumer : startedConsumers()) {
+			final long remaining = deadline - System.nanoTime();
+			if (remaining > 0) {
+				TimeUnit.NANOSECONDS.timedJoin(consumer, remaining);
+			}
+			if (consumer.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the consumer threads, if started
+	 *
+	 * @return the consumers or an empty array if not started
+	 */
+	private synchronized Thread[] startedConsumers() {
+		return handler == null ? new Thread[0] : consumers;
+	}
+}
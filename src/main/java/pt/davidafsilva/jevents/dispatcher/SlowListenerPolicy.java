@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The policy which rules how slow listeners are detected and contained.
+ *
+ * Every execution of a listener is timed: once a listener takes longer than the slow threshold
+ * for a number of consecutive executions, the configured {@link pt.davidafsilva.jevents.dispatcher.SlowListenerAction}
+ * is applied to it. Isolated listeners return to the normal path after the same number of consecutive
+ * fast executions, while open circuits are closed by a fast probe execution.
+ *
+ * Optionally, asynchronous executions may be bounded by a timeout: the thread running a listener
+ * for longer than the timeout is interrupted and the action is applied to the listener right away.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class SlowListenerPolicy {
+
+	/**
+	 * The disabled policy, which neither times nor contains the listeners
+	 */
+	public static final SlowListenerPolicy DISABLED = new SlowListenerPolicy(null, 0L, 0, 0L, 0L, 0);
+
+	// the action applied to slow listeners, null if disabled
+	private final SlowListenerAction action;
+
+	// the slow threshold, in nanoseconds
+	private final long thresholdNanos;
+
+	// the number of consecutive slow executions which trips the action
+	private final int tripAfter;
+
+	// the time a circuit is kept open, in nanoseconds
+	private final long openNanos;
+
+	// the asynchronous execution timeout, in nanoseconds, 0 if none
+	private final long timeoutNanos;
+
+	// the number of threads of the isolation executor
+	private final int isolationThreads;
+
+	/**
+	 * Creates a new slow listener policy
+	 *
+	 * @param action
+	 * 		the action
+	 * @param thresholdNanos
+	 * 		the slow threshold
+	 * @param tripAfter
+	 * 		the consecutive slow executions which trip the action
+	 * @param openNanos
+	 * 		the open circuit time
+	 * @param timeoutNanos
+	 * 		the async timeout
+	 * @param isolationThreads
+	 * 		the isolation threads
+	 */
+	private SlowListenerPolicy(final SlowListenerAction action, final long thresholdNanos, final int tripAfter,
+			final long openNanos, final long timeoutNanos, final int isolationThreads) {
+		this.action = action;
+		this.thresholdNanos = thresholdNanos;
+		this.tripAfter = tripAfter;
+		this.openNanos = openNanos;
+		this.timeoutNanos = timeoutNanos;
+		this.isolationThreads = isolationThreads;
+	}
+
+	/**
+	 * Creates a new policy which moves the slow listeners to an isolation executor with
+	 * one thread per available processor.
+	 *
+	 * @param threshold
+	 * 		the time after which an execution is considered slow
+	 * @param unit
+	 * 		the time unit of the threshold argument
+	 * @param tripAfter
+	 * 		the number of consecutive slow executions after which a listener is isolated
+	 * @return the policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threshold</code> is negative or <code>tripAfter</code> is lesser than 1
+	 */
+	public static SlowListenerPolicy isolate(final long threshold, final TimeUnit unit, final int tripAfter) {
+		validate(threshold, tripAfter);
+		return new SlowListenerPolicy(SlowListenerAction.ISOLATE, unit.toNanos(threshold), tripAfter, 0L, 0L,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new policy which opens the circuit of the slow listeners.
+	 *
+	 * @param threshold
+	 * 		the time after which an execution is considered slow
+	 * @param unit
+	 * 		the time unit of the threshold argument
+	 * @param tripAfter
+	 * 		the number of consecutive slow executions after which the circuit is opened
+	 * @param open
+	 * 		the time a circuit is kept open before being probed
+	 * @param openUnit
+	 * 		the time unit of the open argument
+	 * @return the policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threshold</code> or <code>open</code> is negative or <code>tripAfter</code> is lesser than 1
+	 */
+	public static SlowListenerPolicy openCircuit(final long threshold, final TimeUnit unit, final int tripAfter,
+			final long open, final TimeUnit openUnit) {
+		validate(threshold, tripAfter);
+		if (open < 0) {
+			throw new IllegalArgumentException("Invalid open time: " + open);
+		}
+		return new SlowListenerPolicy(SlowListenerAction.OPEN_CIRCUIT, unit.toNanos(threshold), tripAfter,
+				openUnit.toNanos(open), 0L, 0);
+	}
+
+	/**
+	 * Validates the common arguments
+	 *
+	 * @param threshold
+	 * 		the slow threshold
+	 * @param tripAfter
+	 * 		the consecutive slow executions
+	 */
+	private static void validate(final long threshold, final int tripAfter) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Invalid threshold: " + threshold);
+		}
+		if (tripAfter < 1) {
+			throw new IllegalArgumentException("Invalid number of slow executions: " + tripAfter);
+		}
+	}
+
+	/**
+	 * Returns a copy of this policy, bounding the asynchronous executions by the given timeout.
+	 *
+	 * @param timeout
+	 * 		the maximum time of an asynchronous execution
+	 * @param unit
+	 * 		the time unit of the timeout argument
+	 * @return the new policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>timeout</code> is lesser than 1
+	 * @throws java.lang.IllegalStateException
+	 * 		if this policy is disabled
+	 */
+	public SlowListenerPolicy withTimeout(final long timeout, final TimeUnit unit) {
+		if (timeout < 1) {
+			throw new IllegalArgumentException("Invalid timeout: " + timeout);
+		}
+		if (action == null) {
+			throw new IllegalStateException("The disabled policy cannot have a timeout.");
+		}
+		return new SlowListenerPolicy(action, thresholdNanos, tripAfter, openNanos, unit.toNanos(timeout),
+				isolationThreads);
+	}
+
+	/**
+	 * Returns a copy of this policy, with the given number of isolation threads.
+	 *
+	 * @param threads
+	 * 		the number of threads of the isolation executor
+	 * @return the new policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>threads</code> is lesser than 1
+	 * @throws java.lang.IllegalStateException
+	 * 		if this policy does not isolate the slow listeners
+	 */
+	public SlowListenerPolicy withIsolationThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		if (action != SlowListenerAction.ISOLATE) {
+			throw new IllegalStateException("The policy does not isolate the slow listeners.");
+		}
+		return new SlowListenerPolicy(action, thresholdNanos, tripAfter, openNanos, timeoutNanos, threads);
+	}
+
+	/**
+	 * Returns whether or not this policy is enabled
+	 *
+	 * @return <code>true</code> if enabled, <code>false</code> otherwise
+	 */
+	public boolean isEnabled() {
+		return action != null;
+	}
+
+	/**
+	 * Returns the action applied to slow listeners
+	 *
+	 * @return the action or <code>null</code> if the policy is disabled
+	 */
+	public SlowListenerAction getAction() {
+		return action;
+	}
+
+	/**
+	 * Returns the time after which an execution is considered slow
+	 *
+	 * @param unit
+	 * 		the desired time unit
+	 * @return the slow threshold
+	 */
+	public long getThreshold(final TimeUnit unit) {
+		return unit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the number of consecutive slow executions which trip the action
+	 *
+	 * @return the number of slow executions
+	 */
+	public int getTripAfter() {
+		return tripAfter;
+	}
+
+	/**
+	 * Returns the time a circuit is kept open before being probed
+	 *
+	 * @param unit
+	 * 		the desired time unit
+	 * @return the open time
+	 */
+	public long getOpenTime(final TimeUnit unit) {
+		return unit.convert(openNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the maximum time of an asynchronous execution
+	 *
+	 * @param unit
+	 * 		the desired time unit
+	 * @return the timeout or 0 if there's none
+	 */
+	public long getTimeout(final TimeUnit unit) {
+		return unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the number of threads of the isolation executor
+	 *
+	 * @return the number of isolation threads or 0 if the policy does not isolate listeners
+	 */
+	public int getIsolationThreads() {
+		return isolationThreads;
+	}
+}
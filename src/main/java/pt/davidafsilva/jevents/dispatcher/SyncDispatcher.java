@@ -30,20 +30,24 @@ package pt.davidafsilva.jevents.dispatcher;
 import pt.davidafsilva.jevents.Event;
 import pt.davidafsilva.jevents.EventListener;
 
-import java.util.Collection;
-
 /**
  * The synchronous dispatcher implementation
  *
  * @author David Silva
  * @since 1.0
  */
-class SyncDispatcher<E extends Event> implements Dispatcher<E> {
+final class SyncDispatcher extends InvokingDispatcher {
+
+	// the shared instance
+	static final SyncDispatcher INSTANCE = new SyncDispatcher();
+
+	// private constructor
+	private SyncDispatcher() {
+	}
 
 	@Override
-	public void dispatchTo(final E event, final Collection<? extends EventListener<E>> listeners) {
-		for (EventListener<E> listener : listeners) {
-			listener.handle(event);
-		}
+	<E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners,
+			final ListenerInvoker invoker) {
+		invoker.invokeAll(event, listeners, false);
 	}
 }
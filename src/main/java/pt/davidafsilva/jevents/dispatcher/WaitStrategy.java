@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.dispatcher;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The strategies available for waiting on a {@link pt.davidafsilva.jevents.dispatcher.RingBufferDispatcher}
+ * slot, either by a producer waiting for a free slot or by a consumer waiting for a published one.
+ * The same strategies rule the waits on the shared memory rings of the
+ * {@link pt.davidafsilva.jevents.bridge.SharedMemoryTransport}.
+ *
+ * The strategies trade CPU usage for latency: busy spinning yields the lowest latency
+ * while burning a whole core per waiting thread, whereas parking releases the CPU at the
+ * cost of the wake up latency.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public enum WaitStrategy {
+
+	/**
+	 * Spins continuously, without ever releasing the CPU.
+	 *
+	 * Only suitable when every producer and consumer thread has a dedicated core.
+	 */
+	BUSY_SPIN {
+		@Override
+		public void idle(final int attempt) {
+			// keep spinning
+		}
+	},
+
+	/**
+	 * Spins for a while and then yields the CPU to other threads.
+	 */
+	YIELD {
+		@Override
+		public void idle(final int attempt) {
+			if (attempt > SPIN_TRIES) {
+				Thread.yield();
+			}
+		}
+	},
+
+	/**
+	 * Spins for a while, then yields and eventually parks the thread for short periods.
+	 */
+	PARK {
+		@Override
+		public void idle(final int attempt) {
+			if (attempt > YIELD_TRIES) {
+				LockSupport.parkNanos(PARK_NANOS);
+			} else if (attempt > SPIN_TRIES) {
+				Thread.yield();
+			}
+		}
+	};
+
+	// number of attempts spent spinning
+	private static final int SPIN_TRIES = 100;
+
+	// number of attempts spent spinning or yielding
+	private static final int YIELD_TRIES = 200;
+
+	// the park period
+	private static final long PARK_NANOS = 50_000L;
+
+	/**
+	 * Waits according to this strategy.
+	 *
+	 * @param attempt
+	 * 		the number of consecutive unsuccessful attempts so far, starting at 1
+	 */
+	public abstract void idle(int attempt);
+}
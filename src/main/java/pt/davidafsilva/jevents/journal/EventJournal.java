@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.journal;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.CodecRegistry;
+import pt.davidafsilva.jevents.codec.EventCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, append-only log of events, backed by memory-mapped segment files.
+ *
+ * Events are encoded by the given {@link pt.davidafsilva.jevents.codec.EventCodec} straight into the
+ * mapped segment, without any intermediate allocation, and identified by their offset: the position of
+ * their record in the whole log. Once a segment is full, a new one is started at the offset where the
+ * previous one ends and the oldest segments are deleted according to the {@link JournalPolicy}.
+ *
+ * The appended events are forced to the storage device according to the sync settings of the policy,
+ * hence the events appended since the last sync may be lost on a system crash, although not on a process
+ * crash. Records torn by a crash are discarded when the journal is opened.
+ *
+ * The events are read back through {@link #replay(long, java.util.function.Consumer)}, which may run concurrently
+ * with the appends. The journal is usually installed in the
+ * {@link pt.davidafsilva.jevents.dispatcher.EventDispatcher#setJournal(EventJournal) event dispatcher}.
+ * When replaying in a process other than the one which appended the events, their classes must be registered
+ * in the {@link pt.davidafsilva.jevents.codec.CodecRegistry codec registry} beforehand.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class EventJournal implements Closeable {
+
+	// the journal directory
+	private final Path directory;
+
+	// the codec of the events
+	private final EventCodec<Event> codec;
+
+	// the journal policy
+	private final JournalPolicy policy;
+
+	// the base offsets of the retained segments, in ascending order
+	private final List<Long> segments;
+
+	// the checksum of the records being appended
+	private final CRC32 checksum = new CRC32();
+
+	// the periodic sync timer, if any
+	private final ScheduledThreadPoolExecutor timer;
+
+	// the segment being written
+	private Segment active;
+
+	// the write position in the active segment
+	private int position;
+
+	// the number of appends since the last sync
+	private int unsynced;
+
+	// whether or not the journal was closed
+	private boolean closed;
+
+	/**
+	 * Creates a new journal
+	 *
+	 * @param directory
+	 * 		the journal directory
+	 * @param codec
+	 * 		the codec of the events
+	 * @param policy
+	 * 		the journal policy
+	 * @param segments
+	 * 		the base offsets of the existing segments
+	 * @throws java.io.IOException
+	 * 		if the last segment could not be opened
+	 */
+	private EventJournal(final Path directory, final EventCodec<Event> codec, final JournalPolicy policy,
+			final List<Long> segments) throws IOException {
+		this.directory = directory;
+		this.codec = codec;
+		this.policy = policy;
+		this.segments = segments;
+		if (segments.isEmpty()) {
+			segments.add(0L);
+		}
+		this.active = Segment.open(directory, segments.get(segments.size() - 1), policy.getSegmentSize());
+		this.position = active.recover(checksum);
+		retain();
+
+		final long interval = policy.getSyncInterval(TimeUnit.NANOSECONDS);
+		if (interval > 0) {
+			this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+				final Thread thread = new Thread(runnable, "jevents-journal-sync");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.timer.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.NANOSECONDS);
+		} else {
+			this.timer = null;
+		}
+	}
+
+	/**
+	 * Opens, or creates, the journal in the given directory with the {@link JournalPolicy#DEFAULT default policy},
+	 * where the events are encoded by the {@link pt.davidafsilva.jevents.codec.CodecRegistry codec registry}
+	 *
+	 * @param directory
+	 * 		the journal directory, which is created if needed
+	 * @return the journal
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>directory</code> is <code>null</code>
+	 * @throws java.io.IOException
+	 * 		if the journal could not be opened
+	 */
+	public static EventJournal open(final Path directory) throws IOException {
+		return open(directory, CodecRegistry.INSTANCE, JournalPolicy.DEFAULT);
+	}
+
+	/**
+	 * Opens, or creates, the journal in the given directory with the {@link JournalPolicy#DEFAULT default policy}
+	 *
+	 * @param directory
+	 * 		the journal directory, which is created if needed
+	 * @param codec
+	 * 		the codec of the events
+	 * @return the journal
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>
+	 * @throws java.io.IOException
+	 * 		if the journal could not be opened
+	 */
+	public static EventJournal open(final Path directory, final EventCodec<Event> codec) throws IOException {
+		return open(directory, codec, JournalPolicy.DEFAULT);
+	}
+
+	/**
+	 * Opens, or creates, the journal in the given directory.
+	 *
+	 * The segments written so far are kept, the new events being appended after the last valid record.
+	 *
+	 * @param directory
+	 * 		the journal directory, which is created if needed
+	 * @param codec
+	 * 		the codec of the events
+	 * @param policy
+	 * 		the journal policy
+	 * @return the journal
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>
+	 * @throws java.io.IOException
+	 * 		if the journal could not be opened
+	 */
+	public static EventJournal open(final Path directory, final EventCodec<Event> codec, final JournalPolicy policy)
+			throws IOException {
+		if (directory == null) {
+			throw new NullPointerException("Invalid directory.");
+		}
+		if (codec == null) {
+			throw new NullPointerException("Invalid codec.");
+		}
+		if (policy == null) {
+			throw new NullPointerException("Invalid policy.");
+		}
+		Files.createDirectories(directory);
+		final List<Long> segments = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				final long baseOffset = Segment.baseOffsetOf(file.getFileName().toString());
+				if (baseOffset >= 0) {
+					segments.add(baseOffset);
+				}
+			}
+		}
+		Collections.sort(segments);
+		return new EventJournal(directory, codec, policy, segments);
+	}
+
+	/**
+	 * Appends the given event to the journal, rolling the segment if it is full.
+	 *
+	 * @param event
+	 * 		the event to append
+	 * @return the offset of the appended event
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the encoded event does not fit in an empty segment, or is empty
+	 * @throws java.lang.IllegalStateException
+	 * 		if the journal is closed
+	 * @throws java.io.UncheckedIOException
+	 * 		if a new segment could not be created
+	 */
+	public synchronized long append(final Event event) {
+		if (event == null) {
+			throw new NullPointerException("Invalid event.");
+		}
+		ensureOpen();
+		int end = write(event);
+		if (end < 0 && position > 0) {
+			roll();
+			end = write(event);
+		}
+		if (end < 0) {
+			throw new IllegalArgumentException("The event does not fit in a journal segment: " + event);
+		}
+		final long offset = active.baseOffset() + position;
+		position = end;
+		final int syncBatch = policy.getSyncBatch();
+		if (syncBatch > 0 && ++unsynced >= syncBatch) {
+			active.force();
+			unsynced = 0;
+		}
+		return offset;
+	}
+
+	/**
+	 * Encodes the given event as a record at the write position of the active segment,
+	 * without moving the write position
+	 *
+	 * @param event
+	 * 		the event to encode
+	 * @return the end position of the record or <code>-1</code> if there is not enough room in the segment
+	 */
+	private int write(final Event event) {
+		final MappedByteBuffer buffer = active.buffer();
+		final int capacity = buffer.capacity();
+		if (capacity - position < Segment.HEADER) {
+			return -1;
+		}
+		buffer.limit(capacity).position(position + Segment.HEADER);
+		try {
+			codec.encode(event, buffer);
+		} catch (BufferOverflowException e) {
+			return -1;
+		}
+		final int end = buffer.position();
+		final int length = end - position - Segment.HEADER;
+		if (length == 0) {
+			throw new IllegalArgumentException("The codec encoded an empty event: " + event);
+		}
+		checksum.reset();
+		buffer.limit(end).position(position + Segment.HEADER);
+		checksum.update(buffer);
+		buffer.limit(capacity);
+
+		// the length is written last, as it marks the record as complete
+		buffer.putInt(position + 4, (int) checksum.getValue());
+		buffer.putInt(position, length);
+		return end;
+	}
+
+	/**
+	 * Closes the active segment, starting a new one at its end, and deletes the segments which
+	 * are no longer retained
+	 */
+	private void roll() {
+		final long baseOffset = active.baseOffset() + position;
+		try {
+			active.close();
+			active = Segment.open(directory, baseOffset, policy.getSegmentSize());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		segments.add(baseOffset);
+		position = 0;
+		unsynced = 0;
+		retain();
+	}
+
+	/**
+	 * Deletes the oldest segments, as long as there are more than the retained ones
+	 */
+	private void retain() {
+		while (segments.size() > policy.getRetainedSegments()) {
+			try {
+				Files.deleteIfExists(Segment.pathOf(directory, segments.remove(0)));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Forces the appended events to the storage device, unless the journal is closed
+	 */
+	public synchronized void sync() {
+		if (closed) {
+			return;
+		}
+		active.force();
+		unsynced = 0;
+	}
+
+	/**
+	 * Returns the offset of the oldest retained event
+	 *
+	 * @return the start offset
+	 */
+	public synchronized long getStartOffset() {
+		return segments.get(0);
+	}
+
+	/**
+	 * Returns the offset where the next event will be appended
+	 *
+	 * @return the end offset
+	 */
+	public synchronized long getEndOffset() {
+		return active.baseOffset() + position;
+	}
+
+	/**
+	 * Returns the number of segments currently retained
+	 *
+	 * @return the segment count
+	 */
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Reads the events appended from the given offset up to the current end of the journal,
+	 * handing them to the given consumer in their append order.
+	 *
+	 * The segments deleted meanwhile, due to the retention, are skipped.
+	 *
+	 * @param fromOffset
+	 * 		the offset of the first event to read, as returned by {@link #append(Event)}
+	 * 		or {@link #getStartOffset()}
+	 * @param consumer
+	 * 		the consumer of the events
+	 * @return the offset following the last read event, from where a subsequent replay may resume
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>consumer</code> is <code>null</code>
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>fromOffset</code> is not within the retained offsets
+	 * @throws java.lang.IllegalStateException
+	 * 		if the journal is closed
+	 * @throws java.io.IOException
+	 * 		if a segment could not be read or there is no valid record at an offset
+	 */
+	public long replay(final long fromOffset, final Consumer<? super Event> consumer) throws IOException {
+		if (consumer == null) {
+			throw new NullPointerException("Invalid consumer.");
+		}
+		final long[] baseOffsets;
+		final long endOffset;
+		synchronized (this) {
+			ensureOpen();
+			baseOffsets = segments.stream().mapToLong(Long::longValue).toArray();
+			endOffset = active.baseOffset() + position;
+		}
+		if (fromOffset < baseOffsets[0] || fromOffset > endOffset) {
+			throw new IllegalArgumentException("Invalid offset: " + fromOffset);
+		}
+
+		int segment = baseOffsets.length - 1;
+		while (baseOffsets[segment] > fromOffset) {
+			segment--;
+		}
+		final CRC32 checksum = new CRC32();
+		long offset = fromOffset;
+		for (; segment < baseOffsets.length && offset < endOffset; segment++) {
+			final long baseOffset = baseOffsets[segment];
+			final long segmentEnd = segment + 1 < baseOffsets.length ? baseOffsets[segment + 1] : endOffset;
+			final MappedByteBuffer buffer;
+			try {
+				buffer = Segment.read(Segment.pathOf(directory, baseOffset));
+			} catch (NoSuchFileException e) {
+				offset = segmentEnd;
+				continue;
+			}
+			int cursor = (int) (Math.max(offset, baseOffset) - baseOffset);
+			final int end = (int) (segmentEnd - baseOffset);
+			while (cursor < end) {
+				final int next = Segment.next(buffer, cursor, checksum);
+				if (next < 0) {
+					throw new IOException("No valid event at offset " + (baseOffset + cursor));
+				}
+				buffer.limit(next).position(cursor + Segment.HEADER);
+				consumer.accept(codec.decode(buffer));
+				buffer.limit(buffer.capacity());
+				cursor = next;
+			}
+			offset = segmentEnd;
+		}
+		return offset;
+	}
+
+	/**
+	 * Syncs and closes the journal: subsequent appends are rejected.
+	 *
+	 * @throws java.io.IOException
+	 * 		if the active segment could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (timer != null) {
+			timer.shutdownNow();
+		}
+		synchronized (this) {
+			if (!closed) {
+				closed = true;
+				active.close();
+			}
+		}
+	}
+
+	/**
+	 * Ensures that the journal is still open
+	 *
+	 * @throws java.lang.IllegalStateException
+	 * 		if the journal is closed
+	 */
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("The journal is closed.");
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.journal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The policy which rules how the {@link pt.davidafsilva.jevents.journal.EventJournal} lays out and
+ * persists its segments.
+ *
+ * The journal is split into segments of a fixed size, the oldest ones being deleted once the number
+ * of retained segments is exceeded. The appended events are forced to the storage device in batches:
+ * after a number of appends and/or periodically, besides every segment roll and the journal close.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class JournalPolicy {
+
+	/**
+	 * The default policy: segments of 64MB, all of them retained, which are synced every 1024 appends.
+	 */
+	public static final JournalPolicy DEFAULT = new JournalPolicy(64 * 1024 * 1024, Integer.MAX_VALUE, 1024, 0L);
+
+	// the smallest segment size
+	private static final int MIN_SEGMENT_SIZE = 4096;
+
+	// the size of each segment, in bytes
+	private final int segmentSize;
+
+	// the maximum number of segments kept on disk
+	private final int retainedSegments;
+
+	// the number of appends after which the journal is synced, 0 if none
+	private final int syncBatch;
+
+	// the interval between periodic syncs, in nanoseconds, 0 if none
+	private final long syncIntervalNanos;
+
+	/**
+	 * Creates a new journal policy
+	 *
+	 * @param segmentSize
+	 * 		the segment size
+	 * @param retainedSegments
+	 * 		the retained segments
+	 * @param syncBatch
+	 * 		the sync batch
+	 * @param syncIntervalNanos
+	 * 		the sync interval
+	 */
+	private JournalPolicy(final int segmentSize, final int retainedSegments, final int syncBatch,
+			final long syncIntervalNanos) {
+		this.segmentSize = segmentSize;
+		this.retainedSegments = retainedSegments;
+		this.syncBatch = syncBatch;
+		this.syncIntervalNanos = syncIntervalNanos;
+	}
+
+	/**
+	 * Creates a new journal policy, with the default sync batch
+	 *
+	 * @param segmentSize
+	 * 		the size of each segment, in bytes
+	 * @param retainedSegments
+	 * 		the maximum number of segments kept on disk, including the one being written
+	 * @return the journal policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>segmentSize</code> is lesser than 4096 or <code>retainedSegments</code> is lesser than 1
+	 */
+	public static JournalPolicy of(final int segmentSize, final int retainedSegments) {
+		if (segmentSize < MIN_SEGMENT_SIZE) {
+			throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+		}
+		if (retainedSegments < 1) {
+			throw new IllegalArgumentException("Invalid retained segments: " + retainedSegments);
+		}
+		return new JournalPolicy(segmentSize, retainedSegments, DEFAULT.syncBatch, DEFAULT.syncIntervalNanos);
+	}
+
+	/**
+	 * Creates a copy of this policy with the given sync settings
+	 *
+	 * @param batch
+	 * 		the number of appends after which the journal is synced, 0 to disable
+	 * @param interval
+	 * 		the interval between periodic syncs, 0 to disable
+	 * @param unit
+	 * 		the time unit of the interval argument
+	 * @return the new policy
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>batch</code> or <code>interval</code> is negative
+	 */
+	public JournalPolicy withSync(final int batch, final long interval, final TimeUnit unit) {
+		if (batch < 0) {
+			throw new IllegalArgumentException("Invalid sync batch: " + batch);
+		}
+		if (interval < 0) {
+			throw new IllegalArgumentException("Invalid sync interval: " + interval);
+		}
+		return new JournalPolicy(segmentSize, retainedSegments, batch, unit.toNanos(interval));
+	}
+
+	/**
+	 * Returns the size of each segment, in bytes
+	 *
+	 * @return the segment size
+	 */
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * Returns the maximum number of segments kept on disk
+	 *
+	 * @return the retained segments
+	 */
+	public int getRetainedSegments() {
+		return retainedSegments;
+	}
+
+	/**
+	 * Returns the number of appends after which the journal is synced
+	 *
+	 * @return the sync batch, 0 if disabled
+	 */
+	public int getSyncBatch() {
+		return syncBatch;
+	}
+
+	/**
+	 * Returns the interval between periodic syncs
+	 *
+	 * @param unit
+	 * 		the desired time unit
+	 * @return the sync interval, 0 if disabled
+	 */
+	public long getSyncInterval(final TimeUnit unit) {
+		return unit.convert(syncIntervalNanos, TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A memory-mapped segment of the {@link pt.davidafsilva.jevents.journal.EventJournal}.
+ *
+ * Each record is laid out as its length and checksum, followed by the encoded event. The length
+ * is written last, hence a zero length marks the end of the written records, while a checksum
+ * mismatch marks a record torn by a crash.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class Segment {
+
+	/**
+	 * The size of the record header: the payload length and checksum
+	 */
+	static final int HEADER = 8;
+
+	// the file name suffix
+	private static final String SUFFIX = ".log";
+
+	// the offset of the first byte of this segment
+	private final long baseOffset;
+
+	// the segment file
+	private final Path path;
+
+	// the file channel
+	private final FileChannel channel;
+
+	// the mapped contents
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Creates a new segment
+	 *
+	 * @param baseOffset
+	 * 		the base offset
+	 * @param path
+	 * 		the segment file
+	 * @param channel
+	 * 		the file channel
+	 * @param buffer
+	 * 		the mapped contents
+	 */
+	private Segment(final long baseOffset, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+		this.baseOffset = baseOffset;
+		this.path = path;
+		this.channel = channel;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Opens, or creates, the segment starting at the given offset for writing
+	 *
+	 * @param directory
+	 * 		the journal directory
+	 * @param baseOffset
+	 * 		the base offset of the segment
+	 * @param size
+	 * 		the minimum segment size
+	 * @return the segment
+	 * @throws java.io.IOException
+	 * 		if the segment could not be opened
+	 */
+	static Segment open(final Path directory, final long baseOffset, final int size) throws IOException {
+		final Path path = pathOf(directory, baseOffset);
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			final long capacity = Math.max(channel.size(), size);
+			if (capacity > Integer.MAX_VALUE) {
+				throw new IOException("Segment too large: " + path);
+			}
+			return new Segment(baseOffset, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Maps the given segment file for reading
+	 *
+	 * @param path
+	 * 		the segment file
+	 * @return the mapped contents
+	 * @throws java.io.IOException
+	 * 		if the segment could not be read
+	 */
+	static MappedByteBuffer read(final Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * Returns the file of the segment starting at the given offset
+	 *
+	 * @param directory
+	 * 		the journal directory
+	 * @param baseOffset
+	 * 		the base offset
+	 * @return the segment file
+	 */
+	static Path pathOf(final Path directory, final long baseOffset) {
+		return directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+	}
+
+	/**
+	 * Parses the base offset of the given segment file name
+	 *
+	 * @param fileName
+	 * 		the file name
+	 * @return the base offset or <code>-1</code> if the name does not belong to a segment
+	 */
+	static long baseOffsetOf(final String fileName) {
+		if (fileName.length() != 20 + SUFFIX.length() || !fileName.endsWith(SUFFIX)) {
+			return -1L;
+		}
+		for (int i = 0; i < 20; i++) {
+			if (!Character.isDigit(fileName.charAt(i))) {
+				return -1L;
+			}
+		}
+		return Long.parseLong(fileName.substring(0, 20));
+	}
+
+	/**
+	 * Validates the record at the given position of the buffer.
+	 *
+	 * The position and limit of the buffer are restored once done.
+	 *
+	 * @param buffer
+	 * 		the segment contents
+	 * @param position
+	 * 		the record position
+	 * @param checksum
+	 * 		the checksum used for validating the record
+	 * @return the position of the following record or <code>-1</code> if there is no valid record at the position
+	 */
+	static int next(final ByteBuffer buffer, final int position, final CRC32 checksum) {
+		final int capacity = buffer.capacity();
+		if (capacity - position < HEADER) {
+			return -1;
+		}
+		final int length = buffer.getInt(position);
+		if (length <= 0 || length > capacity - position - HEADER) {
+			return -1;
+		}
+		final int end = position + HEADER + length;
+		checksum.reset();
+		buffer.limit(end).position(position + HEADER);
+		checksum.update(buffer);
+		buffer.limit(capacity).position(0);
+		return (int) checksum.getValue() == buffer.getInt(position + 4) ? end : -1;
+	}
+
+	/**
+	 * Finds the end of the valid records, wiping any torn record after them
+	 *
+	 * @param checksum
+	 * 		the checksum used for validating the records
+	 * @return the write position
+	 */
+	int recover(final CRC32 checksum) {
+		int position = 0;
+		for (int next = next(buffer, position, checksum); next > 0; next = next(buffer, position, checksum)) {
+			position = next;
+		}
+		if (buffer.capacity() - position >= HEADER && buffer.getInt(position) != 0) {
+			// a torn record: wipe the remaining contents, so that stale records are never read past new ones
+			for (int i = position; i < buffer.capacity(); i++) {
+				buffer.put(i, (byte) 0);
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Returns the offset of the first byte of this segment
+	 *
+	 * @return the base offset
+	 */
+	long baseOffset() {
+		return baseOffset;
+	}
+
+	/**
+	 * Returns the segment file
+	 *
+	 * @return the segment file
+	 */
+	Path path() {
+		return path;
+	}
+
+	/**
+	 * Returns the mapped contents of the segment
+	 *
+	 * @return the mapped contents
+	 */
+	MappedByteBuffer buffer() {
+		return buffer;
+	}
+
+	/**
+	 * Forces the written records to the storage device
+	 */
+	void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Forces the written records to the storage device and closes the segment file
+	 *
+	 * @throws java.io.IOException
+	 * 		if the file could not be closed
+	 */
+	void close() throws IOException {
+		buffer.force();
+		channel.close();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+/**
+ * The service provider interface for collecting the event bus metrics.
+ *
+ * Implementations are installed per bus, through
+ * {@link pt.davidafsilva.jevents.dispatcher.BusDispatcher#setMetrics(EventMetrics)}, and are
+ * notified from the dispatching hot path, hence they must be thread safe and should neither
+ * block nor allocate. All of the notifications are no-ops by default.
+ *
+ * When the metrics are {@link #NONE disabled}, the dispatchers skip the notifications altogether.
+ *
+ * @author David Silva
+ * @since 1.0
+ * @see pt.davidafsilva.jevents.metrics.StandardEventMetrics
+ */
+public interface EventMetrics {
+
+	/**
+	 * The disabled metrics
+	 */
+	EventMetrics NONE = new EventMetrics() {
+	};
+
+	/**
+	 * Notifies that an event was dispatched.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @param listenerCount
+	 * 		the number of target listeners
+	 * @param async
+	 * 		whether or not the event was dispatched asynchronously
+	 */
+	default void dispatched(Class<? extends Event> eventType, int listenerCount, boolean async) {
+	}
+
+	/**
+	 * Notifies that an asynchronous dispatch was queued for execution.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 */
+	default void queued(Class<? extends Event> eventType) {
+	}
+
+	/**
+	 * Notifies that a previously queued dispatch left the queue, either to be executed or dropped.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 */
+	default void dequeued(Class<? extends Event> eventType) {
+	}
+
+	/**
+	 * Notifies that a dispatch was rejected or dropped.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 */
+	default void rejected(Class<? extends Event> eventType) {
+	}
+
+	/**
+	 * Notifies that a pending asynchronous dispatch was conflated, i.e. replaced by a newer event with the
+	 * same {@link pt.davidafsilva.jevents.Event#getConflationKey() conflation key} before being executed.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 */
+	default void conflated(Class<? extends Event> eventType) {
+	}
+
+	/**
+	 * Notifies that a listener handled an event.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @param listener
+	 * 		the listener
+	 * @param nanos
+	 * 		the handling time, in nanoseconds
+	 */
+	default void handled(Class<? extends Event> eventType, EventListener<?> listener, long nanos) {
+	}
+
+	/**
+	 * Notifies that a listener failed to handle an event.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @param listener
+	 * 		the listener
+	 * @param cause
+	 * 		the failure cause
+	 */
+	default void failed(Class<? extends Event> eventType, EventListener<?> listener, Throwable cause) {
+	}
+
+	/**
+	 * Notifies that a batch listener failed to handle a batch of events.
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @param listener
+	 * 		the batch listener
+	 * @param cause
+	 * 		the failure cause
+	 */
+	default void batchFailed(Class<? extends Event> eventType, BatchEventListener<?> listener, Throwable cause) {
+	}
+
+	/**
+	 * Notifies that a listener was removed from the registry, either unregistered or purged once collected,
+	 * hence its metrics may be discarded.
+	 *
+	 * Unlike the other notifications, it's issued by the thread modifying the registry.
+	 *
+	 * @param listener
+	 * 		the removed listener
+	 */
+	default void removed(EventListener<?> listener) {
+	}
+}
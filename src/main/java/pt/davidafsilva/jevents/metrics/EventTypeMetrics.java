@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a single event type, as collected by the {@link StandardEventMetrics}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class EventTypeMetrics implements EventTypeMetricsMXBean {
+
+	// the event class
+	private final Class<?> eventType;
+
+	// the counters
+	private final LongAdder dispatches = new LongAdder();
+	private final LongAdder asyncDispatches = new LongAdder();
+	private final AtomicLong queueDepth = new AtomicLong();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder conflated = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	// the number of listeners of the last dispatch
+	private volatile int listenerCount;
+
+	/**
+	 * Creates the metrics of the given event type
+	 *
+	 * @param eventType
+	 * 		the event class
+	 */
+	EventTypeMetrics(final Class<?> eventType) {
+		this.eventType = eventType;
+	}
+
+	/**
+	 * Records a dispatch
+	 *
+	 * @param listeners
+	 * 		the number of target listeners
+	 * @param async
+	 * 		the async flag
+	 */
+	void dispatched(final int listeners, final boolean async) {
+		dispatches.increment();
+		if (async) {
+			asyncDispatches.increment();
+		}
+		if (listenerCount != listeners) {
+			listenerCount = listeners;
+		}
+	}
+
+	/**
+	 * Records a queued dispatch
+	 */
+	void queued() {
+		queueDepth.incrementAndGet();
+	}
+
+	/**
+	 * Records a dispatch leaving the queue
+	 */
+	void dequeued() {
+		queueDepth.decrementAndGet();
+	}
+
+	/**
+	 * Records a rejected dispatch
+	 */
+	void rejected() {
+		rejected.increment();
+	}
+
+	/**
+	 * Records a conflated dispatch
+	 */
+	void conflated() {
+		conflated.increment();
+	}
+
+	/**
+	 * Records a listener failure
+	 */
+	void failed() {
+		failed.increment();
+	}
+
+	@Override
+	public String getEventType() {
+		return eventType.getName();
+	}
+
+	@Override
+	public long getDispatchCount() {
+		return dispatches.sum();
+	}
+
+	@Override
+	public long getAsyncDispatchCount() {
+		return asyncDispatches.sum();
+	}
+
+	@Override
+	public int getListenerCount() {
+		return listenerCount;
+	}
+
+	@Override
+	public long getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	@Override
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	@Override
+	public long getConflatedCount() {
+		return conflated.sum();
+	}
+
+	@Override
+	public long getFailedCount() {
+		return failed.sum();
+	}
+}
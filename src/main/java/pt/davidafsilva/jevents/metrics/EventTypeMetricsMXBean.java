@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+/**
+ * The metrics of a single event type.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public interface EventTypeMetricsMXBean {
+
+	/**
+	 * Returns the name of the event class
+	 *
+	 * @return the event class name
+	 */
+	String getEventType();
+
+	/**
+	 * Returns the number of dispatches, either synchronous or asynchronous
+	 *
+	 * @return the dispatch count
+	 */
+	long getDispatchCount();
+
+	/**
+	 * Returns the number of asynchronous dispatches
+	 *
+	 * @return the async dispatch count
+	 */
+	long getAsyncDispatchCount();
+
+	/**
+	 * Returns the number of listeners targeted by the last dispatch
+	 *
+	 * @return the listener count
+	 */
+	int getListenerCount();
+
+	/**
+	 * Returns the number of asynchronous dispatches waiting to be executed
+	 *
+	 * @return the queue depth
+	 */
+	long getQueueDepth();
+
+	/**
+	 * Returns the number of rejected or dropped dispatches
+	 *
+	 * @return the rejected count
+	 */
+	long getRejectedCount();
+
+	/**
+	 * Returns the number of asynchronous dispatches replaced by a newer event with the same conflation key
+	 *
+	 * @return the conflated count
+	 */
+	long getConflatedCount();
+
+	/**
+	 * Returns the number of listener failures
+	 *
+	 * @return the failed count
+	 */
+	long getFailedCount();
+}
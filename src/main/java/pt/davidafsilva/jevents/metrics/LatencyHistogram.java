@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of non-negative values, such as latencies in nanoseconds, with
+ * log-linear buckets in the fashion of HDR histograms.
+ *
+ * Values lesser than 16 are recorded exactly, while the greater ones are recorded in one of
+ * the 8 linear buckets of their power of two magnitude, which bounds the relative error
+ * of the reported values to 12.5%.
+ * Buckets are preallocated, hence recording a value requires no allocation nor locking.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class LatencyHistogram {
+
+	// the number of bits of the exact range, which defines the number of buckets per magnitude
+	private static final int SUB_BUCKET_BITS = 4;
+
+	// the number of buckets per magnitude
+	private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+
+	// the total number of buckets, which covers every positive long value
+	private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+	// the bucket counts
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	// the total number of recorded values
+	private final AtomicLong count = new AtomicLong();
+
+	// the sum of the recorded values
+	private final AtomicLong sum = new AtomicLong();
+
+	// the maximum recorded value
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records the given value, negative values being recorded as 0.
+	 *
+	 * @param value
+	 * 		the value to be recorded
+	 */
+	public void record(final long value) {
+		final long recorded = Math.max(0L, value);
+		counts.incrementAndGet(bucketOf(recorded));
+		count.incrementAndGet();
+		sum.addAndGet(recorded);
+		long current = max.get();
+		while (recorded > current && !max.compareAndSet(current, recorded)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Returns the number of recorded values
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the maximum recorded value
+	 *
+	 * @return the maximum value or 0 if there are no values
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the recorded values
+	 *
+	 * @return the mean or 0 if there are no values
+	 */
+	public double getMean() {
+		final long total = count.get();
+		return total == 0 ? 0d : (double) sum.get() / total;
+	}
+
+	/**
+	 * Returns the value at the given percentile, that is the highest value equivalent to
+	 * the bucket which holds the percentile.
+	 *
+	 * @param percentile
+	 * 		the percentile, between 0 and 100
+	 * @return the value at the percentile or 0 if there are no values
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if <code>percentile</code> is out of range
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		if (percentile < 0d || percentile > 100d) {
+			throw new IllegalArgumentException("Invalid percentile: " + percentile);
+		}
+		final long total = count.get();
+		if (total == 0) {
+			return 0L;
+		}
+		final long target = Math.max(1L, (long) Math.ceil(percentile / 100d * total));
+		long accumulated = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			accumulated += counts.get(i);
+			if (accumulated >= target) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Clears all of the recorded values.
+	 *
+	 * Values recorded concurrently may or may not be kept.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0L);
+		}
+		count.set(0L);
+		sum.set(0L);
+		max.set(0L);
+	}
+
+	/**
+	 * Returns the bucket index of the given value
+	 *
+	 * @param value
+	 * 		the non-negative value
+	 * @return the bucket index
+	 */
+	static int bucketOf(final long value) {
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value | 1L);
+		if (magnitude < SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		final int shift = magnitude - SUB_BUCKET_BITS + 1;
+		return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the highest value held by the given bucket
+	 *
+	 * @param bucket
+	 * 		the bucket index
+	 * @return the highest value of the bucket
+	 */
+	static long highestValueOf(final int bucket) {
+		if (bucket < 2 * HALF_SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = bucket / HALF_SUB_BUCKETS - 1;
+		final long lowest = (long) (bucket - shift * HALF_SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
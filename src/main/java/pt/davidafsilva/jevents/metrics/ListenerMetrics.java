@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a single listener, as collected by the {@link StandardEventMetrics}.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerMetrics implements ListenerMetricsMXBean {
+
+	// the listener description
+	private final String listener;
+
+	// the event class
+	private final Class<?> eventType;
+
+	// the handling times
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	// the number of failures
+	private final LongAdder failed = new LongAdder();
+
+	// the name under which the metrics are exported, if any
+	private volatile ObjectName objectName;
+
+	/**
+	 * Creates the metrics of a listener
+	 *
+	 * @param listener
+	 * 		the listener description
+	 * @param eventType
+	 * 		the event class
+	 */
+	ListenerMetrics(final String listener, final Class<?> eventType) {
+		this.listener = listener;
+		this.eventType = eventType;
+	}
+
+	/**
+	 * Returns the histogram of the handling times
+	 *
+	 * @return the histogram
+	 */
+	LatencyHistogram histogram() {
+		return histogram;
+	}
+
+	/**
+	 * Returns the name under which the metrics are exported
+	 *
+	 * @return the name or <code>null</code> if not exported
+	 */
+	ObjectName objectName() {
+		return objectName;
+	}
+
+	/**
+	 * Sets the name under which the metrics are exported
+	 *
+	 * @param objectName
+	 * 		the name
+	 */
+	void exportedAs(final ObjectName objectName) {
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Records a failure
+	 */
+	void failed() {
+		failed.increment();
+	}
+
+	@Override
+	public String getListener() {
+		return listener;
+	}
+
+	@Override
+	public String getEventType() {
+		return eventType.getName();
+	}
+
+	@Override
+	public long getHandledCount() {
+		return histogram.getCount();
+	}
+
+	@Override
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	@Override
+	public double getMeanNanos() {
+		return histogram.getMean();
+	}
+
+	@Override
+	public long getMaxNanos() {
+		return histogram.getMax();
+	}
+
+	@Override
+	public long getP50Nanos() {
+		return histogram.getValueAtPercentile(50d);
+	}
+
+	@Override
+	public long getP99Nanos() {
+		return histogram.getValueAtPercentile(99d);
+	}
+
+	@Override
+	public long getP999Nanos() {
+		return histogram.getValueAtPercentile(99.9d);
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+/**
+ * The metrics of a single listener.
+ *
+ * The handling times are reported in nanoseconds.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public interface ListenerMetricsMXBean {
+
+	/**
+	 * Returns the description of the listener
+	 *
+	 * @return the listener description
+	 */
+	String getListener();
+
+	/**
+	 * Returns the name of the handled event class
+	 *
+	 * @return the event class name
+	 */
+	String getEventType();
+
+	/**
+	 * Returns the number of handled events
+	 *
+	 * @return the handled count
+	 */
+	long getHandledCount();
+
+	/**
+	 * Returns the number of failures
+	 *
+	 * @return the failed count
+	 */
+	long getFailedCount();
+
+	/**
+	 * Returns the mean handling time
+	 *
+	 * @return the mean time
+	 */
+	double getMeanNanos();
+
+	/**
+	 * Returns the maximum handling time
+	 *
+	 * @return the maximum time
+	 */
+	long getMaxNanos();
+
+	/**
+	 * Returns the median handling time
+	 *
+	 * @return the 50th percentile
+	 */
+	long getP50Nanos();
+
+	/**
+	 * Returns the 99th percentile of the handling time
+	 *
+	 * @return the 99th percentile
+	 */
+	long getP99Nanos();
+
+	/**
+	 * Returns the 99.9th percentile of the handling time
+	 *
+	 * @return the 99.9th percentile
+	 */
+	long getP999Nanos();
+}
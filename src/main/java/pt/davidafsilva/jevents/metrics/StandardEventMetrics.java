@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.metrics;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The standard metrics implementation, which keeps counters per event type and a
+ * {@link pt.davidafsilva.jevents.metrics.LatencyHistogram handling time histogram} per listener.
+ *
+ * The metrics of each event type and listener are created on the first notification, and
+ * recorded without allocation from then on. Exported metrics are also registered in the platform
+ * MBean server, under the <code>pt.davidafsilva.jevents</code> domain, until they are {@link #close() closed}.
+ *
+ * The listeners are tracked weakly and by identity: the metrics of a listener are discarded, and unregistered
+ * from the MBean server, once it's removed from the registry or collected, whichever comes first.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class StandardEventMetrics implements EventMetrics {
+
+	// the JMX domain
+	private static final String DOMAIN = "pt.davidafsilva.jevents";
+
+	// the metrics per event type
+	private final ConcurrentMap<Class<?>, EventTypeMetrics> types = new ConcurrentHashMap<>();
+
+	// the metrics per listener, weakly keyed by identity
+	private final ConcurrentMap<Object, ListenerMetrics> listeners = new ConcurrentHashMap<>();
+
+	// the keys of the collected listeners
+	private final ReferenceQueue<EventListener<?>> collected = new ReferenceQueue<>();
+
+	// the lookup key of the current thread, reused so that lookups don't allocate
+	private final ThreadLocal<Lookup> lookups = ThreadLocal.withInitial(Lookup::new);
+
+	// the server where the metrics are exported, if any
+	private final MBeanServer server;
+
+	// the name of these metrics, within the JMX domain
+	private final String name;
+
+	// the registered MBean names
+	private final Set<ObjectName> registered = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	/**
+	 * Creates new standard metrics
+	 *
+	 * @param server
+	 * 		the server where the metrics are exported, if any
+	 * @param name
+	 * 		the name of the metrics
+	 */
+	private StandardEventMetrics(final MBeanServer server, final String name) {
+		this.server = server;
+		this.name = name;
+	}
+
+	/**
+	 * Creates new standard metrics, which are not exported through JMX.
+	 *
+	 * @return the metrics
+	 */
+	public static StandardEventMetrics create() {
+		return new StandardEventMetrics(null, null);
+	}
+
+	/**
+	 * Creates new standard metrics, which are exported through JMX in the platform MBean server.
+	 *
+	 * @param name
+	 * 		the name which identifies the metrics in the MBean server, such as the application name
+	 * @return the metrics
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>name</code> is <code>null</code>
+	 */
+	public static StandardEventMetrics exported(final String name) {
+		if (name == null) {
+			throw new NullPointerException("Invalid name.");
+		}
+		return new StandardEventMetrics(ManagementFactory.getPlatformMBeanServer(), name);
+	}
+
+	@Override
+	public void dispatched(final Class<? extends Event> eventType, final int listenerCount, final boolean async) {
+		typeMetrics(eventType).dispatched(listenerCount, async);
+	}
+
+	@Override
+	public void queued(final Class<? extends Event> eventType) {
+		typeMetrics(eventType).queued();
+	}
+
+	@Override
+	public void dequeued(final Class<? extends Event> eventType) {
+		typeMetrics(eventType).dequeued();
+	}
+
+	@Override
+	public void rejected(final Class<? extends Event> eventType) {
+		typeMetrics(eventType).rejected();
+	}
+
+	@Override
+	public void conflated(final Class<? extends Event> eventType) {
+		typeMetrics(eventType).conflated();
+	}
+
+	@Override
+	public void handled(final Class<? extends Event> eventType, final EventListener<?> listener, final long nanos) {
+		listenerMetrics(eventType, listener).histogram().record(nanos);
+	}
+
+	@Override
+	public void failed(final Class<? extends Event> eventType, final EventListener<?> listener,
+			final Throwable cause) {
+		typeMetrics(eventType).failed();
+		listenerMetrics(eventType, listener).failed();
+	}
+
+	@Override
+	public void batchFailed(final Class<? extends Event> eventType, final BatchEventListener<?> listener,
+			final Throwable cause) {
+		typeMetrics(eventType).failed();
+	}
+
+	@Override
+	public void removed(final EventListener<?> listener) {
+		final Lookup lookup = lookups.get();
+		lookup.listener = listener;
+		try {
+			discard(listeners.remove(lookup));
+		} finally {
+			lookup.listener = null;
+		}
+		expunge();
+	}
+
+	/**
+	 * Returns the metrics of the given event type
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @return the metrics or <code>null</code> if the event type was not seen yet
+	 */
+	public EventTypeMetricsMXBean getEventTypeMetrics(final Class<? extends Event> eventType) {
+		return types.get(eventType);
+	}
+
+	/**
+	 * Returns the metrics of all of the event types seen so far
+	 *
+	 * @return the event type metrics
+	 */
+	public Collection<EventTypeMetricsMXBean> getEventTypeMetrics() {
+		return Collections.unmodifiableCollection(new ArrayList<>(types.values()));
+	}
+
+	/**
+	 * Returns the metrics of the given listener
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the metrics or <code>null</code> if the listener was not seen yet, or was removed since
+	 */
+	public ListenerMetricsMXBean getListenerMetrics(final EventListener<?> listener) {
+		return lookup(listener);
+	}
+
+	/**
+	 * Returns the metrics of all of the tracked listeners
+	 *
+	 * @return the listener metrics
+	 */
+	public Collection<ListenerMetricsMXBean> getListenerMetrics() {
+		return Collections.unmodifiableCollection(new ArrayList<>(listeners.values()));
+	}
+
+	/**
+	 * Unregisters the exported metrics from the MBean server and discards all of the collected metrics.
+	 */
+	public void close() {
+		for (ObjectName objectName : new ArrayList<>(registered)) {
+			unexport(objectName);
+		}
+		types.clear();
+		listeners.clear();
+	}
+
+	/**
+	 * Returns the metrics of the given event type, creating them if needed
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @return the event type metrics
+	 */
+	private EventTypeMetrics typeMetrics(final Class<?> eventType) {
+		final EventTypeMetrics metrics = types.get(eventType);
+		if (metrics != null) {
+			return metrics;
+		}
+		final EventTypeMetrics created = new EventTypeMetrics(eventType);
+		final EventTypeMetrics previous = types.putIfAbsent(eventType, created);
+		if (previous != null) {
+			return previous;
+		}
+		if (isExported()) {
+			export(created, "type=EventType,bus=" + ObjectName.quote(name) +
+					",name=" + ObjectName.quote(eventType.getName()));
+		}
+		return created;
+	}
+
+	/**
+	 * Returns the metrics of the given listener, creating them if needed
+	 *
+	 * @param eventType
+	 * 		the event class
+	 * @param listener
+	 * 		the listener
+	 * @return the listener metrics
+	 */
+	private ListenerMetrics listenerMetrics(final Class<?> eventType, final EventListener<?> listener) {
+		final ListenerMetrics metrics = lookup(listener);
+		if (metrics != null) {
+			return metrics;
+		}
+		expunge();
+		final ListenerMetrics created = new ListenerMetrics(String.valueOf(listener), eventType);
+		final ListenerMetrics previous = listeners.putIfAbsent(new ListenerKey(listener, collected), created);
+		if (previous != null) {
+			return previous;
+		}
+		if (isExported()) {
+			created.exportedAs(export(created, "type=Listener,bus=" + ObjectName.quote(name) +
+					",event=" + ObjectName.quote(eventType.getName()) +
+					",name=" + ObjectName.quote(created.getListener())));
+			if (lookup(listener) != created) {
+				// removed while being exported
+				discard(created);
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Returns the metrics of the given listener, if tracked
+	 *
+	 * @param listener
+	 * 		the listener
+	 * @return the listener metrics or <code>null</code> if not tracked
+	 */
+	private ListenerMetrics lookup(final EventListener<?> listener) {
+		final Lookup lookup = lookups.get();
+		lookup.listener = listener;
+		try {
+			return listeners.get(lookup);
+		} finally {
+			lookup.listener = null;
+		}
+	}
+
+	/**
+	 * Drops the metrics of the collected listeners
+	 */
+	private void expunge() {
+		Reference<?> key;
+		while ((key = collected.poll()) != null) {
+			discard(listeners.remove(key));
+		}
+	}
+
+	/**
+	 * Unregisters the given discarded listener metrics from the MBean server, if exported
+	 *
+	 * @param metrics
+	 * 		the discarded metrics or <code>null</code> if none
+	 */
+	private void discard(final ListenerMetrics metrics) {
+		if (metrics != null && metrics.objectName() != null) {
+			unexport(metrics.objectName());
+		}
+	}
+
+	/**
+	 * Returns whether or not the metrics are exported, in which case both the server and the name are set
+	 *
+	 * @return <code>true</code> if the metrics are exported, <code>false</code> otherwise
+	 */
+	private boolean isExported() {
+		return server != null && name != null;
+	}
+
+	/**
+	 * Registers the given metrics in the MBean server
+	 *
+	 * @param mbean
+	 * 		the metrics
+	 * @param properties
+	 * 		the key properties of the MBean name
+	 * @return the name of the registered MBean or <code>null</code> if it could not be registered
+	 */
+	private ObjectName export(final Object mbean, final String properties) {
+		try {
+			final ObjectName objectName = new ObjectName(DOMAIN + ':' + properties);
+			server.registerMBean(mbean, objectName);
+			registered.add(objectName);
+			return objectName;
+		} catch (JMException e) {
+			// the metrics are still collected, even if they cannot be exported
+			return null;
+		}
+	}
+
+	/**
+	 * Unregisters the MBean with the given name from the server, unless it was already unregistered
+	 *
+	 * @param objectName
+	 * 		the MBean name
+	 */
+	private void unexport(final ObjectName objectName) {
+		if (registered.remove(objectName)) {
+			try {
+				server.unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already unregistered
+			}
+		}
+	}
+
+	/**
+	 * The key of a tracked listener, which references it weakly and compares it by identity.
+	 */
+	private static final class ListenerKey extends WeakReference<EventListener<?>> {
+
+		// the identity hash code of the listener
+		private final int hash;
+
+		/**
+		 * Creates a new key for the given listener
+		 *
+		 * @param listener
+		 * 		the listener
+		 * @param queue
+		 * 		the queue where the key is enqueued once the listener is collected
+		 */
+		private ListenerKey(final EventListener<?> listener, final ReferenceQueue<EventListener<?>> queue) {
+			super(listener, queue);
+			this.hash = System.identityHashCode(listener);
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if (this == other) {
+				return true;
+			}
+			final Object listener = get();
+			return listener != null && other instanceof ListenerKey && listener == ((ListenerKey) other).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * The key used for looking up a listener, which matches its tracked key.
+	 */
+	private static final class Lookup {
+
+		// the listener being looked up
+		private EventListener<?> listener;
+
+		@Override
+		public boolean equals(final Object other) {
+			return other instanceof ListenerKey && listener == ((ListenerKey) other).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(listener);
+		}
+	}
+}
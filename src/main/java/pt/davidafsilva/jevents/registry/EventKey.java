@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.registry;
+
+import pt.davidafsilva.jevents.Event;
+
+import java.util.function.Function;
+
+/**
+ * A key extracted from the dispatched events, used for filtering the listeners at registration time.
+ *
+ * Listeners registered through
+ * {@link ListenerRegistry#register(Class, EventKey, Object, pt.davidafsilva.jevents.EventListener)}
+ * are only triggered by the events whose extracted key equals the registered value. The listeners of each
+ * event type are kept in a hash index per key instance, hence each key shall be created once and shared,
+ * typically as a constant:
+ * <pre>
+ * static final EventKey&lt;OrderEvent, String&gt; TENANT = EventKey.of(OrderEvent::getTenant);
+ * </pre>
+ *
+ * @param <E>
+ * 		the type of the events from which the key is extracted
+ * @param <K>
+ * 		the key type, which must honor {@link Object#equals(Object)} and {@link Object#hashCode()}
+ * @author David Silva
+ * @see pt.davidafsilva.jevents.EventListener
+ * @since 1.0
+ */
+public final class EventKey<E extends Event, K> {
+
+	// the key extractor
+	private final Function<? super E, ? extends K> extractor;
+
+	/**
+	 * Creates a new key with the given extractor
+	 *
+	 * @param extractor
+	 * 		the key extractor
+	 */
+	private EventKey(final Function<? super E, ? extends K> extractor) {
+		this.extractor = extractor;
+	}
+
+	/**
+	 * Creates a new key, extracted from the events with the given function
+	 *
+	 * @param extractor
+	 * 		the key extractor, which is invoked once per dispatch and should be cheap
+	 * @param <E>
+	 * 		the event type
+	 * @param <K>
+	 * 		the key type
+	 * @return the key
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>extractor</code> is <code>null</code>
+	 */
+	public static <E extends Event, K> EventKey<E, K> of(final Function<? super E, ? extends K> extractor) {
+		if (extractor == null) {
+			throw new NullPointerException("Invalid extractor.");
+		}
+		return new EventKey<>(extractor);
+	}
+
+	/**
+	 * Extracts the key of the given event
+	 *
+	 * @param event
+	 * 		the event
+	 * @return the key, which may be <code>null</code>, in which case no filtered listener is matched
+	 */
+	public K extract(final E event) {
+		return extractor.apply(event);
+	}
+}
@@ -27,20 +27,31 @@
 
 package pt.davidafsilva.jevents.registry;
 
+import pt.davidafsilva.jevents.BatchEventListener;
 import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
 import pt.davidafsilva.jevents.EventListener;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Set;
 
 /**
  * This entity is responsible for the management of event listeners.
  *
- * This event registry is based on final class implementations.
- * Inheritance is not supported.
+ * Listeners are kept in copy-on-write stores, one per event type: modifications are
+ * serialized per event type, while dispatches read an immutable snapshot without locking.
+ * Regular and {@link pt.davidafsilva.jevents.BatchEventListener batch} listeners are kept apart.
+ *
+ * Objects with methods annotated with {@link pt.davidafsilva.jevents.Subscribe} may be registered
+ * as a whole, each method becoming a listener of its parameter type.
+ *
+ * Listeners registered for a super class or interface of an event are triggered as well.
+ * For each concrete event class, the listeners of the whole type hierarchy are merged
+ * into a single dispatch plan, which is cached until a listener of any type within that
+ * hierarchy is registered or unregistered.
+ *
+ * This is the registry of the {@link pt.davidafsilva.jevents.EventBus#getDefault() default event bus}:
+ * every operation is delegated to its {@link pt.davidafsilva.jevents.registry.ListenerRegistry}.
  *
  * @author David Silva
  * @since 1.0
@@ -48,12 +59,13 @@ import java.util.concurrent.ConcurrentMap;
 public enum EventRegistry {
 	INSTANCE;
 
-	// map for the event class -> listeners
-	private ConcurrentMap<Class<?>, Collection<? extends EventListener<?>>> listeners = new ConcurrentHashMap<>();
+	// the registry of the default bus
+	private final ListenerRegistry registry = EventBus.getDefault().getRegistry();
 
 	/**
 	 * Registers a given event listener which shall be triggered whenever
-	 * a event with the concrete event type associated with the listener is dispatched.
+	 * a event with the event type associated with the listener, or any of its
+	 * sub types, is dispatched.
 	 *
 	 * @param listener
 	 * 		the event listener
@@ -64,9 +76,32 @@ public enum EventRegistry {
 	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
 	 * @throws java.lang.NullPointerException
 	 * 		if <code>event</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the event type of the listener cannot be resolved
 	 */
 	public <E extends Event, L extends EventListener<E>> boolean register(final L listener) {
-		return initEventCollection(listener.getEventClass()).add(listener);
+		return registry.register(listener);
+	}
+
+	/**
+	 * Registers a given event listener for the given event type, which shall be triggered whenever
+	 * a event with that event type, or any of its sub types, is dispatched.
+	 *
+	 * This is the registration method for lambdas and method references, as their event type cannot
+	 * be resolved otherwise.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 */
+	public <E extends Event> boolean register(final Class<E> clazz, final EventListener<E> listener) {
+		return registry.register(clazz, listener);
 	}
 
 	/**
@@ -79,13 +114,192 @@ public enum EventRegistry {
 	 * @param <L>
 	 * 		the listener type
 	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the event type of the listener cannot be resolved
 	 */
 	public <E extends Event, L extends EventListener<E>> boolean unregister(final L listener) {
-		return initEventCollection(listener.getEventClass()).remove(listener);
+		return registry.unregister(listener);
+	}
+
+	/**
+	 * Removes the given event listener from the given event type, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event> boolean unregister(final Class<E> clazz, final EventListener<E> listener) {
+		return registry.unregister(clazz, listener);
+	}
+
+	/**
+	 * Registers a given event listener for the given event type, which shall be triggered whenever
+	 * a event with that event type, or any of its sub types, whose key equals the given value is dispatched.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @param value
+	 * 		the key value which the events must match
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <K>
+	 * 		the key type
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#register(Class, EventKey, Object, EventListener)
+	 */
+	public <E extends Event, K> boolean register(final Class<E> clazz, final EventKey<? super E, K> key,
+			final K value, final EventListener<E> listener) {
+		return registry.register(clazz, key, value, listener);
+	}
+
+	/**
+	 * Removes the given filtered event listener from the given event type, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @param value
+	 * 		the key value
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <K>
+	 * 		the key type
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event, K> boolean unregister(final Class<E> clazz, final EventKey<? super E, K> key,
+			final K value, final EventListener<E> listener) {
+		return registry.unregister(clazz, key, value, listener);
 	}
 
 	/**
-	 * Removes all of the listeners associated with the given event type.
+	 * Registers every method of the given subscriber annotated with {@link pt.davidafsilva.jevents.Subscribe},
+	 * as a listener of the event type of its parameter.
+	 *
+	 * The annotated methods of each subscriber class are scanned and compiled into direct invokers once,
+	 * hence dispatching to them costs the same as dispatching to regular listeners.
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of registered methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 */
+	public int registerAll(final Object subscriber) {
+		return registry.registerAll(subscriber);
+	}
+
+	/**
+	 * Instantiates and registers every {@link pt.davidafsilva.jevents.IndexedListener indexed listener}
+	 * found in the {@link pt.davidafsilva.jevents.ListenerIndex listener indexes} generated at compile time.
+	 *
+	 * No reflection takes place, as the listeners are created and registered by the generated code.
+	 *
+	 * @return the number of registered listeners
+	 */
+	public int registerIndexed() {
+		return registry.registerIndexed();
+	}
+
+	/**
+	 * Registers a given event listener for the given event type, without keeping it reachable.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#registerWeak(Class, EventListener)
+	 */
+	public <E extends Event> boolean registerWeak(final Class<E> clazz, final EventListener<E> listener) {
+		return registry.registerWeak(clazz, listener);
+	}
+
+	/**
+	 * Registers every method of the given subscriber annotated with {@link pt.davidafsilva.jevents.Subscribe},
+	 * without keeping the subscriber reachable.
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of registered methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#registerAllWeak(Object)
+	 */
+	public int registerAllWeak(final Object subscriber) {
+		return registry.registerAllWeak(subscriber);
+	}
+
+	/**
+	 * Removes every method of the given subscriber previously registered through {@link #registerAll(Object)}
+	 * or {@link #registerAllWeak(Object)}.
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of removed methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 */
+	public int unregisterAll(final Object subscriber) {
+		return registry.unregisterAll(subscriber);
+	}
+
+	/**
+	 * Registers a given batch event listener for the given event type, which shall receive
+	 * the events with that event type, or any of its sub types, in batches.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the batch event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.BatchEventListener
+	 */
+	public <E extends Event> boolean registerBatch(final Class<E> clazz, final BatchEventListener<E> listener) {
+		return registry.registerBatch(clazz, listener);
+	}
+
+	/**
+	 * Removes the given batch event listener from the given event type, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the batch event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event> boolean unregisterBatch(final Class<E> clazz, final BatchEventListener<E> listener) {
+		return registry.unregisterBatch(clazz, listener);
+	}
+
+	/**
+	 * Removes all of the listeners, including the batch and filtered ones, associated with the given event type.
 	 *
 	 * @param clazz
 	 * 		the event class
@@ -93,7 +307,7 @@ public enum EventRegistry {
 	 * 		the event type
 	 */
 	public <E extends Event> void unregisterAll(final Class<E> clazz) {
-		initEventCollection(clazz).clear();
+		registry.unregisterAll(clazz);
 	}
 
 	/**
@@ -110,55 +324,119 @@ public enum EventRegistry {
 	 * 		if <code>event</code> is <code>null</code>.
 	 */
 	public <E extends Event, L extends EventListener<E>> Collection<L> getEventListeners(final Class<E> clazz) {
-		if (clazz == null) {
-			throw new NullPointerException("Invalid event class.");
-		}
-		return Collections.unmodifiableCollection(initEventCollection(clazz));
+		return registry.getEventListeners(clazz);
 	}
 
 	/**
-	 * Returns all the registered listeners for the given event type.
+	 * Returns the current snapshot of the listeners registered for the given event type.
+	 *
+	 * This is the lock-free read path used for dispatching: the returned array is an
+	 * immutable snapshot shared between all of the callers, hence it must not be modified.
+	 *
+	 * @param clazz
+	 * 		the event type class
+	 * @param <E>
+	 * 		the event type
+	 * @return the listeners snapshot, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>.
+	 */
+	public <E extends Event> EventListener<E>[] getListenerSnapshot(final Class<E> clazz) {
+		return registry.getListenerSnapshot(clazz);
+	}
+
+	/**
+	 * Resolves the dispatch plan for the given concrete event class, which contains the listeners
+	 * registered for the class itself, followed by the ones registered for its super classes and
+	 * then for its interfaces.
+	 *
+	 * The plan is computed once and cached until the listeners of any type within the
+	 * class hierarchy are modified, so resolving it is as cheap as an exact type lookup.
+	 * The returned array is shared between all of the callers, hence it must not be modified.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the dispatch plan, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>.
+	 */
+	public <E extends Event> EventListener<E>[] resolveListeners(final Class<E> clazz) {
+		return registry.resolveListeners(clazz);
+	}
+
+	/**
+	 * Resolves the listeners which shall be triggered by the given event, including the filtered
+	 * listeners which match the event keys.
+	 *
+	 * The returned array may be shared between the callers, hence it must not be modified.
 	 *
 	 * @param event
-	 * 		the actual event object
+	 * 		the event
 	 * @param <E>
 	 * 		the event type
-	 * @param <L>
-	 * 		the listener type
-	 * @return a collection with all of the listeners
+	 * @return the listeners, which may be empty
 	 * @throws java.lang.NullPointerException
 	 * 		if <code>event</code> is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.registry.ListenerRegistry#resolveListeners(Event)
 	 */
-	@SuppressWarnings("unchecked")
-	public <E extends Event, L extends EventListener<E>> Collection<L> getEventListeners(final E event) {
-		Class<E> eClass = (Class<E>) event.getClass();
-		return getEventListeners(eClass);
+	public <E extends Event> EventListener<E>[] resolveListeners(final E event) {
+		return registry.resolveListeners(event);
 	}
 
-
 	/**
-	 * Internal procedure for initializing the collection of listeners associated with a given
-	 * event class at the listeners map, if necessary.
+	 * Resolves the batch dispatch plan for the given concrete event class, following the same
+	 * rules as {@link #resolveListeners(Class)}.
+	 *
+	 * The returned array is shared between all of the callers, hence it must not be modified.
 	 *
-	 * @param eventClass
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param <E>
 	 * 		the event type
+	 * @return the batch dispatch plan, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>.
+	 */
+	public <E extends Event> BatchEventListener<E>[] resolveBatchListeners(final Class<E> clazz) {
+		return registry.resolveBatchListeners(clazz);
+	}
+
+	/**
+	 * Returns the event types which currently have listeners, either regular or batch ones, registered
+	 * for them.
+	 *
+	 * @return an unmodifiable snapshot of the event types
+	 */
+	public Set<Class<?>> getEventTypes() {
+		return registry.getEventTypes();
+	}
+
+	/**
+	 * Returns whether or not batch listeners were ever registered, in which case their dispatch plan
+	 * must be resolved as well.
+	 *
+	 * @return <code>true</code> if batch listeners were registered, <code>false</code> otherwise
+	 */
+	public boolean hasBatchListeners() {
+		return registry.hasBatchListeners();
+	}
+
+	/**
+	 * Returns all the registered listeners for the given event type.
+	 *
+	 * @param event
+	 * 		the actual event object
 	 * @param <E>
 	 * 		the event type
 	 * @param <L>
 	 * 		the listener type
-	 * @return the newly created collection of listeners or the existent one.
-	 */
-	@SuppressWarnings("unchecked")
-	private <E extends Event, L extends EventListener<E>> Collection<L> initEventCollection(Class<E> eventClass) {
-		Collection<L> actualListeners = (Collection<L>) listeners.get(eventClass);
-		if (actualListeners == null) {
-			final Collection<L> list = new ArrayList<>();
-			actualListeners = (Collection<L>) listeners.putIfAbsent(eventClass, list);
-			if (actualListeners == null) {
-				actualListeners = list;
-			}
-		}
-
-		return actualListeners;
+	 * @return a collection with all of the listeners
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>.
+	 */
+	public <E extends Event, L extends EventListener<E>> Collection<L> getEventListeners(final E event) {
+		return registry.getEventListeners(event);
 	}
 }
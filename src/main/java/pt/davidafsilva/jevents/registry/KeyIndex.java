@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.registry;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * The hash index of the filtered listeners of a single event type and {@link EventKey key}.
+ *
+ * The listeners are grouped by the registered key value, each group being a copy-on-write array:
+ * modifications are serialized per value, while dispatches lookup the group of the extracted key
+ * without locking, at a cost which does not depend on the number of registered values.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class KeyIndex {
+
+	// the empty group
+	private static final EventListener<?>[] EMPTY = new EventListener<?>[0];
+
+	// the indexed key
+	private final EventKey<?, ?> key;
+
+	// map for the key value -> listeners
+	private final ConcurrentMap<Object, EventListener<?>[]> groups = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new empty index of the given key
+	 *
+	 * @param key
+	 * 		the indexed key
+	 */
+	KeyIndex(final EventKey<?, ?> key) {
+		this.key = key;
+	}
+
+	/**
+	 * Returns the indexed key
+	 *
+	 * @return the key
+	 */
+	EventKey<?, ?> key() {
+		return key;
+	}
+
+	/**
+	 * Appends the given listener to the group of the given value
+	 *
+	 * @param value
+	 * 		the key value
+	 * @param listener
+	 * 		the listener
+	 */
+	void add(final Object value, final EventListener<?> listener) {
+		groups.merge(value, new EventListener<?>[]{listener}, (current, added) -> {
+			final EventListener<?>[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = listener;
+			return updated;
+		});
+	}
+
+	/**
+	 * Removes the given listener from the group of the given value, discarding the group once empty
+	 *
+	 * @param value
+	 * 		the key value
+	 * @param listener
+	 * 		the listener
+	 * @return the removed listener, as stored, or <code>null</code> if it's not present
+	 */
+	EventListener<?> remove(final Object value, final EventListener<?> listener) {
+		final EventListener<?>[] removed = new EventListener<?>[1];
+		groups.computeIfPresent(value, (v, current) -> {
+			for (int i = 0; i < current.length; i++) {
+				if (current[i].equals(listener)) {
+					removed[0] = current[i];
+					if (current.length == 1) {
+						return null;
+					}
+					final EventListener<?>[] updated = new EventListener<?>[current.length - 1];
+					System.arraycopy(current, 0, updated, 0, i);
+					System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+					return updated;
+				}
+			}
+			return current;
+		});
+		return removed[0];
+	}
+
+	/**
+	 * Performs the given action for each of the indexed listeners
+	 *
+	 * @param action
+	 * 		the action
+	 */
+	void forEach(final Consumer<? super EventListener<?>> action) {
+		for (EventListener<?>[] group : groups.values()) {
+			for (EventListener<?> listener : group) {
+				action.accept(listener);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether or not the index holds no listeners
+	 *
+	 * @return <code>true</code> if the index is empty, <code>false</code> otherwise
+	 */
+	boolean isEmpty() {
+		return groups.isEmpty();
+	}
+
+	/**
+	 * Returns the listeners registered for the key of the given event
+	 *
+	 * @param event
+	 * 		the event
+	 * @return the shared group of listeners, which may be empty
+	 */
+	@SuppressWarnings("unchecked")
+	EventListener<?>[] match(final Event event) {
+		final Object value = ((EventKey<Event, ?>) key).extract(event);
+		if (value == null) {
+			return EMPTY;
+		}
+		final EventListener<?>[] group = groups.get(value);
+		return group == null ? EMPTY : group;
+	}
+
+	/**
+	 * Merges the given dispatch plan with the listeners of the given indexes which match the given event.
+	 *
+	 * No copy takes place if only one of them has listeners.
+	 *
+	 * @param plan
+	 * 		the dispatch plan of the unfiltered listeners
+	 * @param indexes
+	 * 		the indexes of the event type hierarchy
+	 * @param event
+	 * 		the event
+	 * @return the merged plan, the unfiltered listeners first, followed by the matches of each index
+	 */
+	static EventListener<?>[] merge(final EventListener<?>[] plan, final KeyIndex[] indexes, final Event event) {
+		EventListener<?>[] merged = plan;
+		for (KeyIndex index : indexes) {
+			final EventListener<?>[] group = index.match(event);
+			if (group.length == 0) {
+				continue;
+			}
+			if (merged.length == 0) {
+				merged = group;
+			} else {
+				final EventListener<?>[] combined = Arrays.copyOf(merged, merged.length + group.length);
+				System.arraycopy(group, 0, combined, merged.length, group.length);
+				merged = combined;
+			}
+		}
+		return merged;
+	}
+}
@@ -0,0 +1,677 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.registry;
+
+import pt.davidafsilva.jevents.BatchEventListener;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.ListenerIndex;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The registry of the event listeners of an {@link pt.davidafsilva.jevents.EventBus event bus}.
+ *
+ * Listeners are kept in copy-on-write stores, one per event type: modifications are
+ * serialized per event type, while dispatches read an immutable snapshot without locking.
+ * Regular and {@link pt.davidafsilva.jevents.BatchEventListener batch} listeners are kept apart.
+ *
+ * Listeners may be registered with a filter, an {@link EventKey} and a value, in which case they are
+ * only triggered by the events whose key equals that value. The filtered listeners are kept in a hash
+ * index per event type and key, so that dispatching only reaches the matching ones, at a cost which
+ * depends on the number of matches rather than on the number of registered values.
+ *
+ * Objects with methods annotated with {@link pt.davidafsilva.jevents.Subscribe} may be registered
+ * as a whole, each method becoming a listener of its parameter type.
+ *
+ * Listeners and subscribers may also be registered weakly, in which case the registry does not keep them
+ * reachable: once collected, they are purged from the registry upon its next modification, without any
+ * explicit unregistration and without any cleanup work on the dispatch path.
+ *
+ * Listeners registered for a super class or interface of an event are triggered as well.
+ * For each concrete event class, the listeners of the whole type hierarchy are merged
+ * into a single dispatch plan, which is cached until a listener of any type within that
+ * hierarchy is registered or unregistered.
+ *
+ * The {@link #onRemoval(Consumer) removal callbacks} are notified of every event listener removed from the
+ * registry, either unregistered or purged, so that anything tracked per listener can be discarded with it.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+public final class ListenerRegistry {
+
+	// the event listeners
+	private final ListenerTable<EventListener<?>> listeners = new ListenerTable<>(new EventListener<?>[0]);
+
+	// the batch event listeners
+	private final ListenerTable<BatchEventListener<?>> batchListeners =
+			new ListenerTable<>(new BatchEventListener<?>[0]);
+
+	// the key indexes of the filtered event listeners
+	private final ListenerTable<KeyIndex> indexes = new ListenerTable<>(new KeyIndex[0]);
+
+	// whether or not batch listeners were ever registered, to spare their lookup otherwise
+	private volatile boolean batching;
+
+	// whether or not filtered listeners were ever registered, to spare their lookup otherwise
+	private volatile boolean filtering;
+
+	// the queue of the weak listeners whose target was collected
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	// the callbacks notified of the removed event listeners
+	private final List<Consumer<? super EventListener<?>>> removals = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Creates a new empty registry
+	 */
+	private ListenerRegistry() {
+	}
+
+	/**
+	 * Creates a new empty registry, isolated from every other one
+	 *
+	 * @return the registry
+	 */
+	public static ListenerRegistry create() {
+		return new ListenerRegistry();
+	}
+
+	/**
+	 * Adds a callback which is notified of every event listener removed from this registry, as it was registered,
+	 * whether it's unregistered explicitly or purged once collected.
+	 *
+	 * The callbacks are invoked by the thread modifying the registry and must not modify it in turn.
+	 *
+	 * @param callback
+	 * 		the removal callback
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>callback</code> is <code>null</code>.
+	 */
+	public void onRemoval(final Consumer<? super EventListener<?>> callback) {
+		if (callback == null) {
+			throw new NullPointerException("Invalid callback.");
+		}
+		removals.add(callback);
+	}
+
+	/**
+	 * Registers a given event listener which shall be triggered whenever
+	 * a event with the event type associated with the listener, or any of its
+	 * sub types, is dispatched.
+	 *
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <L>
+	 * 		the listener type
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the event type of the listener cannot be resolved
+	 */
+	public <E extends Event, L extends EventListener<E>> boolean register(final L listener) {
+		return register(listener.getEventClass(), listener);
+	}
+
+	/**
+	 * Registers a given event listener for the given event type, which shall be triggered whenever
+	 * a event with that event type, or any of its sub types, is dispatched.
+	 *
+	 * This is the registration method for lambdas and method references, as their event type cannot
+	 * be resolved otherwise.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 */
+	public <E extends Event> boolean register(final Class<E> clazz, final EventListener<E> listener) {
+		if (clazz == null || listener == null) {
+			throw new NullPointerException("Invalid event class or listener.");
+		}
+		purge();
+		return listeners.add(clazz, listener);
+	}
+
+	/**
+	 * Removes the given event listener, if it's registered.
+	 *
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <L>
+	 * 		the listener type
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the event type of the listener cannot be resolved
+	 */
+	public <E extends Event, L extends EventListener<E>> boolean unregister(final L listener) {
+		return unregister(listener.getEventClass(), listener);
+	}
+
+	/**
+	 * Removes the given event listener from the given event type, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event> boolean unregister(final Class<E> clazz, final EventListener<E> listener) {
+		purge();
+		return removed(listeners.remove(clazz, listener));
+	}
+
+	/**
+	 * Registers a given event listener for the given event type, which shall be triggered whenever
+	 * a event with that event type, or any of its sub types, whose key equals the given value is dispatched.
+	 *
+	 * Listeners registered with the same key instance are kept in a single hash index per event type,
+	 * hence the events are only handed to the listeners of their own key value.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @param value
+	 * 		the key value which the events must match
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <K>
+	 * 		the key type
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if any of the arguments is <code>null</code>.
+	 */
+	public <E extends Event, K> boolean register(final Class<E> clazz, final EventKey<? super E, K> key,
+			final K value, final EventListener<E> listener) {
+		if (clazz == null || key == null || value == null || listener == null) {
+			throw new NullPointerException("Invalid event class, key, value or listener.");
+		}
+		purge();
+		synchronized (indexes) {
+			final KeyIndex index = indexOf(clazz, key);
+			if (index != null) {
+				index.add(value, listener);
+			} else {
+				final KeyIndex created = new KeyIndex(key);
+				created.add(value, listener);
+				indexes.add(clazz, created);
+				filtering = true;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the given filtered event listener from the given event type, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @param value
+	 * 		the key value
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @param <K>
+	 * 		the key type
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 * @see #register(Class, EventKey, Object, EventListener)
+	 */
+	public <E extends Event, K> boolean unregister(final Class<E> clazz, final EventKey<? super E, K> key,
+			final K value, final EventListener<E> listener) {
+		purge();
+		if (clazz == null || key == null || value == null) {
+			return false;
+		}
+		synchronized (indexes) {
+			final KeyIndex index = indexOf(clazz, key);
+			if (index == null || !removed(index.remove(value, listener))) {
+				return false;
+			}
+			if (index.isEmpty()) {
+				indexes.remove(clazz, index);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Registers every method of the given subscriber annotated with {@link pt.davidafsilva.jevents.Subscribe},
+	 * as a listener of the event type of its parameter.
+	 *
+	 * The annotated methods of each subscriber class are scanned and compiled into direct invokers once,
+	 * hence dispatching to them costs the same as dispatching to regular listeners.
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of registered methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 */
+	public int registerAll(final Object subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("Invalid subscriber.");
+		}
+		purge();
+		final SubscriberMethod[] methods = SubscriberMethod.of(subscriber.getClass());
+		for (SubscriberMethod method : methods) {
+			listeners.add(method.eventType(), new SubscriberListener(subscriber, method));
+		}
+		return methods.length;
+	}
+
+	/**
+	 * Registers a given event listener for the given event type, as {@link #register(Class, EventListener)},
+	 * without keeping it reachable.
+	 *
+	 * The registry only holds a weak reference to the listener, which is purged from the registry
+	 * once collected. Hence, the caller is responsible for keeping the listener reachable for as long
+	 * as it should be triggered: lambdas and method references which are not referenced elsewhere are
+	 * eligible for collection right away.
+	 * Weak listeners may be unregistered through the original listener.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 */
+	public <E extends Event> boolean registerWeak(final Class<E> clazz, final EventListener<E> listener) {
+		if (clazz == null || listener == null) {
+			throw new NullPointerException("Invalid event class or listener.");
+		}
+		purge();
+		return listeners.add(clazz, new WeakListener(clazz, listener, null, collected));
+	}
+
+	/**
+	 * Registers every method of the given subscriber annotated with {@link pt.davidafsilva.jevents.Subscribe},
+	 * as {@link #registerAll(Object)}, without keeping the subscriber reachable.
+	 *
+	 * The registry only holds a weak reference to the subscriber, whose methods are purged from the
+	 * registry once it's collected. The methods may be unregistered through {@link #unregisterAll(Object)}.
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of registered methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 */
+	public int registerAllWeak(final Object subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("Invalid subscriber.");
+		}
+		purge();
+		final SubscriberMethod[] methods = SubscriberMethod.of(subscriber.getClass());
+		for (SubscriberMethod method : methods) {
+			listeners.add(method.eventType(), new WeakListener(method.eventType(), subscriber, method, collected));
+		}
+		return methods.length;
+	}
+
+	/**
+	 * Instantiates and registers every {@link pt.davidafsilva.jevents.IndexedListener indexed listener}
+	 * found in the {@link pt.davidafsilva.jevents.ListenerIndex listener indexes} generated at compile time.
+	 *
+	 * No reflection takes place, as the listeners are created and registered by the generated code.
+	 *
+	 * @return the number of registered listeners
+	 */
+	public int registerIndexed() {
+		return ListenerIndex.installed().registerListeners(this);
+	}
+
+	/**
+	 * Removes every method of the given subscriber previously registered through {@link #registerAll(Object)}
+	 * or {@link #registerAllWeak(Object)}.
+	 *
+	 * @param subscriber
+	 * 		the subscriber instance
+	 * @return the number of removed methods
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>subscriber</code> is <code>null</code>.
+	 */
+	public int unregisterAll(final Object subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("Invalid subscriber.");
+		}
+		purge();
+		int removed = 0;
+		for (SubscriberMethod method : SubscriberMethod.of(subscriber.getClass())) {
+			if (removed(listeners.remove(method.eventType(), new SubscriberListener(subscriber, method)))) {
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Registers a given batch event listener for the given event type, which shall receive
+	 * the events with that event type, or any of its sub types, in batches.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the batch event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully added, <code>false</code> otherwise.
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> or <code>listener</code> is <code>null</code>.
+	 * @see pt.davidafsilva.jevents.BatchEventListener
+	 */
+	public <E extends Event> boolean registerBatch(final Class<E> clazz, final BatchEventListener<E> listener) {
+		if (clazz == null || listener == null) {
+			throw new NullPointerException("Invalid event class or listener.");
+		}
+		purge();
+		batching = true;
+		return batchListeners.add(clazz, listener);
+	}
+
+	/**
+	 * Removes the given batch event listener from the given event type, if it's registered.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param listener
+	 * 		the batch event listener
+	 * @param <E>
+	 * 		the Event type associated with the listener
+	 * @return <code>true</code> if the listener is successfully removed, <code>false</code> otherwise.
+	 */
+	public <E extends Event> boolean unregisterBatch(final Class<E> clazz, final BatchEventListener<E> listener) {
+		purge();
+		return batchListeners.remove(clazz, listener) != null;
+	}
+
+	/**
+	 * Removes all of the listeners, including the batch and filtered ones, associated with the given event type.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param <E>
+	 * 		the event type
+	 */
+	public <E extends Event> void unregisterAll(final Class<E> clazz) {
+		purge();
+		for (EventListener<?> listener : listeners.clear(clazz)) {
+			removed(listener);
+		}
+		batchListeners.clear(clazz);
+		synchronized (indexes) {
+			for (KeyIndex index : indexes.clear(clazz)) {
+				index.forEach(this::removed);
+			}
+		}
+	}
+
+	/**
+	 * Returns all the registered listeners for the given event type.
+	 *
+	 * @param clazz
+	 * 		the event type class
+	 * @param <E>
+	 * 		the event type
+	 * @param <L>
+	 * 		the listener type
+	 * @return a collection with all of the listeners
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event, L extends EventListener<E>> Collection<L> getEventListeners(final Class<E> clazz) {
+		return Collections.unmodifiableList(Arrays.asList((L[]) getListenerSnapshot(clazz)));
+	}
+
+	/**
+	 * Returns the current snapshot of the listeners registered for the given event type.
+	 *
+	 * This is the lock-free read path used for dispatching: the returned array is an
+	 * immutable snapshot shared between all of the callers, hence it must not be modified.
+	 *
+	 * @param clazz
+	 * 		the event type class
+	 * @param <E>
+	 * 		the event type
+	 * @return the listeners snapshot, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event> EventListener<E>[] getListenerSnapshot(final Class<E> clazz) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		return (EventListener<E>[]) listeners.snapshot(clazz);
+	}
+
+	/**
+	 * Resolves the dispatch plan for the given concrete event class, which contains the listeners
+	 * registered for the class itself, followed by the ones registered for its super classes and
+	 * then for its interfaces.
+	 *
+	 * The plan is computed once and cached until the listeners of any type within the
+	 * class hierarchy are modified, so resolving it is as cheap as an exact type lookup.
+	 * The returned array is shared between all of the callers, hence it must not be modified.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the dispatch plan, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event> EventListener<E>[] resolveListeners(final Class<E> clazz) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		return (EventListener<E>[]) listeners.resolve(clazz);
+	}
+
+	/**
+	 * Resolves the listeners which shall be triggered by the given event: the dispatch plan of its
+	 * concrete class, as returned by {@link #resolveListeners(Class)}, followed by the filtered listeners
+	 * which match the event keys.
+	 *
+	 * The filtered listeners are looked up in the key indexes of the event type hierarchy, hence only the
+	 * matching ones are resolved. No array is allocated unless both unfiltered and filtered listeners, or
+	 * filtered listeners from several indexes, are matched.
+	 * The returned array may be shared between the callers, hence it must not be modified.
+	 *
+	 * @param event
+	 * 		the event
+	 * @param <E>
+	 * 		the event type
+	 * @return the listeners, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event> EventListener<E>[] resolveListeners(final E event) {
+		final Class<E> clazz = (Class<E>) event.getClass();
+		final EventListener<E>[] plan = resolveListeners(clazz);
+		if (!filtering) {
+			return plan;
+		}
+		final KeyIndex[] matching = indexes.resolve(clazz);
+		return matching.length == 0 ? plan : (EventListener<E>[]) KeyIndex.merge(plan, matching, event);
+	}
+
+	/**
+	 * Resolves the batch dispatch plan for the given concrete event class, following the same
+	 * rules as {@link #resolveListeners(Class)}.
+	 *
+	 * The returned array is shared between all of the callers, hence it must not be modified.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @param <E>
+	 * 		the event type
+	 * @return the batch dispatch plan, which may be empty
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>clazz</code> is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event> BatchEventListener<E>[] resolveBatchListeners(final Class<E> clazz) {
+		if (clazz == null) {
+			throw new NullPointerException("Invalid event class.");
+		}
+		return (BatchEventListener<E>[]) batchListeners.resolve(clazz);
+	}
+
+	/**
+	 * Returns the event types which currently have listeners, either regular, filtered or batch ones, registered
+	 * for them.
+	 *
+	 * @return an unmodifiable snapshot of the event types
+	 */
+	public Set<Class<?>> getEventTypes() {
+		final Set<Class<?>> types = new HashSet<>();
+		listeners.collectTypes(types);
+		batchListeners.collectTypes(types);
+		indexes.collectTypes(types);
+		return Collections.unmodifiableSet(types);
+	}
+
+	/**
+	 * Returns whether or not batch listeners were ever registered, in which case their dispatch plan
+	 * must be resolved as well.
+	 *
+	 * @return <code>true</code> if batch listeners were registered, <code>false</code> otherwise
+	 */
+	public boolean hasBatchListeners() {
+		return batching;
+	}
+
+	/**
+	 * Returns all the registered listeners for the given event type.
+	 *
+	 * @param event
+	 * 		the actual event object
+	 * @param <E>
+	 * 		the event type
+	 * @param <L>
+	 * 		the listener type
+	 * @return a collection with all of the listeners
+	 * @throws java.lang.NullPointerException
+	 * 		if <code>event</code> is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Event, L extends EventListener<E>> Collection<L> getEventListeners(final E event) {
+		Class<E> eClass = (Class<E>) event.getClass();
+		return getEventListeners(eClass);
+	}
+
+	/**
+	 * Returns the key index of the exact given event type and key, if any. Must be called while holding
+	 * the lock of the indexes.
+	 *
+	 * @param clazz
+	 * 		the event class
+	 * @param key
+	 * 		the event key
+	 * @return the index or <code>null</code> if there's none
+	 */
+	private KeyIndex indexOf(final Class<?> clazz, final EventKey<?, ?> key) {
+		for (KeyIndex index : indexes.snapshot(clazz)) {
+			if (index.key() == key) {
+				return index;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the weak listeners whose target was collected, as signaled through the reference queue.
+	 *
+	 * Invoked by the registry modifications only, which keeps the dispatch path free of any cleanup work.
+	 */
+	private void purge() {
+		Reference<?> reference;
+		while ((reference = collected.poll()) != null) {
+			final WeakListener listener = (WeakListener) reference;
+			removed(listeners.remove(listener.type(), listener));
+		}
+	}
+
+	/**
+	 * Notifies the removal callbacks of the given removed listener, if any
+	 *
+	 * @param listener
+	 * 		the removed listener or <code>null</code> if none was removed
+	 * @return <code>true</code> if a listener was removed, <code>false</code> otherwise
+	 */
+	private boolean removed(final EventListener<?> listener) {
+		if (listener == null) {
+			return false;
+		}
+		for (Consumer<? super EventListener<?>> callback : removals) {
+			callback.accept(listener);
+		}
+		return true;
+	}
+}
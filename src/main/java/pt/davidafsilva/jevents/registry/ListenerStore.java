@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.registry;
+
+import java.util.Arrays;
+
+/**
+ * The copy-on-write storage of the listeners associated with a single event type.
+ *
+ * Readers access an immutable array snapshot, which is atomically published
+ * on every modification, without any locking.
+ * Writers are serialized by the store monitor, hence concurrent modifications
+ * are safe and readers never observe a partially updated snapshot.
+ *
+ * The snapshots share the component type of the empty snapshot given upon creation.
+ *
+ * @param <T>
+ * 		the listener type
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerStore<T> {
+
+	// the empty snapshot
+	private final T[] empty;
+
+	// the current snapshot, which must never be modified after being published
+	private volatile T[] snapshot;
+
+	/**
+	 * Creates a new empty store.
+	 *
+	 * @param empty
+	 * 		the empty snapshot
+	 */
+	ListenerStore(final T[] empty) {
+		this.empty = empty;
+		this.snapshot = empty;
+	}
+
+	/**
+	 * Returns the current snapshot of listeners.
+	 *
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @return the listeners snapshot
+	 */
+	T[] snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Appends the given listener to the store.
+	 *
+	 * @param listener
+	 * 		the listener to be added
+	 * @return <code>true</code> as the listener is always added
+	 */
+	synchronized boolean add(final T listener) {
+		final T[] current = snapshot;
+		final T[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = listener;
+		snapshot = updated;
+		return true;
+	}
+
+	/**
+	 * Removes the first occurrence of the given listener from the store.
+	 *
+	 * @param listener
+	 * 		the listener to be removed
+	 * @return the removed listener, as stored, or <code>null</code> if it's not present
+	 */
+	synchronized T remove(final T listener) {
+		final T[] current = snapshot;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].equals(listener)) {
+				if (current.length == 1) {
+					snapshot = empty;
+				} else {
+					final T[] updated = Arrays.copyOf(empty, current.length - 1);
+					System.arraycopy(current, 0, updated, 0, i);
+					System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+					snapshot = updated;
+				}
+				return current[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all of the listeners from the store.
+	 *
+	 * @return the removed listeners
+	 */
+	synchronized T[] clear() {
+		final T[] current = snapshot;
+		snapshot = empty;
+		return current;
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.registry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A table of listeners of a given kind, indexed by event type.
+ *
+ * Listeners are kept in copy-on-write stores, one per event type. For each concrete event
+ * class, the listeners of the whole type hierarchy are merged into a single dispatch plan,
+ * which is cached until a listener of any type within that hierarchy is modified.
+ *
+ * @param <T>
+ * 		the listener type
+ * @author David Silva
+ * @since 1.0
+ */
+final class ListenerTable<T> {
+
+	// the empty snapshot
+	private final T[] empty;
+
+	// map for the event class -> listeners
+	private final ConcurrentMap<Class<?>, ListenerStore<T>> stores = new ConcurrentHashMap<>();
+
+	// map for the concrete event class -> resolved dispatch plan
+	private final ConcurrentMap<Class<?>, T[]> plans = new ConcurrentHashMap<>();
+
+	// the modification generation, used to discard plans resolved concurrently with a modification
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Creates a new empty table.
+	 *
+	 * @param empty
+	 * 		the empty snapshot, which defines the component type of every snapshot
+	 */
+	ListenerTable(final T[] empty) {
+		this.empty = empty;
+	}
+
+	/**
+	 * Appends the given listener to the store of the given event type.
+	 *
+	 * @param type
+	 * 		the event type
+	 * @param listener
+	 * 		the listener
+	 * @return <code>true</code> as the listener is always added
+	 */
+	boolean add(final Class<?> type, final T listener) {
+		final boolean added = initStore(type).add(listener);
+		invalidatePlans(type);
+		return added;
+	}
+
+	/**
+	 * Removes the given listener from the store of the given event type.
+	 *
+	 * @param type
+	 * 		the event type
+	 * @param listener
+	 * 		the listener
+	 * @return the removed listener, as stored, or <code>null</code> if it's not present
+	 */
+	T remove(final Class<?> type, final T listener) {
+		final ListenerStore<T> store = stores.get(type);
+		final T removed = store == null ? null : store.remove(listener);
+		if (removed != null) {
+			invalidatePlans(type);
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all of the listeners of the given event type.
+	 *
+	 * @param type
+	 * 		the event type
+	 * @return the removed listeners
+	 */
+	T[] clear(final Class<?> type) {
+		final ListenerStore<T> store = stores.get(type);
+		if (store == null) {
+			return empty;
+		}
+		final T[] removed = store.clear();
+		invalidatePlans(type);
+		return removed;
+	}
+
+	/**
+	 * Returns the current snapshot of the listeners registered for the exact given event type.
+	 *
+	 * @param type
+	 * 		the event type
+	 * @return the shared snapshot, which may be empty
+	 */
+	T[] snapshot(final Class<?> type) {
+		final ListenerStore<T> store = stores.get(type);
+		return store == null ? empty : store.snapshot();
+	}
+
+	/**
+	 * Adds the event types which currently have listeners to the given set.
+	 *
+	 * @param types
+	 * 		the target set
+	 */
+	void collectTypes(final Set<Class<?>> types) {
+		stores.forEach((type, store) -> {
+			if (store.snapshot().length > 0) {
+				types.add(type);
+			}
+		});
+	}
+
+	/**
+	 * Resolves the dispatch plan for the given concrete event class.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @return the shared dispatch plan, which may be empty
+	 */
+	T[] resolve(final Class<?> clazz) {
+		final T[] plan = plans.get(clazz);
+		return plan != null ? plan : resolvePlan(clazz);
+	}
+
+	/**
+	 * Internal procedure for computing and caching the dispatch plan of the given class.
+	 *
+	 * If the listeners are modified while the plan is being computed, the plan is cached
+	 * but immediately discarded, as it may have missed the modification.
+	 *
+	 * @param clazz
+	 * 		the concrete event class
+	 * @return the computed plan
+	 */
+	private T[] resolvePlan(final Class<?> clazz) {
+		final long expected = generation.get();
+		final List<T> resolved = new ArrayList<>();
+		for (Class<?> type : hierarchyOf(clazz)) {
+			final ListenerStore<T> store = stores.get(type);
+			if (store != null) {
+				Collections.addAll(resolved, store.snapshot());
+			}
+		}
+
+		final T[] plan = resolved.isEmpty() ? empty : resolved.toArray(Arrays.copyOf(empty, resolved.size()));
+		plans.put(clazz, plan);
+		if (generation.get() != expected) {
+			plans.remove(clazz, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns the type hierarchy of the given class: the class itself, followed by its
+	 * super classes and then by all of its interfaces, breadth first.
+	 *
+	 * @param clazz
+	 * 		the class
+	 * @return the ordered type hierarchy
+	 */
+	private static Set<Class<?>> hierarchyOf(final Class<?> clazz) {
+		final Set<Class<?>> hierarchy = new LinkedHashSet<>();
+		final Deque<Class<?>> interfaces = new ArrayDeque<>();
+		for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+			hierarchy.add(type);
+			Collections.addAll(interfaces, type.getInterfaces());
+		}
+		while (!interfaces.isEmpty()) {
+			final Class<?> type = interfaces.poll();
+			if (hierarchy.add(type)) {
+				Collections.addAll(interfaces, type.getInterfaces());
+			}
+		}
+		return hierarchy;
+	}
+
+	/**
+	 * Discards the cached dispatch plans of every event class which is assignable to the
+	 * modified event type.
+	 *
+	 * @param modified
+	 * 		the event type whose listeners were modified
+	 */
+	private void invalidatePlans(final Class<?> modified) {
+		generation.incrementAndGet();
+		for (Class<?> clazz : plans.keySet()) {
+			if (modified.isAssignableFrom(clazz)) {
+				plans.remove(clazz);
+			}
+		}
+	}
+
+	/**
+	 * Internal procedure for initializing the store of listeners associated with a given
+	 * event class, if necessary.
+	 *
+	 * @param type
+	 * 		the event type
+	 * @return the newly created store of listeners or the existent one.
+	 */
+	private ListenerStore<T> initStore(final Class<?> type) {
+		ListenerStore<T> store = stores.get(type);
+		if (store == null) {
+			final ListenerStore<T> newStore = new ListenerStore<>(empty);
+			store = stores.putIfAbsent(type, newStore);
+			if (store == null) {
+				store = newStore;
+			}
+		}
+
+		return store;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.registry;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+/**
+ * The event listener which adapts a {@link pt.davidafsilva.jevents.Subscribe subscriber method}
+ * bound to a subscriber instance.
+ *
+ * Listeners are equal when they bind the same method to the same instance, hence
+ * a subscriber may be unregistered through an equivalent listener.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class SubscriberListener implements EventListener<Event> {
+
+	// the subscriber instance
+	private final Object target;
+
+	// the subscriber method
+	private final SubscriberMethod method;
+
+	/**
+	 * Creates a new subscriber listener
+	 *
+	 * @param target
+	 * 		the subscriber instance
+	 * @param method
+	 * 		the subscriber method
+	 */
+	SubscriberListener(final Object target, final SubscriberMethod method) {
+		this.target = target;
+		this.method = method;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Class<Event> getEventClass() {
+		return (Class<Event>) method.eventType();
+	}
+
+	@Override
+	public void handle(final Event event) {
+		method.invoke(target, event);
+	}
+
+	/**
+	 * Returns whether or not this listener binds the given method to the given instance
+	 *
+	 * @param target
+	 * 		the subscriber instance
+	 * @param method
+	 * 		the subscriber method
+	 * @return <code>true</code> if both are bound by this listener, <code>false</code> otherwise
+	 */
+	boolean binds(final Object target, final SubscriberMethod method) {
+		return this.target == target && this.method == method;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof SubscriberListener)) {
+			return false;
+		}
+		final SubscriberListener listener = (SubscriberListener) other;
+		return target == listener.target && method == listener.method;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(target) + method.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return method.description() + '@' + Integer.toHexString(System.identityHashCode(target));
+	}
+}
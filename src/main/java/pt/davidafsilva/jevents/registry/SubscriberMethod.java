@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package pt.davidafsilva.jevents.registry;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.ListenerIndex;
+import pt.davidafsilva.jevents.Subscribe;
+import pt.davidafsilva.jevents.SubscriberStub;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A method annotated with {@link pt.davidafsilva.jevents.Subscribe}, along with its invoker.
+ *
+ * The annotated methods of each subscriber class are scanned once and then cached.
+ * Each method is compiled into a direct invoker, through {@link java.lang.invoke.LambdaMetafactory}
+ * for the methods accessible from this package, or through a {@link java.lang.invoke.MethodHandle}
+ * otherwise, hence no reflective call takes place per event. Classes found in the installed
+ * {@link pt.davidafsilva.jevents.ListenerIndex} use the generated stubs instead, without any reflection.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class SubscriberMethod {
+
+	// the lookup used to compile the invokers
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	// the generic signature of the invokers
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Event.class);
+
+	// the annotated methods per subscriber class
+	private static final ClassValue<SubscriberMethod[]> METHODS = new ClassValue<SubscriberMethod[]>() {
+		@Override
+		protected SubscriberMethod[] computeValue(final Class<?> type) {
+			return scan(type);
+		}
+	};
+
+	// the method description
+	private final String description;
+
+	// the handled event type
+	private final Class<? extends Event> eventType;
+
+	// the compiled invoker
+	private final Invoker invoker;
+
+	/**
+	 * Creates a new subscriber method
+	 *
+	 * @param description
+	 * 		the method description
+	 * @param eventType
+	 * 		the handled event type
+	 * @param invoker
+	 * 		the compiled invoker
+	 */
+	private SubscriberMethod(final String description, final Class<? extends Event> eventType,
+			final Invoker invoker) {
+		this.description = description;
+		this.eventType = eventType;
+		this.invoker = invoker;
+	}
+
+	/**
+	 * Returns the annotated methods of the given subscriber class
+	 *
+	 * @param type
+	 * 		the subscriber class
+	 * @return the shared array of subscriber methods, which must not be modified
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 */
+	static SubscriberMethod[] of(final Class<?> type) {
+		return METHODS.get(type);
+	}
+
+	/**
+	 * Returns the description of the method, in the <code>class#method</code> form
+	 *
+	 * @return the method description
+	 */
+	String description() {
+		return description;
+	}
+
+	/**
+	 * Returns the handled event type
+	 *
+	 * @return the event type
+	 */
+	Class<? extends Event> eventType() {
+		return eventType;
+	}
+
+	/**
+	 * Invokes the method on the given target
+	 *
+	 * @param target
+	 * 		the subscriber instance
+	 * @param event
+	 * 		the event being dispatched
+	 */
+	void invoke(final Object target, final Event event) {
+		invoker.invoke(target, event);
+	}
+
+	/**
+	 * Scans the annotated methods of the given class and of its super classes
+	 *
+	 * @param type
+	 * 		the subscriber class
+	 * @return the subscriber methods
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if any of the annotated methods is invalid
+	 */
+	private static SubscriberMethod[] scan(final Class<?> type) {
+		final SubscriberStub[] stubs = ListenerIndex.installed().getSubscribers(type);
+		if (stubs != null) {
+			final SubscriberMethod[] methods = new SubscriberMethod[stubs.length];
+			for (int i = 0; i < stubs.length; i++) {
+				methods[i] = new SubscriberMethod(type.getName() + '#' + stubs[i].getMethodName(),
+						stubs[i].getEventType(), stubs[i]::invoke);
+			}
+			return methods;
+		}
+
+		final List<SubscriberMethod> methods = new ArrayList<>();
+		final Set<String> seen = new HashSet<>();
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Method method : current.getDeclaredMethods()) {
+				if (!method.isAnnotationPresent(Subscribe.class) || method.isBridge() || method.isSynthetic()) {
+					continue;
+				}
+				// overridden methods are registered once, with the most specific declaration
+				if (!seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+					continue;
+				}
+				methods.add(create(method));
+			}
+		}
+		return methods.toArray(new SubscriberMethod[methods.size()]);
+	}
+
+	/**
+	 * Validates and compiles the given annotated method
+	 *
+	 * @param method
+	 * 		the annotated method
+	 * @return the subscriber method
+	 * @throws java.lang.IllegalArgumentException
+	 * 		if the method is invalid
+	 */
+	@SuppressWarnings("unchecked")
+	private static SubscriberMethod create(final Method method) {
+		final Class<?>[] parameters = method.getParameterTypes();
+		if (Modifier.isStatic(method.getModifiers()) || parameters.length != 1 ||
+				!Event.class.isAssignableFrom(parameters[0])) {
+			throw new IllegalArgumentException("Invalid subscriber method " + method +
+					", it must be an instance method with a single event parameter.");
+		}
+		for (Class<?> thrown : method.getExceptionTypes()) {
+			if (!RuntimeException.class.isAssignableFrom(thrown) && !Error.class.isAssignableFrom(thrown)) {
+				throw new IllegalArgumentException("Invalid subscriber method " + method +
+						", it must not declare checked exceptions.");
+			}
+		}
+		return new SubscriberMethod(method.getDeclaringClass().getName() + '#' + method.getName(),
+				(Class<? extends Event>) parameters[0], compile(method));
+	}
+
+	/**
+	 * Compiles the given method into an invoker
+	 *
+	 * @param method
+	 * 		the method
+	 * @return the invoker
+	 */
+	private static Invoker compile(final Method method) {
+		if (isAccessible(method)) {
+			try {
+				final MethodHandle implementation = LOOKUP.unreflect(method);
+				final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke",
+						MethodType.methodType(Invoker.class), INVOKER_TYPE, implementation,
+						MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]));
+				return (Invoker) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				// fall back to the method handle invoker
+			}
+		}
+		return handleInvoker(method);
+	}
+
+	/**
+	 * Compiles the given method into an invoker backed by a method handle
+	 *
+	 * @param method
+	 * 		the method
+	 * @return the invoker
+	 */
+	private static Invoker handleInvoker(final Method method) {
+		final MethodHandle handle;
+		try {
+			method.setAccessible(true);
+			handle = LOOKUP.unreflect(method).asType(INVOKER_TYPE);
+		} catch (IllegalAccessException | RuntimeException e) {
+			throw new IllegalArgumentException("Unable to access the subscriber method " + method, e);
+		}
+		return (target, event) -> {
+			try {
+				handle.invokeExact(target, event);
+			} catch (Throwable t) {
+				throw SubscriberMethod.<RuntimeException>propagate(t);
+			}
+		};
+	}
+
+	/**
+	 * Checks whether or not the given method may be linked from this package, that is, the method and all of
+	 * its enclosing classes are public and visible from the class loader of this class.
+	 *
+	 * @param method
+	 * 		the method
+	 * @return <code>true</code> if accessible, <code>false</code> otherwise
+	 */
+	private static boolean isAccessible(final Method method) {
+		if (!Modifier.isPublic(method.getModifiers())) {
+			return false;
+		}
+		final Class<?>[] types = {method.getDeclaringClass(), method.getParameterTypes()[0]};
+		for (Class<?> type : types) {
+			for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+				if (!Modifier.isPublic(current.getModifiers())) {
+					return false;
+				}
+			}
+			try {
+				if (Class.forName(type.getName(), false, SubscriberMethod.class.getClassLoader()) != type) {
+					return false;
+				}
+			} catch (ClassNotFoundException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Rethrows the given throwable as is, as the failures of the subscriber methods are propagated
+	 * in the same way as the ones of regular listeners, which are unchecked as the methods declaring
+	 * checked exceptions are rejected.
+	 *
+	 * @param throwable
+	 * 		the throwable
+	 * @param <T>
+	 * 		the inferred throwable type
+	 * @return never returns
+	 * @throws T
+	 * 		always
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> T propagate(final Throwable throwable) throws T {
+		throw (T) throwable;
+	}
+
+	/**
+	 * The compiled invoker of a subscriber method.
+	 */
+	interface Invoker {
+
+		/**
+		 * Invokes the subscriber method
+		 *
+		 * @param target
+		 * 		the subscriber instance
+		 * @param event
+		 * 		the event being dispatched
+		 */
+		void invoke(Object target, Event event);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package pt.davidafsilva.jevents.registry;
+
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * The event listener which holds its target, either a listener or a
+ * {@link pt.davidafsilva.jevents.Subscribe subscriber} instance, through a weak reference.
+ *
+ * Once the target is collected, the listener ignores the events and is enqueued in the
+ * reference queue of its registry, which removes it upon the next modification.
+ *
+ * A weak listener is equal to the listeners which it wraps, hence it may be unregistered
+ * through the original listener or subscriber.
+ *
+ * @author David Silva
+ * @since 1.0
+ */
+final class WeakListener extends WeakReference<Object> implements EventListener<Event> {
+
+	// the event type under which the listener is registered
+	private final Class<?> type;
+
+	// the subscriber method, if the target is a subscriber instance
+	private final SubscriberMethod method;
+
+	// the hash code, computed while the target is reachable
+	private final int hash;
+
+	/**
+	 * Creates a new weak listener
+	 *
+	 * @param type
+	 * 		the event type under which the listener is registered
+	 * @param target
+	 * 		the target listener or subscriber instance
+	 * @param method
+	 * 		the subscriber method or <code>null</code> if the target is a listener
+	 * @param queue
+	 * 		the queue where the listener is enqueued once the target is collected
+	 */
+	WeakListener(final Class<?> type, final Object target, final SubscriberMethod method,
+			final ReferenceQueue<Object> queue) {
+		super(target, queue);
+		this.type = type;
+		this.method = method;
+		this.hash = method == null ? target.hashCode() : new SubscriberListener(target, method).hashCode();
+	}
+
+	/**
+	 * Returns the event type under which the listener is registered
+	 *
+	 * @return the event type
+	 */
+	Class<?> type() {
+		return type;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Class<Event> getEventClass() {
+		return (Class<Event>) type;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void handle(final Event event) {
+		final Object target = get();
+		if (target == null) {
+			return;
+		}
+		if (method == null) {
+			((EventListener<Event>) target).handle(event);
+		} else {
+			method.invoke(target, event);
+		}
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		final Object target = get();
+		if (target == null || other == null) {
+			return false;
+		}
+		if (other instanceof WeakListener) {
+			final WeakListener listener = (WeakListener) other;
+			return method == listener.method && target == listener.get();
+		}
+		if (method == null) {
+			return target.equals(other);
+		}
+		return other instanceof SubscriberListener && ((SubscriberListener) other).binds(target, method);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		final Object target = get();
+		if (target == null) {
+			return "collected listener of " + type.getName();
+		}
+		return method == null ? target.toString() : new SubscriberListener(target, method).toString();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the synchronous dispatch path does not allocate in steady state
+ *
+ * @author David Silva
+ */
+public class AllocationTest {
+
+	private static final int WARM_UP = 50_000;
+	private static final int ITERATIONS = 100_000;
+
+	private final EventListener<AllocationEvent> first = event -> event.calls++;
+	private final EventListener<AllocationEvent> second = AllocationTest::count;
+
+	@Before
+	public void setUp() {
+		EventRegistry.INSTANCE.register(AllocationEvent.class, first);
+		EventRegistry.INSTANCE.register(AllocationEvent.class, second);
+	}
+
+	@After
+	public void tearDown() {
+		EventRegistry.INSTANCE.unregisterAll(AllocationEvent.class);
+	}
+
+	@Test
+	public void sync_dispatch_does_not_allocate() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		final AllocationEvent event = new AllocationEvent();
+		for (int i = 0; i < WARM_UP; i++) {
+			EventDispatcher.INSTANCE.dispatch(event);
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		// calibrate the cost of the measurement itself
+		final long calibration = threads.getThreadAllocatedBytes(threadId);
+		final long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			EventDispatcher.INSTANCE.dispatch(event);
+		}
+		final long after = threads.getThreadAllocatedBytes(threadId);
+
+		assertThat(event.calls, is(2 * (WARM_UP + ITERATIONS)));
+		assertThat(after - before - (before - calibration), is(0L));
+	}
+
+	private static void count(final AllocationEvent event) {
+		event.calls++;
+	}
+
+	private static final class AllocationEvent implements Event {
+		private int calls;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.dispatcher.AsyncEngine;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.OverflowPolicy;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the overflow policies of the async engines
+ *
+ * @author David Silva
+ */
+public class BackpressureTest {
+
+	// the gate holding the listeners
+	private final CountDownLatch gate = new CountDownLatch(1);
+
+	// signaled once a listener is running
+	private final CountDownLatch running = new CountDownLatch(1);
+
+	// the number of handled events
+	private final AtomicInteger handled = new AtomicInteger();
+
+	@After
+	public void tearDown() {
+		EventRegistry.INSTANCE.unregisterAll(JobEvent.class);
+		EventDispatcher.INSTANCE.unroute(JobEvent.class);
+	}
+
+	@Test
+	public void drop_newest_test() throws InterruptedException {
+		final AsyncEngine engine = routeTo(AsyncEngine.pooled(1, 2, OverflowPolicy.DROP_NEWEST));
+		for (int i = 0; i < 5; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new JobEvent());
+		}
+		gate.countDown();
+		assertThat(engine.drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(2));
+		assertThat(engine.getDroppedCount(), is(3L));
+		engine.shutdown();
+	}
+
+	@Test
+	public void fail_fast_test() throws InterruptedException {
+		final AsyncEngine engine = routeTo(AsyncEngine.pooled(1, 1, OverflowPolicy.FAIL_FAST));
+		EventDispatcher.INSTANCE.dispatchAsync(new JobEvent());
+		try {
+			EventDispatcher.INSTANCE.dispatchAsync(new JobEvent());
+			fail("the engine should be at full capacity");
+		} catch (RejectedExecutionException e) {
+			assertThat(engine.getRejectedCount(), is(1L));
+		}
+		gate.countDown();
+		assertThat(engine.drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(1));
+		engine.shutdown();
+	}
+
+	@Test
+	public void drop_oldest_running_test() throws InterruptedException {
+		final AsyncEngine engine = routeTo(AsyncEngine.pooled(1, 1, OverflowPolicy.DROP_OLDEST));
+		EventDispatcher.INSTANCE.dispatchAsync(new JobEvent());
+		assertThat(running.await(5, TimeUnit.SECONDS), is(true));
+
+		// nothing is queued, hence the producer waits for the running dispatch rather than spinning
+		final Thread producer = new Thread(() -> EventDispatcher.INSTANCE.dispatchAsync(new JobEvent()));
+		producer.start();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (producer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(producer.getState(), is(Thread.State.WAITING));
+
+		gate.countDown();
+		producer.join();
+		assertThat(engine.drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(2));
+		assertThat(engine.getDroppedCount(), is(0L));
+		engine.shutdown();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void drop_oldest_unsupported_test() {
+		AsyncEngine.of(Runnable::run, 1, OverflowPolicy.DROP_OLDEST);
+	}
+
+	/**
+	 * Routes the test events to the given engine, with a listener held by the gate
+	 *
+	 * @param engine
+	 * 		the engine
+	 * @return the engine
+	 */
+	private AsyncEngine routeTo(final AsyncEngine engine) {
+		EventRegistry.INSTANCE.register(JobEvent.class, event -> {
+			running.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handled.incrementAndGet();
+		});
+		EventDispatcher.INSTANCE.route(JobEvent.class, engine.dispatcher());
+		return engine;
+	}
+
+	/**
+	 * The test event
+	 */
+	private static final class JobEvent implements Event {
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.dispatcher.AsyncEngine;
+import pt.davidafsilva.jevents.dispatcher.BatchPolicy;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the batch listeners
+ *
+ * @author David Silva
+ */
+public class BatchTest {
+
+	@After
+	public void tearDown() {
+		EventRegistry.INSTANCE.unregisterAll(RowEvent.class);
+		EventDispatcher.INSTANCE.setBatchPolicy(BatchPolicy.DEFAULT);
+	}
+
+	@Test
+	public void size_threshold_test() throws InterruptedException {
+		EventDispatcher.INSTANCE.setBatchPolicy(BatchPolicy.of(10, 1, TimeUnit.HOURS));
+		final List<Integer> sizes = new CopyOnWriteArrayList<>();
+		final AtomicInteger single = new AtomicInteger();
+		EventRegistry.INSTANCE.registerBatch(RowEvent.class, events -> sizes.add(events.size()));
+		EventRegistry.INSTANCE.register(RowEvent.class, event -> single.incrementAndGet());
+
+		for (int i = 0; i < 25; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new RowEvent());
+		}
+		assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+
+		// two full batches, plus the remaining events flushed by the drain
+		assertThat(sizes.size(), is(3));
+		assertThat(sizes.get(0) + sizes.get(1) + sizes.get(2), is(25));
+		assertThat(sizes.contains(5), is(true));
+		assertThat(single.get(), is(25));
+
+		// synchronous events are delivered right away
+		sizes.clear();
+		EventDispatcher.INSTANCE.dispatch(new RowEvent());
+		assertThat(sizes.toString(), is("[1]"));
+	}
+
+	@Test
+	public void linger_test() throws InterruptedException {
+		EventDispatcher.INSTANCE.setBatchPolicy(BatchPolicy.of(1000, 20, TimeUnit.MILLISECONDS));
+		final List<Integer> sizes = new CopyOnWriteArrayList<>();
+		EventRegistry.INSTANCE.registerBatch(RowEvent.class, events -> sizes.add(events.size()));
+
+		for (int i = 0; i < 3; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new RowEvent());
+		}
+
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (sizes.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(sizes.toString(), is("[3]"));
+	}
+
+	@Test
+	public void shutdown_test() {
+		final EventBus bus = EventBus.create(AsyncEngine.pooled(1));
+		bus.getDispatcher().setBatchPolicy(BatchPolicy.of(1000, 1, TimeUnit.HOURS));
+		bus.getRegistry().registerBatch(RowEvent.class, events -> {
+		});
+		bus.shutdown();
+
+		try {
+			bus.dispatchAsync(new RowEvent());
+			fail("the batcher was shut down");
+		} catch (RejectedExecutionException e) {
+			assertThat(e.getMessage(), is("The batcher was shut down."));
+		}
+	}
+
+	private static final class RowEvent implements Event {
+	}
+}
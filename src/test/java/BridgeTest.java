@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.bridge.BridgeTransport;
+import pt.davidafsilva.jevents.bridge.EventBridge;
+import pt.davidafsilva.jevents.bridge.SharedMemoryTransport;
+import pt.davidafsilva.jevents.bridge.SocketTransport;
+import pt.davidafsilva.jevents.codec.CodecRegistry;
+import pt.davidafsilva.jevents.codec.EventCodec;
+import pt.davidafsilva.jevents.dispatcher.Dispatcher;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the bridge between processes, with both ends in this process: the local end is installed
+ * in the event dispatcher, while the peer end is a bare transport.
+ *
+ * @author David Silva
+ */
+public class BridgeTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	// the events received by the peer
+	private final BlockingQueue<Event> peerReceived = new LinkedBlockingQueue<>();
+
+	// the events delivered to the local listeners
+	private final BlockingQueue<Event> delivered = new LinkedBlockingQueue<>();
+
+	// the local bridge
+	private EventBridge bridge;
+
+	@Before
+	public void setUp() {
+		bridge = EventBridge.create();
+		bridge.forward(PingEvent.class);
+		bridge.forward(PongEvent.class);
+		EventDispatcher.INSTANCE.setBridge(bridge);
+		EventRegistry.INSTANCE.register(PongEvent.class, delivered::add);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		EventDispatcher.INSTANCE.setBridge(null);
+		EventRegistry.INSTANCE.unregisterAll(PongEvent.class);
+		bridge.close();
+	}
+
+	@Test
+	public void shared_memory_test() throws Exception {
+		final Path aToB = folder.getRoot().toPath().resolve("a-to-b");
+		final Path bToA = folder.getRoot().toPath().resolve("b-to-a");
+		bridge.connect(SharedMemoryTransport.open(aToB, bToA, 1024, WaitStrategy.YIELD));
+		try (SharedMemoryTransport peer = SharedMemoryTransport.open(bToA, aToB, 1024, WaitStrategy.YIELD)) {
+			// enough events to wrap the small ring several times
+			exchange(peer, 500);
+		}
+	}
+
+	@Test
+	public void socket_test() throws Exception {
+		final SocketTransport local = SocketTransport.listen(0);
+		bridge.connect(local);
+		try (SocketTransport peer = SocketTransport.connect(local.getLocalPort())) {
+			exchange(peer, 500);
+		}
+	}
+
+	@Test
+	public void error_handling_test() throws Exception {
+		final EventBus bus = EventBus.create();
+		final BlockingQueue<RuntimeException> failures = new LinkedBlockingQueue<>();
+		bus.getDispatcher().setErrorHandler((event, listener, failure) -> failures.add(failure));
+		bus.register(PongEvent.class, delivered::add);
+		// the pongs with a negative sequence cannot be decoded
+		final EventBridge failing = EventBridge.create(new EventCodec<Event>() {
+
+			@Override
+			public void encode(final Event event, final ByteBuffer target) {
+				CodecRegistry.INSTANCE.encode(event, target);
+			}
+
+			@Override
+			public Event decode(final ByteBuffer source) {
+				final Event event = CodecRegistry.INSTANCE.decode(source);
+				if (((PongEvent) event).sequence < 0) {
+					throw new IllegalArgumentException("undecodable");
+				}
+				return event;
+			}
+		}, bus);
+		final SocketTransport local = SocketTransport.listen(0);
+		failing.connect(local);
+		try (SocketTransport peer = SocketTransport.connect(local.getLocalPort())) {
+			peer.open(CodecRegistry.INSTANCE, peerReceived::add);
+			final PongEvent undecodable = new PongEvent();
+			undecodable.sequence = -1L;
+			peer.send(undecodable);
+			final PongEvent pong = new PongEvent();
+			pong.sequence = 7L;
+			peer.send(pong);
+
+			// the failure is handled and the following events are still delivered
+			assertThat(failures.poll(10, TimeUnit.SECONDS).getMessage(), is("undecodable"));
+			assertThat(((PongEvent) delivered.poll(10, TimeUnit.SECONDS)).sequence, is(7L));
+
+			// a rejected delivery is handled as well
+			bus.getDispatcher().route(PongEvent.class, new Dispatcher() {
+
+				@Override
+				public <E extends Event> void dispatchTo(final E event, final EventListener<E>[] listeners) {
+					throw new RejectedExecutionException("rejected");
+				}
+			});
+			peer.send(pong);
+			assertThat(failures.poll(10, TimeUnit.SECONDS), is(instanceOf(RejectedExecutionException.class)));
+			assertThat(delivered.isEmpty(), is(true));
+		} finally {
+			failing.close();
+			bus.shutdown();
+			assertThat(bus.awaitTermination(10, TimeUnit.SECONDS), is(true));
+		}
+	}
+
+	/**
+	 * Exchanges events between the local bridge and the given peer transport
+	 *
+	 * @param peer
+	 * 		the peer transport
+	 * @param count
+	 * 		the number of forwarded events
+	 */
+	private void exchange(final BridgeTransport peer, final int count) throws InterruptedException {
+		peer.open(CodecRegistry.INSTANCE, peerReceived::add);
+
+		// only the forwarded types reach the peer
+		EventDispatcher.INSTANCE.dispatch(new OtherEvent());
+		for (int i = 0; i < count; i++) {
+			final PingEvent ping = new PingEvent();
+			ping.sequence = i;
+			ping.origin = "local";
+			EventDispatcher.INSTANCE.dispatch(ping);
+		}
+		for (int i = 0; i < count; i++) {
+			final Event received = peerReceived.poll(10, TimeUnit.SECONDS);
+			assertThat(received, is(instanceOf(PingEvent.class)));
+			assertThat(((PingEvent) received).sequence, is((long) i));
+			assertThat(((PingEvent) received).origin, is("local"));
+		}
+
+		// the events of the peer reach the local listeners, without being forwarded back
+		final PongEvent pong = new PongEvent();
+		pong.sequence = 7L;
+		peer.send(pong);
+		final Event received = delivered.poll(10, TimeUnit.SECONDS);
+		assertThat(received, is(instanceOf(PongEvent.class)));
+		assertThat(((PongEvent) received).sequence, is(7L));
+
+		EventDispatcher.INSTANCE.dispatch(new PingEvent());
+		assertThat(peerReceived.poll(10, TimeUnit.SECONDS), is(instanceOf(PingEvent.class)));
+		assertThat(peerReceived.isEmpty(), is(true));
+	}
+
+	/**
+	 * A forwarded event
+	 */
+	static class PingEvent implements Event {
+
+		long sequence;
+		String origin;
+	}
+
+	/**
+	 * A forwarded event, sent by the peer
+	 */
+	static class PongEvent implements Event {
+
+		long sequence;
+	}
+
+	/**
+	 * An event which is not forwarded
+	 */
+	static class OtherEvent implements Event {
+	}
+}
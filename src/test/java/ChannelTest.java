@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.LongEventListener;
+import pt.davidafsilva.jevents.channel.ChannelRegistry;
+import pt.davidafsilva.jevents.channel.DoubleChannel;
+import pt.davidafsilva.jevents.channel.LongChannel;
+import pt.davidafsilva.jevents.dispatcher.ErrorHandler;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the primitive channels
+ *
+ * @author David Silva
+ */
+public class ChannelTest {
+
+	private static final int WARM_UP = 50_000;
+	private static final int ITERATIONS = 100_000;
+
+	private final EventBus bus = EventBus.create();
+
+	@After
+	public void tearDown() throws InterruptedException {
+		bus.shutdown();
+		bus.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void sync_test() {
+		final ChannelRegistry channels = bus.getChannels();
+		final AtomicLong sum = new AtomicLong();
+		final double[] last = new double[1];
+		channels.registerLong("ticks", sum::addAndGet);
+		channels.registerDouble("prices", value -> last[0] = value);
+
+		final LongChannel ticks = channels.longChannel("ticks");
+		assertThat(channels.longChannel("ticks"), sameInstance(ticks));
+		assertThat(ticks.getListenerCount(), is(1));
+		ticks.dispatch(40);
+		ticks.dispatch(2);
+		channels.doubleChannel("prices").dispatch(1.0842);
+		assertThat(sum.get(), is(42L));
+		assertThat(last[0], is(1.0842));
+
+		// channels of distinct types are kept apart
+		assertThat(channels.doubleChannel("ticks").getListenerCount(), is(0));
+		assertThat(EventBus.getDefault().getChannels().longChannel("ticks").getListenerCount(), is(0));
+	}
+
+	@Test
+	public void async_test() throws Exception {
+		final LongChannel ticks = bus.getChannels().longChannel("ticks", 64, ChannelRegistry.DEFAULT_WAIT_STRATEGY);
+		final DoubleChannel prices = bus.getChannels().doubleChannel("prices");
+		final long[] expected = {0};
+		final AtomicLong outOfOrder = new AtomicLong();
+		ticks.register(value -> {
+			if (value != expected[0]++) {
+				outOfOrder.incrementAndGet();
+			}
+		});
+		final double[] sum = new double[1];
+		prices.register(value -> sum[0] += value);
+
+		// wraps the ring several times
+		for (int i = 0; i < 1000; i++) {
+			ticks.dispatchAsync(i);
+			prices.dispatchAsync(-0.5);
+		}
+		assertThat(bus.getDispatcher().drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(expected[0], is(1000L));
+		assertThat(outOfOrder.get(), is(0L));
+		assertThat(sum[0], is(-500.0));
+
+		bus.shutdown();
+		try {
+			ticks.dispatchAsync(1000);
+			fail("the dispatch should have been rejected");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		assertThat(bus.awaitTermination(5, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test(timeout = 10_000)
+	public void error_handling_test() throws Exception {
+		final List<Object> failedListeners = new CopyOnWriteArrayList<>();
+		bus.getDispatcher().setErrorHandler(new ErrorHandler() {
+			@Override
+			public void handle(final Event event, final EventListener<?> listener, final RuntimeException failure) {
+				fail("the failure should have been handled as a channel one");
+			}
+
+			@Override
+			public void handleChannel(final String channel, final Object listener, final RuntimeException failure) {
+				assertThat(channel, is("ticks"));
+				failedListeners.add(listener);
+			}
+		});
+		final LongChannel ticks = bus.getChannels().longChannel("ticks", 4, WaitStrategy.YIELD);
+		final AtomicLong handled = new AtomicLong();
+		final LongEventListener failing = value -> {
+			if (value == 1) {
+				throw new Error("boom");
+			}
+			throw new IllegalStateException("boom");
+		};
+		ticks.register(failing);
+		ticks.register(value -> handled.incrementAndGet());
+
+		// the remaining listeners are still executed
+		ticks.dispatch(0);
+		assertThat(handled.get(), is(1L));
+		assertThat(failedListeners.size(), is(1));
+		assertThat(failedListeners.get(0), sameInstance((Object) failing));
+
+		// the consumer survives the errors, hence the producer keeps going once the ring wraps
+		for (int i = 1; i <= 20; i++) {
+			ticks.dispatchAsync(i);
+		}
+		assertThat(bus.getDispatcher().drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(20L));
+		assertThat(failedListeners.size(), is(20));
+	}
+
+	@Test
+	public void dispatch_does_not_allocate() throws Exception {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		final LongChannel ticks = bus.getChannels().longChannel("ticks");
+		final DoubleChannel prices = bus.getChannels().doubleChannel("prices");
+		final long[] handled = new long[2];
+		ticks.register(value -> handled[0]++);
+		prices.register(value -> handled[1]++);
+		for (int i = 0; i < WARM_UP; i++) {
+			ticks.dispatch(i);
+			prices.dispatchAsync(i);
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		// calibrate the cost of the measurement itself
+		final long calibration = threads.getThreadAllocatedBytes(threadId);
+		final long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			ticks.dispatch(i);
+			prices.dispatchAsync(i);
+		}
+		final long after = threads.getThreadAllocatedBytes(threadId);
+
+		assertThat(bus.getDispatcher().drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(handled[0], is((long) WARM_UP + ITERATIONS));
+		assertThat(handled[1], is((long) WARM_UP + ITERATIONS));
+		assertThat(after - before - (before - calibration), is(0L));
+	}
+}
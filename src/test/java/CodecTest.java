@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.BinaryCodec;
+import pt.davidafsilva.jevents.codec.CodecRegistry;
+import pt.davidafsilva.jevents.codec.FlyweightCodec;
+import pt.davidafsilva.jevents.codec.FlyweightEvent;
+import pt.davidafsilva.jevents.journal.EventJournal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the event codecs
+ *
+ * @author David Silva
+ */
+public class CodecTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		CodecRegistry.INSTANCE.unregister(OrderEvent.class);
+		CodecRegistry.INSTANCE.unregister(QuoteEvent.class);
+	}
+
+	@Test
+	public void binary_codec_test() {
+		final OrderEvent order = new OrderEvent();
+		order.id = -42L;
+		order.quantity = 1_000_000;
+		order.price = 12.5;
+		order.symbol = "PTÉ€";
+		order.unit = TimeUnit.SECONDS;
+		order.discount = 0.5f;
+		order.payload = new byte[]{1, 2, 3};
+		order.flag = true;
+		order.trace = 1L;
+
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		BinaryCodec.of(OrderEvent.class).encode(order, buffer);
+		buffer.flip();
+		final OrderEvent decoded = BinaryCodec.of(OrderEvent.class).decode(buffer);
+		assertThat(buffer.remaining(), is(0));
+		assertThat(decoded.id, is(-42L));
+		assertThat(decoded.quantity, is(1_000_000));
+		assertThat(decoded.price, is(12.5));
+		assertThat(decoded.symbol, is("PTÉ€"));
+		assertThat(decoded.unit, is(TimeUnit.SECONDS));
+		assertThat(decoded.discount, is(0.5f));
+		assertThat(decoded.payload, is(new byte[]{1, 2, 3}));
+		assertThat(decoded.flag, is(true));
+		assertThat(decoded.comment, is(nullValue()));
+		// transient fields keep the value assigned by the constructor
+		assertThat(decoded.trace, is(99L));
+	}
+
+	@Test
+	public void unsupported_field_test() {
+		try {
+			BinaryCodec.of(ListEvent.class);
+			fail("unsupported field accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void registry_test() {
+		final OrderEvent order = new OrderEvent();
+		order.id = 7L;
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		CodecRegistry.INSTANCE.encode(order, buffer);
+		buffer.flip();
+		assertThat(buffer.getInt(0), is(CodecRegistry.typeIdOf(OrderEvent.class)));
+		assertThat(((OrderEvent) CodecRegistry.INSTANCE.decode(buffer)).id, is(7L));
+
+		// unknown types must be registered before being decoded
+		CodecRegistry.INSTANCE.unregister(OrderEvent.class);
+		buffer.rewind();
+		try {
+			CodecRegistry.INSTANCE.decode(buffer);
+			fail("unknown type decoded");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		CodecRegistry.INSTANCE.register(OrderEvent.class);
+		buffer.rewind();
+		assertThat(((OrderEvent) CodecRegistry.INSTANCE.decode(buffer)).id, is(7L));
+
+		// type identifiers are unique
+		try {
+			CodecRegistry.INSTANCE.register(QuoteEvent.class, CodecRegistry.typeIdOf(OrderEvent.class),
+					FlyweightCodec.of(QuoteEvent::new));
+			fail("duplicate type identifier accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void flyweight_test() throws IOException {
+		final QuoteEvent shared = new QuoteEvent();
+		CodecRegistry.INSTANCE.register(QuoteEvent.class, FlyweightCodec.of(() -> shared));
+		try (EventJournal journal = EventJournal.open(folder.getRoot().toPath())) {
+			for (int i = 0; i < 3; i++) {
+				final QuoteEvent quote = new QuoteEvent();
+				quote.wrap(ByteBuffer.allocate(QuoteEvent.LENGTH), 0, QuoteEvent.LENGTH);
+				quote.setBid(i);
+				quote.setAsk(i + 0.5);
+				journal.append(quote);
+			}
+
+			// the decoded events are views over the journal segment
+			final List<Double> asks = new ArrayList<>();
+			journal.replay(0L, event -> {
+				assertThat(event, is(sameInstance((Event) shared)));
+				asks.add(shared.getAsk());
+			});
+			assertThat(asks.size(), is(3));
+			assertThat(asks.get(2), is(2.5));
+			assertThat(shared.length(), is(QuoteEvent.LENGTH));
+		}
+	}
+
+	/**
+	 * An event with every kind of supported field
+	 */
+	static class OrderEvent implements Event {
+
+		private static final int IGNORED = 1;
+
+		long id;
+		int quantity;
+		double price;
+		String symbol;
+		String comment;
+		TimeUnit unit;
+		Float discount;
+		byte[] payload;
+		boolean flag;
+		transient long trace = 99L;
+	}
+
+	/**
+	 * An event with an unsupported field
+	 */
+	static class ListEvent implements Event {
+
+		List<String> values;
+	}
+
+	/**
+	 * A flyweight event: bid and ask prices
+	 */
+	public static final class QuoteEvent extends FlyweightEvent {
+
+		static final int LENGTH = 16;
+
+		double getAsk() {
+			return getDouble(8);
+		}
+
+		void setBid(final double bid) {
+			putDouble(0, bid);
+		}
+
+		void setAsk(final double ask) {
+			putDouble(8, ask);
+		}
+	}
+}
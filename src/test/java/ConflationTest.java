@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.dispatcher.ConflatingDispatcher;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+import pt.davidafsilva.jevents.metrics.StandardEventMetrics;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the conflating dispatcher
+ *
+ * @author David Silva
+ */
+public class ConflationTest {
+
+	private static final int TICKS = 100;
+
+	private final ConflatingDispatcher conflating = ConflatingDispatcher.create(1);
+
+	@After
+	public void tearDown() throws InterruptedException {
+		EventDispatcher.INSTANCE.setMetrics(EventMetrics.NONE);
+		EventDispatcher.INSTANCE.unroute(PriceEvent.class);
+		EventRegistry.INSTANCE.unregisterAll(PriceEvent.class);
+		conflating.shutdown();
+		assertThat(conflating.awaitTermination(10, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void conflation_test() throws InterruptedException {
+		final StandardEventMetrics metrics = StandardEventMetrics.create();
+		EventDispatcher.INSTANCE.setMetrics(metrics);
+		final CountDownLatch gate = new CountDownLatch(1);
+		final List<PriceEvent> handled = new CopyOnWriteArrayList<>();
+		EventRegistry.INSTANCE.register(PriceEvent.class, event -> {
+			if (event.symbol == null) {
+				try {
+					gate.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			handled.add(event);
+		});
+		EventDispatcher.INSTANCE.route(PriceEvent.class, conflating);
+
+		// holds the single partition while the burst arrives
+		EventDispatcher.INSTANCE.dispatchAsync(new PriceEvent(null, 0));
+		for (int i = 1; i <= TICKS; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new PriceEvent("EURUSD", i));
+			EventDispatcher.INSTANCE.dispatchAsync(new PriceEvent("GBPUSD", -i));
+		}
+		gate.countDown();
+		assertThat(EventDispatcher.INSTANCE.drain(10, TimeUnit.SECONDS), is(true));
+
+		assertThat(handled.size(), is(3));
+		assertThat(handled.get(1).price, is((double) TICKS));
+		assertThat(handled.get(2).price, is((double) -TICKS));
+		assertThat(conflating.getConflatedCount(), is(2L * (TICKS - 1)));
+		assertThat(metrics.getEventTypeMetrics(PriceEvent.class).getConflatedCount(), is(2L * (TICKS - 1)));
+		assertThat(metrics.getEventTypeMetrics(PriceEvent.class).getQueueDepth(), is(0L));
+
+		// the key is released once the pending event is executed
+		EventDispatcher.INSTANCE.dispatchAsync(new PriceEvent("EURUSD", 0));
+		assertThat(EventDispatcher.INSTANCE.drain(10, TimeUnit.SECONDS), is(true));
+		assertThat(handled.size(), is(4));
+	}
+
+	private static final class PriceEvent implements Event {
+
+		private final String symbol;
+		private final double price;
+
+		private PriceEvent(final String symbol, final double price) {
+			this.symbol = symbol;
+			this.price = price;
+		}
+
+		@Override
+		public Object getConflationKey() {
+			return symbol;
+		}
+	}
+}
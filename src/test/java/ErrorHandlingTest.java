@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.DeadEvent;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.dispatcher.ErrorHandler;
+import pt.davidafsilva.jevents.dispatcher.FanOutDispatcher;
+import pt.davidafsilva.jevents.dispatcher.FanOutMode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the isolation of the listeners failures and the dead events
+ *
+ * @author David Silva
+ */
+public class ErrorHandlingTest {
+
+	private static final int ITERATIONS = 100_000;
+
+	// preallocated, so that failing costs nothing to the listener
+	private static final IllegalStateException FAILURE = new IllegalStateException("boom");
+
+	private final EventBus bus = EventBus.create();
+
+	private final AtomicInteger handled = new AtomicInteger();
+
+	private final AtomicInteger failed = new AtomicInteger();
+
+	private final EventListener<OrderEvent> failing = event -> {
+		throw FAILURE;
+	};
+
+	@After
+	public void tearDown() throws InterruptedException {
+		bus.shutdown();
+		assertThat(bus.awaitTermination(10, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void isolation_test() throws InterruptedException {
+		final List<Event> failedEvents = new CopyOnWriteArrayList<>();
+		bus.getDispatcher().setErrorHandler((event, listener, failure) -> {
+			assertThat(listener, sameInstance((Object) failing));
+			assertThat(failure, sameInstance((Object) FAILURE));
+			failedEvents.add(event);
+		});
+		register();
+
+		final OrderEvent sync = new OrderEvent();
+		bus.dispatch(sync);
+		assertThat(handled.get(), is(2));
+		assertThat(failedEvents.size(), is(1));
+		assertThat(failedEvents.get(0), sameInstance((Event) sync));
+
+		// the async workers keep running the remaining listeners
+		for (int i = 0; i < 10; i++) {
+			bus.dispatchAsync(new OrderEvent());
+		}
+		assertThat(bus.getDispatcher().drain(10, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(22));
+		assertThat(failedEvents.size(), is(11));
+	}
+
+	@Test
+	public void batch_isolation_test() throws InterruptedException {
+		final List<Event> failedEvents = new CopyOnWriteArrayList<>();
+		bus.getDispatcher().setErrorHandler((event, listener, failure) -> {
+			assertThat(failure, sameInstance((Object) FAILURE));
+			failedEvents.add(event);
+		});
+		bus.getRegistry().registerBatch(OrderEvent.class, events -> {
+			throw FAILURE;
+		});
+		bus.getRegistry().registerBatch(OrderEvent.class, events -> handled.addAndGet(events.size()));
+
+		final OrderEvent sync = new OrderEvent();
+		bus.dispatch(sync);
+		assertThat(handled.get(), is(1));
+		assertThat(failedEvents.size(), is(1));
+		assertThat(failedEvents.get(0), sameInstance((Event) sync));
+
+		// the async batches are isolated as well
+		for (int i = 0; i < 10; i++) {
+			bus.dispatchAsync(new OrderEvent());
+		}
+		assertThat(bus.getDispatcher().drain(10, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(11));
+		assertThat(failedEvents.size() > 1, is(true));
+	}
+
+	@Test
+	public void routed_fan_out_test() throws InterruptedException {
+		final List<EventListener<?>> failedListeners = new CopyOnWriteArrayList<>();
+		bus.getDispatcher().setErrorHandler((event, listener, failure) -> {
+			assertThat(failure, sameInstance((Object) FAILURE));
+			failedListeners.add(listener);
+		});
+		bus.getDispatcher().route(OrderEvent.class, FanOutDispatcher.create(FanOutMode.ISOLATED));
+		register();
+
+		for (int i = 0; i < 10; i++) {
+			bus.dispatch(new OrderEvent());
+		}
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (failedListeners.size() < 10 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(failedListeners.size(), is(10));
+		assertThat(failedListeners.get(0), sameInstance((Object) failing));
+	}
+
+	@Test
+	public void propagate_test() {
+		bus.getDispatcher().setErrorHandler(ErrorHandler.PROPAGATE);
+		register();
+		try {
+			bus.dispatch(new OrderEvent());
+			fail("the failure should have been propagated");
+		} catch (IllegalStateException e) {
+			assertThat(e, sameInstance(FAILURE));
+		}
+		assertThat(handled.get(), is(1));
+	}
+
+	@Test
+	public void dead_event_test() throws InterruptedException {
+		final List<Event> dead = new CopyOnWriteArrayList<>();
+		bus.register(DeadEvent.class, event -> dead.add(event.getEvent()));
+
+		final OrderEvent unheard = new OrderEvent();
+		bus.dispatch(unheard);
+		bus.dispatchAsync(unheard);
+		assertThat(bus.getDispatcher().drain(10, TimeUnit.SECONDS), is(true));
+		assertThat(dead.size(), is(2));
+		assertThat(dead.get(0), sameInstance((Event) unheard));
+
+		// heard events are not dead
+		register();
+		bus.getDispatcher().setErrorHandler((event, listener, failure) -> failed.incrementAndGet());
+		bus.dispatch(unheard);
+		assertThat(dead.size(), is(2));
+	}
+
+	/**
+	 * The listener throws a preallocated exception, hence only the isolation of the failure by the dispatcher and
+	 * its hand off to the error handler are measured, not the creation of the exception, which is up to the listener.
+	 */
+	@Test
+	public void failure_handling_does_not_allocate() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		bus.getDispatcher().setErrorHandler((event, listener, failure) -> failed.incrementAndGet());
+		register();
+		final OrderEvent event = new OrderEvent();
+		for (int i = 0; i < ITERATIONS; i++) {
+			bus.dispatch(event);
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		// calibrate the cost of the measurement itself
+		final long calibration = threads.getThreadAllocatedBytes(threadId);
+		final long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			bus.dispatch(event);
+		}
+		final long after = threads.getThreadAllocatedBytes(threadId);
+
+		assertThat(failed.get(), is(2 * ITERATIONS));
+		assertThat(handled.get(), is(4 * ITERATIONS));
+		assertThat(after - before - (before - calibration), is(0L));
+	}
+
+	private void register() {
+		bus.register(OrderEvent.class, event -> handled.incrementAndGet());
+		bus.register(OrderEvent.class, failing);
+		bus.register(OrderEvent.class, event -> handled.incrementAndGet());
+	}
+
+	private static final class OrderEvent implements Event {
+	}
+}
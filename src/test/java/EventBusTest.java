@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.dispatcher.AsyncEngine;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the isolation between event buses
+ *
+ * @author David Silva
+ */
+public class EventBusTest {
+
+	@Test
+	public void default_bus_test() {
+		assertThat(EventDispatcher.INSTANCE.getAsyncEngine(),
+				sameInstance(EventBus.getDefault().getDispatcher().getAsyncEngine()));
+		final AtomicInteger handled = new AtomicInteger();
+		EventBus.getDefault().register(PingEvent.class, event -> handled.incrementAndGet());
+		try {
+			assertThat(EventRegistry.INSTANCE.getListenerSnapshot(PingEvent.class).length, is(1));
+			new PingEvent().dispatch();
+			assertThat(handled.get(), is(1));
+		} finally {
+			EventRegistry.INSTANCE.unregisterAll(PingEvent.class);
+		}
+	}
+
+	@Test
+	public void isolation_test() throws Exception {
+		final EventBus first = EventBus.create(AsyncEngine.pooled(1));
+		final EventBus second = EventBus.create(AsyncEngine.pooled(1));
+		try {
+			final AtomicInteger firstHandled = new AtomicInteger();
+			final AtomicInteger secondHandled = new AtomicInteger();
+			final AtomicInteger defaultHandled = new AtomicInteger();
+			first.register(PingEvent.class, event -> firstHandled.incrementAndGet());
+			second.register(PingEvent.class, event -> secondHandled.incrementAndGet());
+			EventRegistry.INSTANCE.register(PingEvent.class, event -> defaultHandled.incrementAndGet());
+
+			first.dispatch(new PingEvent());
+			second.dispatchAsync(new PingEvent());
+			second.dispatchAsync(new PingEvent());
+			assertThat(second.getDispatcher().drain(5, TimeUnit.SECONDS), is(true));
+			assertThat(firstHandled.get(), is(1));
+			assertThat(secondHandled.get(), is(2));
+			assertThat(defaultHandled.get(), is(0));
+		} finally {
+			EventRegistry.INSTANCE.unregisterAll(PingEvent.class);
+			first.shutdown();
+			second.shutdown();
+		}
+	}
+
+	@Test
+	public void hooks_isolation_test() throws Exception {
+		final EventBus first = EventBus.create(AsyncEngine.pooled(1));
+		final EventBus second = EventBus.create(AsyncEngine.pooled(1));
+		try {
+			final AtomicInteger firstDispatched = new AtomicInteger();
+			final AtomicInteger firstFailed = new AtomicInteger();
+			final AtomicInteger secondFailed = new AtomicInteger();
+			first.getDispatcher().setMetrics(new EventMetrics() {
+				@Override
+				public void dispatched(final Class<? extends Event> eventType, final int listenerCount,
+						final boolean async) {
+					firstDispatched.incrementAndGet();
+				}
+			});
+			first.getDispatcher().setErrorHandler((event, listener, failure) -> firstFailed.incrementAndGet());
+			first.getDispatcher().setSlowListenerPolicy(SlowListenerPolicy.isolate(1, TimeUnit.SECONDS, 2));
+			second.getDispatcher().setErrorHandler((event, listener, failure) -> secondFailed.incrementAndGet());
+			first.register(PingEvent.class, event -> {
+				throw new IllegalStateException("first");
+			});
+			second.register(PingEvent.class, event -> {
+				throw new IllegalStateException("second");
+			});
+
+			// the hooks of a bus are not applied to the others
+			assertThat(second.getDispatcher().getMetrics(), sameInstance(EventMetrics.NONE));
+			assertThat(second.getDispatcher().getSlowListenerPolicy(), sameInstance(SlowListenerPolicy.DISABLED));
+			assertThat(EventDispatcher.INSTANCE.getMetrics(), sameInstance(EventMetrics.NONE));
+			second.dispatch(new PingEvent());
+			second.dispatchAsync(new PingEvent());
+			assertThat(second.getDispatcher().drain(5, TimeUnit.SECONDS), is(true));
+			assertThat(secondFailed.get(), is(2));
+			assertThat(firstDispatched.get(), is(0));
+			assertThat(firstFailed.get(), is(0));
+
+			first.dispatch(new PingEvent());
+			first.dispatchAsync(new PingEvent());
+			assertThat(first.getDispatcher().drain(5, TimeUnit.SECONDS), is(true));
+			assertThat(firstDispatched.get(), is(2));
+			assertThat(firstFailed.get(), is(2));
+			assertThat(secondFailed.get(), is(2));
+		} finally {
+			first.shutdown();
+			second.shutdown();
+			assertThat(first.awaitTermination(5, TimeUnit.SECONDS), is(true));
+			assertThat(second.awaitTermination(5, TimeUnit.SECONDS), is(true));
+		}
+	}
+
+	@Test
+	public void shutdown_test() throws Exception {
+		final EventBus bus = EventBus.create(AsyncEngine.pooled(1));
+		final AtomicInteger handled = new AtomicInteger();
+		bus.register(PingEvent.class, event -> handled.incrementAndGet());
+		EventRegistry.INSTANCE.register(PingEvent.class, event -> handled.incrementAndGet());
+		try {
+			bus.shutdown();
+			assertThat(bus.awaitTermination(5, TimeUnit.SECONDS), is(true));
+			try {
+				bus.dispatchAsync(new PingEvent());
+				fail("the dispatch should have been rejected");
+			} catch (RejectedExecutionException e) {
+				// expected
+			}
+
+			// the default bus is still running
+			EventDispatcher.INSTANCE.dispatchAsync(new PingEvent());
+			assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+			assertThat(handled.get(), is(1));
+		} finally {
+			EventRegistry.INSTANCE.unregisterAll(PingEvent.class);
+		}
+	}
+
+	private static final class PingEvent implements Event {
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.dispatcher.DispatchResult;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.FanOutDispatcher;
+import pt.davidafsilva.jevents.dispatcher.FanOutMode;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the parallel dispatches
+ *
+ * @author David Silva
+ */
+public class FanOutTest {
+
+	private static final int LISTENERS = 8;
+
+	@After
+	public void tearDown() {
+		EventRegistry.INSTANCE.unregisterAll(RenderEvent.class);
+		EventDispatcher.INSTANCE.setFanOutDispatcher(FanOutDispatcher.create(FanOutMode.ISOLATED));
+	}
+
+	@Test
+	public void isolated_test() throws Exception {
+		final AtomicInteger handled = register();
+		final DispatchResult result = EventDispatcher.INSTANCE.dispatchParallel(new RenderEvent())
+				.get(5, TimeUnit.SECONDS);
+		assertThat(handled.get(), is(LISTENERS - 1));
+		assertThat(result.getListenerCount(), is(LISTENERS));
+		assertThat(result.isSuccessful(), is(false));
+		assertThat(result.getFailures().size(), is(1));
+		assertThat(result.getFailures().get(0).getCause().getMessage(), is("boom"));
+	}
+
+	@Test
+	public void fail_fast_test() throws Exception {
+		EventDispatcher.INSTANCE.setFanOutDispatcher(FanOutDispatcher.create(FanOutMode.FAIL_FAST));
+		register();
+		final CompletableFuture<DispatchResult> future = EventDispatcher.INSTANCE.dispatchParallel(new RenderEvent());
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("the dispatch should have failed");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+		}
+		assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void no_listeners_test() throws Exception {
+		assertThat(EventDispatcher.INSTANCE.dispatchParallel(new RenderEvent()).get(5, TimeUnit.SECONDS)
+				.getListenerCount(), is(0));
+	}
+
+	/**
+	 * Registers the test listeners, one of them failing
+	 *
+	 * @return the number of events handled by the successful listeners
+	 */
+	private static AtomicInteger register() {
+		final AtomicInteger handled = new AtomicInteger();
+		for (int i = 1; i < LISTENERS; i++) {
+			EventRegistry.INSTANCE.register(RenderEvent.class, event -> handled.incrementAndGet());
+		}
+		EventRegistry.INSTANCE.register(RenderEvent.class, event -> {
+			throw new IllegalStateException("boom");
+		});
+		return handled;
+	}
+
+	private static final class RenderEvent implements Event {
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.registry.EventKey;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the filtered listeners
+ *
+ * @author David Silva
+ */
+public class FilterTest {
+
+	private static final EventKey<OrderEvent, Integer> TENANT = EventKey.of(event -> event.tenant);
+
+	private static final int TENANTS = 100;
+
+	private final EventBus bus = EventBus.create();
+
+	private final List<String> handled = new CopyOnWriteArrayList<>();
+
+	@After
+	public void tearDown() throws InterruptedException {
+		bus.shutdown();
+		assertThat(bus.awaitTermination(10, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void indexed_dispatch_test() throws InterruptedException {
+		for (int i = 0; i < TENANTS; i++) {
+			final int tenant = i;
+			bus.register(OrderEvent.class, TENANT, tenant, event -> handled.add("tenant-" + tenant));
+		}
+		bus.register(OrderEvent.class, event -> handled.add("all"));
+
+		bus.dispatch(new OrderEvent(7));
+		assertThat(handled.size(), is(2));
+		assertThat(handled.get(0), is("all"));
+		assertThat(handled.get(1), is("tenant-7"));
+
+		// no tenant listener for unknown or missing keys
+		handled.clear();
+		bus.dispatch(new OrderEvent(TENANTS));
+		bus.dispatch(new OrderEvent(null));
+		assertThat(handled.size(), is(2));
+
+		// asynchronous dispatches are filtered as well
+		handled.clear();
+		bus.dispatchAsync(new OrderEvent(42));
+		assertThat(bus.getDispatcher().drain(10, TimeUnit.SECONDS), is(true));
+		assertThat(handled.size(), is(2));
+		assertThat(handled.contains("tenant-42"), is(true));
+	}
+
+	@Test
+	public void hierarchy_test() {
+		final EventListener<OrderEvent> parent = event -> handled.add("order");
+		bus.register(OrderEvent.class, TENANT, 1, parent);
+		bus.register(RefundEvent.class, TENANT, 1, event -> handled.add("refund"));
+		assertThat(bus.getRegistry().getEventTypes().contains(OrderEvent.class), is(true));
+
+		bus.dispatch(new RefundEvent(1));
+		assertThat(handled.size(), is(2));
+		assertThat(handled.get(0), is("refund"));
+		assertThat(handled.get(1), is("order"));
+
+		handled.clear();
+		bus.dispatch(new OrderEvent(1));
+		assertThat(handled.size(), is(1));
+		assertThat(handled.get(0), is("order"));
+	}
+
+	@Test
+	public void unregister_test() {
+		final EventListener<OrderEvent> listener = event -> handled.add("tenant");
+		bus.register(OrderEvent.class, TENANT, 3, listener);
+		final OrderEvent event = new OrderEvent(3);
+
+		// the matching group is resolved as is, without merging
+		final EventListener<OrderEvent>[] resolved = bus.getRegistry().resolveListeners(event);
+		assertThat(resolved.length, is(1));
+		assertThat(resolved[0], sameInstance(listener));
+
+		assertThat(bus.unregister(OrderEvent.class, TENANT, 4, listener), is(false));
+		assertThat(bus.unregister(OrderEvent.class, TENANT, 3, listener), is(true));
+		assertThat(bus.unregister(OrderEvent.class, TENANT, 3, listener), is(false));
+		assertThat(bus.getRegistry().resolveListeners(event).length, is(0));
+		assertThat(bus.getRegistry().getEventTypes().contains(OrderEvent.class), is(false));
+
+		bus.register(OrderEvent.class, TENANT, 3, listener);
+		bus.getRegistry().unregisterAll(OrderEvent.class);
+		bus.dispatch(event);
+		assertThat(handled.isEmpty(), is(true));
+	}
+
+	private static class OrderEvent implements Event {
+
+		private final Integer tenant;
+
+		private OrderEvent(final Integer tenant) {
+			this.tenant = tenant;
+		}
+	}
+
+	private static final class RefundEvent extends OrderEvent {
+
+		private RefundEvent(final Integer tenant) {
+			super(tenant);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.codec.EventCodec;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.journal.EventJournal;
+import pt.davidafsilva.jevents.journal.JournalPolicy;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the event journal
+ *
+ * @author David Silva
+ */
+public class JournalTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		EventDispatcher.INSTANCE.setJournal(null);
+		EventRegistry.INSTANCE.unregisterAll(TradeEvent.class);
+	}
+
+	@Test
+	public void append_and_reopen_test() throws IOException {
+		final Path directory = folder.getRoot().toPath();
+		final long second;
+		try (EventJournal journal = EventJournal.open(directory, new TradeCodec())) {
+			assertThat(journal.append(new TradeEvent(1)), is(0L));
+			second = journal.append(new TradeEvent(2));
+			journal.append(new TradeEvent(3));
+		}
+
+		try (EventJournal journal = EventJournal.open(directory, new TradeCodec())) {
+			journal.append(new TradeEvent(4));
+			assertThat(replay(journal, 0L), is(new long[]{1, 2, 3, 4}));
+			assertThat(replay(journal, second), is(new long[]{2, 3, 4}));
+			assertThat(replay(journal, journal.getEndOffset()), is(new long[0]));
+		}
+	}
+
+	@Test
+	public void torn_record_test() throws IOException {
+		final Path directory = folder.getRoot().toPath();
+		final long torn;
+		try (EventJournal journal = EventJournal.open(directory, new TradeCodec())) {
+			journal.append(new TradeEvent(1));
+			torn = journal.append(new TradeEvent(2));
+		}
+
+		// corrupt the payload of the last record, as if the crash happened while writing it
+		try (RandomAccessFile file = new RandomAccessFile(directory.resolve(String.format("%020d.log", 0)).toFile(),
+				"rw")) {
+			file.seek(torn + 8);
+			file.writeLong(-1L);
+		}
+
+		try (EventJournal journal = EventJournal.open(directory, new TradeCodec())) {
+			assertThat(journal.getEndOffset(), is(torn));
+			journal.append(new TradeEvent(3));
+			assertThat(replay(journal, 0L), is(new long[]{1, 3}));
+		}
+	}
+
+	@Test
+	public void rolling_and_retention_test() throws IOException {
+		final Path directory = folder.getRoot().toPath();
+		// 16 bytes per record: 256 records per segment
+		final JournalPolicy policy = JournalPolicy.of(4096, 3).withSync(0, 0, TimeUnit.SECONDS);
+		try (EventJournal journal = EventJournal.open(directory, new TradeCodec(), policy)) {
+			for (int i = 0; i < 1000; i++) {
+				journal.append(new TradeEvent(i));
+			}
+			assertThat(journal.getSegmentCount(), is(3));
+			// the first of the four segments was deleted
+			assertThat(journal.getStartOffset(), is(4096L));
+			assertThat(journal.getEndOffset(), is(1000 * 16L));
+
+			final long[] values = replay(journal, journal.getStartOffset());
+			assertThat(values.length, is(1000 - 256));
+			assertThat(values[0], is(256L));
+			assertThat(values[values.length - 1], is(999L));
+		}
+	}
+
+	@Test
+	public void dispatcher_replay_test() throws IOException {
+		final List<Long> handled = new ArrayList<>();
+		EventRegistry.INSTANCE.register(TradeEvent.class, event -> handled.add(event.value));
+		try (EventJournal journal = EventJournal.open(folder.getRoot().toPath(), new TradeCodec())) {
+			EventDispatcher.INSTANCE.setJournal(journal);
+			EventDispatcher.INSTANCE.dispatch(new TradeEvent(1));
+			EventDispatcher.INSTANCE.dispatch(new TradeEvent(2));
+			assertThat(handled.size(), is(2));
+
+			// replayed events are not journaled again
+			assertThat(EventDispatcher.INSTANCE.replay(0L), is(journal.getEndOffset()));
+			assertThat(handled.size(), is(4));
+			assertThat(handled.get(3), is(2L));
+			assertThat(replay(journal, 0L).length, is(2));
+		}
+	}
+
+	/**
+	 * Replays the values of the trade events in the given journal
+	 *
+	 * @param journal
+	 * 		the journal
+	 * @param fromOffset
+	 * 		the offset of the first event
+	 * @return the replayed values
+	 */
+	private static long[] replay(final EventJournal journal, final long fromOffset) throws IOException {
+		final List<Long> values = new ArrayList<>();
+		journal.replay(fromOffset, event -> values.add(((TradeEvent) event).value));
+		return values.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * The journaled event
+	 */
+	private static final class TradeEvent implements Event {
+
+		private final long value;
+
+		private TradeEvent(final long value) {
+			this.value = value;
+		}
+	}
+
+	/**
+	 * The codec of the journaled events
+	 */
+	private static final class TradeCodec implements EventCodec<Event> {
+
+		@Override
+		public void encode(final Event event, final ByteBuffer target) {
+			target.putLong(((TradeEvent) event).value);
+		}
+
+		@Override
+		public Event decode(final ByteBuffer source) {
+			return new TradeEvent(source.getLong());
+		}
+	}
+}
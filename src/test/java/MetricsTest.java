@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.metrics.EventMetrics;
+import pt.davidafsilva.jevents.metrics.EventTypeMetricsMXBean;
+import pt.davidafsilva.jevents.metrics.LatencyHistogram;
+import pt.davidafsilva.jevents.metrics.ListenerMetricsMXBean;
+import pt.davidafsilva.jevents.metrics.StandardEventMetrics;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the event bus metrics
+ *
+ * @author David Silva
+ */
+public class MetricsTest {
+
+	private final StandardEventMetrics metrics = StandardEventMetrics.exported("MetricsTest");
+
+	@After
+	public void tearDown() {
+		EventDispatcher.INSTANCE.setMetrics(EventMetrics.NONE);
+		EventRegistry.INSTANCE.unregisterAll(OrderEvent.class);
+		metrics.close();
+	}
+
+	@Test
+	public void dispatch_metrics_test() throws Exception {
+		EventDispatcher.INSTANCE.setMetrics(metrics);
+		final EventListener<OrderEvent> listener = event -> {
+		};
+		EventRegistry.INSTANCE.register(OrderEvent.class, listener);
+		EventRegistry.INSTANCE.register(OrderEvent.class, event -> {
+			if (event.failing) {
+				throw new IllegalStateException("failing order");
+			}
+		});
+
+		for (int i = 0; i < 10; i++) {
+			EventDispatcher.INSTANCE.dispatch(new OrderEvent(false));
+			EventDispatcher.INSTANCE.dispatchAsync(new OrderEvent(false));
+		}
+		EventDispatcher.INSTANCE.dispatchAsync(new OrderEvent(true));
+		assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+
+		final EventTypeMetricsMXBean type = metrics.getEventTypeMetrics(OrderEvent.class);
+		assertThat(type.getDispatchCount(), is(21L));
+		assertThat(type.getAsyncDispatchCount(), is(11L));
+		assertThat(type.getListenerCount(), is(2));
+		assertThat(type.getQueueDepth(), is(0L));
+		assertThat(type.getFailedCount(), is(1L));
+
+		final ListenerMetricsMXBean listenerMetrics = metrics.getListenerMetrics(listener);
+		assertThat(listenerMetrics.getHandledCount(), is(21L));
+		assertThat(listenerMetrics.getP99Nanos() <= listenerMetrics.getMaxNanos(), is(true));
+
+		// exported through JMX
+		final ObjectName name = new ObjectName("pt.davidafsilva.jevents:type=EventType,bus=" +
+				ObjectName.quote("MetricsTest") + ",name=" + ObjectName.quote(OrderEvent.class.getName()));
+		assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "DispatchCount"), is((Object) 21L));
+	}
+
+	@Test
+	public void plain_metrics_test() throws Exception {
+		final StandardEventMetrics plain = StandardEventMetrics.create();
+		EventDispatcher.INSTANCE.setMetrics(plain);
+		final EventListener<OrderEvent> listener = event -> {
+		};
+		EventRegistry.INSTANCE.register(OrderEvent.class, listener);
+		try {
+			EventDispatcher.INSTANCE.dispatch(new OrderEvent(false));
+			EventDispatcher.INSTANCE.dispatchAsync(new OrderEvent(false));
+			assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+
+			assertThat(plain.getEventTypeMetrics(OrderEvent.class).getDispatchCount(), is(2L));
+			assertThat(plain.getListenerMetrics(listener).getHandledCount(), is(2L));
+		} finally {
+			plain.close();
+		}
+	}
+
+	@Test
+	public void removed_listener_metrics_test() throws Exception {
+		final EventBus bus = EventBus.create();
+		bus.getDispatcher().setMetrics(metrics);
+		try {
+			final NamedListener listener = new NamedListener("strong");
+			NamedListener weak = new NamedListener("weak");
+			final WeakReference<Object> weakRef = new WeakReference<>(weak);
+			bus.register(OrderEvent.class, listener);
+			bus.registerWeak(OrderEvent.class, weak);
+			bus.dispatch(new OrderEvent(false));
+			assertThat(metrics.getListenerMetrics(listener).getHandledCount(), is(1L));
+			assertThat(metrics.getListenerMetrics().size(), is(2));
+			assertThat(exportedListeners(), is(2));
+
+			// discarded once unregistered
+			assertThat(bus.unregister(OrderEvent.class, listener), is(true));
+			assertThat(metrics.getListenerMetrics(listener) == null, is(true));
+			assertThat(metrics.getListenerMetrics().size(), is(1));
+			assertThat(exportedListeners(), is(1));
+
+			// discarded once the weak listener is purged
+			weak = null;
+			for (int i = 0; i < 100 && weakRef.get() != null; i++) {
+				System.gc();
+				Thread.sleep(10);
+			}
+			assertThat(weakRef.get() == null, is(true));
+			for (int i = 0; i < 100 && bus.getRegistry().getListenerSnapshot(OrderEvent.class).length > 0; i++) {
+				bus.register(OtherEvent.class, event -> {
+				});
+				Thread.sleep(10);
+			}
+			assertThat(bus.getRegistry().getListenerSnapshot(OrderEvent.class).length, is(0));
+			assertThat(metrics.getListenerMetrics().size(), is(0));
+			assertThat(exportedListeners(), is(0));
+		} finally {
+			bus.shutdown();
+			assertThat(bus.awaitTermination(10, TimeUnit.SECONDS), is(true));
+		}
+	}
+
+	@Test
+	public void histogram_test() {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+		assertThat(histogram.getCount(), is(1000L));
+		assertThat(histogram.getMax(), is(1000L));
+		assertThat(histogram.getMean(), is(500.5d));
+		// bounded relative error
+		final long median = histogram.getValueAtPercentile(50d);
+		assertThat(median >= 500 && median <= 500 * 1.125, is(true));
+		assertThat(histogram.getValueAtPercentile(100d), is(1000L));
+		assertThat(histogram.getValueAtPercentile(0d), is(1L));
+	}
+
+	private static int exportedListeners() throws Exception {
+		return ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName(
+				"pt.davidafsilva.jevents:type=Listener,bus=" + ObjectName.quote("MetricsTest") + ",*"), null).size();
+	}
+
+	private static final class NamedListener implements EventListener<OrderEvent> {
+
+		private final String name;
+
+		private NamedListener(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void handle(final OrderEvent event) {
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private static final class OtherEvent implements Event {
+	}
+
+	private static final class OrderEvent implements Event {
+
+		private final boolean failing;
+
+		private OrderEvent(final boolean failing) {
+			this.failing = failing;
+		}
+	}
+}
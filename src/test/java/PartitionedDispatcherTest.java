@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.PartitionedDispatcher;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the partitioned dispatcher
+ *
+ * @author David Silva
+ */
+public class PartitionedDispatcherTest {
+
+	private static final int ACCOUNTS = 16;
+	private static final int EVENTS_PER_ACCOUNT = 5_000;
+
+	@Test
+	public void per_key_ordering_test() throws InterruptedException {
+		final PartitionedDispatcher partitioned = PartitionedDispatcher.create(4);
+		final Map<Integer, Integer> last = new ConcurrentHashMap<>();
+		final AtomicInteger outOfOrder = new AtomicInteger();
+		EventRegistry.INSTANCE.register(AccountEvent.class, event -> {
+			final Integer previous = last.put(event.account, event.sequence);
+			if (previous != null && previous + 1 != event.sequence) {
+				outOfOrder.incrementAndGet();
+			}
+		});
+		EventDispatcher.INSTANCE.route(AccountEvent.class, partitioned);
+
+		for (int i = 0; i < EVENTS_PER_ACCOUNT; i++) {
+			for (int account = 0; account < ACCOUNTS; account++) {
+				EventDispatcher.INSTANCE.dispatchAsync(new AccountEvent(account, i));
+			}
+		}
+		assertThat(EventDispatcher.INSTANCE.drain(10, TimeUnit.SECONDS), is(true));
+		assertThat(outOfOrder.get(), is(0));
+		assertThat(last.size(), is(ACCOUNTS));
+		for (Integer sequence : last.values()) {
+			assertThat(sequence, is(EVENTS_PER_ACCOUNT - 1));
+		}
+
+		EventDispatcher.INSTANCE.unroute(AccountEvent.class);
+		EventRegistry.INSTANCE.unregisterAll(AccountEvent.class);
+		partitioned.shutdown();
+		assertThat(partitioned.awaitTermination(10, TimeUnit.SECONDS), is(true));
+	}
+
+	private static final class AccountEvent implements Event {
+
+		private final int account;
+		private final int sequence;
+
+		private AccountEvent(final int account, final int sequence) {
+			this.account = account;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public Object getPartitionKey() {
+			return account;
+		}
+	}
+}
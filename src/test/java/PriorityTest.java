@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.Prioritized;
+import pt.davidafsilva.jevents.Priority;
+import pt.davidafsilva.jevents.dispatcher.AsyncEngine;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the priority-aware async scheduling
+ *
+ * @author David Silva
+ */
+public class PriorityTest {
+
+	private static final int EVENTS = 20;
+
+	private final AsyncEngine engine = AsyncEngine.prioritized(1);
+
+	private final CountDownLatch gate = new CountDownLatch(1);
+
+	private final List<Event> handled = new CopyOnWriteArrayList<>();
+
+	@After
+	public void tearDown() throws InterruptedException {
+		EventDispatcher.INSTANCE.unroute(GateEvent.class);
+		EventDispatcher.INSTANCE.unroute(LowEvent.class);
+		EventDispatcher.INSTANCE.unroute(CriticalEvent.class);
+		EventRegistry.INSTANCE.unregisterAll(GateEvent.class);
+		EventRegistry.INSTANCE.unregisterAll(LowEvent.class);
+		EventRegistry.INSTANCE.unregisterAll(CriticalEvent.class);
+		engine.shutdown();
+		assertThat(engine.awaitTermination(10, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void priority_of_test() {
+		assertThat(Priority.of(LowEvent.class), is(Priority.LOW));
+		assertThat(Priority.of(CriticalEvent.class), is(Priority.CRITICAL));
+		assertThat(Priority.of(GateEvent.class), is(Priority.NORMAL));
+		assertThat(new LowEvent(false).getPriority(), is(Priority.LOW));
+		assertThat(new LowEvent(true).getPriority(), is(Priority.HIGH));
+	}
+
+	@Test
+	public void overtake_test() throws InterruptedException {
+		setup();
+
+		// holds the single worker while the backlog builds up
+		EventDispatcher.INSTANCE.dispatchAsync(new GateEvent());
+		for (int i = 0; i < EVENTS; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new LowEvent(false));
+		}
+		final LowEvent urgent = new LowEvent(true);
+		EventDispatcher.INSTANCE.dispatchAsync(urgent);
+		final CriticalEvent critical = new CriticalEvent();
+		EventDispatcher.INSTANCE.dispatchAsync(critical);
+		gate.countDown();
+		assertThat(engine.drain(10, TimeUnit.SECONDS), is(true));
+
+		assertThat(handled.size(), is(EVENTS + 3));
+		assertThat(handled.get(1), is(critical));
+		assertThat(handled.get(2), is(urgent));
+	}
+
+	@Test
+	public void no_starvation_test() throws InterruptedException {
+		setup();
+
+		EventDispatcher.INSTANCE.dispatchAsync(new GateEvent());
+		for (int i = 0; i < EVENTS; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new LowEvent(false));
+		}
+		for (int i = 0; i < EVENTS; i++) {
+			EventDispatcher.INSTANCE.dispatchAsync(new CriticalEvent());
+		}
+		gate.countDown();
+		assertThat(engine.drain(10, TimeUnit.SECONDS), is(true));
+
+		// a round of critical events, followed by its low share
+		final int weight = Priority.CRITICAL.getWeight();
+		assertThat(handled.size(), is(2 * EVENTS + 1));
+		for (int i = 1; i <= weight; i++) {
+			assertThat(handled.get(i) instanceof CriticalEvent, is(true));
+		}
+		assertThat(handled.get(weight + 1) instanceof LowEvent, is(true));
+		assertThat(handled.get(weight + 2) instanceof CriticalEvent, is(true));
+	}
+
+	private void setup() {
+		EventRegistry.INSTANCE.register(GateEvent.class, event -> {
+			try {
+				gate.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handled.add(event);
+		});
+		EventRegistry.INSTANCE.register(LowEvent.class, handled::add);
+		EventRegistry.INSTANCE.register(CriticalEvent.class, handled::add);
+		EventDispatcher.INSTANCE.route(GateEvent.class, engine.dispatcher());
+		EventDispatcher.INSTANCE.route(LowEvent.class, engine.dispatcher());
+		EventDispatcher.INSTANCE.route(CriticalEvent.class, engine.dispatcher());
+	}
+
+	private static final class GateEvent implements Event {
+	}
+
+	@Prioritized(Priority.LOW)
+	private static final class LowEvent implements Event {
+
+		private final boolean urgent;
+
+		private LowEvent(final boolean urgent) {
+			this.urgent = urgent;
+		}
+
+		@Override
+		public Priority getPriority() {
+			return urgent ? Priority.HIGH : Event.super.getPriority();
+		}
+	}
+
+	@Prioritized(Priority.CRITICAL)
+	private static final class CriticalEvent implements Event {
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the listeners registry
+ *
+ * @author David Silva
+ */
+public class RegistryTest {
+
+	@Test
+	public void hierarchy_dispatch_test() {
+		final List<String> calls = new ArrayList<>();
+		final EventListener<ChildEvent> child = new EventListener<ChildEvent>() {
+			@Override
+			public void handle(ChildEvent event) {
+				calls.add("child");
+			}
+		};
+		final EventListener<ParentEvent> parent = new EventListener<ParentEvent>() {
+			@Override
+			public void handle(ParentEvent event) {
+				calls.add("parent");
+			}
+		};
+		final EventListener<MarkerEvent> marker = new EventListener<MarkerEvent>() {
+			@Override
+			public void handle(MarkerEvent event) {
+				calls.add("marker");
+			}
+		};
+
+		EventRegistry.INSTANCE.register(child);
+		EventDispatcher.INSTANCE.dispatch(new ChildEvent());
+		assertThat(calls.toString(), is("[child]"));
+
+		// registering super types must invalidate the cached plan
+		EventRegistry.INSTANCE.register(marker);
+		EventRegistry.INSTANCE.register(parent);
+		calls.clear();
+		EventDispatcher.INSTANCE.dispatch(new ChildEvent());
+		assertThat(calls.toString(), is("[child, parent, marker]"));
+
+		// the parent event does not trigger the child listeners
+		calls.clear();
+		EventDispatcher.INSTANCE.dispatch(new ParentEvent());
+		assertThat(calls.toString(), is("[parent, marker]"));
+
+		EventRegistry.INSTANCE.unregister(parent);
+		EventRegistry.INSTANCE.unregister(marker);
+		EventRegistry.INSTANCE.unregister(child);
+		calls.clear();
+		EventDispatcher.INSTANCE.dispatch(new ChildEvent());
+		assertThat(calls.isEmpty(), is(true));
+	}
+
+	@Test
+	public void listener_type_resolution_test() {
+		final AtomicInteger calls = new AtomicInteger();
+		final EventListener<ConcurrentEvent> inherited = new InheritedListener(calls);
+		final EventListener<ConcurrentEvent> lambda = event -> calls.incrementAndGet();
+
+		assertThat(inherited.getEventClass() == ConcurrentEvent.class, is(true));
+		EventRegistry.INSTANCE.register(inherited);
+		EventRegistry.INSTANCE.register(ConcurrentEvent.class, lambda);
+		EventDispatcher.INSTANCE.dispatch(new ConcurrentEvent());
+		assertThat(calls.get(), is(2));
+
+		assertThat(EventRegistry.INSTANCE.unregister(ConcurrentEvent.class, lambda), is(true));
+		assertThat(EventRegistry.INSTANCE.unregister(inherited), is(true));
+		assertThat(EventRegistry.INSTANCE.getEventListeners(ConcurrentEvent.class).isEmpty(), is(true));
+	}
+
+	@Test
+	public void concurrent_registration_test() throws InterruptedException {
+		final int threads = 8;
+		final int listenersPerThread = 250;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final AtomicInteger calls = new AtomicInteger();
+		for (int t = 0; t < threads; t++) {
+			new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < listenersPerThread; i++) {
+						final EventListener<ConcurrentEvent> listener = new CountingListener(calls);
+						EventRegistry.INSTANCE.register(listener);
+						EventDispatcher.INSTANCE.dispatch(new ConcurrentEvent());
+						if (i % 2 == 0) {
+							EventRegistry.INSTANCE.unregister(listener);
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					done.countDown();
+				}
+			}).start();
+		}
+		start.countDown();
+		done.await();
+
+		assertThat(EventRegistry.INSTANCE.getEventListeners(ConcurrentEvent.class).size(),
+				is(threads * listenersPerThread / 2));
+
+		calls.set(0);
+		EventDispatcher.INSTANCE.dispatch(new ConcurrentEvent());
+		assertThat(calls.get(), is(threads * listenersPerThread / 2));
+		EventRegistry.INSTANCE.unregisterAll(ConcurrentEvent.class);
+	}
+
+	private static final class CountingListener implements EventListener<ConcurrentEvent> {
+
+		private final AtomicInteger calls;
+
+		private CountingListener(final AtomicInteger calls) {
+			this.calls = calls;
+		}
+
+		@Override
+		public void handle(ConcurrentEvent event) {
+			calls.incrementAndGet();
+		}
+	}
+
+	private abstract static class AbstractListener<T extends Event> implements EventListener<T> {
+	}
+
+	private static final class InheritedListener extends AbstractListener<ConcurrentEvent> {
+
+		private final AtomicInteger calls;
+
+		private InheritedListener(final AtomicInteger calls) {
+			this.calls = calls;
+		}
+
+		@Override
+		public void handle(ConcurrentEvent event) {
+			calls.incrementAndGet();
+		}
+	}
+
+	private interface MarkerEvent extends Event {
+	}
+
+	private static class ParentEvent implements MarkerEvent {
+	}
+
+	private static final class ChildEvent extends ParentEvent {
+	}
+
+	private static final class ConcurrentEvent implements Event {
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.RingBufferDispatcher;
+import pt.davidafsilva.jevents.dispatcher.WaitStrategy;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the ring buffer dispatcher
+ *
+ * @author David Silva
+ */
+public class RingBufferDispatcherTest {
+
+	private static final int PRODUCERS = 4;
+	private static final int CONSUMERS = 2;
+	private static final int EVENTS_PER_PRODUCER = 20_000;
+
+	@Test
+	public void multi_producer_test() throws InterruptedException {
+		for (WaitStrategy strategy : WaitStrategy.values()) {
+			// busy spinning requires a dedicated core per thread
+			if (strategy == WaitStrategy.BUSY_SPIN &&
+					Runtime.getRuntime().availableProcessors() < PRODUCERS + CONSUMERS) {
+				continue;
+			}
+			final RingBufferDispatcher ring = RingBufferDispatcher.create(64, CONSUMERS, strategy);
+			final AtomicLong sum = new AtomicLong();
+			final AtomicLong calls = new AtomicLong();
+			EventRegistry.INSTANCE.register(TelemetryEvent.class, event -> sum.addAndGet(event.value));
+			EventRegistry.INSTANCE.register(TelemetryEvent.class, event -> calls.incrementAndGet());
+			EventDispatcher.INSTANCE.route(TelemetryEvent.class, ring);
+
+			final List<Thread> producers = new ArrayList<>();
+			for (int p = 0; p < PRODUCERS; p++) {
+				final Thread producer = new Thread(() -> {
+					for (int i = 1; i <= EVENTS_PER_PRODUCER; i++) {
+						EventDispatcher.INSTANCE.dispatchAsync(new TelemetryEvent(i));
+					}
+				});
+				producers.add(producer);
+				producer.start();
+			}
+			for (Thread producer : producers) {
+				producer.join();
+			}
+
+			assertThat(EventDispatcher.INSTANCE.drain(10, TimeUnit.SECONDS), is(true));
+			assertThat(calls.get(), is((long) PRODUCERS * EVENTS_PER_PRODUCER));
+			assertThat(sum.get(), is(PRODUCERS * (EVENTS_PER_PRODUCER * (EVENTS_PER_PRODUCER + 1L) / 2)));
+
+			assertThat(EventDispatcher.INSTANCE.unroute(TelemetryEvent.class) == ring, is(true));
+			EventRegistry.INSTANCE.unregisterAll(TelemetryEvent.class);
+			ring.shutdown();
+			assertThat(ring.awaitTermination(10, TimeUnit.SECONDS), is(true));
+		}
+	}
+
+	@Test
+	public void shutdown_race_test() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			final RingBufferDispatcher ring = RingBufferDispatcher.create(8, CONSUMERS, WaitStrategy.YIELD);
+			final AtomicLong handled = new AtomicLong();
+			final AtomicLong accepted = new AtomicLong();
+			final EventListener<TelemetryEvent>[] listeners = listeners(event -> handled.incrementAndGet());
+
+			final List<Thread> producers = new ArrayList<>();
+			for (int p = 0; p < PRODUCERS; p++) {
+				final Thread producer = new Thread(() -> {
+					try {
+						while (true) {
+							ring.dispatchTo(new TelemetryEvent(1), listeners);
+							accepted.incrementAndGet();
+						}
+					} catch (RejectedExecutionException e) {
+						// shut down
+					}
+				});
+				producers.add(producer);
+				producer.start();
+			}
+			Thread.sleep(2);
+			ring.shutdown();
+			for (Thread producer : producers) {
+				producer.join();
+			}
+
+			// every accepted dispatch is handled before the consumers terminate
+			assertThat(ring.awaitTermination(10, TimeUnit.SECONDS), is(true));
+			assertThat(handled.get(), is(accepted.get()));
+		}
+	}
+
+	@Test(timeout = 10_000)
+	public void error_test() throws InterruptedException {
+		final RingBufferDispatcher ring = RingBufferDispatcher.create(4, WaitStrategy.YIELD);
+		final AtomicLong handled = new AtomicLong();
+		final EventListener<TelemetryEvent>[] listeners = listeners(event -> {
+			if (event.value == 1) {
+				throw new Error("boom");
+			}
+			handled.incrementAndGet();
+		});
+
+		// the consumer survives the error, hence the producers keep going once the ring wraps
+		for (int i = 1; i <= 20; i++) {
+			ring.dispatchTo(new TelemetryEvent(i), listeners);
+		}
+		assertThat(ring.drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(handled.get(), is(19L));
+		ring.shutdown();
+		assertThat(ring.awaitTermination(5, TimeUnit.SECONDS), is(true));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EventListener<TelemetryEvent>[] listeners(final EventListener<TelemetryEvent> listener) {
+		return new EventListener[]{listener};
+	}
+
+	private static final class TelemetryEvent implements Event {
+
+		private final long value;
+
+		private TelemetryEvent(final long value) {
+			this.value = value;
+		}
+	}
+}
@@ -28,10 +28,15 @@
 import org.junit.Test;
 import pt.davidafsilva.jevents.Event;
 import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.ReplyingEventListener;
+import pt.davidafsilva.jevents.dispatcher.DispatchResult;
 import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
 import pt.davidafsilva.jevents.registry.EventRegistry;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -57,13 +62,44 @@ public class SimpleTest {
 		// dispatch async
 		EventDispatcher.INSTANCE.dispatchAsync(createSimpleEventScenario());
 
-		// force sleep
-		Thread.sleep(500);
+		// wait for the async engine
+		assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
 
 		// check calls
 		validate();
 	}
 
+	@Test
+	public void submit_event_test() throws Exception {
+		// dispatch async, tracking the completion
+		final DispatchResult result = EventDispatcher.INSTANCE.submit(createSimpleEventScenario())
+				.get(5, TimeUnit.SECONDS);
+		assertThat(result.getListenerCount(), is(2));
+		assertThat(result.isSuccessful(), is(true));
+
+		// check calls
+		validate();
+	}
+
+	@Test
+	public void request_event_test() throws Exception {
+		EventRegistry.INSTANCE.unregisterAll(SimpleEvent.class);
+		EventRegistry.INSTANCE.register(new SimpleEventListener());
+		EventRegistry.INSTANCE.register(SimpleEvent.class, (ReplyingEventListener<SimpleEvent, Integer>) event -> 20);
+		EventRegistry.INSTANCE.register(SimpleEvent.class, (ReplyingEventListener<SimpleEvent, Integer>) event -> 22);
+
+		// collect the replies
+		final List<Integer> replies = EventDispatcher.INSTANCE.<SimpleEvent, Integer>request(new SimpleEvent())
+				.get(5, TimeUnit.SECONDS);
+		assertThat(replies.toString(), is("[20, 22]"));
+
+		// combine the replies
+		final int sum = EventDispatcher.INSTANCE.request(new SimpleEvent(), Collectors.summingInt(Integer.class::cast))
+				.get(5, TimeUnit.SECONDS);
+		assertThat(sum, is(42));
+		EventRegistry.INSTANCE.unregisterAll(SimpleEvent.class);
+	}
+
 	private SimpleEvent createSimpleEventScenario() {
 		// unregisters previously registered events
 		EventRegistry.INSTANCE.unregisterAll(SimpleEvent.class);
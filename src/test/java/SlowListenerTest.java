@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.dispatcher.ListenerState;
+import pt.davidafsilva.jevents.dispatcher.SlowListenerPolicy;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the slow listeners detection and containment
+ *
+ * @author David Silva
+ */
+public class SlowListenerTest {
+
+	@After
+	public void tearDown() {
+		EventDispatcher.INSTANCE.setSlowListenerPolicy(SlowListenerPolicy.DISABLED);
+		EventRegistry.INSTANCE.unregisterAll(QuoteEvent.class);
+	}
+
+	@Test
+	public void isolation_test() throws InterruptedException {
+		EventDispatcher.INSTANCE.setSlowListenerPolicy(SlowListenerPolicy.isolate(5, TimeUnit.MILLISECONDS, 2));
+		final AtomicInteger fast = new AtomicInteger();
+		final AtomicInteger slow = new AtomicInteger();
+		final EventListener<QuoteEvent> slowListener = event -> {
+			sleep(20);
+			slow.incrementAndGet();
+		};
+		EventRegistry.INSTANCE.register(QuoteEvent.class, slowListener);
+		EventRegistry.INSTANCE.register(QuoteEvent.class, event -> fast.incrementAndGet());
+
+		for (int i = 0; i < 5; i++) {
+			EventDispatcher.INSTANCE.dispatch(new QuoteEvent());
+		}
+		assertThat(EventDispatcher.INSTANCE.getListenerState(slowListener), is(ListenerState.ISOLATED));
+		assertThat(fast.get(), is(5));
+
+		// the isolated listener still handles every event
+		assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(slow.get(), is(5));
+	}
+
+	@Test
+	public void circuit_breaker_test() {
+		EventDispatcher.INSTANCE.setSlowListenerPolicy(SlowListenerPolicy.openCircuit(5, TimeUnit.MILLISECONDS, 1,
+				1, TimeUnit.HOURS));
+		final AtomicInteger slow = new AtomicInteger();
+		final EventListener<QuoteEvent> slowListener = event -> {
+			sleep(20);
+			slow.incrementAndGet();
+		};
+		EventRegistry.INSTANCE.register(QuoteEvent.class, slowListener);
+
+		EventDispatcher.INSTANCE.dispatch(new QuoteEvent());
+		assertThat(EventDispatcher.INSTANCE.getListenerState(slowListener), is(ListenerState.OPEN));
+
+		// skipped while open
+		EventDispatcher.INSTANCE.dispatch(new QuoteEvent());
+		assertThat(slow.get(), is(1));
+
+		EventDispatcher.INSTANCE.resetListenerState(slowListener);
+		assertThat(EventDispatcher.INSTANCE.getListenerState(slowListener), is(ListenerState.HEALTHY));
+		EventDispatcher.INSTANCE.dispatch(new QuoteEvent());
+		assertThat(slow.get(), is(2));
+	}
+
+	@Test
+	public void async_timeout_test() throws InterruptedException {
+		EventDispatcher.INSTANCE.setSlowListenerPolicy(SlowListenerPolicy.openCircuit(1, TimeUnit.HOURS, 1,
+				1, TimeUnit.HOURS).withTimeout(50, TimeUnit.MILLISECONDS));
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		final EventListener<QuoteEvent> hanging = event -> {
+			try {
+				Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+		};
+		EventRegistry.INSTANCE.register(QuoteEvent.class, hanging);
+
+		EventDispatcher.INSTANCE.dispatchAsync(new QuoteEvent());
+		assertThat(EventDispatcher.INSTANCE.drain(5, TimeUnit.SECONDS), is(true));
+		assertThat(interrupted.get(), is(true));
+		assertThat(EventDispatcher.INSTANCE.getListenerState(hanging), is(ListenerState.OPEN));
+	}
+
+	@Test
+	public void unregistered_listener_test() throws InterruptedException {
+		EventDispatcher.INSTANCE.setSlowListenerPolicy(SlowListenerPolicy.isolate(5, TimeUnit.MILLISECONDS, 2));
+		final AtomicInteger handled = new AtomicInteger();
+		EventListener<QuoteEvent> listener = event -> handled.incrementAndGet();
+		final WeakReference<Object> listenerRef = new WeakReference<>(listener);
+		EventRegistry.INSTANCE.register(QuoteEvent.class, listener);
+		EventDispatcher.INSTANCE.dispatch(new QuoteEvent());
+		assertThat(handled.get(), is(1));
+
+		// the tracked health does not keep the unregistered listener around
+		EventRegistry.INSTANCE.unregister(QuoteEvent.class, listener);
+		listener = null;
+		for (int i = 0; i < 100 && listenerRef.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(listenerRef.get() == null, is(true));
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class QuoteEvent implements Event {
+	}
+}
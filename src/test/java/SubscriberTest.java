@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.Subscribe;
+import pt.davidafsilva.jevents.dispatcher.ErrorHandler;
+import pt.davidafsilva.jevents.dispatcher.EventDispatcher;
+import pt.davidafsilva.jevents.registry.EventRegistry;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the annotated subscribers
+ *
+ * @author David Silva
+ */
+public class SubscriberTest {
+
+	@After
+	public void tearDown() {
+		EventRegistry.INSTANCE.unregisterAll(LoginEvent.class);
+		EventRegistry.INSTANCE.unregisterAll(LogoutEvent.class);
+	}
+
+	@Test
+	public void public_subscriber_test() {
+		final AuditSubscriber subscriber = new AuditSubscriber();
+		assertThat(EventRegistry.INSTANCE.registerAll(subscriber), is(3));
+
+		EventDispatcher.INSTANCE.dispatch(new LoginEvent());
+		EventDispatcher.INSTANCE.dispatch(new LogoutEvent());
+		assertThat(subscriber.logins, is(1));
+		assertThat(subscriber.logouts, is(1));
+		assertThat(subscriber.inherited, is(1));
+
+		assertThat(EventRegistry.INSTANCE.unregisterAll((Object) subscriber), is(3));
+		EventDispatcher.INSTANCE.dispatch(new LoginEvent());
+		assertThat(subscriber.logins, is(1));
+	}
+
+	@Test
+	public void private_subscriber_test() {
+		final PrivateSubscriber first = new PrivateSubscriber();
+		final PrivateSubscriber second = new PrivateSubscriber();
+		EventRegistry.INSTANCE.registerAll(first);
+		EventRegistry.INSTANCE.registerAll(second);
+
+		EventDispatcher.INSTANCE.dispatch(new LoginEvent());
+		assertThat(first.logins, is(1));
+		assertThat(second.logins, is(1));
+
+		// only the given instance is removed
+		EventRegistry.INSTANCE.unregisterAll((Object) first);
+		EventDispatcher.INSTANCE.dispatch(new LoginEvent());
+		assertThat(first.logins, is(1));
+		assertThat(second.logins, is(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_subscriber_test() {
+		EventRegistry.INSTANCE.registerAll(new InvalidSubscriber());
+	}
+
+	@Test
+	public void checked_exception_subscriber_test() {
+		try {
+			EventRegistry.INSTANCE.registerAll(new ThrowingSubscriber());
+			fail("checked exceptions would escape the listeners isolation");
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage().endsWith("it must not declare checked exceptions."), is(true));
+		}
+
+		// unchecked exceptions are isolated like the ones of any other listener
+		final UncheckedSubscriber subscriber = new UncheckedSubscriber();
+		EventDispatcher.INSTANCE.setErrorHandler((event, listener, failure) -> subscriber.failures++);
+		try {
+			assertThat(EventRegistry.INSTANCE.registerAll(subscriber), is(2));
+			EventDispatcher.INSTANCE.dispatch(new LoginEvent());
+			assertThat(subscriber.failures, is(1));
+			assertThat(subscriber.logins, is(1));
+		} finally {
+			EventDispatcher.INSTANCE.setErrorHandler(ErrorHandler.REPORT);
+		}
+	}
+
+	public static class BaseSubscriber {
+
+		int inherited;
+
+		@Subscribe
+		public void onAnyLogin(final LoginEvent event) {
+			inherited++;
+		}
+	}
+
+	public static final class AuditSubscriber extends BaseSubscriber {
+
+		int logins;
+		int logouts;
+
+		@Subscribe
+		public void onLogin(final LoginEvent event) {
+			logins++;
+		}
+
+		@Subscribe
+		public String onLogout(final LogoutEvent event) {
+			logouts++;
+			return "ignored";
+		}
+	}
+
+	private static final class PrivateSubscriber {
+
+		int logins;
+
+		@Subscribe
+		private void onLogin(final LoginEvent event) {
+			logins++;
+		}
+	}
+
+	public static final class InvalidSubscriber {
+
+		@Subscribe
+		public void onSomething(final String notAnEvent) {
+		}
+	}
+
+	public static final class ThrowingSubscriber {
+
+		@Subscribe
+		public void onLogin(final LoginEvent event) throws IOException {
+			throw new IOException("boom");
+		}
+	}
+
+	public static final class UncheckedSubscriber {
+
+		int failures;
+
+		int logins;
+
+		@Subscribe
+		public void onLogin(final LoginEvent event) throws IllegalStateException {
+			throw new IllegalStateException("boom");
+		}
+
+		@Subscribe
+		public void onAnotherLogin(final LoginEvent event) {
+			logins++;
+		}
+	}
+
+	public static final class LoginEvent implements Event {
+	}
+
+	public static final class LogoutEvent implements Event {
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, David Silva
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *         * Redistributions of source code must retain the above copyright
+ *             notice, this list of conditions and the following disclaimer.
+ *         * Redistributions in binary form must reproduce the above copyright
+ *             notice, this list of conditions and the following disclaimer in the
+ *             documentation and/or other materials provided with the distribution.
+ *         * Neither the name of the <organization> nor the
+ *             names of its contributors may be used to endorse or promote products
+ *             derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+import pt.davidafsilva.jevents.Event;
+import pt.davidafsilva.jevents.EventBus;
+import pt.davidafsilva.jevents.EventListener;
+import pt.davidafsilva.jevents.Subscribe;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests the weak registration of listeners
+ *
+ * @author David Silva
+ */
+public class WeakListenerTest {
+
+	private static final AtomicInteger HANDLED = new AtomicInteger();
+
+	private final EventBus bus = EventBus.create();
+
+	@After
+	public void tearDown() throws InterruptedException {
+		HANDLED.set(0);
+		bus.shutdown();
+		assertThat(bus.awaitTermination(10, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void reachable_test() {
+		final CountingListener listener = new CountingListener();
+		final Session session = new Session();
+		bus.registerWeak(SessionEvent.class, listener);
+		assertThat(bus.registerAllWeak(session), is(1));
+
+		bus.dispatch(new SessionEvent());
+		assertThat(HANDLED.get(), is(2));
+
+		// unregistered through the original listener and subscriber
+		assertThat(bus.unregister(SessionEvent.class, listener), is(true));
+		assertThat(bus.unregisterAll(session), is(1));
+		assertThat(bus.getRegistry().getListenerSnapshot(SessionEvent.class).length, is(0));
+	}
+
+	@Test
+	public void purge_test() throws InterruptedException {
+		CountingListener listener = new CountingListener();
+		Session session = new Session();
+		final WeakReference<Object> listenerRef = new WeakReference<>(listener);
+		final WeakReference<Object> sessionRef = new WeakReference<>(session);
+		bus.registerWeak(SessionEvent.class, listener);
+		bus.registerAllWeak(session);
+		assertThat(bus.getRegistry().getListenerSnapshot(SessionEvent.class).length, is(2));
+
+		listener = null;
+		session = null;
+		for (int i = 0; i < 100 && (listenerRef.get() != null || sessionRef.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(listenerRef.get() == null && sessionRef.get() == null, is(true));
+
+		// collected listeners are ignored, but only purged by the next modification
+		bus.dispatch(new SessionEvent());
+		assertThat(HANDLED.get(), is(0));
+		for (int i = 0; i < 100 && bus.getRegistry().getListenerSnapshot(SessionEvent.class).length > 0; i++) {
+			bus.register(OtherEvent.class, event -> {});
+			Thread.sleep(10);
+		}
+		assertThat(bus.getRegistry().getListenerSnapshot(SessionEvent.class).length, is(0));
+	}
+
+	private static final class CountingListener implements EventListener<SessionEvent> {
+
+		@Override
+		public void handle(final SessionEvent event) {
+			HANDLED.incrementAndGet();
+		}
+	}
+
+	public static final class Session {
+
+		@Subscribe
+		public void onEvent(final SessionEvent event) {
+			HANDLED.incrementAndGet();
+		}
+	}
+
+	public static final class SessionEvent implements Event {
+	}
+
+	private static final class OtherEvent implements Event {
+	}
+}